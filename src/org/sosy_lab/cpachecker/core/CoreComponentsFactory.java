@@ -55,6 +55,7 @@ import org.sosy_lab.cpachecker.core.algorithm.ProgramSplitAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.RestartAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.RestartWithConditionsAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.RestrictedProgramDomainAlgorithm;
+import org.sosy_lab.cpachecker.core.algorithm.SchedulingSlot;
 import org.sosy_lab.cpachecker.core.algorithm.SelectionAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.TestCaseGeneratorAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.UndefinedFunctionCollectorAlgorithm;
@@ -276,6 +277,7 @@ public class CoreComponentsFactory {
   private final CPABuilder cpaFactory;
   private final AggregatedReachedSets aggregatedReachedSets;
   private final @Nullable AggregatedReachedSetManager aggregatedReachedSetManager;
+  private final @Nullable SchedulingSlot schedulingSlot;
 
   public CoreComponentsFactory(
       Configuration pConfig,
@@ -283,8 +285,23 @@ public class CoreComponentsFactory {
       ShutdownNotifier pShutdownNotifier,
       AggregatedReachedSets pAggregatedReachedSets)
       throws InvalidConfigurationException {
+    this(pConfig, pLogger, pShutdownNotifier, pAggregatedReachedSets, null);
+  }
+
+  /**
+   * Create a factory whose main {@link CPAAlgorithm} waits for its turn in the given slot (if not
+   * null) before it takes the next state from the waitlist.
+   */
+  public CoreComponentsFactory(
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      AggregatedReachedSets pAggregatedReachedSets,
+      @Nullable SchedulingSlot pSchedulingSlot)
+      throws InvalidConfigurationException {
     config = pConfig;
     logger = pLogger;
+    schedulingSlot = pSchedulingSlot;
 
     config.inject(this);
 
@@ -401,7 +418,7 @@ public class CoreComponentsFactory {
               aggregatedReachedSets);
 
     } else {
-      algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier);
+      algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier, schedulingSlot);
 
       if (constructResidualProgram) {
         algorithm = new ResidualProgramConstructionAlgorithm(cfa, config, logger, shutdownNotifier,
@@ -58,8 +58,10 @@ import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.value.refiner.UnsoundRefiner;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException;
+import org.sosy_lab.cpachecker.util.CPAs;
 
-public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSetUpdater {
+public class CEGARAlgorithm
+    implements Algorithm, StatisticsProvider, ReachedSetUpdater, AutoCloseable {
 
   private static class CEGARStatistics implements Statistics {
 
@@ -337,6 +339,12 @@ public class CEGARAlgorithm implements Algorithm, StatisticsProvider, ReachedSet
     pStatsCollection.add(stats);
   }
 
+  @Override
+  public void close() {
+    CPAs.closeIfPossible(algorithm, logger);
+    CPAs.closeIfPossible(mRefiner, logger);
+  }
+
   @Override
   public void register(ReachedSetUpdateListener pReachedSetUpdateListener) {
     if (algorithm instanceof ReachedSetUpdater) {
@@ -23,7 +23,13 @@
  */
 package org.sosy_lab.cpachecker.core.algorithm;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.google.common.base.Functions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.graph.Traverser;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -33,9 +39,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.ClassOption;
 import org.sosy_lab.common.configuration.Configuration;
@@ -47,6 +59,7 @@ import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.defaults.MergeSepOperator;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConcurrentlyUsableTransferRelation;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.ForcedCovering;
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
@@ -57,17 +70,24 @@ import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustmentResult.Action;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.ThreadSafeCPA;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.core.interfaces.WrapperTransferRelation;
+import org.sosy_lab.cpachecker.core.reachedset.ConcurrentPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGMergeJoinCPAEnabledAnalysis;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.arg.ARGTransferRelation;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatHist;
 import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 
 public class CPAAlgorithm implements Algorithm, StatisticsProvider {
@@ -94,6 +114,16 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
     private Map<String, AbstractStatValue> reachedSetStatistics = new HashMap<>();
 
+    /** Statistics for each worker thread, only used in parallel mode. */
+    private final List<WorkerStatistics> workerStatistics = new ArrayList<>();
+
+    private synchronized WorkerStatistics getWorkerStatistics(int pIndex) {
+      while (workerStatistics.size() <= pIndex) {
+        workerStatistics.add(new WorkerStatistics(workerStatistics.size()));
+      }
+      return workerStatistics.get(pIndex);
+    }
+
     private void stopAllTimers() {
       totalTimer.stopIfRunning();
       chooseTimer.stopIfRunning();
@@ -103,6 +133,9 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       stopTimer.stopIfRunning();
       addTimer.stopIfRunning();
       forcedCoveringTimer.stopIfRunning();
+      for (WorkerStatistics worker : workerStatistics) {
+        worker.stopAllTimers();
+      }
     }
 
     private void updateReachedSetStatistics(Map<String, AbstractStatValue> newStatistics) {
@@ -171,6 +204,53 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       out.println("  Time for stop operator:         " + stopTimer);
       out.println("  Time for adding to reached set: " + addTimer);
 
+      if (!workerStatistics.isEmpty()) {
+        out.println();
+        out.println("Number of worker threads:        " + workerStatistics.size());
+        for (WorkerStatistics worker : workerStatistics) {
+          worker.printStatistics(w);
+        }
+      }
+    }
+  }
+
+  /**
+   * Counters for a single worker thread of the parallel mode. Each timer is only started and
+   * stopped by its own worker thread, the counters are thread-safe anyway.
+   */
+  private static class WorkerStatistics {
+
+    private final int index;
+    private final Timer transferTimer = new Timer();
+    private final Timer waitTimer = new Timer();
+    private final Timer commitTimer = new Timer();
+    private final StatCounter countExpandedStates;
+    private final StatInt countSuccessors;
+    private final StatCounter countStaleStates;
+
+    private WorkerStatistics(int pIndex) {
+      index = pIndex;
+      countExpandedStates = new StatCounter("Number of expanded states");
+      countSuccessors = new StatInt(StatKind.SUM, "Number of computed successors");
+      countStaleStates =
+          new StatCounter("Number of expanded states removed meanwhile from reached set");
+    }
+
+    private void stopAllTimers() {
+      transferTimer.stopIfRunning();
+      waitTimer.stopIfRunning();
+      commitTimer.stopIfRunning();
+    }
+
+    private void printStatistics(StatisticsWriter w) {
+      w.put("Worker " + index, "")
+          .beginLevel()
+          .put(countExpandedStates)
+          .put(countSuccessors)
+          .put(countStaleStates)
+          .put("Time for transfer relation", transferTimer)
+          .put("Time for waiting on waitlist", waitTimer)
+          .put("Time for merge, stop and add", commitTimer);
     }
   }
 
@@ -188,19 +268,66 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         + " Useful for incomplete analysis with no counterexample checking.")
     private boolean reportFalseAsUnknown = false;
 
+    @Option(
+        secure = true,
+        description =
+            "Number of worker threads that expand states from the waitlist in parallel. "
+                + "With 1, the sequential algorithm is used, with -1 the number of available "
+                + "cores is used. Successors are computed concurrently, merge, stop and adding "
+                + "to the reached set are done in a synchronized phase. For analyses with "
+                + "merge-sep and without ARG, this phase only locks the partition of the "
+                + "successor if a concurrent reached set (e.g., CONCURRENTLOCATIONMAPPED) is used. "
+                + "This is only supported for analyses whose transfer relations are known to be "
+                + "thread-safe, currently ARGCPA, CompositeCPA, LocationCPA, CallstackCPA, "
+                + "ControlAutomatonCPA, and ValueAnalysisCPA.")
+    private int parallelWorkers = 1;
+
     private final ForcedCovering forcedCovering;
 
     private final ConfigurableProgramAnalysis cpa;
     private final LogManager logger;
     private final ShutdownNotifier shutdownNotifier;
+    private final @Nullable SchedulingSlot schedulingSlot;
 
     public CPAAlgorithmFactory(ConfigurableProgramAnalysis cpa, LogManager logger,
         Configuration config, ShutdownNotifier pShutdownNotifier) throws InvalidConfigurationException {
+      this(cpa, logger, config, pShutdownNotifier, null);
+    }
+
+    /**
+     * Create a factory for CPA algorithms that call {@link SchedulingSlot#awaitTurn()} on the given
+     * slot (if not null) before they take the next state from the waitlist.
+     */
+    public CPAAlgorithmFactory(
+        ConfigurableProgramAnalysis cpa,
+        LogManager logger,
+        Configuration config,
+        ShutdownNotifier pShutdownNotifier,
+        @Nullable SchedulingSlot pSchedulingSlot)
+        throws InvalidConfigurationException {
 
       config.inject(this);
       this.cpa = cpa;
       this.logger = logger;
       this.shutdownNotifier = pShutdownNotifier;
+      this.schedulingSlot = pSchedulingSlot;
+
+      if (parallelWorkers == -1) {
+        parallelWorkers = Runtime.getRuntime().availableProcessors();
+      } else if (parallelWorkers < 1) {
+        throw new InvalidConfigurationException(
+            "Number of worker threads for CPA algorithm must be positive or -1.");
+      }
+      if (parallelWorkers > 1) {
+        for (ConfigurableProgramAnalysis component : CPAs.asIterable(cpa)) {
+          if (!(component instanceof ThreadSafeCPA)) {
+            throw new InvalidConfigurationException(
+                "Parallel CPA algorithm (cpa.parallelWorkers) is not supported for "
+                    + component.getClass().getSimpleName()
+                    + ", whose transfer relation is not known to be thread-safe.");
+          }
+        }
+      }
 
       if (forcedCoveringClass != null) {
         forcedCovering = forcedCoveringClass.create(config, logger, cpa);
@@ -212,7 +339,14 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
     @Override
     public CPAAlgorithm newInstance() {
-      return new CPAAlgorithm(cpa, logger, shutdownNotifier, forcedCovering, reportFalseAsUnknown);
+      return new CPAAlgorithm(
+          cpa,
+          logger,
+          shutdownNotifier,
+          forcedCovering,
+          reportFalseAsUnknown,
+          parallelWorkers,
+          schedulingSlot);
     }
   }
 
@@ -222,12 +356,26 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     return new CPAAlgorithmFactory(cpa, logger, config, pShutdownNotifier).newInstance();
   }
 
+  public static CPAAlgorithm create(
+      ConfigurableProgramAnalysis cpa,
+      LogManager logger,
+      Configuration config,
+      ShutdownNotifier pShutdownNotifier,
+      @Nullable SchedulingSlot pSchedulingSlot)
+      throws InvalidConfigurationException {
+
+    return new CPAAlgorithmFactory(cpa, logger, config, pShutdownNotifier, pSchedulingSlot)
+        .newInstance();
+  }
+
 
   private final ForcedCovering forcedCovering;
 
   private final CPAStatistics               stats = new CPAStatistics();
 
   private final TransferRelation transferRelation;
+  /** The transfer relation if it builds an ARG, used by the parallel mode to lock only the ARG. */
+  private final @Nullable ARGTransferRelation argTransferRelation;
   private final MergeOperator mergeOperator;
   private final StopOperator stopOperator;
   private final PrecisionAdjustment precisionAdjustment;
@@ -238,12 +386,27 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
   private final AlgorithmStatus status;
 
+  private final int parallelWorkers;
+
+  /** The slot if this analysis is time-sliced with others by the {@link ParallelAlgorithm}. */
+  private final @Nullable SchedulingSlot schedulingSlot;
+
+  /** The transfer relations that need to be prepared for the parallel mode. */
+  private final ImmutableList<ConcurrentlyUsableTransferRelation>
+      concurrentlyUsableTransferRelations;
+
   private CPAAlgorithm(ConfigurableProgramAnalysis cpa, LogManager logger,
       ShutdownNotifier pShutdownNotifier,
       ForcedCovering pForcedCovering,
-      boolean pIsImprecise) {
+      boolean pIsImprecise,
+      int pParallelWorkers,
+      @Nullable SchedulingSlot pSchedulingSlot) {
 
     transferRelation = cpa.getTransferRelation();
+    argTransferRelation =
+        transferRelation instanceof ARGTransferRelation
+            ? (ARGTransferRelation) transferRelation
+            : null;
     mergeOperator = cpa.getMergeOperator();
     stopOperator = cpa.getStopOperator();
     precisionAdjustment = cpa.getPrecisionAdjustment();
@@ -251,21 +414,44 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     this.shutdownNotifier = pShutdownNotifier;
     this.forcedCovering = pForcedCovering;
     status = AlgorithmStatus.SOUND_AND_PRECISE.withPrecise(!pIsImprecise);
+    parallelWorkers = pParallelWorkers;
+    schedulingSlot = pSchedulingSlot;
+    if (parallelWorkers > 1) {
+      concurrentlyUsableTransferRelations =
+          FluentIterable.from(
+                  Traverser.forTree(
+                          (TransferRelation tr) ->
+                              (tr instanceof WrapperTransferRelation)
+                                  ? ((WrapperTransferRelation) tr).getWrappedTransferRelations()
+                                  : ImmutableList.of())
+                      .depthFirstPreOrder(transferRelation))
+              .filter(ConcurrentlyUsableTransferRelation.class)
+              .toList();
+    } else {
+      concurrentlyUsableTransferRelations = ImmutableList.of();
+    }
   }
 
   @Override
   public AlgorithmStatus run(final ReachedSet reachedSet) throws CPAException, InterruptedException {
     stats.totalTimer.start();
     try {
-      return run0(reachedSet);
+      if (parallelWorkers > 1) {
+        return runParallel(reachedSet, schedulingSlot);
+      }
+      return run0(reachedSet, schedulingSlot);
     } finally {
       stats.stopAllTimers();
       stats.updateReachedSetStatistics(reachedSet.getStatistics());
     }
   }
 
-  private AlgorithmStatus run0(final ReachedSet reachedSet) throws CPAException, InterruptedException {
+  private AlgorithmStatus run0(final ReachedSet reachedSet, final @Nullable SchedulingSlot slot)
+      throws CPAException, InterruptedException {
     while (reachedSet.hasWaitingState()) {
+      if (slot != null) {
+        slot.awaitTurn();
+      }
       shutdownNotifier.shutdownIfNecessary();
 
       stats.countIterations++;
@@ -301,6 +487,370 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     return status;
   }
 
+  /**
+   * Parallel variant of {@link #run0(ReachedSet, SchedulingSlot)}. Several worker threads take
+   * states from the waitlist and compute their successors concurrently. All accesses to the reached
+   * set (choosing from the waitlist, forced covering, precision adjustment, merge, stop, and
+   * adding) are synchronized on a common lock. The exception are analyses with merge-sep that
+   * neither build an ARG nor use forced covering: with a {@link ConcurrentPartitionedReachedSet},
+   * stop and add only lock the partition of the successor (cf. {@link #commitToPartitions}).
+   * Successors of states that were removed from the reached set in the meantime are dropped. The
+   * order in which states are expanded differs from the sequential algorithm, so the result is the
+   * same as for a sequential run with some waitlist order, which for a merge operator other than
+   * merge-sep need not be the configured one.
+   */
+  private AlgorithmStatus runParallel(
+      final ReachedSet reachedSet, final @Nullable SchedulingSlot slot)
+      throws CPAException, InterruptedException {
+    // The ARG and forced covering modify states of other partitions during stop.
+    final boolean commitToPartitions =
+        reachedSet instanceof ConcurrentPartitionedReachedSet
+            && mergeOperator == MergeSepOperator.getInstance()
+            && argTransferRelation == null
+            && forcedCovering == null;
+    final ParallelExploration exploration =
+        new ParallelExploration(
+            reachedSet,
+            slot,
+            commitToPartitions ? (ConcurrentPartitionedReachedSet) reachedSet : null);
+    concurrentlyUsableTransferRelations.forEach(
+        ConcurrentlyUsableTransferRelation::beginConcurrentUse);
+    final ExecutorService pool = Executors.newFixedThreadPool(parallelWorkers);
+    try {
+      final List<Future<?>> workers = new ArrayList<>(parallelWorkers);
+      for (int i = 0; i < parallelWorkers; i++) {
+        final WorkerStatistics workerStats = stats.getWorkerStatistics(i);
+        workers.add(
+            pool.submit(
+                () -> {
+                  runWorker(exploration, workerStats);
+                  return null;
+                }));
+      }
+      pool.shutdown();
+
+      // wait for all workers, such that none of them modifies the reached set afterwards
+      Throwable error = null;
+      for (Future<?> worker : workers) {
+        try {
+          worker.get();
+        } catch (ExecutionException e) {
+          if (error == null) {
+            error = e.getCause();
+          }
+        }
+      }
+      if (error != null) {
+        Throwables.propagateIfPossible(error, CPAException.class, InterruptedException.class);
+        throw new UnexpectedCheckedException("parallel CPA algorithm", error);
+      }
+    } finally {
+      // in case of an interrupt, we must stop the workers,
+      // otherwise we have running threads and CPAchecker does not terminate.
+      exploration.finish();
+      pool.shutdownNow();
+      // the per-thread data of the workers is not needed anymore
+      concurrentlyUsableTransferRelations.forEach(
+          ConcurrentlyUsableTransferRelation::endConcurrentUse);
+    }
+
+    return status;
+  }
+
+  /**
+   * Main loop of a single worker of the parallel mode. The worker terminates if the waitlist is
+   * empty and no other worker is still computing successors, or if some worker signalled BREAK or
+   * failed with an exception.
+   */
+  private void runWorker(final ParallelExploration exploration, final WorkerStatistics workerStats)
+      throws CPAException, InterruptedException {
+    final ReachedSet reachedSet = exploration.reachedSet;
+    try {
+      while (true) {
+        final AbstractState state;
+        final Precision precision;
+
+        if (exploration.slot != null) {
+          // wait outside of the lock, such that the other workers can finish their states
+          exploration.slot.awaitTurn();
+        }
+        synchronized (exploration) {
+          workerStats.waitTimer.start();
+          try {
+            while (!exploration.finished
+                && !reachedSet.hasWaitingState()
+                && exploration.statesInProgress > 0) {
+              exploration.wait();
+            }
+          } finally {
+            workerStats.waitTimer.stop();
+          }
+          if (exploration.finished || !reachedSet.hasWaitingState()) {
+            // wake up the other workers, they also have to terminate
+            exploration.finish();
+            return;
+          }
+          shutdownNotifier.shutdownIfNecessary();
+
+          stats.countIterations++;
+          int size = reachedSet.getWaitlist().size();
+          if (size >= stats.maxWaitlistSize) {
+            stats.maxWaitlistSize = size;
+          }
+          stats.countWaitlistSize += size;
+
+          stats.chooseTimer.start();
+          state = reachedSet.popFromWaitlist();
+          precision = reachedSet.getPrecision(state);
+          stats.chooseTimer.stop();
+
+          logger.log(Level.FINER, "Retrieved state from waitlist");
+          logger.log(Level.ALL, "Current state is", state, "with precision", precision);
+          try {
+            if (tryForcedCovering(state, precision, reachedSet)) {
+              continue;
+            }
+          } catch (CPAException | InterruptedException | RuntimeException e) {
+            reachedSet.reAddToWaitlist(state);
+            throw e;
+          }
+          exploration.statesInProgress++;
+        }
+
+        // compute the successors without holding the lock
+        Collection<? extends AbstractState> successors;
+        workerStats.transferTimer.start();
+        try {
+          if (argTransferRelation != null) {
+            // the ARG is shared by all workers, the successors are linked into it later
+            successors = argTransferRelation.getWrappedSuccessors((ARGState) state, precision);
+          } else {
+            successors = transferRelation.getAbstractSuccessors(state, precision);
+          }
+        } catch (CPAException | InterruptedException | RuntimeException e) {
+          synchronized (exploration) {
+            exploration.statesInProgress--;
+            reachedSet.reAddToWaitlist(state);
+          }
+          throw e;
+        } finally {
+          workerStats.transferTimer.stop();
+        }
+        workerStats.countExpandedStates.inc();
+        workerStats.countSuccessors.setNextValue(successors.size());
+
+        boolean terminate;
+        if (exploration.partitionedReachedSet != null) {
+          terminate = commitToPartitions(exploration, workerStats, state, precision, successors);
+        } else {
+          terminate =
+              commitUnderExplorationLock(exploration, workerStats, state, precision, successors);
+        }
+        if (terminate) {
+          return;
+        }
+      }
+    } catch (CPAException | InterruptedException | RuntimeException e) {
+      exploration.finish();
+      throw e;
+    }
+  }
+
+  /**
+   * Commit the successors of a state while holding the lock of the exploration, i.e., without any
+   * concurrent access to the reached set.
+   *
+   * @return true if the worker should terminate
+   */
+  private boolean commitUnderExplorationLock(
+      final ParallelExploration exploration,
+      final WorkerStatistics workerStats,
+      final AbstractState state,
+      final Precision precision,
+      Collection<? extends AbstractState> successors)
+      throws CPAException, InterruptedException {
+    final ReachedSet reachedSet = exploration.reachedSet;
+    synchronized (exploration) {
+      exploration.statesInProgress--;
+      // other workers might wait for new states in the waitlist or for termination,
+      // they are woken up after we released the lock.
+      exploration.notifyAll();
+
+      if (!reachedSet.contains(state)) {
+        // Another worker merged the state into a new one while we computed its successors.
+        // The sequential algorithm would never have expanded it, and the merged state is
+        // in the waitlist and will be expanded, so the successors are dropped.
+        workerStats.countStaleStates.inc();
+        return false;
+      }
+
+      if (exploration.finished) {
+        // another worker requested termination,
+        // keep the state such that the analysis can be continued later.
+        reachedSet.reAddToWaitlist(state);
+        return true;
+      }
+
+      workerStats.commitTimer.start();
+      try {
+        if (argTransferRelation != null) {
+          successors = argTransferRelation.linkSuccessors((ARGState) state, successors);
+        }
+        if (handleSuccessors(state, precision, successors, reachedSet)) {
+          // Prec operator requested break
+          exploration.finish();
+          return true;
+        }
+      } catch (CPAException | InterruptedException | RuntimeException e) {
+        reachedSet.reAddToWaitlist(state);
+        throw e;
+      } finally {
+        workerStats.commitTimer.stop();
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Commit the successors of a state into a {@link ConcurrentPartitionedReachedSet}. Only the
+   * precision adjustment, which may keep state between calls, is done while holding the lock of
+   * the exploration. Stop and add are done while holding only the lock of the partition of each
+   * successor, such that workers whose successors belong to different partitions commit
+   * concurrently. This requires merge-sep, because a merge may modify states of any partition.
+   *
+   * @return true if the worker should terminate
+   */
+  private boolean commitToPartitions(
+      final ParallelExploration exploration,
+      final WorkerStatistics workerStats,
+      final AbstractState state,
+      final Precision precision,
+      final Collection<? extends AbstractState> successors)
+      throws CPAException, InterruptedException {
+    final ConcurrentPartitionedReachedSet reachedSet =
+        checkNotNull(exploration.partitionedReachedSet);
+    int countStop = 0;
+    try {
+      final List<PrecisionAdjustmentResult> adjustedSuccessors =
+          new ArrayList<>(successors.size());
+      synchronized (exploration) {
+        if (exploration.finished) {
+          // another worker requested termination,
+          // keep the state such that the analysis can be continued later.
+          reachedSet.reAddToWaitlist(state);
+          return true;
+        }
+
+        workerStats.commitTimer.start();
+        try {
+          stats.countSuccessors += successors.size();
+          stats.maxSuccessors = Math.max(successors.size(), stats.maxSuccessors);
+          for (Iterator<? extends AbstractState> it = successors.iterator(); it.hasNext(); ) {
+            AbstractState successor = it.next();
+            shutdownNotifier.shutdownIfNecessary();
+            Optional<PrecisionAdjustmentResult> precAdjustmentResult =
+                adjustPrecision(successor, precision, reachedSet);
+            if (!precAdjustmentResult.isPresent()) {
+              continue;
+            }
+
+            if (precAdjustmentResult.orElseThrow().action() == Action.BREAK) {
+              // Rare, so commit all pending successors and this one like the sequential algorithm
+              adjustedSuccessors.add(precAdjustmentResult.orElseThrow());
+              for (PrecisionAdjustmentResult adjusted : adjustedSuccessors) {
+                Lock lock = reachedSet.getPartitionLock(adjusted.abstractState());
+                lock.lock();
+                try {
+                  if (handleAdjustedSuccessor(state, adjusted, it.hasNext(), reachedSet)) {
+                    exploration.finish();
+                    return true;
+                  }
+                } finally {
+                  lock.unlock();
+                }
+              }
+              adjustedSuccessors.clear();
+            } else {
+              adjustedSuccessors.add(precAdjustmentResult.orElseThrow());
+            }
+          }
+        } finally {
+          workerStats.commitTimer.stop();
+        }
+      }
+
+      workerStats.commitTimer.start();
+      try {
+        for (PrecisionAdjustmentResult adjusted : adjustedSuccessors) {
+          shutdownNotifier.shutdownIfNecessary();
+          AbstractState successor = adjusted.abstractState();
+          Precision successorPrecision = adjusted.precision();
+          Lock lock = reachedSet.getPartitionLock(successor);
+          lock.lock();
+          try {
+            boolean stop =
+                stopOperator.stop(successor, reachedSet.getReached(successor), successorPrecision);
+            if (stop) {
+              countStop++;
+            } else {
+              reachedSet.add(successor, successorPrecision);
+            }
+          } finally {
+            lock.unlock();
+          }
+        }
+      } finally {
+        workerStats.commitTimer.stop();
+      }
+      return false;
+
+    } catch (CPAException | InterruptedException | RuntimeException e) {
+      // already added successors are covered when the state is expanded again
+      reachedSet.reAddToWaitlist(state);
+      throw e;
+
+    } finally {
+      synchronized (exploration) {
+        exploration.statesInProgress--;
+        stats.countStop += countStop;
+        // other workers might wait for the successors in the waitlist or for termination
+        exploration.notifyAll();
+      }
+    }
+  }
+
+  /** Shared data of all workers of the parallel mode, also used as lock for the reached set. */
+  private static class ParallelExploration {
+
+    private final ReachedSet reachedSet;
+    private final @Nullable SchedulingSlot slot;
+
+    /**
+     * The reached set if successors can be committed while holding only the locks of their
+     * partitions, null if all commits are done while holding the lock of the exploration.
+     */
+    private final @Nullable ConcurrentPartitionedReachedSet partitionedReachedSet;
+
+    /** Number of states that were taken from the waitlist and whose successors are computed. */
+    private int statesInProgress = 0;
+
+    private boolean finished = false;
+
+    private ParallelExploration(
+        ReachedSet pReachedSet,
+        @Nullable SchedulingSlot pSlot,
+        @Nullable ConcurrentPartitionedReachedSet pPartitionedReachedSet) {
+      reachedSet = pReachedSet;
+      slot = pSlot;
+      partitionedReachedSet = pPartitionedReachedSet;
+    }
+
+    private synchronized void finish() {
+      finished = true;
+      notifyAll();
+    }
+  }
+
   /**
    * Handle one state from the waitlist, i.e., produce successors etc.
    * @param state The abstract state that was taken out of the waitlist
@@ -313,6 +863,31 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       throws CPAException, InterruptedException {
     logger.log(Level.ALL, "Current state is", state, "with precision", precision);
 
+    if (tryForcedCovering(state, precision, reachedSet)) {
+      return false;
+    }
+
+    stats.transferTimer.start();
+    Collection<? extends AbstractState> successors;
+    try {
+      successors = transferRelation.getAbstractSuccessors(state, precision);
+    } finally {
+      stats.transferTimer.stop();
+    }
+    // TODO When we have a nice way to mark the analysis result as incomplete,
+    // we could continue analysis on a CPATransferException with the next state from waitlist.
+
+    return handleSuccessors(state, precision, successors, reachedSet);
+  }
+
+  /**
+   * Try to cover the given state with forced covering, if configured.
+   *
+   * @return true if the state is covered and does not need to be expanded
+   */
+  private boolean tryForcedCovering(
+      final AbstractState state, final Precision precision, final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
     if (forcedCovering != null) {
       stats.forcedCoveringTimer.start();
       try {
@@ -320,23 +895,27 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
         if (stop) {
           // TODO: remove state from reached set?
-          return false;
+          return true;
         }
       } finally {
         stats.forcedCoveringTimer.stop();
       }
     }
+    return false;
+  }
 
-    stats.transferTimer.start();
-    Collection<? extends AbstractState> successors;
-    try {
-      successors = transferRelation.getAbstractSuccessors(state, precision);
-    } finally {
-      stats.transferTimer.stop();
-    }
-    // TODO When we have a nice way to mark the analysis result as incomplete,
-    // we could continue analysis on a CPATransferException with the next state from waitlist.
-
+  /**
+   * Handle the successors of one state from the waitlist, i.e., apply precision adjustment, merge
+   * and stop and add them to the reached set.
+   *
+   * @return true if analysis should terminate, false if analysis should continue with next state
+   */
+  private boolean handleSuccessors(
+      final AbstractState state,
+      final Precision precision,
+      final Collection<? extends AbstractState> successors,
+      final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
     int numSuccessors = successors.size();
     logger.log(Level.FINER, "Current state has", numSuccessors, "successors");
     stats.countSuccessors += numSuccessors;
@@ -348,121 +927,143 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       logger.log(Level.FINER, "Considering successor of current state");
       logger.log(Level.ALL, "Successor of", state, "\nis", successor);
 
-      stats.precisionTimer.start();
-      PrecisionAdjustmentResult precAdjustmentResult;
-      try {
-        Optional<PrecisionAdjustmentResult> precAdjustmentOptional =
-            precisionAdjustment.prec(
-                successor, precision, reachedSet, Functions.identity(), successor);
-        if (!precAdjustmentOptional.isPresent()) {
-          continue;
-        }
-        precAdjustmentResult = precAdjustmentOptional.orElseThrow();
-      } finally {
-        stats.precisionTimer.stop();
+      Optional<PrecisionAdjustmentResult> precAdjustmentResult =
+          adjustPrecision(successor, precision, reachedSet);
+      if (precAdjustmentResult.isPresent()
+          && handleAdjustedSuccessor(
+              state, precAdjustmentResult.orElseThrow(), it.hasNext(), reachedSet)) {
+        return true;
       }
+    }
 
-      successor = precAdjustmentResult.abstractState();
-      Precision successorPrecision = precAdjustmentResult.precision();
-      Action action = precAdjustmentResult.action();
+    return false;
+  }
 
-      if (action == Action.BREAK) {
-        stats.stopTimer.start();
-        boolean stop;
-        try {
-          stop = stopOperator.stop(successor, reachedSet.getReached(successor), successorPrecision);
-        } finally {
-          stats.stopTimer.stop();
-        }
+  private Optional<PrecisionAdjustmentResult> adjustPrecision(
+      final AbstractState successor, final Precision precision, final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+    stats.precisionTimer.start();
+    try {
+      return precisionAdjustment.prec(
+          successor, precision, reachedSet, Functions.identity(), successor);
+    } finally {
+      stats.precisionTimer.stop();
+    }
+  }
 
-        if (AbstractStates.isTargetState(successor) && stop) {
-          // don't signal BREAK for covered states
-          // no need to call merge and stop either, so just ignore this state
-          // and handle next successor
-          stats.countStop++;
-          logger.log(Level.FINER, "Break was signalled but ignored because the state is covered.");
-          continue;
+  /**
+   * Apply merge and stop to a successor after its precision adjustment, and add it to the reached
+   * set.
+   *
+   * @param hasMoreSuccessors whether there are unhandled successors of the state left
+   * @return true if analysis should terminate, false if analysis should continue
+   */
+  private boolean handleAdjustedSuccessor(
+      final AbstractState state,
+      final PrecisionAdjustmentResult precAdjustmentResult,
+      final boolean hasMoreSuccessors,
+      final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+    AbstractState successor = precAdjustmentResult.abstractState();
+    Precision successorPrecision = precAdjustmentResult.precision();
+    Action action = precAdjustmentResult.action();
 
-        } else {
-          stats.countBreak++;
-          logger.log(Level.FINER, "Break signalled, CPAAlgorithm will stop.");
+    if (action == Action.BREAK) {
+      stats.stopTimer.start();
+      boolean stop;
+      try {
+        stop = stopOperator.stop(successor, reachedSet.getReached(successor), successorPrecision);
+      } finally {
+        stats.stopTimer.stop();
+      }
 
-          // add the new state
-          reachedSet.add(successor, successorPrecision);
+      if (AbstractStates.isTargetState(successor) && stop) {
+        // don't signal BREAK for covered states
+        // no need to call merge and stop either, so just ignore this state
+        // and handle next successor
+        stats.countStop++;
+        logger.log(Level.FINER, "Break was signalled but ignored because the state is covered.");
+        return false;
 
-          if (it.hasNext()) {
-            // re-add the old state to the waitlist, there are unhandled
-            // successors left that otherwise would be forgotten
-            reachedSet.reAddToWaitlist(state);
-          }
+      } else {
+        stats.countBreak++;
+        logger.log(Level.FINER, "Break signalled, CPAAlgorithm will stop.");
 
-          return true;
+        // add the new state
+        reachedSet.add(successor, successorPrecision);
+
+        if (hasMoreSuccessors) {
+          // re-add the old state to the waitlist, there are unhandled
+          // successors left that otherwise would be forgotten
+          reachedSet.reAddToWaitlist(state);
         }
+
+        return true;
       }
-      assert action == Action.CONTINUE : "Enum Action has unhandled values!";
+    }
+    assert action == Action.CONTINUE : "Enum Action has unhandled values!";
 
-      Collection<AbstractState> reached = reachedSet.getReached(successor);
+    Collection<AbstractState> reached = reachedSet.getReached(successor);
 
-      // An optimization, we don't bother merging if we know that the
-      // merge operator won't do anything (i.e., it is merge-sep).
-      if (mergeOperator != MergeSepOperator.getInstance() && !reached.isEmpty()) {
-        stats.mergeTimer.start();
+    // An optimization, we don't bother merging if we know that the
+    // merge operator won't do anything (i.e., it is merge-sep).
+    if (mergeOperator != MergeSepOperator.getInstance() && !reached.isEmpty()) {
+      stats.mergeTimer.start();
+      try {
+        List<AbstractState> toRemove = new ArrayList<>();
+        List<Pair<AbstractState, Precision>> toAdd = new ArrayList<>();
         try {
-          List<AbstractState> toRemove = new ArrayList<>();
-          List<Pair<AbstractState, Precision>> toAdd = new ArrayList<>();
-          try {
-            logger.log(
-                Level.FINER, "Considering", reached.size(), "states from reached set for merge");
-            for (AbstractState reachedState : reached) {
-              shutdownNotifier.shutdownIfNecessary();
-              AbstractState mergedState =
-                  mergeOperator.merge(successor, reachedState, successorPrecision);
-
-              if (!mergedState.equals(reachedState)) {
-                logger.log(Level.FINER, "Successor was merged with state from reached set");
-                logger.log(
-                    Level.ALL, "Merged", successor, "\nand", reachedState, "\n-->", mergedState);
-                stats.countMerge++;
-
-                toRemove.add(reachedState);
-                toAdd.add(Pair.of(mergedState, successorPrecision));
-              }
+          logger.log(
+              Level.FINER, "Considering", reached.size(), "states from reached set for merge");
+          for (AbstractState reachedState : reached) {
+            shutdownNotifier.shutdownIfNecessary();
+            AbstractState mergedState =
+                mergeOperator.merge(successor, reachedState, successorPrecision);
+
+            if (!mergedState.equals(reachedState)) {
+              logger.log(Level.FINER, "Successor was merged with state from reached set");
+              logger.log(
+                  Level.ALL, "Merged", successor, "\nand", reachedState, "\n-->", mergedState);
+              stats.countMerge++;
+
+              toRemove.add(reachedState);
+              toAdd.add(Pair.of(mergedState, successorPrecision));
             }
-          } finally {
-            // If we terminate, we should still update the reachedSet if necessary
-            // because ARGCPA doesn't like states in toRemove to be in the reachedSet.
-            reachedSet.removeAll(toRemove);
-            reachedSet.addAll(toAdd);
           }
-
-          if (mergeOperator instanceof ARGMergeJoinCPAEnabledAnalysis) {
-            ((ARGMergeJoinCPAEnabledAnalysis) mergeOperator).cleanUp(reachedSet);
-          }
-
         } finally {
-          stats.mergeTimer.stop();
+          // If we terminate, we should still update the reachedSet if necessary
+          // because ARGCPA doesn't like states in toRemove to be in the reachedSet.
+          reachedSet.removeAll(toRemove);
+          reachedSet.addAll(toAdd);
+        }
+
+        if (mergeOperator instanceof ARGMergeJoinCPAEnabledAnalysis) {
+          ((ARGMergeJoinCPAEnabledAnalysis) mergeOperator).cleanUp(reachedSet);
         }
-      }
 
-      stats.stopTimer.start();
-      boolean stop;
-      try {
-        stop = stopOperator.stop(successor, reached, successorPrecision);
       } finally {
-        stats.stopTimer.stop();
+        stats.mergeTimer.stop();
       }
+    }
 
-      if (stop) {
-        logger.log(Level.FINER, "Successor is covered or unreachable, not adding to waitlist");
-        stats.countStop++;
+    stats.stopTimer.start();
+    boolean stop;
+    try {
+      stop = stopOperator.stop(successor, reached, successorPrecision);
+    } finally {
+      stats.stopTimer.stop();
+    }
 
-      } else {
-        logger.log(Level.FINER, "No need to stop, adding successor to waitlist");
+    if (stop) {
+      logger.log(Level.FINER, "Successor is covered or unreachable, not adding to waitlist");
+      stats.countStop++;
 
-        stats.addTimer.start();
-        reachedSet.add(successor, successorPrecision);
-        stats.addTimer.stop();
-      }
+    } else {
+      logger.log(Level.FINER, "No need to stop, adding successor to waitlist");
+
+      stats.addTimer.start();
+      reachedSet.add(successor, successorPrecision);
+      stats.addTimer.stop();
     }
 
     return false;
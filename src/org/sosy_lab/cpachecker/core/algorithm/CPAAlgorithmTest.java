@@ -0,0 +1,251 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multiset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.callstack.CallstackState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+public class CPAAlgorithmTest {
+
+  private static final String LOCATION_AND_CALLSTACK =
+      "cpa.location.LocationCPA, cpa.callstack.CallstackCPA";
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void parallelReachedSetEqualsSequential_functionCall() throws Exception {
+    checkParallelReachedSetEqualsSequential("test/programs/simple/functionCall.c");
+  }
+
+  @Test
+  public void parallelReachedSetEqualsSequential_loop() throws Exception {
+    checkParallelReachedSetEqualsSequential("test/programs/simple/loop1.c");
+  }
+
+  @Test
+  public void parallelValueAnalysisVerdict_safe() throws Exception {
+    checkParallelVerdictEqualsSequential(branchingProgram(46), Result.TRUE);
+    checkParallelVerdictEqualsSequential(
+        "test/programs/simple/binary-or-optimization_true-unreach-label.c", Result.TRUE);
+  }
+
+  @Test
+  public void parallelValueAnalysisVerdict_unsafe() throws Exception {
+    checkParallelVerdictEqualsSequential(branchingProgram(45), Result.FALSE);
+    checkParallelVerdictEqualsSequential(
+        "test/programs/simple/binary-or-optimization_false-unreach-label.c", Result.FALSE);
+  }
+
+  @Test
+  public void parallelValueAnalysisReachedSetEqualsSequential() throws Exception {
+    // The workers compute successors with the same transfer relation, which would mix up the
+    // values of different edges if its per-edge information was not confined to each thread.
+    String program = branchingProgram(46);
+    Multiset<String> sequential = getValueStates(runValueAnalysis(program, 1));
+    assertThat(sequential).isNotEmpty();
+    for (int i = 0; i < 5; i++) {
+      // repeat a few times, the interleaving of the workers differs between runs
+      assertThat(getValueStates(runValueAnalysis(program, 4))).isEqualTo(sequential);
+    }
+  }
+
+  @Test
+  public void parallelCommitToPartitionsReachedSetEqualsSequential() throws Exception {
+    // Without ARG and with merge-sep, the workers add successors to the concurrent reached set
+    // while holding only the locks of their partitions.
+    String program = branchingProgram(46);
+    Multiset<String> sequential = getValueStates(runValueAnalysisWithoutARG(program, 1));
+    assertThat(sequential).isNotEmpty();
+    for (int i = 0; i < 5; i++) {
+      // repeat a few times, the interleaving of the workers differs between runs
+      assertThat(getValueStates(runValueAnalysisWithoutARG(program, 4))).isEqualTo(sequential);
+    }
+  }
+
+  @Test
+  public void parallelModeRejectsUnsafeCPA() throws Exception {
+    TestResults results =
+        CPATestRunner.run(
+            ImmutableMap.of(
+                "cpa", "cpa.arg.ARGCPA",
+                "ARGCPA.cpa", "cpa.composite.CompositeCPA",
+                "CompositeCPA.cpas",
+                    LOCATION_AND_CALLSTACK + ", cpa.functionpointer.FunctionPointerCPA",
+                "cpa.parallelWorkers", "4"),
+            "test/programs/simple/functionCall.c");
+
+    assertThat(results.getCheckerResult().getResult()).isEqualTo(Result.NOT_YET_STARTED);
+    assertThat(results.getLog()).contains("not known to be thread-safe");
+  }
+
+  private static void checkParallelVerdictEqualsSequential(String pProgram, Result pExpected)
+      throws Exception {
+    assertThat(runValueAnalysis(pProgram, 1).getCheckerResult().getResult()).isEqualTo(pExpected);
+    for (int i = 0; i < 5; i++) {
+      // repeat a few times, the interleaving of the workers differs between runs
+      TestResults results = runValueAnalysis(pProgram, 4);
+      assertThat(results.getCheckerResult().getResult()).isEqualTo(pExpected);
+
+      // all states are linked into the ARG
+      UnmodifiableReachedSet reached = results.getCheckerResult().getReached();
+      for (AbstractState state : reached) {
+        if (state != reached.getFirstState()) {
+          assertThat(((ARGState) state).getParents()).isNotEmpty();
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs the value analysis with the configuration for model checking, without FunctionPointerCPA,
+   * which is not supported by the parallel mode, and without the counterexample check.
+   */
+  private static TestResults runValueAnalysis(String pProgram, int pWorkers) throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .loadFromFile("config/valueAnalysis-NoCegar.properties")
+            .setOption(
+                "CompositeCPA.cpas", LOCATION_AND_CALLSTACK + ", cpa.value.ValueAnalysisCPA")
+            .setOption("analysis.checkCounterexamples", "false")
+            .setOption("cpa.parallelWorkers", Integer.toString(pWorkers))
+            .build();
+    return CPATestRunner.run(config, pProgram);
+  }
+
+  /** Runs the value analysis without ARG and with a concurrent reached set. */
+  private static TestResults runValueAnalysisWithoutARG(String pProgram, int pWorkers)
+      throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .setOption("cpa", "cpa.composite.CompositeCPA")
+            .setOption(
+                "CompositeCPA.cpas", LOCATION_AND_CALLSTACK + ", cpa.value.ValueAnalysisCPA")
+            .setOption("analysis.reachedSet", "CONCURRENTLOCATIONMAPPED")
+            .setOption("analysis.checkCounterexamples", "false")
+            .setOption("cpa.parallelWorkers", Integer.toString(pWorkers))
+            .build();
+    return CPATestRunner.run(config, pProgram);
+  }
+
+  /** The locations and value assignments of all reached states. */
+  private static Multiset<String> getValueStates(TestResults pResults) {
+    UnmodifiableReachedSet reached = pResults.getCheckerResult().getReached();
+    assertThat(reached.hasWaitingState()).isFalse();
+    Multiset<String> states = HashMultiset.create();
+    for (AbstractState state : reached) {
+      states.add(
+          AbstractStates.extractLocation(state).getNodeNumber()
+              + " "
+              + AbstractStates.extractStateByType(state, ValueAnalysisState.class));
+    }
+    return states;
+  }
+
+  /**
+   * A program that adds or subtracts the numbers 0 to 9, depending on nondeterministic branches,
+   * and reaches the error location if the sum has the given value.
+   */
+  private String branchingProgram(int pErrorSum) throws Exception {
+    Path program = tempFolder.getRoot().toPath().resolve("branching" + pErrorSum + ".c");
+    Files.write(
+        program,
+        ImmutableList.of(
+            "extern int __VERIFIER_nondet_int();",
+            "int main() {",
+            "  int sum = 0;",
+            "  for (int i = 0; i < 10; i++) {",
+            "    if (__VERIFIER_nondet_int()) {",
+            "      sum += i;",
+            "    } else {",
+            "      sum -= i;",
+            "    }",
+            "  }",
+            "  if (sum == " + pErrorSum + ") {",
+            "    ERROR: return 1;",
+            "  }",
+            "  return 0;",
+            "}"),
+        StandardCharsets.UTF_8);
+    return program.toString();
+  }
+
+  private static void checkParallelReachedSetEqualsSequential(String pProgram) throws Exception {
+    Multiset<String> sequential = getReachedStates(pProgram, 1);
+    assertThat(sequential).isNotEmpty();
+    for (int i = 0; i < 10; i++) {
+      // repeat a few times, the interleaving of the workers differs between runs
+      assertThat(getReachedStates(pProgram, 4)).isEqualTo(sequential);
+    }
+  }
+
+  /**
+   * Runs the analysis and returns its reached set, in a representation that is independent of the
+   * CFA instance and of the identity of the states.
+   */
+  private static Multiset<String> getReachedStates(String pProgram, int pWorkers)
+      throws Exception {
+    Map<String, String> options =
+        ImmutableMap.of(
+            "CompositeCPA.cpas", LOCATION_AND_CALLSTACK,
+            "cpa.parallelWorkers", Integer.toString(pWorkers));
+    TestResults results = CPATestRunner.run(options, pProgram);
+    UnmodifiableReachedSet reached = results.getCheckerResult().getReached();
+    assertThat(reached).isNotNull();
+    assertThat(reached.hasWaitingState()).isFalse();
+
+    Multiset<String> states = HashMultiset.create();
+    for (AbstractState state : reached) {
+      CallstackState callstack = AbstractStates.extractStateByType(state, CallstackState.class);
+      StringBuilder sb = new StringBuilder();
+      sb.append(AbstractStates.extractLocation(state).getNodeNumber());
+      for (CallstackState frame = callstack; frame != null; frame = frame.getPreviousState()) {
+        sb.append(' ').append(frame.getCurrentFunction());
+      }
+      states.add(sb.toString());
+    }
+    return states;
+  }
+}
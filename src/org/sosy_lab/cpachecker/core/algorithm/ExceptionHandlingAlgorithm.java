@@ -56,9 +56,10 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.InfeasibleCounterexampleException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException;
 import org.sosy_lab.cpachecker.exceptions.UnsupportedCodeException;
+import org.sosy_lab.cpachecker.util.CPAs;
 
 public class ExceptionHandlingAlgorithm
-    implements Algorithm, StatisticsProvider, ReachedSetUpdater {
+    implements Algorithm, StatisticsProvider, ReachedSetUpdater, AutoCloseable {
 
   @Options
   private static class ExceptionHandlingOptions {
@@ -394,6 +395,11 @@ public class ExceptionHandlingAlgorithm
     }
   }
 
+  @Override
+  public void close() {
+    CPAs.closeIfPossible(algorithm, logger);
+  }
+
   @Override
   public void register(ReachedSetUpdateListener pReachedSetUpdateListener) {
     if (algorithm instanceof ReachedSetUpdater) {
@@ -62,15 +62,20 @@ import org.sosy_lab.common.configuration.AnnotatedValue;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.ConfigurationBuilder;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.CoreComponentsFactory;
 import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.algorithm.ParallelAnalysisScheduler.Slot;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantExchange;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
@@ -109,6 +114,28 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
   @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
   private List<AnnotatedValue<Path>> configFiles;
 
+  @Option(
+      secure = true,
+      description =
+          "Maximum number of analyses that are allowed to progress at the same time"
+              + " (0 for no limit). If there are more analyses, they are time-sliced:"
+              + " regularly, the analysis that expanded the fewest states is paused and"
+              + " a paused analysis is resumed as soon as the former has stopped. Analyses"
+              + " are paused only while they are exploring a reached set, i.e., before they"
+              + " take the next state from the waitlist. An analysis that does not reach"
+              + " this point within one more interval (e.g., because of a long solver query)"
+              + " loses its slot to a paused analysis until it stops.")
+  @IntegerOption(min = 0)
+  private int maxActiveAnalyses = 0;
+
+  @Option(
+      secure = true,
+      description =
+          "Interval in which the analyses are rescheduled if there are more analyses"
+              + " than parallelAlgorithm.maxActiveAnalyses.")
+  @TimeSpanOption(codeUnit = TimeUnit.MILLISECONDS, defaultUserUnit = TimeUnit.SECONDS, min = 1)
+  private TimeSpan schedulingInterval = TimeSpan.ofSeconds(5);
+
   private static final String SUCCESS_MESSAGE =
       "One of the parallel analyses has finished successfully, cancelling all other runs.";
 
@@ -128,6 +155,8 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
 
   private final ImmutableList<Callable<ParallelAnalysisResult>> analyses;
 
+  private final @Nullable ParallelAnalysisScheduler scheduler;
+
   public ParallelAlgorithm(
       Configuration config,
       LogManager pLogger,
@@ -138,16 +167,25 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
       throws InvalidConfigurationException, CPAException, InterruptedException {
     config.inject(this);
 
-    stats = new ParallelAlgorithmStatistics(pLogger);
+    stats =
+        new ParallelAlgorithmStatistics(pLogger, pAggregatedReachedSets.getInvariantExchange());
     globalConfig = config;
     logger = checkNotNull(pLogger);
     shutdownManager = ShutdownManager.createWithParent(checkNotNull(pShutdownNotifier));
     specification = checkNotNull(pSpecification);
     cfa = checkNotNull(pCfa);
 
-    aggregatedReachedSetManager = new AggregatedReachedSetManager();
+    aggregatedReachedSetManager =
+        new AggregatedReachedSetManager(pAggregatedReachedSets.getInvariantExchange());
     aggregatedReachedSetManager.addAggregated(pAggregatedReachedSets);
 
+    if (maxActiveAnalyses > 0 && maxActiveAnalyses < configFiles.size()) {
+      scheduler = new ParallelAnalysisScheduler(maxActiveAnalyses, schedulingInterval, logger);
+      stats.scheduler = scheduler;
+    } else {
+      scheduler = null;
+    }
+
     ImmutableList.Builder<Callable<ParallelAnalysisResult>> analysesBuilder =
         ImmutableList.builder();
     for (AnnotatedValue<Path> p : configFiles) {
@@ -167,6 +205,9 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
     for (Callable<ParallelAnalysisResult> call : analyses) {
       futures.add(exec.submit(call));
     }
+    if (scheduler != null) {
+      scheduler.start();
+    }
 
     // shutdown the executor service,
     exec.shutdown();
@@ -175,6 +216,11 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
       handleFutureResults(futures);
 
     } finally {
+      if (scheduler != null) {
+        // paused analyses need to be able to react to the shutdown
+        scheduler.close();
+      }
+
       // Wait some time so that all threads are shut down and we have a happens-before relation
       // (necessary for statistics).
       if (!awaitTermination(exec, 10, TimeUnit.SECONDS)) {
@@ -308,13 +354,15 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
     final ResourceLimitChecker singleAnalysisOverallLimit =
         ResourceLimitChecker.fromConfiguration(singleConfig, singleLogger, singleShutdownManager);
 
+    final @Nullable Slot slot =
+        scheduler != null ? scheduler.register(singleConfigFileName.toString()) : null;
     final CoreComponentsFactory coreComponents =
         new CoreComponentsFactory(
             singleConfig,
             singleLogger,
             singleShutdownManager.getNotifier(),
-            aggregatedReachedSetManager.asView());
-
+            aggregatedReachedSetManager.asView(),
+            slot);
     final ReachedSet reached = coreComponents.createReachedSet();
     final ConfigurableProgramAnalysis cpa = coreComponents.createCPA(cfa, specification);
     final Algorithm algorithm = coreComponents.createAlgorithm(cpa, cfa, specification);
@@ -328,7 +376,7 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
                 FluentIterable.from(singleAnalysisOverallLimit.getResourceLimits())
                     .filter(ThreadCpuTimeLimit.class),
                 null), terminated);
-    return () -> {
+    final Callable<ParallelAnalysisResult> analysis = () -> {
       // TODO global info will not work correctly with parallel analyses
       // as it is a mutable singleton object
       GlobalInfo.getInstance().setUpInfoFromCPA(cpa);
@@ -356,20 +404,31 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
         return ParallelAnalysisResult.absent(singleConfigFileName.toString());
       }
 
-      ParallelAnalysisResult r =
-          runParallelAnalysis(
-              singleConfigFileName.toString(),
-              algorithm,
-              reached,
-              singleLogger,
-              cpa,
-              supplyReached,
-              supplyRefinableReached,
-              coreComponents,
-              statisticsEntry);
+      ParallelAnalysisResult r;
+      try {
+        r =
+            runParallelAnalysis(
+                singleConfigFileName.toString(),
+                algorithm,
+                reached,
+                singleLogger,
+                cpa,
+                supplyReached,
+                supplyRefinableReached,
+                coreComponents,
+                statisticsEntry);
+      } finally {
+        // release resources held by the algorithm, e.g., helper threads
+        CPAs.closeIfPossible(algorithm, singleLogger);
+      }
       terminated.set(true);
       return r;
     };
+
+    if (slot == null) {
+      return analysis;
+    }
+    return () -> scheduler.run(slot, analysis);
   }
 
   private ParallelAnalysisResult runParallelAnalysis(
@@ -581,9 +640,12 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
     private final List<StatisticsEntry> allAnalysesStats = new CopyOnWriteArrayList<>();
     private int noOfAlgorithmsUsed = 0;
     private String successfulAnalysisName = null;
+    private @Nullable ParallelAnalysisScheduler scheduler = null;
+    private final InvariantExchange invariantExchange;
 
-    ParallelAlgorithmStatistics(LogManager pLogger) {
+    ParallelAlgorithmStatistics(LogManager pLogger, InvariantExchange pInvariantExchange) {
       logger = checkNotNull(pLogger);
+      invariantExchange = checkNotNull(pInvariantExchange);
     }
 
     public synchronized StatisticsEntry getNewSubStatistics(
@@ -605,6 +667,10 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
       if (successfulAnalysisName != null) {
         out.println("Successful analysis: " + successfulAnalysisName);
       }
+      if (scheduler != null) {
+        out.println("Number of analysis switches:      " + scheduler.getRescheduleCount());
+      }
+      out.println("Number of exchanged invariants:   " + invariantExchange.getVersion());
       printSubStatistics(out, result);
     }
 
@@ -0,0 +1,118 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/**
+ * Tests for {@link ParallelAlgorithm} with a limited number of active analyses, where the analyses
+ * replace or wrap their reached sets.
+ */
+public class ParallelAlgorithmTest {
+
+  private static final String PROGRAM =
+      "test/programs/simple/globalVariableInitialValue_false-unreach-label.c";
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void scheduledRestartAnalysis() throws Exception {
+    Path value = writeValueAnalysisConfig();
+    Path restart =
+        writeConfig(
+            "restart.properties",
+            "analysis.restartAfterUnknown = true",
+            "analysis.memorizeReachedAfterRestart = true",
+            "restartAlgorithm.configFiles = " + value);
+
+    // the restart analysis is the only active one, the second analysis stays paused
+    checkScheduledAnalysisFindsViolation(restart, value);
+  }
+
+  @Test
+  public void scheduledMPVAnalysis() throws Exception {
+    Path value = writeValueAnalysisConfig();
+    Path mpv =
+        writeConfig(
+            "mpv.properties",
+            "cpa = cpa.arg.ARGCPA",
+            "ARGCPA.cpa = cpa.composite.CompositeCPA",
+            "CompositeCPA.cpas = cpa.location.LocationCPA, cpa.callstack.CallstackCPA,"
+                + " cpa.value.ValueAnalysisCPA",
+            "analysis.algorithm.MPV = true");
+
+    checkScheduledAnalysisFindsViolation(mpv, value);
+  }
+
+  private void checkScheduledAnalysisFindsViolation(Path pActive, Path pPaused)
+      throws Exception {
+    TestResults results =
+        CPATestRunner.run(
+            ImmutableMap.of(
+                "analysis.useParallelAnalyses", "true",
+                "parallelAlgorithm.configFiles", pActive + ", " + pPaused,
+                "parallelAlgorithm.maxActiveAnalyses", "1",
+                "specification", "config/specification/default.spc"),
+            PROGRAM);
+
+    results.assertIsUnsafe();
+    assertThat(getStatistics(results)).contains("Successful analysis: " + pActive);
+  }
+
+  private Path writeValueAnalysisConfig() throws Exception {
+    return writeConfig(
+        "value.properties",
+        "cpa = cpa.arg.ARGCPA",
+        "ARGCPA.cpa = cpa.composite.CompositeCPA",
+        "CompositeCPA.cpas = cpa.location.LocationCPA, cpa.callstack.CallstackCPA,"
+            + " cpa.value.ValueAnalysisCPA");
+  }
+
+  private Path writeConfig(String pName, String... pLines) throws Exception {
+    Path file = tempFolder.getRoot().toPath().resolve(pName);
+    Files.write(file, ImmutableList.copyOf(pLines), StandardCharsets.UTF_8);
+    return file;
+  }
+
+  private static String getStatistics(TestResults pResults) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    @SuppressWarnings("checkstyle:IllegalInstantiation") // ok for statistics
+    PrintStream printStream = new PrintStream(out, true, StandardCharsets.UTF_8);
+    pResults.getCheckerResult().printStatistics(printStream);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+}
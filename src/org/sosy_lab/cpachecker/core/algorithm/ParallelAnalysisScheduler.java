@@ -0,0 +1,279 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+
+/**
+ * Scheduler for the analyses of {@link ParallelAlgorithm} that lets only a limited number of
+ * analyses progress at the same time.
+ *
+ * <p>Every analysis has a {@link Slot}, which is given to the {@link CPAAlgorithm} of the analysis
+ * by its {@link org.sosy_lab.cpachecker.core.CoreComponentsFactory}. The CPA algorithm blocks
+ * before taking the next state from the waitlist while the analysis is paused. In regular
+ * intervals, the active analysis that expanded the fewest states since the last interval (e.g.,
+ * because it is stuck in a refinement or a long solver query) is paused. As soon as it actually
+ * blocks, the analysis that was paused for the longest time is resumed. Thus productive analyses
+ * keep running, and the CPU time of the other analyses is time-sliced. When an analysis
+ * terminates, its slot is given to a paused analysis.
+ *
+ * <p>An analysis that should pause but did not yet reach the point where it blocks (e.g., because
+ * it is still in a refinement) counts as active for one more interval. If it did not block by
+ * then, it loses its slot and a paused analysis is resumed, such that an analysis that does not
+ * reach its waitlist for a long time (e.g., because of a long solver query, or because it runs
+ * nested analyses) cannot keep the others paused. It still blocks as soon as it reaches its
+ * waitlist. The same holds for analyses that start paused but did not yet reach the waitlist
+ * (e.g., because they are still parsing or creating their CPAs).
+ */
+class ParallelAnalysisScheduler implements AutoCloseable {
+
+  /** The scheduling state of one analysis. */
+  static final class Slot implements SchedulingSlot {
+
+    private final String name;
+    private final ParallelAnalysisScheduler scheduler;
+    private final AtomicLong expandedStates = new AtomicLong();
+
+    // written only by the scheduler while holding its lock and the slot's lock
+    private volatile boolean paused = false;
+
+    // guarded by the scheduler
+    private boolean finished = false;
+    private boolean blocked = false; // paused and waiting in awaitResumed
+    private boolean revoked = false; // paused, did not block in time, and does not count as active
+    private long expandedStatesAtLastCheck = 0;
+    private long lastStateChange = 0;
+
+    private Slot(String pName, ParallelAnalysisScheduler pScheduler) {
+      name = pName;
+      scheduler = pScheduler;
+    }
+
+    private synchronized void setPaused(boolean pPaused) {
+      paused = pPaused;
+      if (!paused) {
+        notifyAll();
+      }
+    }
+
+    @Override
+    public void awaitTurn() {
+      expandedStates.incrementAndGet();
+      if (paused) {
+        // Tell the scheduler first that it can give our slot to another analysis.
+        // If we are resumed in between, awaitResumed() returns immediately.
+        scheduler.blocked(this);
+        awaitResumed();
+      }
+    }
+
+    private synchronized void awaitResumed() {
+      while (paused) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          // let the analysis react to the interrupt (it is probably being cancelled)
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private final int maxActiveAnalyses;
+  private final TimeSpan interval;
+  private final LogManager logger;
+
+  private final List<Slot> slots = new ArrayList<>();
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("parallel-scheduler").build());
+  private long clock = 0;
+
+  // stats
+  private int rescheduleCount = 0;
+
+  ParallelAnalysisScheduler(int pMaxActiveAnalyses, TimeSpan pInterval, LogManager pLogger) {
+    checkArgument(pMaxActiveAnalyses > 0);
+    maxActiveAnalyses = pMaxActiveAnalyses;
+    interval = pInterval;
+    logger = pLogger;
+  }
+
+  /** Register a new analysis. The first analyses are active, all further ones start paused. */
+  synchronized Slot register(String pName) {
+    Slot slot = new Slot(pName, this);
+    slot.setPaused(slots.size() >= maxActiveAnalyses);
+    slots.add(slot);
+    return slot;
+  }
+
+  /**
+   * Run the analysis with the given slot. Afterwards, the slot is marked as finished, such that it
+   * can be used by a paused analysis.
+   */
+  <T> T run(Slot pSlot, Callable<T> pAnalysis) throws Exception {
+    try {
+      return pAnalysis.call();
+    } finally {
+      finished(pSlot);
+    }
+  }
+
+  void start() {
+    long millis = interval.asMillis();
+    executor.scheduleWithFixedDelay(this::reschedule, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void finished(Slot pSlot) {
+    pSlot.finished = true;
+    pSlot.blocked = false;
+    pSlot.revoked = false;
+    pSlot.setPaused(false);
+    resumeBlockedAnalyses();
+  }
+
+  /** Called by a paused analysis right before it blocks. */
+  private synchronized void blocked(Slot pSlot) {
+    if (pSlot.paused && !pSlot.finished) {
+      pSlot.blocked = true;
+      pSlot.revoked = false;
+      resumeBlockedAnalyses();
+    }
+  }
+
+  /**
+   * Resume blocked analyses while fewer analyses than allowed are active. Analyses that should
+   * pause but did not yet block still count as active, unless their slot was revoked.
+   */
+  private void resumeBlockedAnalyses() {
+    long active =
+        slots.stream().filter(slot -> !slot.finished && !slot.blocked && !slot.revoked).count();
+    Optional<Slot> next = nextBlocked();
+    while (active < maxActiveAnalyses && next.isPresent()) {
+      resume(next.orElseThrow());
+      active++;
+      next = nextBlocked();
+    }
+  }
+
+  @VisibleForTesting
+  synchronized void reschedule() {
+    clock++;
+    revokeStalledSlots();
+    Optional<Slot> next = nextBlocked();
+    // Do not pause another analysis while a previously paused one did not yet block.
+    boolean pausePending =
+        slots.stream().anyMatch(slot -> slot.paused && !slot.blocked && !slot.revoked);
+    Slot leastProgress = null;
+    long minProgress = Long.MAX_VALUE;
+    for (Slot slot : slots) {
+      long expanded = slot.expandedStates.get();
+      long progress = expanded - slot.expandedStatesAtLastCheck;
+      slot.expandedStatesAtLastCheck = expanded;
+      if (!slot.finished && !slot.paused && progress < minProgress) {
+        minProgress = progress;
+        leastProgress = slot;
+      }
+    }
+    if (next.isPresent() && leastProgress != null && !pausePending) {
+      rescheduleCount++;
+      logger.log(
+          Level.FINE,
+          "Pausing",
+          leastProgress.name,
+          "after expanding",
+          minProgress,
+          "states in the last interval");
+      leastProgress.lastStateChange = clock;
+      leastProgress.setPaused(true);
+      // the next analysis is resumed when the paused one has blocked
+    }
+  }
+
+  /**
+   * Revoke the slots of analyses that were paused at least one interval ago but did not block,
+   * and give them to blocked analyses.
+   */
+  private void revokeStalledSlots() {
+    boolean revokedAny = false;
+    for (Slot slot : slots) {
+      if (slot.paused
+          && !slot.blocked
+          && !slot.finished
+          && !slot.revoked
+          && slot.lastStateChange < clock - 1) {
+        logger.log(Level.FINE, "Revoking the slot of", slot.name, "which did not block in time");
+        slot.revoked = true;
+        revokedAny = true;
+      }
+    }
+    if (revokedAny) {
+      resumeBlockedAnalyses();
+    }
+  }
+
+  private Optional<Slot> nextBlocked() {
+    return slots.stream()
+        .filter(slot -> slot.blocked)
+        .min(Comparator.comparingLong(slot -> slot.lastStateChange));
+  }
+
+  private void resume(Slot pSlot) {
+    logger.log(Level.FINE, "Resuming", pSlot.name);
+    pSlot.lastStateChange = clock;
+    pSlot.blocked = false;
+    pSlot.setPaused(false);
+  }
+
+  synchronized int getRescheduleCount() {
+    return rescheduleCount;
+  }
+
+  /** Stop scheduling and resume all analyses. */
+  @Override
+  public synchronized void close() {
+    executor.shutdownNow();
+    for (Slot slot : slots) {
+      slot.blocked = false;
+      slot.revoked = false;
+      slot.setPaused(false);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.core.algorithm.ParallelAnalysisScheduler.Slot;
+
+public class ParallelAnalysisSchedulerTest {
+
+  // long enough that the scheduler does not interfere with the tests
+  private final ParallelAnalysisScheduler scheduler =
+      new ParallelAnalysisScheduler(
+          1, TimeSpan.ofSeconds(1000), LogManager.createTestLogManager());
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    scheduler.close();
+    executor.shutdownNow();
+  }
+
+  @Test(timeout = 10000)
+  public void pausedAnalysisResumesWhenActiveAnalysisFinishes() throws Exception {
+    Slot first = scheduler.register("first");
+    Slot second = scheduler.register("second");
+    CountDownLatch firstRunning = new CountDownLatch(1);
+    CountDownLatch firstMayFinish = new CountDownLatch(1);
+    AtomicBoolean secondProgressed = new AtomicBoolean(false);
+
+    Future<?> firstAnalysis =
+        executor.submit(
+            () ->
+                scheduler.run(
+                    first,
+                    () -> {
+                      first.awaitTurn();
+                      firstRunning.countDown();
+                      firstMayFinish.await();
+                      return null;
+                    }));
+    Future<?> secondAnalysis =
+        executor.submit(
+            () ->
+                scheduler.run(
+                    second,
+                    () -> {
+                      second.awaitTurn();
+                      secondProgressed.set(true);
+                      return null;
+                    }));
+
+    firstRunning.await();
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(secondProgressed.get()).isFalse();
+
+    firstMayFinish.countDown();
+    firstAnalysis.get();
+    secondAnalysis.get();
+    assertThat(secondProgressed.get()).isTrue();
+  }
+
+  @Test(timeout = 10000)
+  public void pausedAnalysisKeepsSlotUntilItBlocks() throws Exception {
+    Slot first = scheduler.register("first");
+    Slot second = scheduler.register("second");
+    CountDownLatch firstRunning = new CountDownLatch(1);
+    CountDownLatch firstMayContinue = new CountDownLatch(1);
+    AtomicBoolean secondProgressed = new AtomicBoolean(false);
+
+    Future<?> firstAnalysis =
+        executor.submit(
+            () ->
+                scheduler.run(
+                    first,
+                    () -> {
+                      first.awaitTurn();
+                      firstRunning.countDown();
+                      // e.g., a long refinement, the analysis does not reach the waitlist
+                      firstMayContinue.await();
+                      first.awaitTurn();
+                      return null;
+                    }));
+    Future<?> secondAnalysis =
+        executor.submit(
+            () ->
+                scheduler.run(
+                    second,
+                    () -> {
+                      second.awaitTurn();
+                      secondProgressed.set(true);
+                      return null;
+                    }));
+
+    firstRunning.await();
+    // pause the first analysis as soon as the second one is blocked and can be resumed
+    while (scheduler.getRescheduleCount() == 0) {
+      TimeUnit.MILLISECONDS.sleep(10);
+      scheduler.reschedule();
+    }
+
+    // the first analysis did not yet block, thus the second one must still wait
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(secondProgressed.get()).isFalse();
+
+    // no further analysis is paused while a pause is pending, and the slot is not yet revoked
+    scheduler.reschedule();
+    assertThat(scheduler.getRescheduleCount()).isEqualTo(1);
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(secondProgressed.get()).isFalse();
+
+    // the first analysis blocks, the second one takes over its slot and gives it back when done
+    firstMayContinue.countDown();
+    secondAnalysis.get();
+    assertThat(secondProgressed.get()).isTrue();
+    firstAnalysis.get();
+  }
+
+  @Test(timeout = 10000)
+  public void stalledAnalysisLosesSlot() throws Exception {
+    Slot first = scheduler.register("first");
+    Slot second = scheduler.register("second");
+    CountDownLatch firstRunning = new CountDownLatch(1);
+    CountDownLatch firstMayContinue = new CountDownLatch(1);
+    AtomicBoolean firstProgressed = new AtomicBoolean(false);
+
+    Future<?> firstAnalysis =
+        executor.submit(
+            () ->
+                scheduler.run(
+                    first,
+                    () -> {
+                      first.awaitTurn();
+                      firstRunning.countDown();
+                      // e.g., a long solver query, the analysis does not reach the waitlist
+                      firstMayContinue.await();
+                      first.awaitTurn();
+                      firstProgressed.set(true);
+                      return null;
+                    }));
+    Future<?> secondAnalysis =
+        executor.submit(
+            () ->
+                scheduler.run(
+                    second,
+                    () -> {
+                      second.awaitTurn();
+                      return null;
+                    }));
+
+    firstRunning.await();
+    while (scheduler.getRescheduleCount() == 0) {
+      TimeUnit.MILLISECONDS.sleep(10);
+      scheduler.reschedule();
+    }
+
+    // the first analysis did not block within one more interval and loses its slot
+    scheduler.reschedule();
+    scheduler.reschedule();
+    secondAnalysis.get();
+    assertThat(firstProgressed.get()).isFalse();
+
+    // the first analysis still blocks at the waitlist and gets the slot back
+    firstMayContinue.countDown();
+    firstAnalysis.get();
+    assertThat(firstProgressed.get()).isTrue();
+  }
+
+  @Test(timeout = 10000)
+  public void closeResumesPausedAnalyses() throws Exception {
+    scheduler.register("first");
+    Slot second = scheduler.register("second");
+
+    Future<?> secondAnalysis =
+        executor.submit(
+            () ->
+                scheduler.run(
+                    second,
+                    () -> {
+                      second.awaitTurn();
+                      return null;
+                    }));
+    scheduler.close();
+    secondAnalysis.get();
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+/**
+ * The slot of an analysis in a scheduler that lets only some of several analyses progress at the
+ * same time (cf. option parallelAlgorithm.maxActiveAnalyses). It is given to the
+ * {@link CPAAlgorithm} of the analysis, which calls {@link #awaitTurn()} before it takes the next
+ * state from the waitlist.
+ */
+public interface SchedulingSlot {
+
+  /** Count the progress of the analysis and block while the analysis is paused. */
+  void awaitTurn();
+}
@@ -33,11 +33,14 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractLocation;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -54,12 +57,19 @@ import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.function.ToIntFunction;
 import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownManager;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
@@ -80,10 +90,13 @@ import org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.ParallelAlgorithm.ConditionAdjustmentEventSubscriber;
 import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.CandidateInvariant;
 import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.CandidateInvariantCombination;
+import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.EdgeFormulaNegation;
+import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.ExpressionTreeLocationInvariant;
 import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.SymbolicCandiateInvariant;
 import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.TargetLocationCandidateInvariant;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.AbstractInvariantGenerator;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.DoNothingInvariantGenerator;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantExchange;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantGenerator;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.KInductionInvariantGenerator;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
@@ -118,12 +131,15 @@ import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.visitors.DefaultFormulaVisitor;
+import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
 
 @Options(prefix = "bmc")
 abstract class AbstractBMCAlgorithm
-    implements StatisticsProvider, ConditionAdjustmentEventSubscriber {
+    implements StatisticsProvider, ConditionAdjustmentEventSubscriber, AutoCloseable {
 
   static final Predicate<AbstractState> IS_STOP_STATE =
     Predicates.compose(new Predicate<AssumptionStorageState>() {
@@ -173,6 +189,24 @@ abstract class AbstractBMCAlgorithm
   )
   private boolean usePropertyDirection = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Run the inductive-step check for bound k in a separate thread"
+            + " while the base case for bound k+1 is unrolled and checked."
+            + " Cannot be combined with bmc.usePropertyDirection."
+  )
+  private boolean pipelinedInduction = false;
+
+  @Option(
+    secure = true,
+    description =
+        "Keep the formulas of the bounded model checks of previous bounds in the prover"
+            + " and (de)activate them with assumption literals instead of removing them,"
+            + " such that the solver can reuse its work from previous bounds."
+  )
+  private boolean incremental = false;
+
   protected final BMCStatistics stats;
   private final Algorithm algorithm;
   private final ConfigurableProgramAnalysis cpa;
@@ -180,6 +214,9 @@ abstract class AbstractBMCAlgorithm
   private final @Nullable ConfigurableProgramAnalysis stepCaseCPA;
   private final @Nullable Algorithm stepCaseAlgorithm;
 
+  /** Stops the step case, e.g., if a pipelined step case cannot finish. */
+  private final @Nullable ShutdownManager stepCaseShutdownManager;
+
   protected final InvariantGenerator invariantGenerator;
   private final InvariantGeneratorHeadStart invariantGeneratorHeadStart;
 
@@ -201,9 +238,27 @@ abstract class AbstractBMCAlgorithm
 
   private final AbstractionStrategy abstractionStrategy;
 
+  /** Number of activation literals created for incremental bounded model checking. */
+  private int activationLiteralCounter = 0;
+
+  /**
+   * The formula nodes of the previous check of incremental bounded model checking that were not
+   * shared with the check before it, and the roots of the shared subformulas.
+   */
+  private Set<Formula> previousFormulaNodes = ImmutableSet.of();
+
+  /** Runs the step case concurrently to the base case if pipelined induction is enabled. */
+  private final @Nullable ExecutorService stepCaseExecutor;
+
+  /** Whether a pipelined step case was stopped, the step case cannot be used afterwards. */
+  private boolean stepCaseCancelled = false;
+
   /** The candidate invariants that have been proven to hold at the loop heads. */
   private final Set<CandidateInvariant> confirmedCandidates = new CopyOnWriteArraySet<>();
 
+  /** Shares confirmed location invariants with analyses running in parallel, and vice versa. */
+  private final InvariantExchange invariantExchange;
+
   private final List<ConditionAdjustmentEventSubscriber> conditionAdjustmentEventSubscribers =
       new CopyOnWriteArrayList<>();
 
@@ -230,6 +285,7 @@ abstract class AbstractBMCAlgorithm
     reachedSetFactory = pReachedSetFactory;
     cfa = pCFA;
     specification = checkNotNull(pSpecification);
+    invariantExchange = pAggregatedReachedSets.getInvariantExchange();
 
     shutdownNotifier = pShutdownManager.getNotifier();
     TestTargetCPA testCPA = CPAs.retrieveCPA(pCPA, TestTargetCPA.class);
@@ -252,13 +308,16 @@ abstract class AbstractBMCAlgorithm
 
     if (induction) {
       LogManager stepCaseLogger = logger.withComponentName("InductionStepCase");
+      stepCaseShutdownManager = ShutdownManager.createWithParent(pShutdownManager.getNotifier());
       CPABuilder builder =
           new CPABuilder(
-              pConfig, stepCaseLogger, pShutdownManager.getNotifier(), pReachedSetFactory);
+              pConfig, stepCaseLogger, stepCaseShutdownManager.getNotifier(), pReachedSetFactory);
       stepCaseCPA = builder.buildCPAs(cfa, pSpecification, new AggregatedReachedSets());
       stepCaseAlgorithm =
-          CPAAlgorithm.create(stepCaseCPA, stepCaseLogger, pConfig, pShutdownManager.getNotifier());
+          CPAAlgorithm.create(
+              stepCaseCPA, stepCaseLogger, pConfig, stepCaseShutdownManager.getNotifier());
     } else {
+      stepCaseShutdownManager = null;
       stepCaseCPA = null;
       stepCaseAlgorithm = null;
       invariantGenerationStrategy = InvariantGeneratorFactory.DO_NOTHING;
@@ -328,6 +387,21 @@ abstract class AbstractBMCAlgorithm
     bfmgr = fmgr.getBooleanFormulaManager();
     pmgr = predCpa.getPathFormulaManager();
     abstractionStrategy = new PredicateAbstractionStrategy(cfa.getVarClassification());
+
+    if (induction && pipelinedInduction) {
+      if (usePropertyDirection) {
+        throw new InvalidConfigurationException(
+            "Pipelined induction cannot be combined with property direction.");
+      }
+      stepCaseExecutor =
+          Executors.newSingleThreadExecutor(
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("k-induction-step-case")
+                  .build());
+    } else {
+      stepCaseExecutor = null;
+    }
   }
 
   static boolean checkIfInductionIsPossible(CFA cfa, LogManager logger) {
@@ -360,6 +434,9 @@ abstract class AbstractBMCAlgorithm
 
     AlgorithmStatus status;
 
+    // the step case for the previous bound, if it is still running in pipelined mode
+    Future<StepCaseResult> pendingStepCase = null;
+
     try (ProverEnvironmentWithFallback prover =
         new ProverEnvironmentWithFallback(solver, ProverOptions.GENERATE_MODELS)) {
       invariantGeneratorHeadStart.waitForInvariantGenerator();
@@ -407,6 +484,16 @@ abstract class AbstractBMCAlgorithm
           }
         }
 
+        if (pendingStepCase != null) {
+          // the step case for the previous bound has run concurrently to the base case
+          boolean previousStepCaseSound = awaitStepCase(pendingStepCase, candidateGenerator);
+          pendingStepCase = null;
+          if (invariantGenerator.isProgramSafe()
+              || (previousStepCaseSound && !candidateGenerator.produceMoreCandidates())) {
+            return AlgorithmStatus.SOUND_AND_PRECISE;
+          }
+        }
+
         // second check soundness
         boolean sound;
 
@@ -421,7 +508,7 @@ abstract class AbstractBMCAlgorithm
           }
 
           // try to prove program safety via induction
-          if (induction && !sound) {
+          if (induction && !stepCaseCancelled && !sound) {
             if (usePropertyDirection) {
               usePropertyDirection =
                   refineCtiBlockingClauses(reachedSet, prover, ctiBlockingClauses, checkedClauses);
@@ -429,10 +516,16 @@ abstract class AbstractBMCAlgorithm
                 ctiBlockingClauses.clear();
               }
             }
-            try (@SuppressWarnings("resource")
-                KInductionProver kInductionProver = createInductionProver()) {
-            sound =
-                checkStepCase(reachedSet, candidateGenerator, kInductionProver, ctiBlockingClauses);
+            if (stepCaseExecutor != null) {
+              // the result is checked after the base case for the next bound
+              pendingStepCase = startStepCase(reachedSet, candidateGenerator);
+            } else {
+              try (@SuppressWarnings("resource")
+                  KInductionProver kInductionProver = createInductionProver()) {
+                sound =
+                    checkStepCase(
+                        reachedSet, candidateGenerator, kInductionProver, ctiBlockingClauses);
+              }
             }
           }
           if (invariantGenerator.isProgramSafe()
@@ -447,11 +540,128 @@ abstract class AbstractBMCAlgorithm
         }
       }
       while (status.isSound() && adjustConditions());
+
+      if (pendingStepCase != null) {
+        boolean stepCaseSound = awaitStepCase(pendingStepCase, candidateGenerator);
+        pendingStepCase = null;
+        if (stepCaseSound && !candidateGenerator.produceMoreCandidates()) {
+          return AlgorithmStatus.SOUND_AND_PRECISE;
+        }
+      }
+
+    } catch (CPAException | SolverException | InterruptedException | RuntimeException e) {
+      if (pendingStepCase != null) {
+        cancelStepCase(pendingStepCase);
+        pendingStepCase = null;
+      }
+      throw e;
+
+    } finally {
+      if (pendingStepCase != null) {
+        // The result was found before the step case for the previous bound has finished.
+        // Waiting for it costs at most as much as the sequential mode would have spent on it,
+        // and keeps the step case usable for later runs.
+        awaitStepCaseTermination(pendingStepCase);
+      }
     }
 
     return AlgorithmStatus.UNSOUND_AND_PRECISE;
   }
 
+  /** The result of a step case that was run concurrently to the base case. */
+  private static class StepCaseResult {
+
+    private final boolean sound;
+
+    /** The candidates confirmed by the step case, which are not yet known to the generator. */
+    private final List<Iterable<CandidateInvariant>> confirmedCandidates;
+
+    private StepCaseResult(boolean pSound, List<Iterable<CandidateInvariant>> pConfirmedCandidates) {
+      sound = pSound;
+      confirmedCandidates = pConfirmedCandidates;
+    }
+  }
+
+  /**
+   * Starts the step case for the current bound in a separate thread. Everything the step case
+   * needs from the reached set and the candidate generator is collected before, so that the base
+   * case for the next bound can be computed concurrently.
+   */
+  private Future<StepCaseResult> startStepCase(
+      final ReachedSet reachedSet, final CandidateGenerator candidateGenerator) {
+    final int k = CPAs.retrieveCPA(cpa, LoopIterationBounding.class).getMaxLoopIterations();
+    final Set<Object> checkedKeys = getCheckedKeys(reachedSet);
+    final Set<CandidateInvariant> candidates =
+        from(candidateGenerator)
+            .filter(getCandidateApplicabilityPredicate(reachedSet, checkedKeys))
+            .toSet();
+    final KInductionProver kInductionProver = createInductionProver();
+
+    return stepCaseExecutor.submit(
+        () -> {
+          List<Iterable<CandidateInvariant>> confirmed = new ArrayList<>();
+          try (KInductionProver prover = kInductionProver) {
+            boolean sound =
+                checkStepCase(k, checkedKeys, candidates, prover, new TreeSet<>(), confirmed::add);
+            return new StepCaseResult(sound, confirmed);
+          }
+        });
+  }
+
+  /**
+   * Waits for a step case started by {@link #startStepCase} whose result is not needed anymore. If
+   * the waiting is interrupted, the step case is stopped.
+   */
+  private void awaitStepCaseTermination(Future<StepCaseResult> pStepCase)
+      throws InterruptedException {
+    try {
+      pStepCase.get();
+    } catch (ExecutionException e) {
+      logger.logDebugException(e.getCause(), "Unused k-induction step case failed");
+    } catch (InterruptedException e) {
+      cancelStepCase(pStepCase);
+      throw e;
+    }
+  }
+
+  /**
+   * Stops a step case started by {@link #startStepCase} with {@link #stepCaseShutdownManager} and
+   * waits until it has finished, such that its solver is not used anymore. The step case cannot be
+   * used afterwards, so later runs of this algorithm do not try induction.
+   */
+  private void cancelStepCase(Future<StepCaseResult> pStepCase) {
+    stepCaseCancelled = true;
+    stepCaseShutdownManager.requestShutdown("k-induction step case is not needed anymore");
+    try {
+      Uninterruptibles.getUninterruptibly(pStepCase);
+    } catch (ExecutionException | CancellationException e) {
+      // irrelevant after the shutdown
+    }
+    logger.log(Level.FINE, "Stopped k-induction step case, continuing without induction");
+  }
+
+  /**
+   * Waits for a step case started by {@link #startStepCase} and passes the confirmed candidates to
+   * the candidate generator.
+   *
+   * @return whether the step case was successful.
+   */
+  private boolean awaitStepCase(
+      Future<StepCaseResult> pStepCase, CandidateGenerator pCandidateGenerator)
+      throws CPAException, SolverException, InterruptedException {
+    StepCaseResult result;
+    try {
+      result = pStepCase.get();
+    } catch (ExecutionException e) {
+      Throwable t = e.getCause();
+      Throwables.propagateIfPossible(t, CPAException.class, SolverException.class);
+      Throwables.throwIfInstanceOf(t, InterruptedException.class);
+      throw new UnexpectedCheckedException("k-induction step case", t);
+    }
+    result.confirmedCandidates.forEach(pCandidateGenerator::confirmCandidates);
+    return result.sound;
+  }
+
   private boolean checkStepCase(
       final ReachedSet reachedSet,
       final CandidateGenerator candidateGenerator,
@@ -467,6 +677,30 @@ abstract class AbstractBMCAlgorithm
 
     Set<CandidateInvariant> candidates =
         FluentIterable.concat(pCtiBlockingClauses, candidateGenerator).filter(isApplicable).toSet();
+
+    return checkStepCase(
+        k,
+        checkedKeys,
+        candidates,
+        kInductionProver,
+        pCtiBlockingClauses,
+        candidateGenerator::confirmCandidates);
+  }
+
+  /**
+   * Checks the inductive step for the given candidates. This method does not access the reached
+   * set or the candidate generator of the base case, confirmed candidates are reported to the
+   * given consumer instead.
+   */
+  private boolean checkStepCase(
+      final int k,
+      final Set<Object> checkedKeys,
+      final Set<CandidateInvariant> candidates,
+      KInductionProver kInductionProver,
+      Set<Obligation> pCtiBlockingClauses,
+      Consumer<Iterable<CandidateInvariant>> pConfirmCandidates)
+      throws InterruptedException, CPAException, SolverException {
+
     Set<SymbolicCandiateInvariant> checked = new HashSet<>();
 
     shutdownNotifier.shutdownIfNecessary();
@@ -502,8 +736,9 @@ abstract class AbstractBMCAlgorithm
         Iterables.addAll(
             confirmedCandidates,
             CandidateInvariantCombination.getConjunctiveParts(candidate));
-        candidateGenerator.confirmCandidates(
-            CandidateInvariantCombination.getConjunctiveParts(candidate));
+        // publish first, so that the invariants are shared before the analysis can terminate
+        publishConfirmedCandidates(CandidateInvariantCombination.getConjunctiveParts(candidate));
+        pConfirmCandidates.accept(CandidateInvariantCombination.getConjunctiveParts(candidate));
         if (candidate == TargetLocationCandidateInvariant.INSTANCE) {
           sound = true;
           break;
@@ -527,7 +762,9 @@ abstract class AbstractBMCAlgorithm
               Iterables.addAll(
                   confirmedCandidates,
                   CandidateInvariantCombination.getConjunctiveParts(weakening));
-              candidateGenerator.confirmCandidates(
+              publishConfirmedCandidates(
+                  CandidateInvariantCombination.getConjunctiveParts(weakening));
+              pConfirmCandidates.accept(
                   CandidateInvariantCombination.getConjunctiveParts(weakening));
               break;
             }
@@ -553,6 +790,29 @@ abstract class AbstractBMCAlgorithm
     return sound;
   }
 
+  /**
+   * Publishes the location invariants among the given confirmed candidates, so that other analyses
+   * can use them before this analysis terminates.
+   */
+  private void publishConfirmedCandidates(Iterable<CandidateInvariant> pConfirmedCandidates) {
+    for (CandidateInvariant candidate : pConfirmedCandidates) {
+      boolean published = false;
+      if (candidate instanceof ExpressionTreeLocationInvariant) {
+        ExpressionTreeLocationInvariant invariant = (ExpressionTreeLocationInvariant) candidate;
+        published =
+            invariantExchange.publish(invariant.getLocation(), invariant.getExpressionTree());
+      } else if (candidate instanceof EdgeFormulaNegation) {
+        // candidates guessed from the CFA by the k-induction-based invariant generator
+        EdgeFormulaNegation invariant = (EdgeFormulaNegation) candidate;
+        published =
+            invariantExchange.publish(invariant.getLocation(), invariant.getExpressionTree());
+      }
+      if (published) {
+        logger.log(Level.FINEST, "Published invariant", candidate);
+      }
+    }
+  }
+
   /**
    * Gets all keys of loop-iteration reporting states that were reached by unrolling.
    *
@@ -618,8 +878,25 @@ abstract class AbstractBMCAlgorithm
     BooleanFormula program = bfmgr.not(pCandidateInvariant.getAssertion(pReachedSet, fmgr, pmgr));
     logger.log(Level.INFO, "Starting satisfiability check...");
     stats.satCheck.start();
-    pProver.push(program);
-    boolean safe = pProver.isUnsat();
+    boolean safe;
+    @Nullable BooleanFormula activationLiteral = null;
+    if (incremental) {
+      // The implication is added to the current level of the prover without pushing a new
+      // level, so it stays for all further checks (on the base level, until the prover is
+      // closed). This is sound because the activation literal is only assumed for this check.
+      // This way the solver can keep what it has learned about the path formulas of this bound,
+      // which are shared with the formulas for the following bounds.
+      activationLiteral = bfmgr.makeVariable("__bmc_activation_" + activationLiteralCounter++);
+      BooleanFormula constraint = bfmgr.implication(activationLiteral, program);
+      stats.incrementalFormulaNodes.setNextValue(countNewFormulaNodes(constraint));
+      pProver.addConstraint(constraint);
+      safe = pProver.isUnsatWithAssumptions(ImmutableList.of(activationLiteral));
+      // the only level pushed by this check, the counterexample analysis needs the program
+      pProver.push(activationLiteral);
+    } else {
+      pProver.push(program);
+      safe = pProver.isUnsat();
+    }
     stats.satCheck.stop();
     // Leave program formula on solver stack until error path is created
 
@@ -634,9 +911,42 @@ abstract class AbstractBMCAlgorithm
 
     pProver.pop();
 
+    if (activationLiteral != null) {
+      // The check is finished and the literal is never assumed again. Asserting its negation
+      // satisfies the implication permanently, such that the solver can drop it and does not
+      // need to consider the formulas of all previous bounds in further checks.
+      pProver.addConstraint(bfmgr.not(activationLiteral));
+    }
+
     return safe;
   }
 
+  /**
+   * Count the nodes of a formula for incremental bounded model checking that are not shared with
+   * the formula of the previous check. The formulas of subsequent bounds share most of their
+   * nodes, thus the sum of the counts grows linearly with the number of bounds. Only the nodes of
+   * the previous check are kept for this, and subformulas shared with it are not traversed.
+   */
+  private int countNewFormulaNodes(BooleanFormula pFormula) {
+    final Set<Formula> previous = previousFormulaNodes;
+    final Set<Formula> current = new HashSet<>();
+    final int[] newNodes = {0};
+    fmgr.visitRecursively(
+        pFormula,
+        new DefaultFormulaVisitor<TraversalProcess>() {
+          @Override
+          protected TraversalProcess visitDefault(Formula pF) {
+            if (!current.add(pF) || previous.contains(pF)) {
+              return TraversalProcess.SKIP;
+            }
+            newNodes[0]++;
+            return TraversalProcess.CONTINUE;
+          }
+        });
+    previousFormulaNodes = current;
+    return newNodes[0];
+  }
+
   private boolean refineCtiBlockingClauses(
       ReachedSet pReachedSet,
       ProverEnvironmentWithFallback pProver,
@@ -791,6 +1101,14 @@ abstract class AbstractBMCAlgorithm
     }
   }
 
+  @Override
+  public void close() {
+    if (stepCaseExecutor != null) {
+      // no step case is running anymore when run() has returned
+      stepCaseExecutor.shutdown();
+    }
+  }
+
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     if (algorithm instanceof StatisticsProvider) {
@@ -812,9 +1130,10 @@ abstract class AbstractBMCAlgorithm
         invariantGenerator,
         stats,
         reachedSetFactory,
-        shutdownNotifier,
+        stepCaseShutdownManager.getNotifier(),
         getLoopHeads(),
-        usePropertyDirection);
+        usePropertyDirection,
+        invariantExchange);
   }
 
   /**
@@ -28,6 +28,8 @@ import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 
 public class BMCStatistics implements Statistics {
 
@@ -35,6 +37,8 @@ public class BMCStatistics implements Statistics {
   final Timer satCheck = new Timer();
   final Timer errorPathCreation = new Timer();
   final Timer assertionsCheck = new Timer();
+  final StatInt incrementalFormulaNodes =
+      new StatInt(StatKind.SUM, "New formula nodes in incremental checks");
 
   final Timer inductionPreparation = new Timer();
   final Timer inductionCheck = new Timer();
@@ -47,6 +51,9 @@ public class BMCStatistics implements Statistics {
     if (satCheck.getNumberOfIntervals() > 0) {
       out.println("Time for final sat check:            " + satCheck);
     }
+    if (incrementalFormulaNodes.getUpdateCount() > 0) {
+      out.println("New formula nodes in incremental checks: " + incrementalFormulaNodes);
+    }
     if (errorPathCreation.getNumberOfIntervals() > 0) {
       out.println("Time for error path creation:        " + errorPathCreation);
     }
@@ -0,0 +1,107 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.bmc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/** Tests that incremental bounded model checking has the same results as the plain one. */
+public class IncrementalBMCTest {
+
+  @Test
+  public void errorAfterSeveralBounds() throws Exception {
+    // the error is found only after a few bounds, i.e., with several inactive formulas
+    checkIncrementalResult("test/programs/bmc/loopWithError_false-unreach-label.c", Result.FALSE);
+  }
+
+  @Test
+  public void safeAfterSeveralBounds() throws Exception {
+    checkIncrementalResult("test/programs/bmc/loopWithError_true-unreach-label.c", Result.TRUE);
+  }
+
+  @Test
+  public void errorWithoutLoop() throws Exception {
+    checkIncrementalResult(
+        "test/programs/simple/globalVariableInitialValue_false-unreach-label.c", Result.FALSE);
+  }
+
+  @Test
+  public void formulasGrowLinearly() throws Exception {
+    Configuration config =
+        Configuration.builder().copyFrom(config()).setOption("bmc.incremental", "true").build();
+    TestResults shortLoop =
+        CPATestRunner.run(config, "test/programs/bmc/loopWithInfeasibleError-5.c");
+    TestResults longLoop =
+        CPATestRunner.run(config, "test/programs/bmc/loopWithInfeasibleError-10.c");
+    shortLoop.assertIsSafe();
+    longLoop.assertIsSafe();
+
+    // About twice as many bounds are checked for the longer loop. If the formulas for each bound
+    // did not share the formulas of the previous bounds, the number of formula nodes would grow
+    // quadratically, i.e., by a factor of about four.
+    long shortLoopNodes = getNewFormulaNodes(shortLoop);
+    assertThat(shortLoopNodes).isGreaterThan(0L);
+    assertThat(getNewFormulaNodes(longLoop)).isLessThan(3 * shortLoopNodes);
+  }
+
+  private static long getNewFormulaNodes(TestResults pResults) {
+    ByteArrayOutputStream statistics = new ByteArrayOutputStream();
+    try (PrintStream out = new PrintStream(statistics, true, StandardCharsets.UTF_8)) {
+      pResults.getCheckerResult().printStatistics(out);
+    }
+    Matcher matcher =
+        Pattern.compile("New formula nodes in incremental checks:\\s*(\\d+)")
+            .matcher(statistics.toString(StandardCharsets.UTF_8));
+    assertThat(matcher.find()).isTrue();
+    return Long.parseLong(matcher.group(1));
+  }
+
+  private static void checkIncrementalResult(String pProgram, Result pExpected) throws Exception {
+    CPATestRunner.runForEachValue(
+        config(), "bmc.incremental", ImmutableList.of("false", "true"), pProgram, pExpected);
+  }
+
+  private static Configuration config() throws InvalidConfigurationException, IOException {
+    return TestDataTools.configurationForTest()
+        .loadFromFile("config/bmc.properties")
+        .setOption("solver.solver", "SMTINTERPOL")
+        .setOption("cpa.predicate.encodeBitvectorAs", "INTEGER")
+        .setOption("cpa.predicate.encodeFloatAs", "RATIONAL")
+        .build();
+  }
+}
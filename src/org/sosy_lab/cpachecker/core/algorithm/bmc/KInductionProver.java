@@ -72,6 +72,7 @@ import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.CandidateI
 import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.SymbolicCandiateInvariant;
 import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.TargetLocationCandidateInvariant;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.ExpressionTreeSupplier;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantExchange;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantGenerator;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.KInductionInvariantGenerator;
@@ -92,6 +93,7 @@ import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.CPAs;
 import org.sosy_lab.cpachecker.util.LoopStructure.Loop;
 import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.expressions.And;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
 import org.sosy_lab.cpachecker.util.predicates.invariants.ExpressionTreeInvariantSupplier;
 import org.sosy_lab.cpachecker.util.predicates.invariants.FormulaInvariantsSupplier;
@@ -141,6 +143,9 @@ class KInductionProver implements AutoCloseable {
 
   private final InvariantGenerator invariantGenerator;
 
+  /** Location invariants published by analyses running in parallel. */
+  private final InvariantExchange invariantExchange;
+
   private final ProverEnvironmentWithFallback prover;
 
   private ExpressionTreeSupplier expressionTreeSupplier;
@@ -155,6 +160,9 @@ class KInductionProver implements AutoCloseable {
 
   private boolean invariantGenerationRunning = true;
 
+  /** The version of {@link #invariantExchange} that {@link #loopHeadInvariants} reflects. */
+  private int consumedInvariantExchangeVersion = 0;
+
   /** Creates an instance of the KInductionProver. */
   public KInductionProver(
       CFA pCFA,
@@ -166,12 +174,14 @@ class KInductionProver implements AutoCloseable {
       ReachedSetFactory pReachedSetFactory,
       ShutdownNotifier pShutdownNotifier,
       Set<CFANode> pLoopHeads,
-      boolean pUnsatCoreGeneration) {
+      boolean pUnsatCoreGeneration,
+      InvariantExchange pInvariantExchange) {
     cfa = checkNotNull(pCFA);
     logger = checkNotNull(pLogger);
     algorithm = checkNotNull(pAlgorithm);
     cpa = checkNotNull(pCPA);
     invariantGenerator  = checkNotNull(pInvariantGenerator);
+    invariantExchange = checkNotNull(pInvariantExchange);
     stats = checkNotNull(pStats);
     reachedSetFactory = checkNotNull(pReachedSetFactory);
     shutdownNotifier = checkNotNull(pShutdownNotifier);
@@ -255,7 +265,11 @@ class KInductionProver implements AutoCloseable {
             .toSet();
     return pContext -> {
       shutdownNotifier.shutdownIfNecessary();
-      if (!bfmgr.isFalse(loopHeadInvariants) && invariantGenerationRunning) {
+      // read the version first, such that invariants published meanwhile are not missed
+      int exchangeVersion = invariantExchange.getVersion();
+      if (!bfmgr.isFalse(loopHeadInvariants)
+          && (invariantGenerationRunning || exchangeVersion > consumedInvariantExchangeVersion)) {
+        consumedInvariantExchangeVersion = exchangeVersion;
         BooleanFormula lhi = bfmgr.makeFalse();
         for (CFANode loopHead : stopLoopHeads) {
           lhi = bfmgr.or(lhi, getCurrentLocationInvariants(loopHead, fmgr, pfmgr, pContext));
@@ -276,15 +290,24 @@ class KInductionProver implements AutoCloseable {
     shutdownNotifier.shutdownIfNecessary();
     InvariantSupplier currentInvariantsSupplier = getCurrentInvariantSupplier();
 
-    return currentInvariantsSupplier.getInvariantFor(
-        pLocation, Optional.empty(), pFormulaManager, pPathFormulaManager, pContext);
+    BooleanFormula invariant =
+        currentInvariantsSupplier.getInvariantFor(
+            pLocation, Optional.empty(), pFormulaManager, pPathFormulaManager, pContext);
+    return pFormulaManager
+        .getBooleanFormulaManager()
+        .and(
+            invariant,
+            invariantExchange.getInvariantFor(
+                pLocation, Optional.empty(), pFormulaManager, pPathFormulaManager, pContext));
   }
 
   public ExpressionTree<Object> getCurrentLocationInvariants(CFANode pLocation)
       throws InterruptedException {
     ExpressionTreeSupplier currentInvariantsSupplier = getCurrentExpressionTreeInvariantSupplier();
 
-    return currentInvariantsSupplier.getInvariantFor(pLocation);
+    return And.of(
+        currentInvariantsSupplier.getInvariantFor(pLocation),
+        invariantExchange.getInvariantFor(pLocation));
   }
 
   @Override
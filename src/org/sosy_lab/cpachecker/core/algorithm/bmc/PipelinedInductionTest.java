@@ -0,0 +1,66 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.bmc;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/** Tests that pipelined k-induction has the same results as the sequential one. */
+public class PipelinedInductionTest {
+
+  @Test
+  public void safeByInduction() throws Exception {
+    // the loop is unbounded, so only the step case can prove safety
+    checkPipelinedResult("test/programs/bmc/unboundedLoop_true-unreach-label.c", Result.TRUE);
+  }
+
+  @Test
+  public void errorAfterSeveralBounds() throws Exception {
+    // step cases of the first bounds are still pending when the error is found
+    checkPipelinedResult("test/programs/bmc/loopWithError_false-unreach-label.c", Result.FALSE);
+  }
+
+  @Test
+  public void errorWithoutLoop() throws Exception {
+    checkPipelinedResult(
+        "test/programs/simple/globalVariableInitialValue_false-unreach-label.c", Result.FALSE);
+  }
+
+  private static void checkPipelinedResult(String pProgram, Result pExpected) throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .loadFromFile("config/components/kInduction/kInduction.properties")
+            .setOption("specification", "config/specification/default.spc")
+            .setOption("solver.solver", "SMTINTERPOL")
+            .setOption("cpa.predicate.encodeBitvectorAs", "INTEGER")
+            .setOption("cpa.predicate.encodeFloatAs", "RATIONAL")
+            .build();
+    CPATestRunner.runForEachValue(
+        config, "bmc.pipelinedInduction", ImmutableList.of("false", "true"), pProgram, pExpected);
+  }
+}
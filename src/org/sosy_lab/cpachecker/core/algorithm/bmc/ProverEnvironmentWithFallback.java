@@ -38,6 +38,7 @@ import java.util.Optional;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
 import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.Model.ValueAssignment;
@@ -50,6 +51,9 @@ public class ProverEnvironmentWithFallback
 
   private final Deque<BooleanFormula> stack = new ArrayDeque<>();
 
+  /** Constraints that were added without pushing a level, they are never popped. */
+  private final List<BooleanFormula> baseConstraints = new ArrayList<>();
+
   private final boolean useInterpolation;
 
   private final Solver solver;
@@ -64,6 +68,9 @@ public class ProverEnvironmentWithFallback
 
   private boolean isUnsat = false;
 
+  /** The assumptions of the last satisfiability check. */
+  private ImmutableList<BooleanFormula> assumptions = ImmutableList.of();
+
   public ProverEnvironmentWithFallback(Solver pSolver, ProverOptions... pProverOptions) {
     solver = pSolver;
     proverOptions = EnumSet.copyOf(Arrays.asList(pProverOptions));
@@ -98,6 +105,7 @@ public class ProverEnvironmentWithFallback
         proverEnvironment.close();
       }
       stack.clear();
+      baseConstraints.clear();
       closed = true;
     }
   }
@@ -134,9 +142,24 @@ public class ProverEnvironmentWithFallback
     stack.pop();
   }
 
+  /**
+   * Assert the current constraints on the non-interpolating prover environment after it was
+   * created as fallback.
+   */
+  private void replayStack() throws InterruptedException {
+    for (BooleanFormula constraint : baseConstraints) {
+      proverEnvironment.addConstraint(constraint);
+    }
+    Iterator<BooleanFormula> it = stack.descendingIterator();
+    while (it.hasNext()) {
+      proverEnvironment.push(it.next());
+    }
+  }
+
   @Override
   public boolean isUnsat() throws SolverException, InterruptedException {
     ensureInitialized();
+    assumptions = ImmutableList.of();
     if (supportsInterpolation()) {
       try {
         return isUnsat = interpolatingProverEnvironment.isUnsat();
@@ -144,10 +167,7 @@ public class ProverEnvironmentWithFallback
         interpolatingProverEnvironment.close();
         interpolatingProverEnvironment = null;
         proverEnvironment = solver.newProverEnvironment(getOptions());
-        Iterator<BooleanFormula> it = stack.descendingIterator();
-        while (it.hasNext()) {
-          proverEnvironment.push(it.next());
-        }
+        replayStack();
         try {
           return isUnsat();
         } catch (SolverException solverException2) {
@@ -166,10 +186,7 @@ public class ProverEnvironmentWithFallback
       proverEnvironment = null;
       proverOptions.remove(ProverOptions.GENERATE_UNSAT_CORE);
       proverEnvironment = solver.newProverEnvironment(getOptions());
-      Iterator<BooleanFormula> it = stack.descendingIterator();
-      while (it.hasNext()) {
-        proverEnvironment.push(it.next());
-      }
+      replayStack();
       try {
         return isUnsat();
       } catch (SolverException solverException2) {
@@ -180,13 +197,44 @@ public class ProverEnvironmentWithFallback
   }
 
   @Override
-  public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pArg0)
+  public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
       throws SolverException, InterruptedException {
     ensureInitialized();
+    assumptions = ImmutableList.copyOf(pAssumptions);
     if (supportsInterpolation()) {
-      return interpolatingProverEnvironment.isUnsatWithAssumptions(pArg0);
+      try {
+        return isUnsat = interpolatingProverEnvironment.isUnsatWithAssumptions(assumptions);
+      } catch (SolverException solverException) {
+        interpolatingProverEnvironment.close();
+        interpolatingProverEnvironment = null;
+        proverEnvironment = solver.newProverEnvironment(getOptions());
+        replayStack();
+        try {
+          return isUnsatWithAssumptions(pAssumptions);
+        } catch (SolverException solverException2) {
+          solverException.addSuppressed(solverException2);
+          throw solverException;
+        }
+      }
+    }
+    try {
+      return isUnsat = proverEnvironment.isUnsatWithAssumptions(assumptions);
+    } catch (SolverException solverException) {
+      if (!supportsUnsatCoreGeneration()) {
+        throw solverException;
+      }
+      proverEnvironment.close();
+      proverEnvironment = null;
+      proverOptions.remove(ProverOptions.GENERATE_UNSAT_CORE);
+      proverEnvironment = solver.newProverEnvironment(getOptions());
+      replayStack();
+      try {
+        return isUnsatWithAssumptions(pAssumptions);
+      } catch (SolverException solverException2) {
+        solverException.addSuppressed(solverException2);
+        throw solverException;
+      }
     }
-    return proverEnvironment.isUnsatWithAssumptions(pArg0);
   }
 
   @Override
@@ -202,7 +250,10 @@ public class ProverEnvironmentWithFallback
   public List<BooleanFormula> getUnsatCore() {
     ensureInitialized();
     if (isUnsat && supportsUnsatCoreGeneration()) {
-      return new ArrayList<>(stack);
+      List<BooleanFormula> core = new ArrayList<>(baseConstraints);
+      core.addAll(stack);
+      core.addAll(assumptions);
+      return core;
     }
     if (supportsInterpolation()) {
       return interpolatingProverEnvironment.getUnsatCore();
@@ -235,18 +286,26 @@ public class ProverEnvironmentWithFallback
       interpolatingProverEnvironment.close();
       interpolatingProverEnvironment = null;
       proverEnvironment = solver.newProverEnvironment(getOptions());
-      Iterator<BooleanFormula> it = stack.descendingIterator();
-      while (it.hasNext()) {
-        proverEnvironment.push(it.next());
-      }
+      replayStack();
       throw solverException;
     }
   }
 
+  /**
+   * Add a constraint to the current level. If no level was pushed, the constraint is never
+   * removed.
+   */
   @Override
   @Nullable
   public Object addConstraint(BooleanFormula pArg0) throws InterruptedException {
     ensureInitialized();
+    isUnsat = false;
+    if (stack.isEmpty()) {
+      baseConstraints.add(pArg0);
+    } else {
+      BooleanFormulaManager bfmgr = solver.getFormulaManager().getBooleanFormulaManager();
+      stack.push(bfmgr.and(stack.pop(), pArg0));
+    }
     if (supportsInterpolation()) {
       return interpolatingProverEnvironment.addConstraint(pArg0);
     }
@@ -265,10 +324,12 @@ public class ProverEnvironmentWithFallback
   @Override
   public void push() {
     ensureInitialized();
+    stack.push(solver.getFormulaManager().getBooleanFormulaManager().makeTrue());
     if (supportsInterpolation()) {
       interpolatingProverEnvironment.push();
+    } else {
+      proverEnvironment.push();
     }
-    proverEnvironment.push();
   }
 
   @Override
@@ -0,0 +1,109 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.bmc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.math.BigInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+
+public class ProverEnvironmentWithFallbackTest extends SolverViewBasedTest0 {
+
+  private ProverEnvironmentWithFallback prover;
+  private IntegerFormula x;
+
+  @Before
+  public void createProver() {
+    prover = new ProverEnvironmentWithFallback(solver, ProverOptions.GENERATE_MODELS);
+    x = imgrv.makeVariable("x");
+  }
+
+  @After
+  public void closeProver() {
+    prover.close();
+  }
+
+  private BooleanFormula xEquals(int pValue) {
+    return imgrv.equal(x, imgrv.makeNumber(pValue));
+  }
+
+  @Test
+  public void constraintsWithoutLevelStayAfterPop() throws Exception {
+    prover.addConstraint(xEquals(1));
+    prover.push(xEquals(2));
+    assertThat(prover.isUnsat()).isTrue();
+    prover.pop();
+
+    assertThat(prover.isEmpty()).isTrue();
+    assertThat(prover.isUnsat()).isFalse();
+    prover.push(xEquals(2));
+    assertThat(prover.isUnsat()).isTrue();
+    prover.pop();
+  }
+
+  @Test
+  public void constraintsOnPushedLevelArePopped() throws Exception {
+    prover.push();
+    prover.addConstraint(bmgrv.makeFalse());
+    assertThat(prover.isUnsat()).isTrue();
+    prover.pop();
+
+    assertThat(prover.isEmpty()).isTrue();
+    assertThat(prover.isUnsat()).isFalse();
+  }
+
+  /** The sequence of operations of the incremental bounded model checks. */
+  @Test
+  public void activationLiteralsAreIndependent() throws Exception {
+    BooleanFormula act1 = bmgrv.makeVariable("__bmc_activation_0");
+    BooleanFormula act2 = bmgrv.makeVariable("__bmc_activation_1");
+
+    // first bound: safe
+    prover.addConstraint(bmgrv.implication(act1, bmgrv.and(xEquals(1), xEquals(2))));
+    assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(act1))).isTrue();
+    prover.push(act1);
+    prover.pop();
+    assertThat(prover.isEmpty()).isTrue();
+
+    // second bound: unsafe, the inactive formula of the first bound does not interfere
+    prover.addConstraint(bmgrv.implication(act2, xEquals(3)));
+    assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(act2))).isFalse();
+    prover.push(act2);
+    assertThat(prover.isUnsat()).isFalse();
+    assertThat(prover.getModel().evaluate(x)).isEqualTo(BigInteger.valueOf(3));
+    prover.pop();
+    assertThat(prover.isEmpty()).isTrue();
+
+    // the formula of the first bound is still known and can be activated again
+    assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(act1))).isTrue();
+    assertThat(prover.isUnsatWithAssumptions(ImmutableList.of())).isFalse();
+  }
+}
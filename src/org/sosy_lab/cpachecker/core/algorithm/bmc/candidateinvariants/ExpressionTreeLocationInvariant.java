@@ -117,6 +117,10 @@ public class ExpressionTreeLocationInvariant extends SingleLocationFormulaInvari
     return ExpressionTrees.cast(expressionTree);
   }
 
+  public ExpressionTree<AExpression> getExpressionTree() {
+    return expressionTree;
+  }
+
   public String getGroupId() {
     return groupId;
   }
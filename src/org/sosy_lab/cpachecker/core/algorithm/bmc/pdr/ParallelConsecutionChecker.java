@@ -0,0 +1,114 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.bmc.pdr;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.ParallelSolverPool;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Checks the unsatisfiability of independent queries with several solver contexts in parallel.
+ *
+ * <p>This is used for the consecution checks of clause propagation, which only need to know
+ * whether a query is unsatisfiable, and neither models nor unsat cores. The queries are created by
+ * the calling thread with its own formula manager, translated into the worker contexts of a {@link
+ * ParallelSolverPool} by the calling thread, and distributed round-robin to the workers. After a
+ * failed or interrupted check, the checker cannot be used anymore.
+ */
+class ParallelConsecutionChecker implements AutoCloseable {
+
+  private final FormulaManagerView fmgr;
+  private final ParallelSolverPool pool;
+
+  ParallelConsecutionChecker(
+      int pThreads,
+      FormulaManagerView pFmgr,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    checkArgument(pThreads > 1);
+    fmgr = pFmgr;
+    pool = new ParallelSolverPool("pdr-consecution", pThreads, pConfig, pLogger, pShutdownNotifier);
+  }
+
+  /**
+   * Check which of the given queries are unsatisfiable.
+   *
+   * @return an array with the result for each query, in the order of the given list.
+   */
+  boolean[] isUnsat(List<BooleanFormula> pQueries) throws SolverException, InterruptedException {
+    final int size = pQueries.size();
+    final int workers = Math.min(pool.size(), size);
+    final boolean[] result = new boolean[size];
+
+    // Formula managers are not thread-safe, so translate everything in the current thread.
+    final ShutdownNotifier shutdownNotifier = pool.getShutdownNotifier();
+    List<Callable<Void>> tasks = new ArrayList<>(workers);
+    for (int w = 0; w < workers; w++) {
+      final Solver solver = pool.getSolver(w);
+      final FormulaManagerView workerFmgr = solver.getFormulaManager();
+      final List<Integer> indices = new ArrayList<>();
+      final List<BooleanFormula> queries = new ArrayList<>();
+      for (int i = w; i < size; i += workers) {
+        indices.add(i);
+        queries.add(workerFmgr.translateFrom(pQueries.get(i), fmgr));
+      }
+
+      tasks.add(
+          () -> {
+            try (ProverEnvironment prover = solver.newProverEnvironment()) {
+              for (int i = 0; i < queries.size(); i++) {
+                shutdownNotifier.shutdownIfNecessary();
+                prover.push(queries.get(i));
+                // each worker writes to disjoint indices
+                result[indices.get(i)] = prover.isUnsat();
+                prover.pop();
+              }
+            }
+            return null;
+          });
+    }
+
+    pool.invokeAll(tasks);
+    return result;
+  }
+
+  @Override
+  public void close() {
+    pool.close();
+  }
+}
@@ -58,6 +58,7 @@ import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -99,6 +100,7 @@ import org.sosy_lab.cpachecker.core.counterexample.CounterexampleInfo;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.conditions.AdjustableConditionCPA;
 import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -133,7 +135,7 @@ import org.sosy_lab.java_smt.api.Model.ValueAssignment;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 
-public class PdrAlgorithm implements Algorithm {
+public class PdrAlgorithm implements Algorithm, StatisticsProvider {
 
   private final Algorithm algorithm;
   private final ConfigurableProgramAnalysis cpa;
@@ -169,9 +171,13 @@ public class PdrAlgorithm implements Algorithm {
 
     private final Timer satCheck = new Timer();
     private final Timer errorPathCreation = new Timer();
+    private int frames = 0;
+    private int pushedFrameClauses = 0;
 
     @Override
     public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+      pOut.println("Number of frames:                    " + frames);
+      pOut.println("Number of pushed frame clauses:      " + pushedFrameClauses);
       if (satCheck.getNumberOfIntervals() > 0) {
         pOut.println("Time for final sat check:            " + satCheck);
       }
@@ -250,6 +256,14 @@ public class PdrAlgorithm implements Algorithm {
     };
   }
 
+  @Override
+  public void collectStatistics(Collection<Statistics> pStatsCollection) {
+    if (algorithm instanceof StatisticsProvider) {
+      ((StatisticsProvider) algorithm).collectStatistics(pStatsCollection);
+    }
+    pStatsCollection.add(stats);
+  }
+
   @Override
   public AlgorithmStatus run(ReachedSet pReachedSet) throws CPAException, InterruptedException {
     CFANode initialLocation = AbstractStates.extractLocation(pReachedSet.getFirstState());
@@ -301,8 +315,10 @@ public class PdrAlgorithm implements Algorithm {
     boolean producedNewRootInvariants = true;
 
     try (FrameSet frameSet =
-        new FrameSet(
-            solver, EnumSet.of(ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_UNSAT_CORE))) {
+            new FrameSet(
+                solver,
+                EnumSet.of(ProverOptions.GENERATE_MODELS, ProverOptions.GENERATE_UNSAT_CORE));
+        ParallelConsecutionChecker consecutionChecker = createParallelConsecutionChecker()) {
       learnClause(frameSet, 0, pTransitionRelation.getInitiationAssertion());
 
       while (producedNewRootInvariants) {
@@ -314,35 +330,10 @@ public class PdrAlgorithm implements Algorithm {
 
         while (candidateGenerator.hasCandidatesAvailable()) {
 
-          boolean propagated = false;
-
-          for (int i = 0; i < frameSet.getFrontierIndex(); ++i) {
-            @SuppressWarnings("resource")
-            ProverEnvironmentWithFallback frameProver = frameSet.getFrameProver(i);
-            Set<CandidateInvariant> frameInvariants = frameSet.getInvariants(i);
-            frameInvariants =
-                Sets.union(
-                    frameInvariants, Collections.singleton(getCurrentInvariant(pTransitionRelation)));
-            List<CandidateInvariant> toPush = new ArrayList<>();
-            for (CandidateInvariant frameClause : frameSet.getPushableFrameClauses(i)) {
-              InductionResult<CandidateInvariant> pushAttempt =
-                  checkInduction(
-                      frameProver,
-                      frameInvariants,
-                      pTransitionRelation,
-                      frameClause,
-                      InvariantStrengthenings.noStrengthening(),
-                      StandardLiftings.NO_LIFTING);
-              if (pushAttempt.isSuccessful()) {
-                toPush.add(frameClause);
-                propagated = true;
-              }
-            }
-
-            for (CandidateInvariant pushableClause : toPush) {
-              frameSet.pushFrameClause(i, pushableClause);
-            }
-          }
+          boolean propagated =
+              consecutionChecker != null
+                  ? propagateInParallel(frameSet, pTransitionRelation, consecutionChecker)
+                  : propagate(frameSet, pTransitionRelation);
 
           if (propagated) {
             // We have just propagated some non-root candidate invariants,
@@ -369,6 +360,113 @@ public class PdrAlgorithm implements Algorithm {
     return status;
   }
 
+  private @Nullable ParallelConsecutionChecker createParallelConsecutionChecker()
+      throws CPAException {
+    int threads = basicPdrOptions.getPropagationThreads();
+    if (threads <= 1) {
+      return null;
+    }
+    try {
+      return new ParallelConsecutionChecker(threads, fmgr, config, logger, shutdownNotifier);
+    } catch (InvalidConfigurationException e) {
+      throw new CPAException("Cannot create solvers for parallel propagation", e);
+    }
+  }
+
+  /**
+   * Tries to push the clauses of each frame to the next frame.
+   *
+   * @return whether any clause was propagated.
+   */
+  private boolean propagate(FrameSet pFrameSet, TotalTransitionRelation pTransitionRelation)
+      throws InterruptedException, SolverException, CPATransferException {
+    boolean propagated = false;
+
+    for (int i = 0; i < pFrameSet.getFrontierIndex(); ++i) {
+      @SuppressWarnings("resource")
+      ProverEnvironmentWithFallback frameProver = pFrameSet.getFrameProver(i);
+      Set<CandidateInvariant> frameInvariants = pFrameSet.getInvariants(i);
+      frameInvariants =
+          Sets.union(
+              frameInvariants, Collections.singleton(getCurrentInvariant(pTransitionRelation)));
+      List<CandidateInvariant> toPush = new ArrayList<>();
+      for (CandidateInvariant frameClause : pFrameSet.getPushableFrameClauses(i)) {
+        InductionResult<CandidateInvariant> pushAttempt =
+            checkInduction(
+                frameProver,
+                frameInvariants,
+                pTransitionRelation,
+                frameClause,
+                InvariantStrengthenings.noStrengthening(),
+                StandardLiftings.NO_LIFTING);
+        if (pushAttempt.isSuccessful()) {
+          toPush.add(frameClause);
+          propagated = true;
+        }
+      }
+
+      for (CandidateInvariant pushableClause : toPush) {
+        pushFrameClause(pFrameSet, i, pushableClause);
+      }
+    }
+    return propagated;
+  }
+
+  /**
+   * Tries to push the clauses of each frame to the next frame like {@link #propagate}, but checks
+   * the consecution of all clauses of a frame in parallel. The clauses of a frame are pushed after
+   * all of them were checked, so the frames are the same as after {@link #propagate}.
+   *
+   * @return whether any clause was propagated.
+   */
+  private boolean propagateInParallel(
+      FrameSet pFrameSet,
+      TotalTransitionRelation pTransitionRelation,
+      ParallelConsecutionChecker pConsecutionChecker)
+      throws InterruptedException, SolverException, CPATransferException {
+    boolean propagated = false;
+
+    BooleanFormula transitionFormula = pTransitionRelation.getTransitionFormula();
+    CandidateInvariant currentInvariant = getCurrentInvariant(pTransitionRelation);
+    for (int i = 0; i < pFrameSet.getFrontierIndex(); ++i) {
+      Set<CandidateInvariant> frameInvariants =
+          Sets.union(pFrameSet.getInvariants(i), Collections.singleton(currentInvariant));
+      BooleanFormula predecessorAssertions =
+          pTransitionRelation.getPredecessorAssertions(frameInvariants);
+      List<CandidateInvariant> frameClauses = new ArrayList<>();
+      List<BooleanFormula> queries = new ArrayList<>();
+      for (CandidateInvariant frameClause : pFrameSet.getPushableFrameClauses(i)) {
+        BooleanFormula successorViolation =
+            BMCHelper.disjoinStateViolationAssertions(
+                bfmgr, pTransitionRelation.getSuccessorViolationAssertions(frameClause));
+        frameClauses.add(frameClause);
+        queries.add(
+            bfmgr.and(
+                transitionFormula,
+                predecessorAssertions,
+                pTransitionRelation.getPredecessorAssertion(frameClause),
+                successorViolation));
+      }
+      if (queries.isEmpty()) {
+        continue;
+      }
+
+      boolean[] consecutive = pConsecutionChecker.isUnsat(queries);
+      for (int q = 0; q < queries.size(); q++) {
+        if (consecutive[q]) {
+          pushFrameClause(pFrameSet, i, frameClauses.get(q));
+          propagated = true;
+        }
+      }
+    }
+    return propagated;
+  }
+
+  private void pushFrameClause(FrameSet pFrameSet, int pFrameIndex, CandidateInvariant pClause) {
+    pFrameSet.pushFrameClause(pFrameIndex, pClause);
+    stats.pushedFrameClauses++;
+  }
+
   /**
    * Adjusts the conditions of those CPAs that support the adjustment of conditions.
    *
@@ -777,6 +875,7 @@ public class PdrAlgorithm implements Algorithm {
 
     if (inductionResult.isSuccessful()) {
       pFrameSet.pushFrontier(oldFrontierIndex + 1, pRootCandidateInvariant);
+      stats.frames = Math.max(stats.frames, pFrameSet.getFrontierIndex() + 1);
       return FrontierExtensionResult.getSuccess();
     }
 
@@ -962,6 +1061,7 @@ public class PdrAlgorithm implements Algorithm {
           boundedModelCheck(pBmcReachedSet, pFrameSet.getFrameProver(0), rootInvariant);
       if (bmcSafe) {
         pFrameSet.pushFrontier(1, rootInvariant);
+        stats.frames = Math.max(stats.frames, pFrameSet.getFrontierIndex() + 1);
       } else {
         rootInvariantIterator.remove();
         if (rootInvariant == TargetLocationCandidateInvariant.INSTANCE) {
@@ -1330,6 +1430,15 @@ public class PdrAlgorithm implements Algorithm {
     private ConditionAdjustmentCriterion conditionAdjustmentCriterion =
         ConditionAdjustmentCriterion.NEVER;
 
+    @Option(
+      secure = true,
+      description =
+          "Number of threads (each with its own solver instance) for checking"
+              + " the propagation of frame clauses in parallel."
+    )
+    @IntegerOption(min = 1)
+    private int propagationThreads = 1;
+
     private BasicPdrOptions(Configuration pConfig) throws InvalidConfigurationException {
       pConfig.inject(this);
     }
@@ -1357,6 +1466,10 @@ public class PdrAlgorithm implements Algorithm {
     public ConditionAdjustmentCriterion getConditionAdjustmentCriterion() {
       return conditionAdjustmentCriterion;
     }
+
+    public int getPropagationThreads() {
+      return propagationThreads;
+    }
   }
 
   private enum LiftingStrategyFactories {
@@ -0,0 +1,100 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.bmc.pdr;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/** Tests that parallel clause propagation has the same results as the sequential one. */
+public class PdrAlgorithmTest {
+
+  private static final String CONFIG_FILE =
+      "config/unmaintained/components/kInduction/pdr.properties";
+
+  @Test
+  public void errorAfterSeveralIterations() throws Exception {
+    checkParallelPropagation("test/programs/bmc/loopWithError_false-unreach-label.c", Result.FALSE);
+  }
+
+  @Test
+  public void safeLoop() throws Exception {
+    checkParallelPropagation("test/programs/bmc/loopWithError_true-unreach-label.c", Result.TRUE);
+  }
+
+  @Test
+  public void errorWithoutLoop() throws Exception {
+    checkParallelPropagation(
+        "test/programs/simple/globalVariableInitialValue_false-unreach-label.c", Result.FALSE);
+  }
+
+  private static void checkParallelPropagation(String pProgram, Result pExpected) throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .loadFromFile(CONFIG_FILE)
+            .setOption("solver.solver", "SMTINTERPOL")
+            .setOption("cpa.predicate.encodeBitvectorAs", "INTEGER")
+            .setOption("cpa.predicate.encodeFloatAs", "RATIONAL")
+            .build();
+    List<TestResults> results =
+        CPATestRunner.runForEachValue(
+            config, "pdr.propagationThreads", ImmutableList.of("1", "3"), pProgram, pExpected);
+
+    // parallel propagation pushes the same clauses and creates the same frames
+    List<String> sequentialFrames = getFrameStatistics(results.get(0).getCheckerResult());
+    assertThat(sequentialFrames).hasSize(2);
+    assertThat(getFrameStatistics(results.get(1).getCheckerResult()))
+        .containsExactlyElementsIn(sequentialFrames)
+        .inOrder();
+  }
+
+  /** The lines of the PDR statistics that describe the frames. */
+  private static List<String> getFrameStatistics(CPAcheckerResult pResult)
+      throws UnsupportedEncodingException {
+    ByteArrayOutputStream statistics = new ByteArrayOutputStream();
+    try (PrintStream out = new PrintStream(statistics, true, UTF_8.name())) {
+      pResult.printStatistics(out);
+    }
+    return FluentIterable.from(Splitter.on('\n').split(new String(statistics.toByteArray(), UTF_8)))
+        .filter(
+            line ->
+                line.startsWith("Number of frames:")
+                    || line.startsWith("Number of pushed frame clauses:"))
+        .toList();
+  }
+}
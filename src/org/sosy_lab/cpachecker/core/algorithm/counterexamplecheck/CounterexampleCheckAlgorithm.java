@@ -64,10 +64,11 @@ import org.sosy_lab.cpachecker.cpa.predicate.SlicingAbstractionsUtils;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.InfeasibleCounterexampleException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
 
 @Options(prefix = "counterexample")
 public class CounterexampleCheckAlgorithm
-    implements Algorithm, StatisticsProvider, Statistics, ReachedSetUpdater {
+    implements Algorithm, StatisticsProvider, Statistics, ReachedSetUpdater, AutoCloseable {
 
   enum CounterexampleCheckerType {
     CBMC, CPACHECKER, CONCRETE_EXECUTION;
@@ -257,6 +258,11 @@ public class CounterexampleCheckAlgorithm
     }
   }
 
+  @Override
+  public void close() {
+    CPAs.closeIfPossible(algorithm, logger);
+  }
+
   @Override
   public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
 
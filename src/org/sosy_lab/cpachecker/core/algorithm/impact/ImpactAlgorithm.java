@@ -68,6 +68,7 @@ import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.CounterexampleTraceInfo;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.InterpolationManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager.PathFormulaCacheOptions;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
@@ -83,7 +84,7 @@ import org.sosy_lab.java_smt.api.SolverException;
  * paper "Lazy Abstraction with Interpolants" and implemented in the tool IMPACT.
  */
 @Options(prefix="impact")
-public class ImpactAlgorithm implements Algorithm, StatisticsProvider {
+public class ImpactAlgorithm implements Algorithm, StatisticsProvider, AutoCloseable {
 
   private final LogManager logger;
 
@@ -145,7 +146,11 @@ public class ImpactAlgorithm implements Algorithm, StatisticsProvider {
     solver = Solver.create(config, pLogger, pShutdownNotifier);
     fmgr = solver.getFormulaManager();
     bfmgr = fmgr.getBooleanFormulaManager();
-    pfmgr = new CachingPathFormulaManager(new PathFormulaManagerImpl(fmgr, config, logger, pShutdownNotifier, cfa, AnalysisDirection.FORWARD));
+    pfmgr =
+        new CachingPathFormulaManager(
+            new PathFormulaManagerImpl(
+                fmgr, config, logger, pShutdownNotifier, cfa, AnalysisDirection.FORWARD),
+            new PathFormulaCacheOptions(config));
     imgr = new InterpolationManager(pfmgr, solver, cfa.getLoopStructure(), cfa.getVarClassification(), config, pShutdownNotifier, logger);
   }
 
@@ -516,4 +521,9 @@ public class ImpactAlgorithm implements Algorithm, StatisticsProvider {
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(new Stats());
   }
+
+  @Override
+  public void close() {
+    imgr.close();
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.invariants;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.AExpression;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
+import org.sosy_lab.cpachecker.util.expressions.And;
+import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
+import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
+import org.sosy_lab.cpachecker.util.expressions.ToFormulaVisitor;
+import org.sosy_lab.cpachecker.util.expressions.ToFormulaVisitor.ToFormulaException;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * Thread-safe store of location invariants that analyses running side by side (e.g., in the
+ * parallel algorithm) can publish as soon as they have proven them, and that other analyses can
+ * query at any time while they are still running.
+ *
+ * <p>Invariants are kept as expression trees over program expressions, so they are independent of
+ * the formula manager of the publishing analysis. Invariants published for the same location are
+ * conjoined; the result only ever gets stronger.
+ */
+public final class InvariantExchange implements InvariantSupplier, ExpressionTreeSupplier {
+
+  private final ConcurrentMap<CFANode, ExpressionTree<AExpression>> invariants =
+      new ConcurrentHashMap<>();
+
+  /** Number of publications that strengthened the invariant of some location. */
+  private final AtomicInteger version = new AtomicInteger();
+
+  /**
+   * Publish an invariant that holds at the given location for all reachable program states,
+   * regardless of the call stack.
+   *
+   * @param pLocation the location the invariant holds at.
+   * @param pInvariant the invariant.
+   * @return whether the invariant strengthened the known invariant for the location.
+   */
+  public boolean publish(CFANode pLocation, ExpressionTree<AExpression> pInvariant) {
+    checkNotNull(pLocation);
+    checkNotNull(pInvariant);
+    if (ExpressionTrees.getTrue().equals(pInvariant)) {
+      return false;
+    }
+    boolean[] changed = new boolean[1];
+    invariants.compute(
+        pLocation,
+        (location, known) -> {
+          ExpressionTree<AExpression> result =
+              known == null ? pInvariant : And.of(known, pInvariant);
+          changed[0] = !result.equals(known);
+          return result;
+        });
+    if (changed[0]) {
+      version.incrementAndGet();
+    }
+    return changed[0];
+  }
+
+  /**
+   * Return a number that is increased whenever a published invariant strengthens the known
+   * invariants, so that consumers can cheaply check whether something changed since their last
+   * query.
+   */
+  public int getVersion() {
+    return version.get();
+  }
+
+  @Override
+  public ExpressionTree<Object> getInvariantFor(CFANode pNode) {
+    ExpressionTree<AExpression> invariant = invariants.get(pNode);
+    if (invariant == null) {
+      return ExpressionTrees.getTrue();
+    }
+    return ExpressionTrees.cast(invariant);
+  }
+
+  @Override
+  public BooleanFormula getInvariantFor(
+      CFANode pNode,
+      Optional<CallstackStateEqualsWrapper> pCallstackInformation,
+      FormulaManagerView pFmgr,
+      PathFormulaManager pPfmgr,
+      @Nullable PathFormula pContext)
+      throws InterruptedException {
+    ExpressionTree<AExpression> invariant = invariants.get(pNode);
+    if (invariant == null) {
+      return pFmgr.getBooleanFormulaManager().makeTrue();
+    }
+    PathFormula clearContext = pContext == null ? null : pPfmgr.makeEmptyPathFormula(pContext);
+    try {
+      return invariant.accept(new ToFormulaVisitor(pFmgr, pPfmgr, clearContext));
+    } catch (ToFormulaException e) {
+      if (e.isInterruptedException()) {
+        throw e.asInterruptedException();
+      }
+      // the invariant cannot be expressed in this analysis, so we simply do not use it
+      return pFmgr.getBooleanFormulaManager().makeTrue();
+    }
+  }
+}
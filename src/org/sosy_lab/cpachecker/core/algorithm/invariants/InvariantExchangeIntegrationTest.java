@@ -0,0 +1,178 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.invariants;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreator;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CoreComponentsFactory;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
+import org.sosy_lab.cpachecker.core.algorithm.Algorithm.AlgorithmStatus;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
+import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
+import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Tests that an invariant proven by k-induction reaches the predicate analysis via the {@link
+ * InvariantExchange}, as it happens for analyses that run side by side in the parallel algorithm.
+ * The analyses run one after the other here, so that the exchange is deterministic.
+ */
+public class InvariantExchangeIntegrationTest {
+
+  private static final String SPECIFICATION = "config/specification/default.spc";
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private CFA cfa;
+  private CFANode loopHead;
+
+  @Before
+  public void setUp() throws Exception {
+    // the loop invariant x == 0 is guessed from the assumption that leads to the error, but the
+    // error is only reached after the loop, so k-induction needs it as auxiliary invariant and
+    // predicate analysis without refinement cannot exclude the error without it
+    Path program = tempFolder.getRoot().toPath().resolve("program.c");
+    Files.write(
+        program,
+        ImmutableList.of(
+            "extern int __VERIFIER_nondet_int();",
+            "int main() {",
+            "  int x = 0;",
+            "  while (__VERIFIER_nondet_int()) {",
+            "    x = -x;",
+            "  }",
+            "  if (x != 0) {",
+            "    ERROR: return 1;",
+            "  }",
+            "  return 0;",
+            "}"),
+        StandardCharsets.UTF_8);
+    cfa =
+        new CFACreator(kInductionConfig(), logger, ShutdownManager.create().getNotifier())
+            .parseFileAndCreateCFA(ImmutableList.of(program.toString()));
+    loopHead = Iterables.getOnlyElement(cfa.getAllLoopHeads().orElseThrow());
+  }
+
+  @Test
+  public void predicateAnalysisUsesInvariantFromKInduction() throws Exception {
+    AggregatedReachedSets aggregatedReachedSets = new AggregatedReachedSets();
+    InvariantExchange exchange = aggregatedReachedSets.getInvariantExchange();
+
+    ReachedSet kInductionReached = run(kInductionConfig(), aggregatedReachedSets);
+    assertThat(kInductionReached.hasViolatedProperties()).isFalse();
+    assertThat(exchange.getVersion()).isGreaterThan(0);
+    assertThat(exchange.getInvariantFor(loopHead)).isNotEqualTo(ExpressionTrees.getTrue());
+
+    ReachedSet predicateReached = run(predicateAnalysisConfig(), aggregatedReachedSets);
+    assertThat(predicateReached.hasViolatedProperties()).isFalse();
+    assertThat(predicateReached.hasWaitingState()).isFalse();
+  }
+
+  @Test
+  public void predicateAnalysisWithoutExchangedInvariant() throws Exception {
+    // make sure that the other test really depends on the exchanged invariant
+    ReachedSet predicateReached = run(predicateAnalysisConfig(), new AggregatedReachedSets());
+    assertThat(predicateReached.hasViolatedProperties()).isTrue();
+  }
+
+  private ReachedSet run(Configuration pConfig, AggregatedReachedSets pAggregatedReachedSets)
+      throws Exception {
+    Specification specification =
+        Specification.fromFiles(
+            ImmutableSet.of(),
+            ImmutableList.of(Paths.get(SPECIFICATION)),
+            cfa,
+            pConfig,
+            logger,
+            ShutdownManager.create().getNotifier());
+    CoreComponentsFactory coreComponents =
+        new CoreComponentsFactory(
+            pConfig, logger, ShutdownManager.create().getNotifier(), pAggregatedReachedSets);
+    ConfigurableProgramAnalysis cpa = coreComponents.createCPA(cfa, specification);
+    Algorithm algorithm = coreComponents.createAlgorithm(cpa, cfa, specification);
+    try {
+      GlobalInfo.getInstance().setUpInfoFromCPA(cpa);
+      ReachedSet reached = coreComponents.createReachedSet();
+      CFANode mainEntryNode = cfa.getMainFunction();
+      StateSpacePartition partition = StateSpacePartition.getDefaultPartition();
+      reached.add(
+          cpa.getInitialState(mainEntryNode, partition),
+          cpa.getInitialPrecision(mainEntryNode, partition));
+      AlgorithmStatus status = algorithm.run(reached);
+      assertThat(status.isSound()).isTrue();
+      return reached;
+    } finally {
+      CPAs.closeIfPossible(algorithm, logger);
+      CPAs.closeCpaIfPossible(cpa, logger);
+    }
+  }
+
+  private static Configuration kInductionConfig() throws Exception {
+    return TestDataTools.configurationForTest()
+        .loadFromFile("config/components/kInduction/kInduction-kiInvariants.properties")
+        .setOption("specification", SPECIFICATION)
+        .setOption("solver.solver", "SMTINTERPOL")
+        .setOption("cpa.predicate.encodeBitvectorAs", "INTEGER")
+        .setOption("cpa.predicate.encodeFloatAs", "RATIONAL")
+        .build();
+  }
+
+  private static Configuration predicateAnalysisConfig() throws Exception {
+    return TestDataTools.configurationForTest()
+        .loadFromFile("config/predicateAnalysis.properties")
+        .setOption("specification", SPECIFICATION)
+        .setOption("solver.solver", "SMTINTERPOL")
+        .setOption("cpa.predicate.encodeBitvectorAs", "INTEGER")
+        .setOption("cpa.predicate.encodeFloatAs", "RATIONAL")
+        // without refinement, only the exchanged invariant can exclude the error
+        .setOption("analysis.algorithm.CEGAR", "false")
+        .setOption("cpa.predicate.targetStateSatCheck", "true")
+        .setOption("cpa.predicate.invariants.appendToAbstractionFormula", "true")
+        .build();
+  }
+}
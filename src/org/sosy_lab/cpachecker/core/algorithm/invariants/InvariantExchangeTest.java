@@ -0,0 +1,186 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.invariants;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.ast.AExpression;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpressionBuilder;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CVariableDeclaration;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
+import org.sosy_lab.cpachecker.cfa.types.c.CStorageClass;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.util.expressions.And;
+import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
+import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
+import org.sosy_lab.cpachecker.util.expressions.LeafExpression;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.smt.BitvectorFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/** Tests for {@link InvariantExchange}. */
+public class InvariantExchangeTest extends SolverViewBasedTest0 {
+
+  private static final CType INT_POINTER = new CPointerType(false, false, CNumericTypes.INT);
+
+  private final CFANode location = new CFANode("main");
+  private final CFANode otherLocation = new CFANode("main");
+
+  private InvariantExchange exchange;
+  private PathFormulaManager pfmgr;
+
+  private ExpressionTree<AExpression> xPositive;
+  private ExpressionTree<AExpression> xBelowTen;
+
+  @Before
+  public void setUp() throws Exception {
+    exchange = new InvariantExchange();
+
+    Configuration pfmgrConfig =
+        Configuration.builder()
+            .copyFrom(config)
+            // the pointer-aliasing encoding needs declarations we do not have here
+            .setOption("cpa.predicate.handlePointerAliasing", "false")
+            .build();
+    pfmgr =
+        new PathFormulaManagerImpl(
+            mgrv,
+            pfmgrConfig,
+            logger,
+            ShutdownNotifier.createDummy(),
+            MachineModel.LINUX32,
+            Optional.empty(),
+            AnalysisDirection.FORWARD);
+
+    CBinaryExpressionBuilder builder = new CBinaryExpressionBuilder(MachineModel.LINUX32, logger);
+    CIdExpression x = variable("x", CNumericTypes.INT);
+    CIntegerLiteralExpression ten =
+        CIntegerLiteralExpression.createDummyLiteral(10, CNumericTypes.INT);
+    xPositive =
+        LeafExpression.of(
+            builder.buildBinaryExpression(
+                x, CIntegerLiteralExpression.ZERO, BinaryOperator.GREATER_THAN));
+    xBelowTen = LeafExpression.of(builder.buildBinaryExpression(x, ten, BinaryOperator.LESS_THAN));
+  }
+
+  @Test
+  public void unknownLocation() {
+    assertThat(exchange.getInvariantFor(location)).isEqualTo(ExpressionTrees.getTrue());
+    assertThat(exchange.getVersion()).isEqualTo(0);
+  }
+
+  @Test
+  public void publish() {
+    assertThat(exchange.publish(location, xPositive)).isTrue();
+
+    assertThat(exchange.getInvariantFor(location)).isEqualTo(xPositive);
+    assertThat(exchange.getInvariantFor(otherLocation)).isEqualTo(ExpressionTrees.getTrue());
+    assertThat(exchange.getVersion()).isEqualTo(1);
+  }
+
+  @Test
+  public void publishConjoins() {
+    assertThat(exchange.publish(location, xPositive)).isTrue();
+    assertThat(exchange.publish(location, xBelowTen)).isTrue();
+
+    assertThat(exchange.getInvariantFor(location)).isEqualTo(And.of(xPositive, xBelowTen));
+    assertThat(exchange.getVersion()).isEqualTo(2);
+  }
+
+  @Test
+  public void publishKnownInvariant() {
+    assertThat(exchange.publish(location, And.of(xPositive, xBelowTen))).isTrue();
+
+    // neither the same invariant nor a part of it strengthens the known invariant
+    assertThat(exchange.publish(location, And.of(xPositive, xBelowTen))).isFalse();
+    assertThat(exchange.publish(location, xBelowTen)).isFalse();
+    assertThat(exchange.publish(location, ExpressionTrees.getTrue())).isFalse();
+
+    assertThat(exchange.getInvariantFor(location)).isEqualTo(And.of(xPositive, xBelowTen));
+    assertThat(exchange.getVersion()).isEqualTo(1);
+  }
+
+  @Test
+  public void toFormula() throws Exception {
+    exchange.publish(location, xPositive);
+    exchange.publish(location, xBelowTen);
+
+    BitvectorFormulaManagerView bvmgrv = mgrv.getBitvectorFormulaManager();
+    BitvectorFormula x = bvmgrv.makeVariable(32, "x");
+    BooleanFormula expected =
+        bmgrv.and(
+            bvmgrv.greaterThan(x, bvmgrv.makeBitvector(32, 0), true),
+            bvmgrv.lessThan(x, bvmgrv.makeBitvector(32, 10), true));
+
+    assertThatFormula(getFormula(location)).isEquivalentTo(expected);
+    assertThat(bmgrv.isTrue(getFormula(otherLocation))).isTrue();
+  }
+
+  @Test
+  public void toFormulaUnknownExpression() throws Exception {
+    // the formula encoding rejects adding two pointers
+    CBinaryExpression pointerSum =
+        new CBinaryExpression(
+            FileLocation.DUMMY,
+            INT_POINTER,
+            INT_POINTER,
+            variable("p", INT_POINTER),
+            variable("q", INT_POINTER),
+            BinaryOperator.PLUS);
+    exchange.publish(location, xPositive);
+    exchange.publish(location, LeafExpression.of(pointerSum));
+
+    // the invariant is kept, but cannot be used with formulas
+    assertThat(exchange.getVersion()).isEqualTo(2);
+    assertThat(bmgrv.isTrue(getFormula(location))).isTrue();
+  }
+
+  private BooleanFormula getFormula(CFANode pLocation) throws InterruptedException {
+    return exchange.getInvariantFor(pLocation, Optional.empty(), mgrv, pfmgr, null);
+  }
+
+  private static CIdExpression variable(String pName, CType pType) {
+    CVariableDeclaration declaration =
+        new CVariableDeclaration(
+            FileLocation.DUMMY, false, CStorageClass.AUTO, pType, pName, pName, pName, null);
+    return new CIdExpression(FileLocation.DUMMY, declaration);
+  }
+}
@@ -288,8 +288,8 @@ public class ConfigurablePrecision extends VariableTrackingPrecision {
   public boolean tracksTheSameVariablesAs(VariableTrackingPrecision pOtherPrecision) {
     if (pOtherPrecision.getClass().equals(getClass())) {
       ConfigurablePrecision precisionCompare = (ConfigurablePrecision) pOtherPrecision;
-      if (variableBlacklist.equals(precisionCompare.variableBlacklist)
-          && variableWhitelist.equals(precisionCompare.variableWhitelist)
+      if (samePattern(variableBlacklist, precisionCompare.variableBlacklist)
+          && samePattern(variableWhitelist, precisionCompare.variableWhitelist)
           && trackBooleanVariables == precisionCompare.trackBooleanVariables
           && trackIntEqualVariables == precisionCompare.trackIntEqualVariables
           && trackIntAddVariables == precisionCompare.trackIntAddVariables
@@ -305,6 +305,14 @@ public class ConfigurablePrecision extends VariableTrackingPrecision {
     return false;
   }
 
+  /**
+   * {@link Pattern} does not implement equality, and deserialized precisions (e.g., from a
+   * previous run) need to be equal to the current precision.
+   */
+  private static boolean samePattern(Pattern pPattern, Pattern pOther) {
+    return pPattern.pattern().equals(pOther.pattern()) && pPattern.flags() == pOther.flags();
+  }
+
   @Override
   public boolean equals(Object other) {
     return other instanceof ConfigurablePrecision
@@ -314,8 +322,8 @@ public class ConfigurablePrecision extends VariableTrackingPrecision {
   @Override
   public int hashCode() {
     return Objects.hash(
-        variableBlacklist,
-        variableWhitelist,
+        variableBlacklist.pattern(),
+        variableWhitelist.pattern(),
         trackBooleanVariables,
         trackIntEqualVariables,
         trackIntAddVariables,
@@ -148,14 +148,15 @@ class LocalizedRefinablePrecision extends RefinablePrecision {
     }
   }
 
-  @SuppressWarnings("UnusedVariable") // parameter is required by API
   private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
     in.defaultReadObject();
     CFAInfo cfa = GlobalInfo.getInstance().getCFAInfo().orElseThrow();
     ImmutableMultimap.Builder<CFANode, MemoryLocation> precisionBuilder =
         ImmutableMultimap.builder();
-    for (int i = 0; i < in.readInt(); i++) {
-      precisionBuilder.put(cfa.getNodeByNodeNumber(in.readInt()), (MemoryLocation) in.readObject());
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      precisionBuilder.put(
+          cfa.getNodeByNodeNumber(in.readInt(), in), (MemoryLocation) in.readObject());
     }
     rawPrecision = precisionBuilder.build();
   }
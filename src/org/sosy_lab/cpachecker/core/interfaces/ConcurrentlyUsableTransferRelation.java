@@ -0,0 +1,45 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+/**
+ * Interface for transfer relations of a {@link ThreadSafeCPA} that store intermediate information
+ * of a successor computation in their fields. Such a transfer relation can only be called
+ * concurrently by several threads between {@link #beginConcurrentUse()} and {@link
+ * #endConcurrentUse()}.
+ */
+public interface ConcurrentlyUsableTransferRelation extends TransferRelation {
+
+  /**
+   * Prepare for successor computations by several threads, e.g., by using a separate copy of the
+   * internal state for each thread. Must not be called while successors are computed.
+   */
+  void beginConcurrentUse();
+
+  /**
+   * Release the resources of the concurrent use. Must not be called while successors are
+   * computed.
+   */
+  void endConcurrentUse();
+}
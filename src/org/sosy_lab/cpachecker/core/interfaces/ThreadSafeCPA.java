@@ -0,0 +1,34 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+/**
+ * Marker interface for CPAs whose operators can be called concurrently by several threads, e.g.,
+ * by the parallel mode of the CPA algorithm (option cpa.parallelWorkers). This means that the
+ * operators neither keep state between calls nor modify their input states, or that they
+ * serialize these steps themselves. Transfer relations that need to prepare for concurrent calls
+ * implement {@link ConcurrentlyUsableTransferRelation}. A wrapper CPA implements this interface
+ * only for itself, the wrapped CPAs are checked separately.
+ */
+public interface ThreadSafeCPA extends ConfigurableProgramAnalysis {}
@@ -33,16 +33,24 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantExchange;
 
 public class AggregatedReachedSets {
   protected final Set<UnmodifiableReachedSet> reachedSets;
+  private final InvariantExchange invariantExchange;
 
   public AggregatedReachedSets() {
-    reachedSets = ImmutableSet.of();
+    this(ImmutableSet.of());
   }
 
   public AggregatedReachedSets(Set<UnmodifiableReachedSet> pReachedSets) {
+    this(pReachedSets, new InvariantExchange());
+  }
+
+  private AggregatedReachedSets(
+      Set<UnmodifiableReachedSet> pReachedSets, InvariantExchange pInvariantExchange) {
     reachedSets = checkNotNull(pReachedSets);
+    invariantExchange = checkNotNull(pInvariantExchange);
   }
 
   public Set<UnmodifiableReachedSet> snapShot() {
@@ -51,13 +59,23 @@ public class AggregatedReachedSets {
     }
   }
 
+  /**
+   * Return the exchange through which the analyses sharing these reached sets publish location
+   * invariants while they are still running.
+   */
+  public InvariantExchange getInvariantExchange() {
+    return invariantExchange;
+  }
+
   private static class AggregatedThreadedReachedSets extends AggregatedReachedSets {
     private final ReentrantReadWriteLock lock;
     private final List<AggregatedThreadedReachedSets> otherAggregators = new ArrayList<>();
 
     private AggregatedThreadedReachedSets(
-        final ReentrantReadWriteLock pLock, Set<UnmodifiableReachedSet> pReachedSets) {
-      super(pReachedSets);
+        final ReentrantReadWriteLock pLock,
+        Set<UnmodifiableReachedSet> pReachedSets,
+        InvariantExchange pInvariantExchange) {
+      super(pReachedSets, pInvariantExchange);
       lock = pLock;
     }
 
@@ -85,7 +103,15 @@ public class AggregatedReachedSets {
     private final Set<UnmodifiableReachedSet> reachedSets = ConcurrentHashMap.newKeySet();
 
     public AggregatedReachedSetManager() {
-      reachedView = new AggregatedThreadedReachedSets(lock, reachedSets);
+      this(new InvariantExchange());
+    }
+
+    /**
+     * Create a manager whose view shares the given invariant exchange, e.g., the one of an
+     * enclosing analysis.
+     */
+    public AggregatedReachedSetManager(InvariantExchange pInvariantExchange) {
+      reachedView = new AggregatedThreadedReachedSets(lock, reachedSets, pInvariantExchange);
     }
 
     public void addReachedSet(UnmodifiableReachedSet reached) {
@@ -0,0 +1,57 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+import java.util.Optional;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+
+/**
+ * Thread-safe variant of {@link LocationMappedReachedSet}. It groups states by location, such that
+ * locks are striped per location.
+ */
+public class ConcurrentLocationMappedReachedSet extends ConcurrentPartitionedReachedSet {
+
+  public ConcurrentLocationMappedReachedSet(WaitlistFactory waitlistFactory) {
+    super(waitlistFactory);
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(CFANode pLocation) {
+    checkNotNull(pLocation);
+    return getReachedForKey(Optional.of(pLocation));
+  }
+
+  @Override
+  protected Optional<Object> getPartitionKey(AbstractState pState) {
+    CFANode location = AbstractStates.extractLocation(pState);
+    checkNotNull(location, "Location information necessary for ConcurrentLocationMappedReachedSet");
+    return Optional.of(location);
+  }
+}
@@ -0,0 +1,469 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Striped;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.AbstractSortedWaitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
+
+/**
+ * Thread-safe variant of {@link PartitionedReachedSet} for analyses that explore the state space
+ * with several threads.
+ *
+ * <p>Modifications of a partition are guarded by a lock that is striped over the partition keys,
+ * such that threads working on states with different keys (e.g., different locations) do not block
+ * each other. Read accesses like {@link #getReached(AbstractState)},
+ * {@link #contains(AbstractState)} and {@link #getPrecision(AbstractState)} do not lock at all and
+ * return weakly consistent views, i.e., they reflect all modifications that were completed before
+ * the call, and may or may not reflect concurrent modifications. The waitlist is shared by all
+ * threads and guarded by its own lock in order to keep the configured traversal order.
+ *
+ * <p>Each state gets a sequence number when it is added, and iteration is in the order of these
+ * numbers, i.e., in insertion order. For states added concurrently by different threads, this
+ * order is the order in which the threads reached {@link #add(AbstractState, Precision)}.
+ */
+public class ConcurrentPartitionedReachedSet implements ReachedSet {
+
+  /** Number of stripes for partition locks, several partitions share one lock. */
+  private static final int LOCK_STRIPES = 256;
+
+  /** A state in the reached set together with its precision and its sequence number. */
+  private static final class ReachedEntry {
+
+    private final AbstractState state;
+    private final long sequenceNumber;
+    private volatile Precision precision;
+
+    private ReachedEntry(AbstractState pState, long pSequenceNumber, Precision pPrecision) {
+      state = pState;
+      sequenceNumber = pSequenceNumber;
+      precision = pPrecision;
+    }
+  }
+
+  private final ConcurrentMap<AbstractState, ReachedEntry> reached = new ConcurrentHashMap<>();
+
+  /** All entries of {@link #reached} sorted by their sequence number. */
+  private final ConcurrentNavigableMap<Long, ReachedEntry> reachedInOrder =
+      new ConcurrentSkipListMap<>();
+
+  private final AtomicLong nextSequenceNumber = new AtomicLong();
+
+  /**
+   * The partitions of the reached set, each sorted by sequence number. Since a partition key may be
+   * null, but ConcurrentHashMap does not support null keys, we use Optionals. Empty partitions are
+   * removed while holding the partition lock, such that the map does not grow with the number of
+   * partitions that ever existed.
+   */
+  private final ConcurrentMap<Optional<Object>, ConcurrentNavigableMap<Long, AbstractState>>
+      partitionedReached = new ConcurrentHashMap<>();
+
+  private final Striped<Lock> partitionLocks = Striped.lock(LOCK_STRIPES);
+
+  private final Set<AbstractState> unmodifiableReached =
+      new AbstractSet<>() {
+
+        @Override
+        public Iterator<AbstractState> iterator() {
+          return Iterators.unmodifiableIterator(
+              Iterators.transform(reachedInOrder.values().iterator(), entry -> entry.state));
+        }
+
+        @Override
+        public boolean contains(Object pObj) {
+          return reached.containsKey(pObj);
+        }
+
+        @Override
+        public int size() {
+          return reached.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+          return reached.isEmpty();
+        }
+      };
+
+  private final Collection<Precision> unmodifiablePrecisions =
+      new AbstractCollection<>() {
+
+        @Override
+        public Iterator<Precision> iterator() {
+          return Iterators.unmodifiableIterator(
+              Iterators.transform(reachedInOrder.values().iterator(), entry -> entry.precision));
+        }
+
+        @Override
+        public int size() {
+          return reached.size();
+        }
+      };
+
+  /** The waitlist, all accesses need to be synchronized on it. */
+  private final Waitlist waitlist;
+
+  public ConcurrentPartitionedReachedSet(WaitlistFactory waitlistFactory) {
+    waitlist = waitlistFactory.createWaitlistInstance();
+  }
+
+  /**
+   * Return the lock that guards the partition of the given state. Callers that hold this lock can
+   * do several operations on the partition atomically, e.g., a coverage check with
+   * {@link #getReached(AbstractState)} followed by {@link #add(AbstractState, Precision)}. The lock
+   * is reentrant, and it may be shared with other partitions.
+   */
+  public Lock getPartitionLock(AbstractState pState) {
+    return partitionLocks.get(getPartitionKey(pState));
+  }
+
+  @Override
+  public void add(AbstractState pState, Precision pPrecision) throws IllegalArgumentException {
+    checkNotNull(pState);
+    checkNotNull(pPrecision);
+
+    Optional<Object> key = getPartitionKey(pState);
+    Lock lock = partitionLocks.get(key);
+    lock.lock();
+    try {
+      ReachedEntry previous = reached.get(pState);
+
+      if (previous == null) {
+        // State wasn't already in the reached set.
+        // Equal states have the same partition key, so nobody else can add it concurrently.
+        ReachedEntry entry =
+            new ReachedEntry(pState, nextSequenceNumber.getAndIncrement(), pPrecision);
+        reached.put(pState, entry);
+        reachedInOrder.put(entry.sequenceNumber, entry);
+        partitionedReached
+            .computeIfAbsent(key, k -> new ConcurrentSkipListMap<>())
+            .put(entry.sequenceNumber, pState);
+        synchronized (waitlist) {
+          waitlist.add(pState);
+        }
+
+      } else if (!pPrecision.equals(previous.precision)) {
+        // State was already in the reached set, see DefaultReachedSet#add for details.
+        throw new IllegalArgumentException(
+            "State added to reached set which is already contained,"
+                + " but with a different precision");
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void addAll(Iterable<Pair<AbstractState, Precision>> pToAdd) {
+    for (Pair<AbstractState, Precision> pair : pToAdd) {
+      add(pair.getFirst(), pair.getSecond());
+    }
+  }
+
+  @Override
+  public void reAddToWaitlist(AbstractState pState) {
+    checkNotNull(pState);
+
+    // hold the partition lock, otherwise a concurrent remove could happen between the check and
+    // re-adding the state, which would leave a removed state in the waitlist
+    Lock lock = partitionLocks.get(getPartitionKey(pState));
+    lock.lock();
+    try {
+      Preconditions.checkArgument(
+          reached.containsKey(pState), "State has to be in the reached set");
+      synchronized (waitlist) {
+        if (!waitlist.contains(pState)) {
+          waitlist.add(pState);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void updatePrecision(AbstractState pState, Precision pNewPrecision) {
+    checkNotNull(pState);
+    checkNotNull(pNewPrecision);
+
+    ReachedEntry entry = reached.get(pState);
+    if (entry == null) {
+      throw new IllegalArgumentException(
+          "State needs to be in the reached set in order to change the precision.");
+    }
+    entry.precision = pNewPrecision;
+  }
+
+  @Override
+  public void remove(AbstractState pState) {
+    checkNotNull(pState);
+
+    Optional<Object> key = getPartitionKey(pState);
+    Lock lock = partitionLocks.get(key);
+    lock.lock();
+    try {
+      synchronized (waitlist) {
+        waitlist.remove(pState);
+      }
+      ReachedEntry entry = reached.remove(pState);
+      if (entry != null) {
+        reachedInOrder.remove(entry.sequenceNumber);
+        ConcurrentNavigableMap<Long, AbstractState> partition = partitionedReached.get(key);
+        if (partition != null) {
+          partition.remove(entry.sequenceNumber);
+          if (partition.isEmpty()) {
+            // nobody can add to this partition while we hold its lock
+            partitionedReached.remove(key, partition);
+          }
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeAll(Iterable<? extends AbstractState> pToRemove) {
+    for (AbstractState state : pToRemove) {
+      remove(state);
+    }
+  }
+
+  @Override
+  public void removeOnlyFromWaitlist(AbstractState pState) {
+    checkNotNull(pState);
+    synchronized (waitlist) {
+      waitlist.remove(pState);
+    }
+  }
+
+  /**
+   * Remove all states. This method is not atomic, it should not be called while other threads
+   * modify the reached set.
+   */
+  @Override
+  public void clear() {
+    synchronized (waitlist) {
+      waitlist.clear();
+    }
+    partitionedReached.clear();
+    reachedInOrder.clear();
+    reached.clear();
+  }
+
+  @Override
+  public Set<AbstractState> asCollection() {
+    return unmodifiableReached;
+  }
+
+  @Override
+  public Iterator<AbstractState> iterator() {
+    return unmodifiableReached.iterator();
+  }
+
+  @Override
+  public Collection<Precision> getPrecisions() {
+    return unmodifiablePrecisions;
+  }
+
+  /** Return the states with the same partition key as the given state, without locking. */
+  @Override
+  public Collection<AbstractState> getReached(AbstractState pState) {
+    return getReachedForKey(getPartitionKey(pState));
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(CFANode pLocation) {
+    checkNotNull(pLocation);
+    return asCollection();
+  }
+
+  public int getNumberOfPartitions() {
+    return partitionedReached.size();
+  }
+
+  protected Optional<Object> getPartitionKey(AbstractState pState) {
+    checkNotNull(pState);
+    assert pState instanceof Partitionable
+        : "Partitionable states necessary for ConcurrentPartitionedReachedSet";
+    return Optional.ofNullable(((Partitionable) pState).getPartitionKey());
+  }
+
+  protected Collection<AbstractState> getReachedForKey(Optional<Object> pKey) {
+    ConcurrentNavigableMap<Long, AbstractState> partition = partitionedReached.get(pKey);
+    if (partition == null) {
+      return ImmutableList.of();
+    }
+    return Collections.unmodifiableCollection(partition.values());
+  }
+
+  /**
+   * Returns the state with the lowest sequence number that is still in the reached set, i.e., the
+   * first state if it was not removed.
+   */
+  @Override
+  public @Nullable AbstractState getFirstState() {
+    Map.Entry<Long, ReachedEntry> first = reachedInOrder.firstEntry();
+    return first == null ? null : first.getValue().state;
+  }
+
+  @Override
+  public @Nullable AbstractState getLastState() {
+    Map.Entry<Long, ReachedEntry> last = reachedInOrder.lastEntry();
+    return last == null ? null : last.getValue().state;
+  }
+
+  @Override
+  public boolean hasWaitingState() {
+    synchronized (waitlist) {
+      return !waitlist.isEmpty();
+    }
+  }
+
+  @Override
+  public Collection<AbstractState> getWaitlist() {
+    return new AbstractCollection<>() {
+
+      @Override
+      public Iterator<AbstractState> iterator() {
+        // copy, because the waitlist may be changed concurrently while iterating
+        synchronized (waitlist) {
+          return ImmutableList.copyOf(waitlist.iterator()).iterator();
+        }
+      }
+
+      @Override
+      public boolean contains(Object obj) {
+        if (!(obj instanceof AbstractState)) {
+          return false;
+        }
+        synchronized (waitlist) {
+          return waitlist.contains((AbstractState) obj);
+        }
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return !hasWaitingState();
+      }
+
+      @Override
+      public int size() {
+        synchronized (waitlist) {
+          return waitlist.size();
+        }
+      }
+
+      @Override
+      public String toString() {
+        synchronized (waitlist) {
+          return waitlist.toString();
+        }
+      }
+    };
+  }
+
+  @Override
+  public AbstractState popFromWaitlist() {
+    synchronized (waitlist) {
+      return waitlist.pop();
+    }
+  }
+
+  @Override
+  public Precision getPrecision(AbstractState pState) {
+    checkNotNull(pState);
+    ReachedEntry entry = reached.get(pState);
+    Preconditions.checkArgument(entry != null, "State not in reached set:\n%s", pState);
+    return entry.precision;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super AbstractState, ? super Precision> pAction) {
+    for (ReachedEntry entry : reachedInOrder.values()) {
+      pAction.accept(entry.state, entry.precision);
+    }
+  }
+
+  @Override
+  public boolean contains(AbstractState pState) {
+    checkNotNull(pState);
+    return reached.containsKey(pState);
+  }
+
+  @Override
+  public int size() {
+    return reached.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return reached.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return unmodifiableReached.toString();
+  }
+
+  @Override
+  public ImmutableMap<String, AbstractStatValue> getStatistics() {
+    synchronized (waitlist) {
+      if (waitlist instanceof AbstractSortedWaitlist) {
+        return ImmutableMap.copyOf(((AbstractSortedWaitlist<?>) waitlist).getDelegationCounts());
+      } else {
+        return ImmutableMap.of();
+      }
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+public class ConcurrentPartitionedReachedSetTest {
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  private static final int THREADS = 8;
+  private static final int STATES_PER_THREAD = 500;
+  private static final int PARTITIONS = 5;
+
+  /** A state with a partition key, and is equal only to itself. */
+  private static class TestState implements AbstractState, Partitionable {
+
+    private final int key;
+
+    private TestState(int pKey) {
+      key = pKey;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return key;
+    }
+
+    @Override
+    public String toString() {
+      return "state in partition " + key;
+    }
+  }
+
+  private ConcurrentPartitionedReachedSet reached;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    reached = new ConcurrentPartitionedReachedSet(TraversalMethod.BFS);
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void concurrentAdd() throws Exception {
+    List<List<TestState>> states = createStates();
+
+    runConcurrently(i -> () -> {
+      for (TestState state : states.get(i)) {
+        reached.add(state, PRECISION);
+      }
+      return null;
+    });
+
+    List<TestState> allStates = flatten(states);
+    assertThat(reached.asCollection()).containsExactlyElementsIn(allStates);
+    assertThat(reached.getWaitlist()).containsExactlyElementsIn(allStates);
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(PARTITIONS);
+    for (TestState state : allStates) {
+      assertThat(reached.getReached(state)).contains(state);
+      assertThat(reached.getReached(state)).hasSize(THREADS * STATES_PER_THREAD / PARTITIONS);
+    }
+    assertThat(reached.getFirstState()).isIn(allStates);
+    assertThat(reached.getLastState()).isIn(allStates);
+  }
+
+  @Test
+  public void concurrentAddAndRemove() throws Exception {
+    List<List<TestState>> states = createStates();
+    List<List<TestState>> removedStates = createStates();
+    for (TestState state : flatten(removedStates)) {
+      reached.add(state, PRECISION);
+    }
+
+    // half of the threads add states, the other half removes states at the same time
+    runConcurrently(i -> () -> {
+      if (i % 2 == 0) {
+        for (TestState state : states.get(i)) {
+          reached.add(state, PRECISION);
+        }
+      } else {
+        reached.removeAll(removedStates.get(i - 1));
+        reached.removeAll(removedStates.get(i));
+      }
+      return null;
+    });
+
+    List<TestState> expected = new ArrayList<>();
+    for (int i = 0; i < THREADS; i += 2) {
+      expected.addAll(states.get(i));
+    }
+    assertThat(reached.asCollection()).containsExactlyElementsIn(expected);
+    assertThat(reached.getWaitlist()).containsExactlyElementsIn(expected);
+    for (TestState state : flatten(removedStates)) {
+      assertThat(reached.getReached(state)).doesNotContain(state);
+    }
+  }
+
+  @Test
+  public void insertionOrder() {
+    List<TestState> allStates = flatten(createStates());
+    for (TestState state : allStates) {
+      reached.add(state, PRECISION);
+    }
+
+    assertThat(reached.asCollection()).containsExactlyElementsIn(allStates).inOrder();
+    TestState first = allStates.get(0);
+    assertThat(reached.getReached(first))
+        .containsExactlyElementsIn(Collections2.filter(allStates, s -> s.key == first.key))
+        .inOrder();
+    assertThat(reached.getFirstState()).isSameInstanceAs(first);
+    assertThat(reached.getLastState()).isSameInstanceAs(allStates.get(allStates.size() - 1));
+
+    // the first state that is still in the reached set replaces a removed one
+    reached.remove(first);
+    assertThat(reached.getFirstState()).isSameInstanceAs(allStates.get(1));
+    assertThat(reached.asCollection())
+        .containsExactlyElementsIn(allStates.subList(1, allStates.size()))
+        .inOrder();
+  }
+
+  @Test
+  public void emptyPartitionsAreRemoved() throws Exception {
+    List<List<TestState>> states = createStates();
+    for (TestState state : flatten(states)) {
+      reached.add(state, PRECISION);
+    }
+
+    runConcurrently(i -> () -> {
+      reached.removeAll(states.get(i));
+      return null;
+    });
+
+    assertThat(reached.isEmpty()).isTrue();
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(0);
+    assertThat(reached.getFirstState()).isNull();
+    assertThat(reached.getLastState()).isNull();
+  }
+
+  @Test
+  public void concurrentPop() throws Exception {
+    List<TestState> allStates = flatten(createStates());
+    for (TestState state : allStates) {
+      reached.add(state, PRECISION);
+    }
+
+    ConcurrentLinkedQueue<AbstractState> popped = new ConcurrentLinkedQueue<>();
+    runConcurrently(i -> () -> {
+      for (int j = 0; j < STATES_PER_THREAD; j++) {
+        popped.add(reached.popFromWaitlist());
+      }
+      return null;
+    });
+
+    // every state is popped exactly once
+    assertThat(popped).containsExactlyElementsIn(allStates);
+    assertThat(reached.hasWaitingState()).isFalse();
+    assertThat(reached.asCollection()).containsExactlyElementsIn(allStates);
+  }
+
+  @Test
+  public void reAddToWaitlistDuringRemove() throws Exception {
+    List<List<TestState>> states = createStates();
+    List<TestState> allStates = flatten(states);
+    for (TestState state : allStates) {
+      reached.add(state, PRECISION);
+      reached.removeOnlyFromWaitlist(state);
+    }
+
+    // half of the threads re-add states to the waitlist while the other half removes them
+    runConcurrently(i -> () -> {
+      for (TestState state : states.get(i - i % 2)) {
+        if (i % 2 == 0) {
+          reached.remove(state);
+        } else {
+          try {
+            reached.reAddToWaitlist(state);
+          } catch (IllegalArgumentException e) {
+            // state was already removed
+          }
+        }
+      }
+      return null;
+    });
+
+    // no removed state may remain in the waitlist
+    for (AbstractState state : reached.getWaitlist()) {
+      assertThat(reached.contains(state)).isTrue();
+    }
+    for (int i = 0; i < THREADS; i += 2) {
+      assertThat(reached.asCollection()).containsNoneIn(states.get(i));
+      assertThat(reached.getWaitlist()).containsNoneIn(states.get(i));
+    }
+  }
+
+  /** Create {@link #STATES_PER_THREAD} states for each thread, spread over all partitions. */
+  private static List<List<TestState>> createStates() {
+    List<List<TestState>> states = new ArrayList<>(THREADS);
+    for (int i = 0; i < THREADS; i++) {
+      List<TestState> statesOfThread = new ArrayList<>(STATES_PER_THREAD);
+      for (int j = 0; j < STATES_PER_THREAD; j++) {
+        statesOfThread.add(new TestState(j % PARTITIONS));
+      }
+      states.add(statesOfThread);
+    }
+    return states;
+  }
+
+  private static List<TestState> flatten(List<List<TestState>> pStates) {
+    ImmutableList.Builder<TestState> result = ImmutableList.builder();
+    pStates.forEach(result::addAll);
+    return result.build();
+  }
+
+  private interface TaskFactory {
+    Callable<Void> create(int pThread);
+  }
+
+  /** Run one task per thread, all starting at the same time, and wait for all of them. */
+  private void runConcurrently(TaskFactory pTasks) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Void>> futures = new ArrayList<>(THREADS);
+    for (int i = 0; i < THREADS; i++) {
+      Callable<Void> task = pTasks.create(i);
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                return task.call();
+              }));
+    }
+    start.countDown();
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+
+/**
+ * Implementation of ReachedSet that groups states by location like {@link
+ * LocationMappedReachedSet}, but uses arrays indexed by the node number of the location ({@link
+ * CFANode#getNodeNumber()}) instead of a hash-based multimap. This avoids hashing of locations and
+ * the additional multimap entry per state that {@link LocationMappedReachedSet} allocates on top of
+ * the state-to-precision map of {@link DefaultReachedSet}, and thus needs less memory and speeds up
+ * the lookup of states for merge and stop, especially for large CFAs.
+ *
+ * <p>Only the lookup by location avoids hashing. The states themselves are still hashed in the
+ * state-to-precision map of {@link DefaultReachedSet} (e.g., for {@link #contains(AbstractState)}
+ * and {@link #getPrecision(AbstractState)}), which this class shares with all other reached sets.
+ * It does not add any further hashing of states: whether {@link #add} or {@link #remove} changed
+ * the reached set is determined from its size.
+ *
+ * <p>States of the same location are stored in a compact array. Removing a state is linear in the
+ * number of states at its location.
+ */
+public class LocationIndexedReachedSet extends DefaultReachedSet {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int INITIAL_NUMBER_OF_LOCATIONS = 1024;
+  private static final int INITIAL_STATES_PER_LOCATION = 2;
+
+  private static final AbstractState[] NO_STATES = new AbstractState[0];
+
+  /** The states per location, indexed by node number. Only the first entries are used. */
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private @Nullable AbstractState[][] statesPerLocation =
+      new AbstractState[INITIAL_NUMBER_OF_LOCATIONS][];
+
+  /** The number of used entries in {@link #statesPerLocation}, indexed by node number. */
+  private int[] sizes = new int[INITIAL_NUMBER_OF_LOCATIONS];
+
+  /** The location for each node number, null if there are no states at this location. */
+  private @Nullable CFANode[] locations = new CFANode[INITIAL_NUMBER_OF_LOCATIONS];
+
+  private int numberOfLocations = 0;
+
+  public LocationIndexedReachedSet(WaitlistFactory waitlistFactory) {
+    super(waitlistFactory);
+  }
+
+  @Override
+  public void add(AbstractState pState, Precision pPrecision) {
+    int previousSize = size();
+    super.add(pState, pPrecision);
+
+    if (size() > previousSize) {
+      CFANode location = getLocation(pState);
+      int index = location.getNodeNumber();
+      ensureCapacity(index);
+
+      AbstractState[] states = statesPerLocation[index];
+      int size = sizes[index];
+      if (states == null) {
+        states = new AbstractState[INITIAL_STATES_PER_LOCATION];
+        locations[index] = location;
+        numberOfLocations++;
+      } else if (size == states.length) {
+        states = Arrays.copyOf(states, size + (size >> 1) + 1);
+      }
+      states[size] = pState;
+      statesPerLocation[index] = states;
+      sizes[index] = size + 1;
+    }
+  }
+
+  @Override
+  public void remove(AbstractState pState) {
+    int previousSize = size();
+    super.remove(pState);
+
+    if (size() < previousSize) {
+      int index = getLocation(pState).getNodeNumber();
+      AbstractState[] states = statesPerLocation[index];
+      int size = sizes[index];
+      for (int i = 0; i < size; i++) {
+        if (states[i] == pState || states[i].equals(pState)) {
+          System.arraycopy(states, i + 1, states, i, size - i - 1);
+          size--;
+          states[size] = null;
+          break;
+        }
+      }
+
+      if (size == 0) {
+        statesPerLocation[index] = null;
+        locations[index] = null;
+        numberOfLocations--;
+      }
+      sizes[index] = size;
+    }
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+
+    statesPerLocation = new AbstractState[INITIAL_NUMBER_OF_LOCATIONS][];
+    sizes = new int[INITIAL_NUMBER_OF_LOCATIONS];
+    locations = new CFANode[INITIAL_NUMBER_OF_LOCATIONS];
+    numberOfLocations = 0;
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(AbstractState pState) {
+    return new LocationView(getLocation(pState).getNodeNumber());
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(CFANode pLocation) {
+    checkNotNull(pLocation);
+    return new LocationView(pLocation.getNodeNumber());
+  }
+
+  public int getNumberOfLocations() {
+    return numberOfLocations;
+  }
+
+  public Set<CFANode> getLocations() {
+    ImmutableSet.Builder<CFANode> result = ImmutableSet.builderWithExpectedSize(numberOfLocations);
+    for (CFANode location : locations) {
+      if (location != null) {
+        result.add(location);
+      }
+    }
+    return result.build();
+  }
+
+  private void ensureCapacity(int pIndex) {
+    if (pIndex >= sizes.length) {
+      int newLength = Math.max(pIndex + 1, sizes.length * 2);
+      statesPerLocation = Arrays.copyOf(statesPerLocation, newLength);
+      sizes = Arrays.copyOf(sizes, newLength);
+      locations = Arrays.copyOf(locations, newLength);
+    }
+  }
+
+  private static CFANode getLocation(AbstractState pState) {
+    checkNotNull(pState);
+    CFANode location = AbstractStates.extractLocation(pState);
+    checkNotNull(location, "Location information necessary for LocationIndexedReachedSet");
+    return location;
+  }
+
+  private AbstractState[] getStates(int pIndex) {
+    if (pIndex >= statesPerLocation.length || statesPerLocation[pIndex] == null) {
+      return NO_STATES;
+    }
+    return statesPerLocation[pIndex];
+  }
+
+  private int getSize(int pIndex) {
+    return pIndex < sizes.length ? sizes[pIndex] : 0;
+  }
+
+  /**
+   * Unmodifiable view on the states of one location. Like the collections returned by {@link
+   * PartitionedReachedSet#getReached(AbstractState)}, this view reflects later changes of the
+   * reached set, but must not be iterated while the reached set is changed.
+   */
+  private final class LocationView extends AbstractCollection<AbstractState> {
+
+    private final int index;
+
+    private LocationView(int pIndex) {
+      index = pIndex;
+    }
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      return Iterators.limit(Iterators.forArray(getStates(index)), getSize(index));
+    }
+
+    @Override
+    public int size() {
+      return getSize(index);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return getSize(index) == 0;
+    }
+
+    @Override
+    public boolean contains(Object pObj) {
+      AbstractState[] states = getStates(index);
+      int size = getSize(index);
+      for (int i = 0; i < size; i++) {
+        if (states[i].equals(pObj)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
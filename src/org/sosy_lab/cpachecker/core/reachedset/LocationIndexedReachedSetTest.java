@@ -0,0 +1,223 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocation;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+public class LocationIndexedReachedSetTest {
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  /** A state that only has a location, and is equal only to itself. */
+  private static class TestState implements AbstractStateWithLocation {
+
+    private final CFANode location;
+
+    private TestState(CFANode pLocation) {
+      location = pLocation;
+    }
+
+    @Override
+    public CFANode getLocationNode() {
+      return location;
+    }
+
+    @Override
+    public Iterable<CFANode> getLocationNodes() {
+      return ImmutableList.of(location);
+    }
+
+    @Override
+    public Iterable<CFAEdge> getOutgoingEdges() {
+      return ImmutableList.of();
+    }
+
+    @Override
+    public Iterable<CFAEdge> getIngoingEdges() {
+      return ImmutableList.of();
+    }
+
+    @Override
+    public String toString() {
+      return "state at " + location;
+    }
+  }
+
+  private CFANode location1;
+  private CFANode location2;
+  private LocationIndexedReachedSet reached;
+
+  @Before
+  public void setUp() {
+    location1 = new CFANode("test");
+    location2 = new CFANode("test");
+    reached = new LocationIndexedReachedSet(TraversalMethod.BFS);
+  }
+
+  @Test
+  public void add() {
+    TestState state1 = new TestState(location1);
+    TestState state2 = new TestState(location1);
+    TestState state3 = new TestState(location2);
+    reached.add(state1, PRECISION);
+    reached.add(state2, PRECISION);
+    reached.add(state3, PRECISION);
+    // adding a state again does not change anything
+    reached.add(state1, PRECISION);
+
+    assertThat(reached.getReached(location1)).containsExactly(state1, state2).inOrder();
+    assertThat(reached.getReached(state2)).containsExactly(state1, state2).inOrder();
+    assertThat(reached.getReached(location2)).containsExactly(state3);
+    assertThat(reached.getNumberOfLocations()).isEqualTo(2);
+    assertThat(reached.getLocations()).containsExactly(location1, location2);
+    assertThat(reached.asCollection()).containsExactly(state1, state2, state3).inOrder();
+    assertThat(reached.getWaitlist()).containsExactly(state1, state2, state3);
+  }
+
+  @Test
+  public void remove() {
+    TestState state1 = new TestState(location1);
+    TestState state2 = new TestState(location1);
+    TestState state3 = new TestState(location1);
+    TestState state4 = new TestState(location2);
+    reached.add(state1, PRECISION);
+    reached.add(state2, PRECISION);
+    reached.add(state3, PRECISION);
+    reached.add(state4, PRECISION);
+
+    reached.remove(state2);
+    assertThat(reached.getReached(location1)).containsExactly(state1, state3).inOrder();
+    assertThat(reached.contains(state2)).isFalse();
+    assertThat(reached.getWaitlist()).doesNotContain(state2);
+
+    // removing a state that is not contained does not change anything
+    reached.remove(state2);
+    reached.remove(new TestState(location1));
+    assertThat(reached.getReached(location1)).containsExactly(state1, state3).inOrder();
+
+    reached.remove(state4);
+    assertThat(reached.getReached(location2)).isEmpty();
+    assertThat(reached.getNumberOfLocations()).isEqualTo(1);
+    assertThat(reached.getLocations()).containsExactly(location1);
+
+    reached.removeAll(ImmutableList.of(state1, state3));
+    assertThat(reached.getReached(location1)).isEmpty();
+    assertThat(reached.getNumberOfLocations()).isEqualTo(0);
+    assertThat(reached.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void clear() {
+    reached.add(new TestState(location1), PRECISION);
+    reached.add(new TestState(location2), PRECISION);
+    reached.clear();
+
+    assertThat(reached.getReached(location1)).isEmpty();
+    assertThat(reached.getNumberOfLocations()).isEqualTo(0);
+    TestState state = new TestState(location1);
+    reached.add(state, PRECISION);
+    assertThat(reached.getReached(location1)).containsExactly(state);
+  }
+
+  @Test
+  public void viewReflectsChanges() {
+    Collection<AbstractState> view = reached.getReached(location1);
+    assertThat(view).isEmpty();
+
+    TestState state1 = new TestState(location1);
+    TestState state2 = new TestState(location1);
+    reached.add(state1, PRECISION);
+    reached.add(state2, PRECISION);
+    assertThat(view).containsExactly(state1, state2).inOrder();
+    assertThat(view.contains(state2)).isTrue();
+
+    reached.remove(state1);
+    assertThat(view).containsExactly(state2);
+    assertThat(view.contains(state1)).isFalse();
+  }
+
+  @Test
+  public void locationsWithLargeNodeNumbers() {
+    // node numbers are global, create enough nodes to exceed the initial capacity
+    List<CFANode> locations = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      locations.add(new CFANode("test"));
+    }
+    CFANode last = locations.get(locations.size() - 1);
+    assertThat(reached.getReached(last)).isEmpty();
+
+    TestState state = new TestState(last);
+    reached.add(state, PRECISION);
+    reached.add(new TestState(location1), PRECISION);
+    assertThat(reached.getReached(last)).containsExactly(state);
+    assertThat(reached.getReached(locations.get(0))).isEmpty();
+  }
+
+  @Test
+  public void sameStatesPerLocationAsLocationMappedReachedSet() {
+    List<CFANode> locations = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      locations.add(new CFANode("test"));
+    }
+    LocationMappedReachedSet expected = new LocationMappedReachedSet(TraversalMethod.BFS);
+    List<TestState> states = new ArrayList<>();
+    Random random = new Random(0);
+
+    for (int i = 0; i < 2000; i++) {
+      if (states.isEmpty() || random.nextInt(3) > 0) {
+        TestState state = new TestState(locations.get(random.nextInt(locations.size())));
+        states.add(state);
+        reached.add(state, PRECISION);
+        expected.add(state, PRECISION);
+      } else {
+        TestState state = states.remove(random.nextInt(states.size()));
+        reached.remove(state);
+        expected.remove(state);
+      }
+
+      for (CFANode location : locations) {
+        assertThat(reached.getReached(location))
+            .containsExactlyElementsIn(expected.getReached(location))
+            .inOrder();
+      }
+      assertThat(reached.getNumberOfLocations()).isEqualTo(expected.getNumberOfPartitions());
+      assertThat(reached.asCollection()).containsExactlyElementsIn(expected.asCollection());
+    }
+  }
+}
@@ -56,7 +56,14 @@ import org.sosy_lab.cpachecker.cpa.usage.storage.UsageConfiguration;
 public class ReachedSetFactory {
 
   private enum ReachedSetType {
-    NORMAL, LOCATIONMAPPED, PARTITIONED, PSEUDOPARTITIONED, USAGE
+    NORMAL,
+    LOCATIONMAPPED,
+    LOCATIONINDEXED,
+    PARTITIONED,
+    PSEUDOPARTITIONED,
+    USAGE,
+    CONCURRENTPARTITIONED,
+    CONCURRENTLOCATIONMAPPED
   }
 
   @Option(
@@ -188,9 +195,16 @@ public class ReachedSetFactory {
             + "\nNORMAL: just a simple set"
             + "\nLOCATIONMAPPED: a different set per location "
             + "(faster, states with different locations cannot be merged)"
+            + "\nLOCATIONINDEXED: like LOCATIONMAPPED, but indexed by node number "
+            + "(locations are not hashed, less memory and faster lookup by location "
+            + "for large CFAs)"
             + "\nPARTITIONED: partitioning depending on CPAs (e.g Location, Callstack etc.)"
             + "\nPSEUDOPARTITIONED: based on PARTITIONED, uses additional info about the states' lattice "
             + "(maybe faster for some special analyses which use merge_sep and stop_sep"
+            + "\nCONCURRENTPARTITIONED: thread-safe variant of PARTITIONED "
+            + "with locks striped per partition"
+            + "\nCONCURRENTLOCATIONMAPPED: thread-safe variant of LOCATIONMAPPED "
+            + "with locks striped per location"
   )
   private ReachedSetType reachedSet = ReachedSetType.PARTITIONED;
 
@@ -292,9 +306,18 @@ public class ReachedSetFactory {
     case LOCATIONMAPPED:
         reached = new LocationMappedReachedSet(waitlistFactory);
         break;
+    case LOCATIONINDEXED:
+        reached = new LocationIndexedReachedSet(waitlistFactory);
+        break;
     case USAGE:
         reached = new UsageReachedSet(waitlistFactory, usageConfig, logger);
         break;
+    case CONCURRENTPARTITIONED:
+        reached = new ConcurrentPartitionedReachedSet(waitlistFactory);
+        break;
+    case CONCURRENTLOCATIONMAPPED:
+        reached = new ConcurrentLocationMappedReachedSet(waitlistFactory);
+        break;
     case NORMAL:
     default:
         reached = new DefaultReachedSet(waitlistFactory);
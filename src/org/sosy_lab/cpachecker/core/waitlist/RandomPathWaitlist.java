@@ -98,11 +98,10 @@ public class RandomPathWaitlist extends AbstractWaitlist<LinkedList<AbstractStat
     s.writeObject(parent.getNodeNumber());
   }
 
-  @SuppressWarnings("UnusedVariable") // parameter is required by API
   private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
     s.defaultReadObject();
     Integer nodeNumber = (Integer) s.readObject();
     CFAInfo cfaInfo = GlobalInfo.getInstance().getCFAInfo().orElseThrow();
-    parent = nodeNumber == null ? null : cfaInfo.getNodeByNodeNumber(nodeNumber);
+    parent = nodeNumber == null ? null : cfaInfo.getNodeByNodeNumber(nodeNumber, s);
   }
 }
@@ -52,6 +52,7 @@ import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager.PathFormulaCacheOptions;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
@@ -96,7 +97,9 @@ public final class ABECPA
         AnalysisDirection.FORWARD);
 
     if (useCachingPathFormulaManager) {
-      pathFormulaManager = new CachingPathFormulaManager(pathFormulaManager);
+      pathFormulaManager =
+          new CachingPathFormulaManager(
+              pathFormulaManager, new PathFormulaCacheOptions(pConfiguration));
     }
     manager = new ABEWrappingManager<>(clientManager, pathFormulaManager,
         formulaManager, pCFA, pLogger, pSolver, pConfiguration);
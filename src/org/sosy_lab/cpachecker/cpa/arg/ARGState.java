@@ -33,7 +33,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.graph.Traverser;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -56,14 +55,15 @@ import org.sosy_lab.cpachecker.util.AbstractStates;
 public class ARGState extends AbstractSingleWrapperState
     implements Comparable<ARGState>, Graphable, Splitable{
 
-  private static final long serialVersionUID = 2608287648397165040L;
+  private static final long serialVersionUID = -3279386183418217383L;
 
-  // We use a List here although we would like to have a Set
-  // because ArrayList is much more memory efficient than e.g. LinkedHashSet.
+  // We store a relation as NULL, a single ARGState, or an ArrayList (see NeighborList),
+  // because nearly all states have one parent and at most one child,
+  // and even a small ArrayList needs about as much memory as the state itself.
   // Also these collections are small and so a slow contains() method won't hurt.
   // To enforce set semantics, do not add elements except through addparent()!
-  private final Collection<ARGState> children = new ArrayList<>(1);
-  private final Collection<ARGState> parents = new ArrayList<>(1);
+  private @Nullable Object children = null;
+  private @Nullable Object parents = null;
 
   private ARGState mCoveredBy = null;
   private Set<ARGState> mCoveredByThis = null; // lazy initialization because rarely needed
@@ -98,7 +98,7 @@ public class ARGState extends AbstractSingleWrapperState
    * @return A unmodifiable collection of ARGStates without duplicates.
    */
   public Collection<ARGState> getParents() {
-    return Collections.unmodifiableCollection(parents);
+    return NeighborList.view(() -> parents);
   }
 
   public void addParent(ARGState pOtherParent) {
@@ -106,12 +106,12 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (!parents.contains(pOtherParent)) {
-      assert !pOtherParent.children.contains(this);
-      parents.add(pOtherParent);
-      pOtherParent.children.add(this);
+    if (!NeighborList.contains(parents, pOtherParent)) {
+      assert !NeighborList.contains(pOtherParent.children, this);
+      parents = NeighborList.add(parents, pOtherParent);
+      pOtherParent.children = NeighborList.add(pOtherParent.children, this);
     } else {
-      assert pOtherParent.children.contains(this);
+      assert NeighborList.contains(pOtherParent.children, this);
     }
   }
 
@@ -121,7 +121,7 @@ public class ARGState extends AbstractSingleWrapperState
    */
   public Collection<ARGState> getChildren() {
     assert !destroyed : "Don't use destroyed ARGState " + this;
-    return Collections.unmodifiableCollection(children);
+    return NeighborList.view(() -> children);
   }
 
   /**
@@ -300,10 +300,10 @@ public class ARGState extends AbstractSingleWrapperState
   }
 
   void deleteChild(ARGState child) {
-    assert (children.contains(child));
-    assert (child.parents.contains(this));
-    children.remove(child);
-    child.parents.remove(this);
+    assert NeighborList.contains(children, child);
+    assert NeighborList.contains(child.parents, this);
+    children = NeighborList.remove(children, child);
+    child.parents = NeighborList.remove(child.parents, this);
   }
 
   // counterexample
@@ -391,9 +391,9 @@ public class ARGState extends AbstractSingleWrapperState
     sb.append(stateId);
     if (!destroyed) {
       sb.append(", Parents: ");
-      sb.append(stateIdsOf(parents));
+      sb.append(stateIdsOf(getParents()));
       sb.append(", Children: ");
-      sb.append(stateIdsOf(children));
+      sb.append(stateIdsOf(NeighborList.view(() -> children)));
 
       if (mCoveredBy != null) {
         sb.append(", Covered by: ");
@@ -478,18 +478,18 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // clear children
-    for (ARGState child : children) {
-      assert (child.parents.contains(this));
-      child.parents.remove(this);
+    for (ARGState child : getChildren()) {
+      assert NeighborList.contains(child.parents, this);
+      child.parents = NeighborList.remove(child.parents, this);
     }
-    children.clear();
+    children = null;
 
     // clear parents
-    for (ARGState parent : parents) {
-      assert (parent.children.contains(this));
-      parent.children.remove(this);
+    for (ARGState parent : getParents()) {
+      assert NeighborList.contains(parent.children, this);
+      parent.children = NeighborList.remove(parent.children, this);
     }
-    parents.clear();
+    parents = null;
   }
 
   /**
@@ -509,19 +509,19 @@ public class ARGState extends AbstractSingleWrapperState
     assert !this.equals(replacement) : "Don't replace ARGState " + this + " with itself";
 
     // copy children
-    for (ARGState child : children) {
-      assert child.parents.contains(this) : "Inconsistent ARG at " + this;
-      child.parents.remove(this);
+    for (ARGState child : getChildren()) {
+      assert NeighborList.contains(child.parents, this) : "Inconsistent ARG at " + this;
+      child.parents = NeighborList.remove(child.parents, this);
       child.addParent(replacement);
     }
-    children.clear();
+    children = null;
 
-    for (ARGState parent : parents) {
-      assert parent.children.contains(this) : "Inconsistent ARG at " + this;
-      parent.children.remove(this);
+    for (ARGState parent : getParents()) {
+      assert NeighborList.contains(parent.children, this) : "Inconsistent ARG at " + this;
+      parent.children = NeighborList.remove(parent.children, this);
       replacement.addParent(parent);
     }
-    parents.clear();
+    parents = null;
 
     if (mCoveredByThis != null) {
       if (replacement.mCoveredByThis == null) {
@@ -578,12 +578,12 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (parents.contains(pOtherParent)) {
-      assert pOtherParent.children.contains(this);
-      parents.remove(pOtherParent);
-      pOtherParent.children.remove(this);
+    if (NeighborList.contains(parents, pOtherParent)) {
+      assert NeighborList.contains(pOtherParent.children, this);
+      parents = NeighborList.remove(parents, pOtherParent);
+      pOtherParent.children = NeighborList.remove(pOtherParent.children, this);
     } else {
-      assert !pOtherParent.children.contains(this) : "Problem detected!";
+      assert !NeighborList.contains(pOtherParent.children, this) : "Problem detected!";
     }
   }
 }
@@ -0,0 +1,146 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.arg;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import org.junit.Test;
+
+public class ARGStateTest {
+
+  private final ARGState p1 = new ARGState(null, null);
+  private final ARGState p2 = new ARGState(null, null);
+  private final ARGState c1 = new ARGState(null, null);
+  private final ARGState c2 = new ARGState(null, null);
+
+  /** Check that parent and child relations of the given states are symmetric. */
+  private static void assertConsistent(ARGState... pStates) {
+    for (ARGState state : pStates) {
+      for (ARGState child : state.getChildren()) {
+        assertWithMessage("parents of child %s of %s", child, state)
+            .that(child.getParents())
+            .contains(state);
+      }
+      for (ARGState parent : state.getParents()) {
+        assertWithMessage("children of parent %s of %s", parent, state)
+            .that(parent.getChildren())
+            .contains(state);
+      }
+    }
+  }
+
+  /** Create a state with parents p1 and p2 and children c1 and c2. */
+  private ARGState createStateWithNeighbors() {
+    ARGState state = new ARGState(null, p1);
+    state.addParent(p2);
+    c1.addParent(state);
+    c2.addParent(state);
+    return state;
+  }
+
+  @Test
+  public void testAddParent() {
+    ARGState state = createStateWithNeighbors();
+    assertThat(state.getParents()).containsExactly(p1, p2).inOrder();
+    assertThat(state.getChildren()).containsExactly(c1, c2).inOrder();
+
+    // set semantics
+    state.addParent(p1);
+    c1.addParent(state);
+    assertThat(state.getParents()).hasSize(2);
+    assertThat(state.getChildren()).hasSize(2);
+    assertThat(p1.getChildren()).containsExactly(state);
+
+    assertConsistent(state, p1, p2, c1, c2);
+  }
+
+  @Test
+  public void testRemoveParent() {
+    ARGState state = createStateWithNeighbors();
+
+    state.removeParent(p1);
+    assertThat(state.getParents()).containsExactly(p2);
+    assertThat(p1.getChildren()).isEmpty();
+
+    state.removeParent(p2);
+    assertThat(state.getParents()).isEmpty();
+    assertThat(p2.getChildren()).isEmpty();
+
+    assertConsistent(state, p1, p2, c1, c2);
+  }
+
+  @Test
+  public void testDeleteChild() {
+    ARGState state = createStateWithNeighbors();
+
+    state.deleteChild(c1);
+    assertThat(state.getChildren()).containsExactly(c2);
+    assertThat(c1.getParents()).isEmpty();
+
+    state.deleteChild(c2);
+    assertThat(state.getChildren()).isEmpty();
+    assertThat(c2.getParents()).isEmpty();
+
+    assertConsistent(state, p1, p2, c1, c2);
+  }
+
+  @Test
+  public void testRemoveFromARG() {
+    ARGState state = createStateWithNeighbors();
+    ARGState sibling = new ARGState(null, p1);
+
+    state.removeFromARG();
+    assertThat(state.isDestroyed()).isTrue();
+    assertThat(state.getParents()).isEmpty();
+
+    assertThat(p1.getChildren()).containsExactly(sibling);
+    assertThat(p2.getChildren()).isEmpty();
+    assertThat(c1.getParents()).isEmpty();
+    assertThat(c2.getParents()).isEmpty();
+
+    assertConsistent(p1, p2, c1, c2, sibling);
+  }
+
+  @Test
+  public void testReplaceInARGWith() {
+    ARGState state = createStateWithNeighbors();
+    ARGState sibling = new ARGState(null, p1);
+    ARGState replacement = new ARGState(null, null);
+    ARGState otherChild = new ARGState(null, replacement);
+
+    state.replaceInARGWith(replacement);
+    assertThat(state.isDestroyed()).isTrue();
+    assertThat(state.getParents()).isEmpty();
+
+    assertThat(replacement.getParents()).containsExactly(p1, p2);
+    assertThat(replacement.getChildren()).containsExactly(otherChild, c1, c2);
+    assertThat(p1.getChildren()).containsExactly(sibling, replacement);
+    assertThat(p2.getChildren()).containsExactly(replacement);
+    assertThat(c1.getParents()).containsExactly(replacement);
+    assertThat(c2.getParents()).containsExactly(replacement);
+
+    assertConsistent(replacement, p1, p2, c1, c2, sibling, otherChild);
+  }
+}
@@ -55,23 +55,43 @@ public class ARGTransferRelation extends AbstractSingleWrapperTransferRelation {
 
     element.markExpanded();
 
-    AbstractState wrappedState = element.getWrappedState();
-    Collection<? extends AbstractState> successors;
+    return linkSuccessors(element, getWrappedSuccessors(element, pPrecision));
+  }
+
+  /**
+   * Compute the successors of the state wrapped by the given ARG state without modifying the ARG.
+   * In contrast to {@link #linkSuccessors(ARGState, Collection)}, this can be called concurrently.
+   */
+  public Collection<? extends AbstractState> getWrappedSuccessors(
+      ARGState pElement, Precision pPrecision) throws CPATransferException, InterruptedException {
     try {
-      successors = transferRelation.getAbstractSuccessors(wrappedState, pPrecision);
+      return transferRelation.getAbstractSuccessors(pElement.getWrappedState(), pPrecision);
     } catch (UnrecognizedCodeException e) {
       // setting parent of this unsupported code part
-      e.setParentState(element);
+      e.setParentState(pElement);
       throw e;
     }
+  }
+
+  /**
+   * Add the given successors of the wrapped state as children of the given state to the ARG. No
+   * successors are added if the state was covered after they were computed. The ARG is not
+   * thread-safe, so concurrent callers have to synchronize this with all other ARG modifications.
+   */
+  public Collection<ARGState> linkSuccessors(
+      ARGState pElement, Collection<? extends AbstractState> pWrappedSuccessors) {
+    if (pElement.isCovered()) {
+      return ImmutableSet.of();
+    }
+    pElement.markExpanded();
 
-    if (successors.isEmpty()) {
+    if (pWrappedSuccessors.isEmpty()) {
       return ImmutableSet.of();
     }
 
     ImmutableList.Builder<ARGState> wrappedSuccessors = ImmutableList.builder();
-    for (AbstractState absElement : successors) {
-      ARGState successorElem = new ARGState(absElement, element);
+    for (AbstractState absElement : pWrappedSuccessors) {
+      ARGState successorElem = new ARGState(absElement, pElement);
       wrappedSuccessors.add(successorElem);
     }
 
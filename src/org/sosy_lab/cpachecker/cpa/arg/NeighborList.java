@@ -0,0 +1,136 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.arg;
+
+import com.google.common.collect.Iterators;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Static helpers for the compact storage of the parents or children of an {@link ARGState}.
+ *
+ * <p>A field for such a relation contains either NULL (no state), a single {@link ARGState}, or an
+ * {@link ArrayList} with at least two states. Nearly all states in an ARG have exactly one parent
+ * and at most one child, so this avoids allocating two lists per state. The methods do not check
+ * for duplicates, callers have to enforce set semantics themselves.
+ */
+final class NeighborList {
+
+  private NeighborList() {}
+
+  static boolean contains(@Nullable Object pNeighbors, ARGState pState) {
+    if (pNeighbors == null) {
+      return false;
+    } else if (pNeighbors instanceof ARGState) {
+      return pNeighbors == pState;
+    } else {
+      return asList(pNeighbors).contains(pState);
+    }
+  }
+
+  static int size(@Nullable Object pNeighbors) {
+    if (pNeighbors == null) {
+      return 0;
+    } else if (pNeighbors instanceof ARGState) {
+      return 1;
+    } else {
+      return asList(pNeighbors).size();
+    }
+  }
+
+  /** Add a state and return the new value of the field. */
+  static Object add(@Nullable Object pNeighbors, ARGState pState) {
+    if (pNeighbors == null) {
+      return pState;
+    } else if (pNeighbors instanceof ARGState) {
+      List<ARGState> list = new ArrayList<>(2);
+      list.add((ARGState) pNeighbors);
+      list.add(pState);
+      return list;
+    } else {
+      asList(pNeighbors).add(pState);
+      return pNeighbors;
+    }
+  }
+
+  /** Remove a state and return the new value of the field. */
+  static @Nullable Object remove(@Nullable Object pNeighbors, ARGState pState) {
+    if (pNeighbors == null) {
+      return null;
+    } else if (pNeighbors instanceof ARGState) {
+      return pNeighbors == pState ? null : pNeighbors;
+    } else {
+      List<ARGState> list = asList(pNeighbors);
+      list.remove(pState);
+      return list.size() == 1 ? list.get(0) : list;
+    }
+  }
+
+  /**
+   * Create an unmodifiable live view of a relation, reading the field from the given supplier
+   * whenever the view is accessed.
+   */
+  static Collection<ARGState> view(Supplier<@Nullable Object> pField) {
+    return new AbstractCollection<>() {
+
+      @Override
+      public Iterator<ARGState> iterator() {
+        Object neighbors = pField.get();
+        if (neighbors == null) {
+          return Iterators.forArray();
+        } else if (neighbors instanceof ARGState) {
+          return Iterators.singletonIterator((ARGState) neighbors);
+        } else {
+          return Iterators.unmodifiableIterator(asList(neighbors).iterator());
+        }
+      }
+
+      @Override
+      public int size() {
+        return NeighborList.size(pField.get());
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return pField.get() == null;
+      }
+
+      @Override
+      public boolean contains(Object pObject) {
+        return pObject instanceof ARGState
+            && NeighborList.contains(pField.get(), (ARGState) pObject);
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<ARGState> asList(Object pNeighbors) {
+    return (List<ARGState>) pNeighbors;
+  }
+}
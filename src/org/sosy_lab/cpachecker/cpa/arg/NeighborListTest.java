@@ -0,0 +1,136 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.arg;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Collection;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Test;
+
+public class NeighborListTest {
+
+  private final ARGState s1 = new ARGState(null, null);
+  private final ARGState s2 = new ARGState(null, null);
+  private final ARGState s3 = new ARGState(null, null);
+
+  private @Nullable Object field = null;
+  private final Collection<ARGState> view = NeighborList.view(() -> field);
+
+  @Test
+  public void testAddAndRemove() {
+    assertThat(NeighborList.size(field)).isEqualTo(0);
+    assertThat(NeighborList.contains(field, s1)).isFalse();
+
+    field = NeighborList.add(field, s1);
+    assertThat(field).isSameInstanceAs(s1);
+    assertThat(NeighborList.size(field)).isEqualTo(1);
+    assertThat(NeighborList.contains(field, s1)).isTrue();
+    assertThat(NeighborList.contains(field, s2)).isFalse();
+
+    field = NeighborList.add(field, s2);
+    assertThat(field).isInstanceOf(List.class);
+    assertThat(NeighborList.size(field)).isEqualTo(2);
+    assertThat(NeighborList.contains(field, s1)).isTrue();
+    assertThat(NeighborList.contains(field, s2)).isTrue();
+
+    field = NeighborList.remove(field, s1);
+    assertThat(field).isSameInstanceAs(s2);
+    assertThat(NeighborList.size(field)).isEqualTo(1);
+    assertThat(NeighborList.contains(field, s1)).isFalse();
+
+    field = NeighborList.remove(field, s2);
+    assertThat(field).isNull();
+    assertThat(NeighborList.size(field)).isEqualTo(0);
+  }
+
+  @Test
+  public void testAddToList() {
+    field = NeighborList.add(NeighborList.add(field, s1), s2);
+    Object list = field;
+
+    // the list is modified in place
+    field = NeighborList.add(field, s3);
+    assertThat(field).isSameInstanceAs(list);
+    assertThat(NeighborList.size(field)).isEqualTo(3);
+
+    field = NeighborList.remove(field, s2);
+    assertThat(field).isSameInstanceAs(list);
+    assertThat(view).containsExactly(s1, s3).inOrder();
+  }
+
+  @Test
+  public void testRemoveAbsent() {
+    assertThat(NeighborList.remove(field, s1)).isNull();
+
+    field = NeighborList.add(field, s1);
+    assertThat(NeighborList.remove(field, s2)).isSameInstanceAs(s1);
+
+    field = NeighborList.add(field, s2);
+    Object list = field;
+    assertThat(NeighborList.remove(field, s3)).isSameInstanceAs(list);
+    assertThat(NeighborList.size(field)).isEqualTo(2);
+  }
+
+  @Test
+  public void testView() {
+    assertThat(view.isEmpty()).isTrue();
+    assertThat(view.size()).isEqualTo(0);
+    assertThat(view.contains(s1)).isFalse();
+    assertThat(view).isEmpty();
+
+    // the view reflects all later changes of the field
+    field = NeighborList.add(field, s1);
+    assertThat(view.isEmpty()).isFalse();
+    assertThat(view.size()).isEqualTo(1);
+    assertThat(view.contains(s1)).isTrue();
+    assertThat(view.contains(s2)).isFalse();
+    assertThat(view).containsExactly(s1);
+
+    field = NeighborList.add(field, s2);
+    assertThat(view.isEmpty()).isFalse();
+    assertThat(view.size()).isEqualTo(2);
+    assertThat(view.contains(s1)).isTrue();
+    assertThat(view.contains(s2)).isTrue();
+    assertThat(view.contains("s2")).isFalse();
+    assertThat(view).containsExactly(s1, s2).inOrder();
+
+    field = NeighborList.remove(field, s1);
+    assertThat(view.size()).isEqualTo(1);
+    assertThat(view.contains(s1)).isFalse();
+    assertThat(view).containsExactly(s2);
+
+    field = NeighborList.remove(field, s2);
+    assertThat(view.isEmpty()).isTrue();
+    assertThat(view.size()).isEqualTo(0);
+    assertThat(view).isEmpty();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testViewIsUnmodifiable() {
+    field = NeighborList.add(NeighborList.add(field, s1), s2);
+    view.iterator().remove();
+  }
+}
@@ -21,17 +21,20 @@ package org.sosy_lab.cpachecker.cpa.arg.witnessexport;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import javax.xml.parsers.ParserConfigurationException;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
 import org.sosy_lab.cpachecker.core.counterexample.ReportGenerator;
 import org.sosy_lab.cpachecker.core.interfaces.Property;
@@ -39,13 +42,12 @@ import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.cpa.slab.SLARGToDotWriter;
 import org.sosy_lab.cpachecker.util.NumericIdProvider;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.ElementType;
-import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlBuilder;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlWriter;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
-import org.w3c.dom.Element;
 
 public class WitnessToOutputFormatsUtils {
 
@@ -56,20 +58,55 @@ public class WitnessToOutputFormatsUtils {
    * @param pTarget where to append the GraphML
    */
   public static void writeToGraphMl(Witness witness, Appendable pTarget) throws IOException {
+    // The key definitions precede the graph and each node is written before its edges,
+    // so collect the used keys and the node data attached by entering edges first.
+    Set<KeyDef> dataKeys = EnumSet.noneOf(KeyDef.class);
+    ListMultimap<String, Map.Entry<KeyDef, String>> edgeNodeData = ArrayListMultimap.create();
+    traverseGraphMl(
+        witness,
+        node -> addNodeData(witness, node, (key, value) -> dataKeys.add(key)),
+        edge -> {
+          for (Map.Entry<KeyDef, String> entry : edge.getLabel().getMapping().entrySet()) {
+            KeyDef keyDef = entry.getKey();
+            if (keyDef.keyFor.equals(ElementType.EDGE)) {
+              dataKeys.add(keyDef);
+            } else if (keyDef.keyFor.equals(ElementType.NODE)) {
+              dataKeys.add(keyDef);
+              edgeNodeData.put(
+                  edge.getTarget(), Maps.immutableEntry(keyDef, entry.getValue()));
+            }
+          }
+        });
+
     // Write elements
-    final GraphMlBuilder doc;
-    try {
-      doc =
-          new GraphMlBuilder(
-              witness.getWitnessType(),
-              witness.getOriginFile(),
-              witness.getCfa(),
-              witness.getMetaData());
-    } catch (ParserConfigurationException e) {
-      throw new IOException(e);
-    }
-    WitnessToOutputFormatsUtils.writeElementsOfGraphToDoc(doc, witness);
-    doc.appendTo(pTarget);
+    GraphMlWriter writer =
+        new GraphMlWriter(
+            pTarget,
+            witness.getWitnessType(),
+            witness.getOriginFile(),
+            witness.getCfa(),
+            witness.getMetaData(),
+            dataKeys);
+    traverseGraphMl(
+        witness,
+        node -> {
+          writer.startNode(node, NodeType.ONPATH);
+          addNodeData(witness, node, (key, value) -> writer.writeData(key, value.toString()));
+          for (Map.Entry<KeyDef, String> entry : edgeNodeData.get(node)) {
+            writer.writeData(entry.getKey(), entry.getValue());
+          }
+          writer.endNode();
+        },
+        edge -> {
+          writer.startEdge(edge.getSource(), edge.getTarget());
+          for (Map.Entry<KeyDef, String> entry : edge.getLabel().getMapping().entrySet()) {
+            if (entry.getKey().keyFor.equals(ElementType.EDGE)) {
+              writer.writeData(entry.getKey(), entry.getValue());
+            }
+          }
+          writer.endEdge();
+        });
+    writer.finish();
   }
 
   /**
@@ -171,82 +208,79 @@ public class WitnessToOutputFormatsUtils {
     return "";
   }
 
-  private static void writeElementsOfGraphToDoc(GraphMlBuilder doc, Witness witness) {
+  private interface GraphMlVisitor<T> {
+
+    void visit(T pElement) throws IOException;
+  }
+
+  private interface DataConsumer {
+
+    void accept(KeyDef pKey, Object pValue) throws IOException;
+  }
+
+  /**
+   * Visits the nodes and edges of the witness in the order in which they are written to the
+   * GraphML output. Each node is visited before the first edge that refers to it.
+   */
+  private static void traverseGraphMl(
+      Witness witness, GraphMlVisitor<String> pNodeVisitor, GraphMlVisitor<Edge> pEdgeVisitor)
+      throws IOException {
     String entryStateNodeId = witness.getEntryStateNodeId();
-    Map<String, Element> nodes = Maps.newHashMap();
+    Set<String> nodes = new HashSet<>();
     Deque<String> waitlist = Queues.newArrayDeque();
     waitlist.push(entryStateNodeId);
-    Element entryNode = createNewNode(doc, entryStateNodeId, witness);
-    addInvariantsData(doc, entryNode, entryStateNodeId, witness);
-    nodes.put(entryStateNodeId, entryNode);
+    pNodeVisitor.visit(entryStateNodeId);
+    nodes.add(entryStateNodeId);
     while (!waitlist.isEmpty()) {
       String source = waitlist.pop();
       for (Edge edge : witness.getLeavingEdges().get(source)) {
-        Element targetNode = nodes.get(edge.getTarget());
-        if (targetNode == null) {
-          targetNode = createNewNode(doc, edge.getTarget(), witness);
-          if (!ExpressionTrees.getFalse()
-              .equals(addInvariantsData(doc, targetNode, edge.getTarget(), witness))) {
+        if (nodes.add(edge.getTarget())) {
+          pNodeVisitor.visit(edge.getTarget());
+          if (!ExpressionTrees.getFalse().equals(getExportedInvariant(witness, edge.getTarget()))) {
             waitlist.push(edge.getTarget());
           }
-          nodes.put(edge.getTarget(), targetNode);
         }
-        createNewEdge(doc, edge, targetNode);
+        pEdgeVisitor.visit(edge);
       }
     }
   }
 
-  private static Element createNewNode(
-      GraphMlBuilder pDoc, String pEntryStateNodeId, Witness witness) {
-    Element result = pDoc.createNodeElement(pEntryStateNodeId, NodeType.ONPATH);
-
+  /**
+   * Hands the data of the given witness node to the consumer. Values are only converted to strings
+   * by the consumer, so that collecting the used keys does not need to print any invariants.
+   */
+  private static void addNodeData(Witness witness, String pStateId, DataConsumer pConsumer)
+      throws IOException {
     if (witness.getWitnessOptions().exportNodeLabel()) {
       // add a printable label that for example is shown in yEd
-      pDoc.addDataElementChild(result, KeyDef.LABEL, pEntryStateNodeId);
+      pConsumer.accept(KeyDef.LABEL, pStateId);
     }
 
-    for (NodeFlag f : witness.getNodeFlags().get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, f.key, "true");
+    for (NodeFlag f : witness.getNodeFlags().get(pStateId)) {
+      pConsumer.accept(f.key, "true");
     }
-    for (Property violation : witness.getViolatedProperties().get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, KeyDef.VIOLATEDPROPERTY, violation.toString());
+    for (Property violation : witness.getViolatedProperties().get(pStateId)) {
+      pConsumer.accept(KeyDef.VIOLATEDPROPERTY, violation);
     }
 
-    if (witness.hasQuasiInvariant(pEntryStateNodeId)) {
-      ExpressionTree<Object> tree = witness.getQuasiInvariant(pEntryStateNodeId);
-      pDoc.addDataElementChild(result, KeyDef.INVARIANT, tree.toString());
+    if (witness.hasQuasiInvariant(pStateId)) {
+      pConsumer.accept(KeyDef.INVARIANT, witness.getQuasiInvariant(pStateId));
     }
 
-    return result;
-  }
-
-  private static ExpressionTree<Object> addInvariantsData(
-      GraphMlBuilder pDoc, Element pNode, String pStateId, Witness witness) {
-    if (!witness.getInvariantExportStates().contains(pStateId)) {
-      return ExpressionTrees.getTrue();
-    }
-    ExpressionTree<Object> tree = witness.getStateInvariant(pStateId);
+    ExpressionTree<Object> tree = getExportedInvariant(witness, pStateId);
     if (!tree.equals(ExpressionTrees.getTrue())) {
-      pDoc.addDataElementChild(pNode, KeyDef.INVARIANT, tree.toString());
+      pConsumer.accept(KeyDef.INVARIANT, tree);
       String scope = witness.getStateScopes().get(pStateId);
       if (!isNullOrEmpty(scope) && !tree.equals(ExpressionTrees.getFalse())) {
-        pDoc.addDataElementChild(pNode, KeyDef.INVARIANTSCOPE, scope);
+        pConsumer.accept(KeyDef.INVARIANTSCOPE, scope);
       }
     }
-    return tree;
   }
 
-  private static Element createNewEdge(GraphMlBuilder pDoc, Edge pEdge, Element pTargetNode) {
-    Element edge = pDoc.createEdgeElement(pEdge.getSource(), pEdge.getTarget());
-    for (Map.Entry<KeyDef, String> entry : pEdge.getLabel().getMapping().entrySet()) {
-      KeyDef keyDef = entry.getKey();
-      String value = entry.getValue();
-      if (keyDef.keyFor.equals(ElementType.EDGE)) {
-        pDoc.addDataElementChild(edge, keyDef, value);
-      } else if (keyDef.keyFor.equals(ElementType.NODE)) {
-        pDoc.addDataElementChild(pTargetNode, keyDef, value);
-      }
+  private static ExpressionTree<Object> getExportedInvariant(Witness witness, String pStateId) {
+    if (!witness.getInvariantExportStates().contains(pStateId)) {
+      return ExpressionTrees.getTrue();
     }
-    return edge;
+    return witness.getStateInvariant(pStateId);
   }
 }
@@ -87,6 +87,16 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
   abstract ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs)
       throws CPATransferException;
 
+  /**
+   * Return whether the result of {@link #eval} depends only on the CFA edge of the arguments, and
+   * not on automaton variables, transition variables or the states of other CPAs. The result of
+   * such an expression for a given edge never changes, which allows to decide once per edge
+   * whether a transition can match at all (cf. {@link AutomatonTransitionIndex}).
+   */
+  default boolean isEdgeLocal() {
+    return false;
+  }
+
   static enum MatchProgramExit implements AutomatonBoolExpr {
     INSTANCE;
 
@@ -99,6 +109,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "PROGRAM-EXIT";
@@ -158,6 +173,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "PROGRAM-ENTRY";
@@ -175,6 +195,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "LOOP-START";
@@ -197,6 +222,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "SUCCESSOR IN " + acceptedNodes;
@@ -378,6 +408,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH FUNCTION CALL STATEMENT \"" + functionName + "\"";
@@ -418,6 +453,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH FUNCTION CALL \"" + functionName + "\"";
@@ -493,6 +533,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return Objects.hash(matchAssumeCase, matchFunctionCall);
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH FP-CALL("
@@ -535,6 +580,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH FUNCTION EXIT \"" + functionName + "\"";
@@ -575,6 +625,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
         }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH LABEL \"" + label + "\"";
@@ -620,6 +675,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH LABEL [" + pattern + "]";
@@ -702,6 +762,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH [" + pattern + "]";
@@ -742,6 +807,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH TRANSITION [" + predecessorNodeNumber + " -> " + successorNodeNumber + "]";
@@ -777,6 +847,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH \"" + pattern + "\"";
@@ -806,6 +881,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH ASSERT";
@@ -820,6 +900,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return pArgs.getCfaEdge() instanceof AssumeEdge ? CONST_TRUE : CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH ASSUME EDGE";
@@ -851,6 +936,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH ASSUME CASE " + matchPositiveCase;
@@ -1017,6 +1107,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return AutomatonGraphmlCommon.isSplitDeclaration(edge) ? CONST_TRUE : CONST_FALSE;
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH SPLIT DECLARATION";
@@ -1048,6 +1143,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
           .anyMatch(matchDescriptor);
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return true;
+    }
+
     @Override
     public String toString() {
       return "MATCH " + matchDescriptor;
@@ -1280,6 +1380,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
           return CONST_FALSE;
         }
 
+        @Override
+        public boolean isEdgeLocal() {
+          return true;
+        }
+
         @Override
         public String toString() {
           return "FALSE";
@@ -1466,6 +1571,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return a.isEdgeLocal();
+    }
+
     @Override
     public String toString() {
       return "!" + a;
@@ -1524,6 +1634,11 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       }
     }
 
+    @Override
+    public boolean isEdgeLocal() {
+      return a.isEdgeLocal() && b.isEdgeLocal();
+    }
+
     @Override
     public String toString() {
       return "(" + a + " " + repr + " " + b + ")";
@@ -30,10 +30,16 @@ import com.google.common.base.Strings;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
 import com.google.common.io.ByteSource;
 import com.google.common.io.MoreFiles;
 import java.io.FileNotFoundException;
@@ -50,7 +56,6 @@ import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -59,17 +64,20 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -115,11 +123,6 @@ import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
 import org.sosy_lab.cpachecker.util.expressions.LeafExpression;
 import org.sosy_lab.cpachecker.util.expressions.ToCExpressionVisitor;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -164,6 +167,16 @@ public class AutomatonGraphmlParser {
   @Option(secure=true, description="Match the line numbers within the origin (mapping done by preprocessor line markers).")
   private boolean matchOriginLine = true;
 
+  @Option(
+      secure = true,
+      description =
+          "While reading a violation witness, drop all edges whose line numbers do not overlap "
+              + "with any statement of the program, because these edges can never be matched, "
+              + "and also drop all nodes that are no longer referenced afterwards. "
+              + "This reduces the size of the witness automaton for huge witnesses. "
+              + "Only applies if option witness.matchOriginLine is enabled.")
+  private boolean pruneIrrelevantEdges = false;
+
   @Option(secure=true, description="Match the character offset within the file.")
   private boolean matchOffset = true;
 
@@ -239,6 +252,9 @@ public class AutomatonGraphmlParser {
 
   private final Map<GraphMLState, ExpressionTree<AExpression>> stateInvariantsMap;
 
+  /** The origin line ranges covered by the program, computed lazily for pruning. */
+  private @Nullable RangeSet<Integer> programLines = null;
+
   public AutomatonGraphmlParser(
       Configuration pConfig,
       LogManager pLogger,
@@ -1023,8 +1039,9 @@ public class AutomatonGraphmlParser {
   }
 
   /**
-   * Initializes the GraphML-parser state by parsing the XML document from the given input stream
-   * into an intermediate representation.
+   * Initializes the GraphML-parser state by reading the XML document from the given input stream
+   * in a single streaming pass, converting each GraphML edge into a transition as soon as both of
+   * its endpoints are known.
    *
    * @param pInputStream the input stream to read from.
    * @param pProperties which are assumed to be witnessed.
@@ -1037,41 +1054,60 @@ public class AutomatonGraphmlParser {
       InputStream pInputStream, Set<Property> pProperties)
       throws IOException, WitnessParseException {
 
-    GraphMLDocumentData docDat = parseXML(pInputStream);
+    GraphMLDocumentData docDat = new GraphMLDocumentData();
+
+    Map<String, GraphMLState> states = new LinkedHashMap<>();
+    Multimap<GraphMLState, GraphMLTransition> enteringTransitions = LinkedHashMultimap.create();
+    Multimap<GraphMLState, GraphMLTransition> leavingTransitions = LinkedHashMultimap.create();
+    NumericIdProvider numericIdProvider = NumericIdProvider.create();
+    Set<GraphMLState> entryStates = new LinkedHashSet<>();
+    AtomicInteger prunedTransitions = new AtomicInteger();
+    docDat.read(
+        pInputStream,
+        transition -> {
+          if (isIrrelevantTransition(docDat, transition)) {
+            prunedTransitions.incrementAndGet();
+          } else {
+            collectEdgeData(
+                docDat,
+                states,
+                entryStates,
+                leavingTransitions,
+                enteringTransitions,
+                numericIdProvider,
+                transition);
+          }
+        });
 
     checkFields(docDat.getGraph());
 
     WitnessType graphType = getWitnessType(docDat.getGraph());
 
     // Extract the information on the automaton ----
-    Node nameAttribute = docDat.getGraph().getAttributes().getNamedItem("name");
+    String nameAttribute = docDat.getGraph().getAttribute("name");
     String automatonName = WITNESS_AUTOMATON_NAME;
     if (nameAttribute != null) {
-      automatonName += "_" + nameAttribute.getTextContent();
+      automatonName += "_" + nameAttribute;
     }
 
-    Map<String, GraphMLState> states = new LinkedHashMap<>();
-    Multimap<GraphMLState, GraphMLTransition> enteringTransitions = LinkedHashMultimap.create();
-    Multimap<GraphMLState, GraphMLTransition> leavingTransitions = LinkedHashMultimap.create();
-    NumericIdProvider numericIdProvider = NumericIdProvider.create();
-    Set<GraphMLState> entryStates = new LinkedHashSet<>();
-    for (Node transition : docDat.getTransitions()) {
-      collectEdgeData(
-          docDat,
-          states,
-          entryStates,
-          leavingTransitions,
-          enteringTransitions,
-          numericIdProvider,
-          transition);
-    }
     if (states.size() < docDat.idToNodeMap.size()) {
-      for (String stateId : docDat.idToNodeMap.keySet()) {
-        if (!states.containsKey(stateId)) {
+      for (Map.Entry<String, GraphMLElement> stateNode : docDat.idToNodeMap.entrySet()) {
+        String stateId = stateNode.getKey();
+        if (!states.containsKey(stateId)
+            && (prunedTransitions.get() == 0
+                || docDat.getNodeFlags(stateNode.getValue()).contains(NodeFlag.ISENTRY))) {
           states.put(stateId, parseState(docDat, states, stateId, Optional.empty()));
         }
       }
     }
+    if (prunedTransitions.get() > 0) {
+      logger.log(
+          Level.INFO,
+          String.format(
+              "Pruned %d witness edges that do not match any program line, keeping %d of %d"
+                  + " witness nodes.",
+              prunedTransitions.get(), states.size(), docDat.idToNodeMap.size()));
+    }
 
     AutomatonGraphmlParserState state =
         AutomatonGraphmlParserState.initialize(
@@ -1109,27 +1145,61 @@ public class AutomatonGraphmlParser {
     return state;
   }
 
-  private GraphMLDocumentData parseXML(InputStream pInputStream)
-      throws WitnessParseException, IOException {
-
-    // Parse the XML document ----
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-
-    Document doc;
-    try {
-      DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-      doc = docBuilder.parse(pInputStream);
-    } catch (ParserConfigurationException | SAXException e) {
-      throw new WitnessParseException(e);
+  /**
+   * Checks whether the given transition of a violation witness can be pruned because its line
+   * numbers do not overlap with any statement of the program, so that it can never be matched.
+   *
+   * @param pDocDat the GraphML-document-data helper.
+   * @param pTransition the transition to check, represented as a GraphML edge.
+   * @return {@code true} if the transition can never be matched and pruning is enabled.
+   */
+  private boolean isIrrelevantTransition(GraphMLDocumentData pDocDat, GraphMLElement pTransition)
+      throws WitnessParseException {
+    if (!pruneIrrelevantEdges || !matchOriginLine || !pDocDat.isKnownViolationWitness()) {
+      return false;
     }
+    Optional<Predicate<FileLocation>> lineMatcherPredicate =
+        getOriginLineMatcherPredicate(pTransition);
+    if (!lineMatcherPredicate.isPresent()) {
+      return false;
+    }
+    Predicate<FileLocation> lineMatcher = lineMatcherPredicate.orElseThrow();
+    if (lineMatcher.equals(Predicates.alwaysFalse())) {
+      return true;
+    }
+    if (lineMatcher instanceof LineMatcher && ((LineMatcher) lineMatcher).isOrigin()) {
+      LineMatcher lines = (LineMatcher) lineMatcher;
+      return !getProgramLines()
+          .intersects(Range.closed(lines.getStartLineNumber(), lines.getEndLineNumber()));
+    }
+    return false;
+  }
 
-    return new GraphMLDocumentData(doc);
+  private RangeSet<Integer> getProgramLines() {
+    if (programLines == null) {
+      RangeSet<Integer> lines = TreeRangeSet.create();
+      for (CFANode node : cfa.getAllNodes()) {
+        for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+          for (FileLocation location :
+              AutomatonGraphmlCommon.getFileLocationsFromCfaEdge(edge, cfa.getMainFunction())) {
+            if (!FileLocation.DUMMY.equals(location)
+                && location.getStartingLineInOrigin() <= location.getEndingLineInOrigin()) {
+              lines.add(
+                  Range.closed(
+                      location.getStartingLineInOrigin(), location.getEndingLineInOrigin()));
+            }
+          }
+        }
+      }
+      programLines = ImmutableRangeSet.copyOf(lines);
+    }
+    return programLines;
   }
 
-  private void checkFields(Node graphNode) throws IOException, WitnessParseException {
+  private void checkFields(GraphMLElement graphNode) throws IOException, WitnessParseException {
 
-    checkHashSum(GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.PROGRAMHASH));
-    checkArchitecture(GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.ARCHITECTURE));
+    checkHashSum(graphNode.getData(KeyDef.PROGRAMHASH));
+    checkArchitecture(graphNode.getData(KeyDef.ARCHITECTURE));
 
     if (strictChecking) {
       checkRequiredField(graphNode, KeyDef.WITNESS_TYPE);
@@ -1164,9 +1234,9 @@ public class AutomatonGraphmlParser {
     return functionExitMatcher;
   }
 
-  private static boolean entersLoopHead(Node pTransition) throws WitnessParseException {
+  private static boolean entersLoopHead(GraphMLElement pTransition) throws WitnessParseException {
     Set<String> loopHeadFlags =
-        GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ENTERLOOPHEAD);
+        pTransition.getData(KeyDef.ENTERLOOPHEAD);
     if (!loopHeadFlags.isEmpty()) {
       Set<Boolean> loopHeadFlagValues =
           loopHeadFlags.stream().map(Boolean::parseBoolean).collect(Collectors.toSet());
@@ -1211,18 +1281,18 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition specifying which line numbers to assume.
    * @return a predicate to match file locations based on the line numbers specified by the transition.
    */
-  private static Optional<Predicate<FileLocation>> getOriginLineMatcherPredicate(Node pTransition)
-      throws WitnessParseException {
-    Set<String> originFileTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ORIGINFILE);
+  private static Optional<Predicate<FileLocation>> getOriginLineMatcherPredicate(
+      GraphMLElement pTransition) throws WitnessParseException {
+    Set<String> originFileTags = pTransition.getData(KeyDef.ORIGINFILE);
     checkParsable(
         originFileTags.size() < 2,
         "At most one origin-file data tag must be provided for an edge.");
 
-    Set<String> startLineTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.STARTLINE);
+    Set<String> startLineTags = pTransition.getData(KeyDef.STARTLINE);
     checkParsable(
         startLineTags.size() < 2,
         "At most one startline data tag must be provided for each edge.");
-    Set<String> endLineTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ENDLINE);
+    Set<String> endLineTags = pTransition.getData(KeyDef.ENDLINE);
     checkParsable(
         endLineTags.size() < 2, "At most one endline data tag must be provided for each edge.");
 
@@ -1265,16 +1335,16 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition specifying which character offset to assume.
    * @return a predicate to match file locations based on the offsets specified by the transition.
    */
-  private static Optional<Predicate<FileLocation>> getOffsetMatcherPredicate(Node pTransition) throws WitnessParseException {
-    Set<String> originFileTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ORIGINFILE);
+  private static Optional<Predicate<FileLocation>> getOffsetMatcherPredicate(GraphMLElement pTransition) throws WitnessParseException {
+    Set<String> originFileTags = pTransition.getData(KeyDef.ORIGINFILE);
     checkParsable(
         originFileTags.size() < 2,
         "At most one origin-file data tag must be provided for an edge.");
 
-    Set<String> offsetTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.OFFSET);
+    Set<String> offsetTags = pTransition.getData(KeyDef.OFFSET);
     checkParsable(
         offsetTags.size() < 2, "At most one offset data tag must be provided for each edge.");
-    Set<String> endoffsetTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ENDOFFSET);
+    Set<String> endoffsetTags = pTransition.getData(KeyDef.ENDOFFSET);
     checkParsable(
         endoffsetTags.size() < 2, "At most one endoffset data tag must be provided for each edge.");
 
@@ -1319,8 +1389,8 @@ public class AutomatonGraphmlParser {
    * @return an automaton-transition condition for specific branches of an assumption corresponding
    *     to the control case specified by the given transition.
    */
-  private static AutomatonBoolExpr getAssumeCaseMatcher(Node pTransition) throws WitnessParseException {
-    Set<String> assumeCaseTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.CONTROLCASE);
+  private static AutomatonBoolExpr getAssumeCaseMatcher(GraphMLElement pTransition) throws WitnessParseException {
+    Set<String> assumeCaseTags = pTransition.getData(KeyDef.CONTROLCASE);
 
     if (!assumeCaseTags.isEmpty()) {
       checkParsable(
@@ -1350,7 +1420,7 @@ public class AutomatonGraphmlParser {
    * @throws WitnessParseException if more than one thread id was specified.
    */
   private static Optional<GraphMLTransition.GraphMLThread> getThread(
-      Node pTransition, NumericIdProvider pNumericIdProvider) throws WitnessParseException {
+      GraphMLElement pTransition, NumericIdProvider pNumericIdProvider) throws WitnessParseException {
     return parseThreadId(pTransition, pNumericIdProvider, KeyDef.THREADID, "At most one threadId tag must be provided for each transition.");
   }
 
@@ -1366,9 +1436,9 @@ public class AutomatonGraphmlParser {
    * @throws WitnessParseException if more than one thread id was specified.
    */
   private static Optional<GraphMLTransition.GraphMLThread> parseThreadId(
-      Node pTransition, NumericIdProvider pNumericIdProvider, KeyDef pKey, String pErrorMessage)
+      GraphMLElement pTransition, NumericIdProvider pNumericIdProvider, KeyDef pKey, String pErrorMessage)
       throws WitnessParseException {
-    Set<String> threadIdTags = GraphMLDocumentData.getDataOnNode(pTransition, pKey);
+    Set<String> threadIdTags = pTransition.getData(pKey);
 
     if (!threadIdTags.isEmpty()) {
       checkParsable(
@@ -1412,7 +1482,7 @@ public class AutomatonGraphmlParser {
       Multimap<GraphMLState, GraphMLTransition> pLeavingEdges,
       Multimap<GraphMLState, GraphMLTransition> pEnteringEdges,
       NumericIdProvider pNumericThreadIdProvider,
-      Node pTransition)
+      GraphMLElement pTransition)
       throws WitnessParseException {
     String sourceStateId =
         GraphMLDocumentData.getAttributeValue(
@@ -1452,7 +1522,7 @@ public class AutomatonGraphmlParser {
             getAssumeCaseMatcher(pTransition),
             thread.orElse(DEFAULT_THREAD),
             threadIdAssignment,
-            GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ASSUMPTION),
+            pTransition.getData(KeyDef.ASSUMPTION),
             explicitAssumptionScope,
             assumptionResultFunction,
             entersLoopHead(pTransition));
@@ -1460,14 +1530,14 @@ public class AutomatonGraphmlParser {
     pLeavingEdges.put(source, transition);
     pEnteringEdges.put(target, transition);
 
-    Element sourceStateNode = pDocDat.getNodeWithId(sourceStateId);
+    GraphMLElement sourceStateNode = pDocDat.getNodeWithId(sourceStateId);
     if (sourceStateNode == null) {
       throw new WitnessParseException(
           String.format(
               "Source %s of transition %s does not exist.",
               sourceStateId, transitionToString(pTransition)));
     }
-    Element targetStateNode = pDocDat.getNodeWithId(targetStateId);
+    GraphMLElement targetStateNode = pDocDat.getNodeWithId(targetStateId);
     if (targetStateNode == null) {
       throw new WitnessParseException(
           String.format(
@@ -1503,14 +1573,14 @@ public class AutomatonGraphmlParser {
       GraphMLDocumentData pDocDat,
       Map<String, GraphMLState> pStates,
       String pStateId,
-      Optional<Node> pReference)
+      Optional<GraphMLElement> pReference)
       throws WitnessParseException {
     GraphMLState result = pStates.get(pStateId);
     if (result != null) {
       return result;
     }
 
-    Element stateNode = pDocDat.getNodeWithId(pStateId);
+    GraphMLElement stateNode = pDocDat.getNodeWithId(pStateId);
     if (stateNode == null) {
       final String message;
       if (pReference.isPresent()) {
@@ -1524,7 +1594,7 @@ public class AutomatonGraphmlParser {
       throw new WitnessParseException(message);
     }
 
-    Set<String> candidates = GraphMLDocumentData.getDataOnNode(stateNode, KeyDef.INVARIANT);
+    Set<String> candidates = stateNode.getData(KeyDef.INVARIANT);
     Optional<String> candidateScope = parseSingleDataValue(stateNode, KeyDef.INVARIANTSCOPE,
         "At most one explicit invariant scope must be provided for a state.");
 
@@ -1539,11 +1609,11 @@ public class AutomatonGraphmlParser {
     return result;
   }
 
-  private static Optional<String> parseSingleDataValue(Node pEdge,
+  private static Optional<String> parseSingleDataValue(GraphMLElement pEdge,
       KeyDef pKey,
       String pErrorMessage) throws WitnessParseException {
     Set<String> values =
-        GraphMLDocumentData.getDataOnNode(pEdge, pKey);
+        pEdge.getData(pKey);
     checkParsable(values.size() <= 1, pErrorMessage);
     String value = Iterables.getOnlyElement(values, null);
     return Optional.ofNullable(value);
@@ -1555,9 +1625,9 @@ public class AutomatonGraphmlParser {
    * @param pAutomaton the GraphML graph node representing the witness automaton.
    * @return the witness-automaton type of an automaton represented as a GraphML graph.
    */
-  private WitnessType getWitnessType(Node pAutomaton) throws WitnessParseException {
+  private WitnessType getWitnessType(GraphMLElement pAutomaton) throws WitnessParseException {
     Set<String> witnessTypeText =
-        GraphMLDocumentData.getDataOnNode(pAutomaton, KeyDef.WITNESS_TYPE);
+        pAutomaton.getData(KeyDef.WITNESS_TYPE);
     final WitnessType witnessType;
     if (witnessTypeText.isEmpty()) {
       witnessType = WitnessType.VIOLATION_WITNESS;
@@ -1579,28 +1649,25 @@ public class AutomatonGraphmlParser {
     return witnessType;
   }
 
-  private static String transitionToString(Node pTransition) {
+  private static String transitionToString(GraphMLElement pTransition) {
     if (pTransition == null) {
       return "null";
     }
-    NamedNodeMap attributes = pTransition.getAttributes();
-    if (attributes != null) {
-      Node id = attributes.getNamedItem("id");
-      if (id != null) {
-        return id.getNodeValue();
-      }
+    String id = pTransition.getAttribute("id");
+    if (id != null) {
+      return id;
     }
     return pTransition.toString();
   }
 
-  private static void checkRequiredField(Node pGraphNode, KeyDef pKey)
+  private static void checkRequiredField(GraphMLElement pGraphNode, KeyDef pKey)
       throws WitnessParseException {
     checkRequiredField(pGraphNode, pKey, false);
   }
 
-  private static void checkRequiredField(Node pGraphNode, KeyDef pKey, boolean pAcceptEmpty)
+  private static void checkRequiredField(GraphMLElement pGraphNode, KeyDef pKey, boolean pAcceptEmpty)
       throws WitnessParseException {
-    Iterable<String> data = GraphMLDocumentData.getDataOnNode(pGraphNode, pKey);
+    Iterable<String> data = pGraphNode.getData(pKey);
     if (Iterables.isEmpty(data)) {
       throw new WitnessParseException(
           String.format("The witness does not contain the required field '%s'", pKey.id));
@@ -1951,115 +2018,272 @@ public class AutomatonGraphmlParser {
 
   }
 
-  private static class GraphMLDocumentData {
+  /**
+   * Lightweight representation of a GraphML element that keeps only its attributes and the values
+   * of its data children, so that the document itself never needs to be held in memory.
+   */
+  private static final class GraphMLElement {
 
-    private final Node graph;
+    private final ImmutableMap<String, String> attributes;
 
-    private final ImmutableMap<String, Element> idToNodeMap;
+    private final ImmutableSetMultimap<String, String> data;
 
-    private final Iterable<Node> transitions;
+    private GraphMLElement(
+        ImmutableMap<String, String> pAttributes, ImmutableSetMultimap<String, String> pData) {
+      attributes = pAttributes;
+      data = pData;
+    }
 
-    public GraphMLDocumentData(Document pDocument) throws WitnessParseException {
+    private @Nullable String getAttribute(String pName) {
+      return attributes.get(pName);
+    }
 
-      NodeList graphs = pDocument.getElementsByTagName(GraphMLTag.GRAPH.toString());
-      checkParsable(graphs.getLength() == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
-      graph = Objects.requireNonNull(graphs.item(0));
+    private Set<String> getDataKeys() {
+      return data.keySet();
+    }
 
-      ImmutableMap.Builder<String, Element> idToNodeMapBuilder = ImmutableMap.builder();
-      NodeList nodes = pDocument.getElementsByTagName(GraphMLTag.NODE.toString());
-      for (Node stateNode : asIterable(nodes)) {
-        String stateId = getAttributeValue(stateNode, "id", "Every state needs an ID!");
-        idToNodeMapBuilder.put(stateId, (Element) stateNode);
+    private Set<String> getData(final KeyDef pDataKey) {
+      ImmutableSet<String> result = data.get(pDataKey.id);
+      // Backwards-compatibility: type/graph-type
+      if (result.isEmpty() && pDataKey.equals(KeyDef.WITNESS_TYPE)) {
+        ImmutableSet<String> alternative = data.get("type");
+        if (!alternative.isEmpty()) {
+          return ImmutableSet.of(alternative.iterator().next());
+        }
       }
-      idToNodeMap = idToNodeMapBuilder.build();
-
-      transitions = asIterable(pDocument.getElementsByTagName(GraphMLTag.EDGE.toString()));
+      return result;
     }
 
-    public Node getGraph() {
-      return graph;
+    @Override
+    public String toString() {
+      return attributes + " " + data;
     }
+  }
+
+  private static interface GraphMLEdgeHandler {
+
+    void handleEdge(GraphMLElement pEdge) throws WitnessParseException;
+  }
+
+  private static class GraphMLDocumentData {
+
+    private ImmutableMap<String, String> graphAttributes = ImmutableMap.of();
+
+    private final ImmutableSetMultimap.Builder<String, String> graphData =
+        ImmutableSetMultimap.builder();
 
-    public Iterable<Node> getTransitions() {
-      return transitions;
+    private @Nullable GraphMLElement graph = null;
+
+    private final Map<String, GraphMLElement> idToNodeMap = new LinkedHashMap<>();
+
+    /**
+     * Reads the whole document and hands all edges to the given handler in document order. Edges
+     * are handed over as soon as both of their endpoints have been read. Once an edge precedes one
+     * of its endpoints, this edge and all following edges are kept until the document has been read
+     * completely, such that the order of the transitions does not depend on where the nodes are
+     * placed in the document.
+     */
+    public void read(InputStream pInputStream, GraphMLEdgeHandler pEdgeHandler)
+        throws IOException, WitnessParseException {
+      read0(pInputStream, pEdgeHandler);
     }
 
-    public EnumSet<NodeFlag> getNodeFlags(Element pStateNode) {
-      EnumSet<NodeFlag> result = EnumSet.noneOf(NodeFlag.class);
+    /**
+     * Reads only the graph element and its data, skipping all nodes and edges and stopping at the
+     * end of the graph element.
+     */
+    public void readGraph(InputStream pInputStream) throws IOException, WitnessParseException {
+      read0(pInputStream, null);
+    }
 
-      NodeList dataChilds = pStateNode.getElementsByTagName(GraphMLTag.DATA.toString());
+    private void read0(InputStream pInputStream, @Nullable GraphMLEdgeHandler pEdgeHandler)
+        throws IOException, WitnessParseException {
+      XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
 
-      for (Node dataChild : asIterable(dataChilds)) {
-        Node attribute = dataChild.getAttributes().getNamedItem("key");
-        Preconditions.checkNotNull(attribute, "Every data element must have a key attribute!");
-        String key = attribute.getTextContent();
-        NodeFlag flag = NodeFlag.getNodeFlagByKey(key);
-        if (flag != null) {
-          result.add(flag);
+      List<GraphMLElement> deferredEdges = new ArrayList<>();
+      int graphs = 0;
+      boolean inGraph = false;
+      try {
+        XMLStreamReader reader = factory.createXMLStreamReader(pInputStream);
+        try {
+          while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT
+                && reader.getLocalName().equals(GraphMLTag.GRAPH.toString())) {
+              inGraph = false;
+              if (pEdgeHandler == null) {
+                break;
+              }
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+              continue;
+            }
+            String tag = reader.getLocalName();
+            if (tag.equals(GraphMLTag.GRAPH.toString())) {
+              graphs++;
+              checkParsable(graphs == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+              graphAttributes = readAttributes(reader);
+              inGraph = true;
+            } else if (inGraph && tag.equals(GraphMLTag.DATA.toString())) {
+              String key = reader.getAttributeValue(null, "key");
+              Preconditions.checkNotNull(key, "Every data element must have a key attribute!");
+              graphData.put(key, readText(reader));
+              graph = null;
+            } else if (pEdgeHandler == null
+                && (tag.equals(GraphMLTag.NODE.toString())
+                    || tag.equals(GraphMLTag.EDGE.toString()))) {
+              skipElement(reader);
+            } else if (tag.equals(GraphMLTag.NODE.toString())) {
+              GraphMLElement stateNode = readElement(reader);
+              String stateId = getAttributeValue(stateNode, "id", "Every state needs an ID!");
+              if (idToNodeMap.put(stateId, stateNode) != null) {
+                throw new WitnessParseException("Duplicate state id: " + stateId);
+              }
+            } else if (tag.equals(GraphMLTag.EDGE.toString())) {
+              GraphMLElement transition = readElement(reader);
+              if (deferredEdges.isEmpty()
+                  && idToNodeMap.containsKey(transition.getAttribute("source"))
+                  && idToNodeMap.containsKey(transition.getAttribute("target"))) {
+                pEdgeHandler.handleEdge(transition);
+              } else {
+                deferredEdges.add(transition);
+              }
+            }
+          }
+        } finally {
+          reader.close();
+        }
+      } catch (XMLStreamException e) {
+        if (e.getNestedException() instanceof IOException) {
+          throw (IOException) e.getNestedException();
         }
+        throw new WitnessParseException(e);
       }
+      checkParsable(graphs == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
 
-      return result;
+      for (GraphMLElement transition : deferredEdges) {
+        pEdgeHandler.handleEdge(transition);
+      }
     }
 
-    private static String getAttributeValue(Node of, String attributeName, String exceptionMessage)
-        throws WitnessParseException {
-      Node attribute = of.getAttributes().getNamedItem(attributeName);
-      if (attribute == null) {
-        throw new WitnessParseException(exceptionMessage);
+    /**
+     * Reads the element the given reader is positioned at, including the text of its data
+     * children, and leaves the reader positioned at the end of the element.
+     */
+    private static GraphMLElement readElement(XMLStreamReader pReader)
+        throws XMLStreamException {
+      ImmutableMap<String, String> attributes = readAttributes(pReader);
+      ImmutableSetMultimap.Builder<String, String> data = ImmutableSetMultimap.builder();
+      int depth = 1;
+      while (depth > 0) {
+        int event = pReader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (depth == 1 && pReader.getLocalName().equals(GraphMLTag.DATA.toString())) {
+            String key = pReader.getAttributeValue(null, "key");
+            Preconditions.checkNotNull(key, "Every data element must have a key attribute!");
+            data.put(key, readText(pReader));
+          } else {
+            depth++;
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+      }
+      return new GraphMLElement(attributes, data.build());
+    }
+
+    /**
+     * Skips the element the given reader is positioned at, and leaves the reader positioned at the
+     * end of the element.
+     */
+    private static void skipElement(XMLStreamReader pReader) throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0) {
+        int event = pReader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
       }
-      return attribute.getTextContent();
     }
 
-    private @Nullable Element getNodeWithId(String nodeId) {
-      Element result = idToNodeMap.get(nodeId);
-      if (result == null
-          || !result.getTagName().equals(GraphMLTag.NODE.toString())) {
-        return null;
+    private static ImmutableMap<String, String> readAttributes(XMLStreamReader pReader) {
+      ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
+      for (int i = 0; i < pReader.getAttributeCount(); i++) {
+        attributes.put(pReader.getAttributeLocalName(i), pReader.getAttributeValue(i));
       }
-      return result;
+      return attributes.build();
+    }
+
+    /**
+     * Reads the text content of the element the given reader is positioned at, and leaves the
+     * reader positioned at the end of the element.
+     */
+    private static String readText(XMLStreamReader pReader) throws XMLStreamException {
+      StringBuilder text = new StringBuilder();
+      int depth = 1;
+      while (depth > 0) {
+        int event = pReader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        } else if (event == XMLStreamConstants.CHARACTERS
+            || event == XMLStreamConstants.CDATA
+            || event == XMLStreamConstants.SPACE) {
+          text.append(pReader.getText());
+        }
+      }
+      return text.toString();
     }
 
-    private static Set<String> getDataOnNode(Node node, final KeyDef dataKey) {
-      Preconditions.checkNotNull(node);
-      Preconditions.checkArgument(node.getNodeType() == Node.ELEMENT_NODE);
+    public GraphMLElement getGraph() {
+      if (graph == null) {
+        graph = new GraphMLElement(graphAttributes, graphData.build());
+      }
+      return graph;
+    }
 
-      Set<Node> dataNodes = findKeyedDataNode((Element) node, dataKey);
+    /**
+     * Checks whether the graph data read so far already identifies the document as a violation
+     * witness.
+     */
+    public boolean isKnownViolationWitness() {
+      Set<String> witnessTypes = getGraph().getData(KeyDef.WITNESS_TYPE);
+      return witnessTypes.size() == 1
+          && WitnessType.tryParse(witnessTypes.iterator().next().trim())
+              .equals(Optional.of(WitnessType.VIOLATION_WITNESS));
+    }
+
+    public EnumSet<NodeFlag> getNodeFlags(GraphMLElement pStateNode) {
+      EnumSet<NodeFlag> result = EnumSet.noneOf(NodeFlag.class);
 
-      Set<String> result = new LinkedHashSet<>();
-      for (Node n: dataNodes) {
-        result.add(n.getTextContent());
+      for (String key : pStateNode.getDataKeys()) {
+        NodeFlag flag = NodeFlag.getNodeFlagByKey(key);
+        if (flag != null) {
+          result.add(flag);
+        }
       }
+
       return result;
     }
 
-    private static Set<Node> findKeyedDataNode(Element of, final KeyDef dataKey) {
-      Set<Node> result = new LinkedHashSet<>();
-      Set<Node> alternative = null;
-      NodeList dataChilds = of.getElementsByTagName(GraphMLTag.DATA.toString());
-      for (Node dataChild : asIterable(dataChilds)) {
-        Node attribute = dataChild.getAttributes().getNamedItem("key");
-        Preconditions.checkNotNull(attribute, "Every data element must have a key attribute!");
-        String nodeKey = attribute.getTextContent();
-        if (nodeKey.equals(dataKey.id)) {
-          result.add(dataChild);
-          alternative = null;
-        }
-        // Backwards-compatibility: type/graph-type
-        if (alternative == null
-            && result.isEmpty()
-            && dataKey.equals(KeyDef.WITNESS_TYPE)
-            && nodeKey.equals("type")) {
-          alternative = new LinkedHashSet<>();
-          alternative.add(dataChild);
-        }
-      }
-      if (result.isEmpty() && alternative != null) {
-        return alternative;
+    private static String getAttributeValue(
+        GraphMLElement of, String attributeName, String exceptionMessage)
+        throws WitnessParseException {
+      String attribute = of.getAttribute(attributeName);
+      if (attribute == null) {
+        throw new WitnessParseException(exceptionMessage);
       }
-      return result;
+      return attribute;
     }
 
+    private @Nullable GraphMLElement getNodeWithId(String nodeId) {
+      return idToNodeMap.get(nodeId);
+    }
   }
 
   public static boolean isGraphmlAutomatonFromConfiguration(Path pPath)
@@ -2111,24 +2335,14 @@ public class AutomatonGraphmlParser {
 
   private static AutomatonGraphmlCommon.WitnessType getWitnessType(InputStream pInputStream)
       throws InvalidConfigurationException, IOException {
-    // Parse the XML document ----
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-    Document doc;
-    try {
-      DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-      doc = docBuilder.parse(pInputStream);
-    } catch (ParserConfigurationException | SAXException e) {
-      throw new WitnessParseException(e);
-    }
-
-    // (The one) root node of the graph ----
-    NodeList graphs = doc.getElementsByTagName(GraphMLTag.GRAPH.toString());
-    checkParsable(graphs.getLength() == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
-    Node graphNode = graphs.item(0);
+    // Only read the (one) root node of the graph ----
+    GraphMLDocumentData docDat = new GraphMLDocumentData();
+    docDat.readGraph(pInputStream);
+    GraphMLElement graphNode = docDat.getGraph();
 
     checkRequiredField(graphNode, KeyDef.WITNESS_TYPE);
 
-    Set<String> graphTypeText = GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.WITNESS_TYPE);
+    Set<String> graphTypeText = graphNode.getData(KeyDef.WITNESS_TYPE);
     final WitnessType graphType;
     if (graphTypeText.isEmpty()) {
       graphType = WitnessType.VIOLATION_WITNESS;
@@ -2236,34 +2450,4 @@ public class AutomatonGraphmlParser {
       throw pExceptionHandler.apply(e);
     }
   }
-
-
-  /** return a nice {@link Iterable} wrapping the interface {@link NodeList}. */
-  private static Iterable<Node> asIterable(final NodeList pNodeList) {
-    return new Iterable<>() {
-
-      private Integer length = null;
-
-      @Override
-      public Iterator<Node> iterator() {
-        return new Iterator<>() {
-
-          private int index = 0;
-
-          @Override
-          public boolean hasNext() {
-            if (length == null) {
-              length = pNodeList.getLength();
-            }
-            return index < length;
-          }
-
-          @Override
-          public Node next() {
-            return pNodeList.item(index++);
-          }
-        };
-      }
-    };
-  }
 }
@@ -0,0 +1,356 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreator;
+import org.sosy_lab.cpachecker.cfa.CProgramScope;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.util.Property;
+import org.sosy_lab.cpachecker.util.Property.CommonPropertyType;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Tests that witnesses written by CPAchecker are parsed to the same automata regardless of where
+ * the graph data, nodes, and edges are placed in the document. The former DOM-based parser did
+ * not depend on the layout, so the automaton of the original document is the reference. Also tests
+ * the pruning of witness edges that cannot match any line of the program.
+ */
+public class AutomatonGraphmlParserTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void violationWitnessWithDataAfterNodes() throws Exception {
+    Path program = Paths.get("test/programs/bmc/loopWithError_false-unreach-label.c");
+    Path witness = writeWitness(program, Result.FALSE);
+
+    checkSameAutomata(program, witness, rearrange(witness, true, false));
+    assertThat(AutomatonGraphmlParser.getWitnessType(rearrange(witness, true, false)))
+        .isEqualTo(WitnessType.VIOLATION_WITNESS);
+  }
+
+  @Test
+  public void violationWitnessWithEdgesBeforeNodes() throws Exception {
+    Path program = Paths.get("test/programs/bmc/loopWithError_false-unreach-label.c");
+    Path witness = writeWitness(program, Result.FALSE);
+
+    checkSameAutomata(program, witness, rearrange(witness, false, true));
+    checkSameAutomata(program, witness, rearrange(witness, true, true));
+  }
+
+  @Test
+  public void correctnessWitnessWithDataAfterNodes() throws Exception {
+    Path program = Paths.get("test/programs/bmc/loopWithError_true-unreach-label.c");
+    Path witness = writeWitness(program, Result.TRUE);
+
+    checkSameAutomata(program, witness, rearrange(witness, true, true));
+    assertThat(AutomatonGraphmlParser.getWitnessType(rearrange(witness, true, false)))
+        .isEqualTo(WitnessType.CORRECTNESS_WITNESS);
+  }
+
+  @Test
+  public void externalEntitiesAreNotResolved() throws Exception {
+    Path secret = tempFolder.newFile("secret.txt").toPath();
+    Files.write(secret, ImmutableList.of("violation_witness"), StandardCharsets.UTF_8);
+    Path witness = tempFolder.getRoot().toPath().resolve("entity.graphml");
+    Files.write(
+        witness,
+        ImmutableList.of(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<!DOCTYPE graphml [<!ENTITY type SYSTEM \"" + secret.toUri() + "\">]>",
+            "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">",
+            "<graph edgedefault=\"directed\">",
+            "<data key=\"witness-type\">&type;</data>",
+            "</graph>",
+            "</graphml>"),
+        StandardCharsets.UTF_8);
+
+    // the entity must neither be read nor silently dropped
+    assertThrows(
+        InvalidConfigurationException.class,
+        () -> AutomatonGraphmlParser.getWitnessType(witness));
+  }
+
+  @Test
+  public void pruneIrrelevantEdges() throws Exception {
+    Path program = Paths.get("test/programs/bmc/loopWithError_false-unreach-label.c");
+    Document document = readDocument(writeWitness(program, Result.FALSE));
+    String entry = getEntryNode(document);
+    addNode(document, "irrelevant");
+    addEdge(document, entry, "irrelevant", Optional.of(1000));
+    addNode(document, "withoutLineInfo");
+    addEdge(document, entry, "withoutLineInfo", Optional.empty());
+    Path witness = writeDocument(document);
+
+    List<String> unprunedStates = getStateNames(parse(program, witness, false));
+    List<String> prunedStates = getStateNames(parse(program, witness, true));
+    assertThat(unprunedStates).containsAtLeast(entry, "irrelevant", "withoutLineInfo");
+
+    // only the edge behind the last line of the program is pruned, and only its target node is
+    // unreferenced afterwards
+    assertThat(prunedStates)
+        .containsExactlyElementsIn(
+            Collections2.filter(unprunedStates, state -> !state.equals("irrelevant")));
+
+    // the pruned witness is validated like the original one
+    Configuration validationConfig =
+        TestDataTools.configurationForTest()
+            .loadFromFile("config/violation-witness-validation.properties")
+            .setOption("specification", "config/specification/default.spc," + witness)
+            .build();
+    CPATestRunner.runForEachValue(
+        validationConfig,
+        "witness.pruneIrrelevantEdges",
+        ImmutableList.of("false", "true"),
+        program.toString(),
+        Result.FALSE);
+  }
+
+  @Test
+  public void pruneIrrelevantEdgesKeepsEntryNode() throws Exception {
+    Path program = Paths.get("test/programs/bmc/loopWithError_false-unreach-label.c");
+    Document document = readDocument(writeWitness(program, Result.FALSE));
+    String entry = getEntryNode(document);
+    for (Element edge : getElements(document, "edge")) {
+      if (edge.getAttribute("source").equals(entry)) {
+        edge.getParentNode().removeChild(edge);
+      }
+    }
+    addNode(document, "irrelevant");
+    addEdge(document, entry, "irrelevant", Optional.of(1000));
+    Path witness = writeDocument(document);
+
+    // the entry node is not referenced by any edge after pruning, but still kept
+    List<String> prunedStates = getStateNames(parse(program, witness, true));
+    assertThat(prunedStates).contains(entry);
+    assertThat(prunedStates).doesNotContain("irrelevant");
+  }
+
+  private void checkSameAutomata(Path pProgram, Path pExpected, Path pActual) throws Exception {
+    List<Automaton> expected = parse(pProgram, pExpected, false);
+    List<Automaton> actual = parse(pProgram, pActual, false);
+    assertThat(expected).isNotEmpty();
+    assertThat(actual.toString()).isEqualTo(expected.toString());
+  }
+
+  private List<Automaton> parse(Path pProgram, Path pWitness, boolean pPruneIrrelevantEdges)
+      throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .setOption("witness.pruneIrrelevantEdges", Boolean.toString(pPruneIrrelevantEdges))
+            .build();
+    LogManager logger = LogManager.createTestLogManager();
+    ShutdownNotifier shutdownNotifier = ShutdownNotifier.createDummy();
+    CFA cfa =
+        new CFACreator(config, logger, shutdownNotifier)
+            .parseFileAndCreateCFA(ImmutableList.of(pProgram.toString()));
+    AutomatonGraphmlParser parser =
+        new AutomatonGraphmlParser(
+            config, logger, shutdownNotifier, cfa, new CProgramScope(cfa, logger));
+
+    Set<Property> properties = ImmutableSet.of(CommonPropertyType.REACHABILITY_LABEL);
+    return parser.parseAutomatonFile(pWitness, properties);
+  }
+
+  private static List<String> getStateNames(List<Automaton> pAutomata) {
+    assertThat(pAutomata).hasSize(1);
+    return Lists.transform(pAutomata.get(0).getStates(), AutomatonInternalState::getName);
+  }
+
+  /** Runs the value analysis on the given program and returns the witness it wrote. */
+  private Path writeWitness(Path pProgram, Result pExpected) throws Exception {
+    Path outputDir = tempFolder.newFolder().toPath();
+    FileTypeConverter fileTypeConverter =
+        FileTypeConverter.create(
+            Configuration.builder().setOption("output.path", outputDir.toString()).build());
+    Configuration config =
+        Configuration.builder()
+            .addConverter(FileOption.class, fileTypeConverter)
+            .loadFromFile("config/valueAnalysis.properties")
+            .setOption("counterexample.export.compressWitness", "false")
+            .setOption("cpa.arg.compressWitness", "false")
+            .setOption("cpa.arg.proofWitness", "witness.graphml")
+            .build();
+    TestResults results = CPATestRunner.run(config, pProgram.toString());
+    assertThat(results.getCheckerResult().getResult()).isEqualTo(pExpected);
+    results.getCheckerResult().writeOutputFiles();
+
+    try (Stream<Path> files = Files.list(outputDir)) {
+      List<Path> witnesses =
+          files
+              .filter(
+                  f ->
+                      f.getFileName().toString().startsWith("Counterexample.")
+                          || f.getFileName().toString().equals("witness.graphml"))
+              .filter(f -> f.getFileName().toString().endsWith(".graphml"))
+              .collect(Collectors.toList());
+      assertThat(witnesses).hasSize(1);
+      return witnesses.get(0);
+    }
+  }
+
+  /**
+   * Writes a copy of the given witness with the data of the graph moved behind all nodes and
+   * edges, and/or with all edges moved in front of the first node. The order of the nodes and of
+   * the edges among themselves is kept.
+   */
+  private Path rearrange(Path pWitness, boolean pDataLast, boolean pEdgesFirst)
+      throws Exception {
+    Document document = readDocument(pWitness);
+    Node graph = document.getElementsByTagName("graph").item(0);
+
+    List<Element> data = new ArrayList<>();
+    List<Element> nodes = new ArrayList<>();
+    List<Element> edges = new ArrayList<>();
+    for (Node child = graph.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child instanceof Element) {
+        switch (child.getNodeName()) {
+          case "data":
+            data.add((Element) child);
+            break;
+          case "node":
+            nodes.add((Element) child);
+            break;
+          case "edge":
+            edges.add((Element) child);
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    assertThat(data).isNotEmpty();
+    assertThat(edges).isNotEmpty();
+
+    if (pEdgesFirst) {
+      for (Element edge : edges) {
+        graph.insertBefore(edge, nodes.get(0));
+      }
+    }
+    if (pDataLast) {
+      for (Element dataElement : data) {
+        graph.appendChild(dataElement);
+      }
+    }
+
+    return writeDocument(document);
+  }
+
+  private static Document readDocument(Path pWitness) throws Exception {
+    return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(pWitness.toFile());
+  }
+
+  private Path writeDocument(Document pDocument) throws Exception {
+    Path result = tempFolder.newFile().toPath();
+    TransformerFactory.newInstance()
+        .newTransformer()
+        .transform(new DOMSource(pDocument), new StreamResult(result.toFile()));
+    return result;
+  }
+
+  private static List<Element> getElements(Document pDocument, String pTagName) {
+    NodeList nodes = pDocument.getElementsByTagName(pTagName);
+    List<Element> result = new ArrayList<>(nodes.getLength());
+    for (int i = 0; i < nodes.getLength(); i++) {
+      result.add((Element) nodes.item(i));
+    }
+    return result;
+  }
+
+  private static String getEntryNode(Document pDocument) {
+    for (Element node : getElements(pDocument, "node")) {
+      NodeList data = node.getElementsByTagName("data");
+      for (int i = 0; i < data.getLength(); i++) {
+        Element dataElement = (Element) data.item(i);
+        if (dataElement.getAttribute("key").equals(KeyDef.ISENTRYNODE.id)
+            && dataElement.getTextContent().trim().equals("true")) {
+          return node.getAttribute("id");
+        }
+      }
+    }
+    throw new AssertionError("witness has no entry node");
+  }
+
+  private static void addNode(Document pDocument, String pId) {
+    Element node = pDocument.createElement("node");
+    node.setAttribute("id", pId);
+    pDocument.getElementsByTagName("graph").item(0).appendChild(node);
+  }
+
+  /** Adds an edge that matches the given line, or an edge without line information. */
+  private static void addEdge(
+      Document pDocument, String pSource, String pTarget, Optional<Integer> pLine) {
+    Element edge = pDocument.createElement("edge");
+    edge.setAttribute("source", pSource);
+    edge.setAttribute("target", pTarget);
+    if (pLine.isPresent()) {
+      for (KeyDef key : ImmutableList.of(KeyDef.STARTLINE, KeyDef.ENDLINE)) {
+        Element data = pDocument.createElement("data");
+        data.setAttribute("key", key.id);
+        data.setTextContent(pLine.orElseThrow().toString());
+        edge.appendChild(data);
+      }
+    }
+    pDocument.getElementsByTagName("graph").item(0).appendChild(edge);
+  }
+}
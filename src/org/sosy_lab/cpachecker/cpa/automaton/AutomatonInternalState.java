@@ -81,6 +81,9 @@ public class AutomatonInternalState {
   /** Outgoing transitions of this state. */
   private final ImmutableList<AutomatonTransition> transitions;
 
+  /** Precompiled dispatch of {@link #transitions} by CFA edge. */
+  private final AutomatonTransitionIndex transitionIndex;
+
   private final boolean mIsTarget;
 
   /**
@@ -98,6 +101,7 @@ public class AutomatonInternalState {
       boolean pIsCycleStart) {
     this.name = pName;
     this.transitions = ImmutableList.copyOf(pTransitions);
+    this.transitionIndex = new AutomatonTransitionIndex(transitions);
     this.mIsTarget = pIsTarget;
     this.mAllTransitions = pAllTransitions;
     this.isCycleStart = pIsCycleStart;
@@ -164,6 +168,10 @@ public class AutomatonInternalState {
     return transitions;
   }
 
+  AutomatonTransitionIndex getTransitionIndex() {
+    return transitionIndex;
+  }
+
   @Override
   public String toString() {
     return this.name;
@@ -35,6 +35,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -60,6 +61,7 @@ import org.sosy_lab.cpachecker.cpa.threading.ThreadingState;
 import org.sosy_lab.cpachecker.cpa.threading.ThreadingTransferRelation;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatIntHist;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
@@ -73,12 +75,14 @@ public class AutomatonTransferRelation implements TransferRelation {
   private final LogManager logger;
   private final MachineModel machineModel;
 
-  private final TimerWrapper totalPostTime;
-  private final TimerWrapper matchTime;
-  private final TimerWrapper assertionsTime;
-  private final TimerWrapper actionTime;
-  private final TimerWrapper totalStrengthenTime;
+  // Each thread measures with its own timers, such that successors can be computed concurrently.
+  private final ThreadLocal<TimerWrapper> totalPostTime;
+  private final ThreadLocal<TimerWrapper> matchTime;
+  private final ThreadLocal<TimerWrapper> assertionsTime;
+  private final ThreadLocal<TimerWrapper> actionTime;
+  private final ThreadLocal<TimerWrapper> totalStrengthenTime;
   private final StatIntHist automatonSuccessors;
+  private final StatCounter skippedMatches;
 
   public AutomatonTransferRelation(
       ControlAutomatonCPA pCpa,
@@ -89,12 +93,13 @@ public class AutomatonTransferRelation implements TransferRelation {
     this.logger = pLogger;
     this.machineModel = pMachineModel;
 
-    totalPostTime = pStats.totalPostTime.getNewTimer();
-    matchTime = pStats.matchTime.getNewTimer();
-    assertionsTime = pStats.assertionsTime.getNewTimer();
-    actionTime = pStats.actionTime.getNewTimer();
-    totalStrengthenTime = pStats.totalStrengthenTime.getNewTimer();
+    totalPostTime = ThreadLocal.withInitial(pStats.totalPostTime::getNewTimer);
+    matchTime = ThreadLocal.withInitial(pStats.matchTime::getNewTimer);
+    assertionsTime = ThreadLocal.withInitial(pStats.assertionsTime::getNewTimer);
+    actionTime = ThreadLocal.withInitial(pStats.actionTime::getNewTimer);
+    totalStrengthenTime = ThreadLocal.withInitial(pStats.totalStrengthenTime::getNewTimer);
     automatonSuccessors = pStats.automatonSuccessors;
+    skippedMatches = pStats.skippedMatches;
   }
 
   @Override
@@ -124,7 +129,7 @@ public class AutomatonTransferRelation implements TransferRelation {
 
   private Collection<AutomatonState> getAbstractSuccessors0(
       AutomatonState pElement, CFAEdge pCfaEdge, Precision pPrecision) throws CPATransferException {
-    totalPostTime.start();
+    totalPostTime.get().start();
     try {
       if (pElement instanceof AutomatonUnknownState) {
         // happens only inside MultiEdges,
@@ -135,7 +140,7 @@ public class AutomatonTransferRelation implements TransferRelation {
 
       return getFollowStates(pElement, null, pCfaEdge, false, pPrecision);
     } finally {
-      totalPostTime.stop();
+      totalPostTime.get().stop();
     }
   }
 
@@ -191,12 +196,24 @@ public class AutomatonTransferRelation implements TransferRelation {
     List<Pair<AutomatonTransition, Map<Integer, AAstNode>>> transitionsToBeTaken =
         new ArrayList<>(2);
 
-    for (AutomatonTransition t : state.getInternalState().getTransitions()) {
+    ImmutableList<AutomatonTransition> transitions = state.getInternalState().getTransitions();
+    matchTime.get().start();
+    // transitions that are not candidates for this edge are known to evaluate to false
+    BitSet candidates = state.getInternalState().getTransitionIndex().getCandidates(edge, logger);
+    matchTime.get().stop();
+
+    for (int i = 0; i < transitions.size(); i++) {
+      AutomatonTransition t = transitions.get(i);
+      if (candidates != null && !candidates.get(i)) {
+        skippedMatches.inc();
+        failedMatches++;
+        continue;
+      }
       exprArgs.clearTransitionVariables();
 
-      matchTime.start();
+      matchTime.get().start();
       ResultValue<Boolean> match = t.match(exprArgs);
-      matchTime.stop();
+      matchTime.get().stop();
 
       if (match.canNotEvaluate()) {
         if (failOnUnknownMatch) {
@@ -209,9 +226,9 @@ public class AutomatonTransferRelation implements TransferRelation {
       } else {
         if (match.getValue()) {
           edgeMatched = true;
-          assertionsTime.start();
+          assertionsTime.get().start();
           ResultValue<Boolean> assertionsHold = t.assertionsHold(exprArgs);
-          assertionsTime.stop();
+          assertionsTime.get().stop();
 
           if (assertionsHold.canNotEvaluate()) {
             if (failOnUnknownMatch) {
@@ -275,12 +292,12 @@ public class AutomatonTransferRelation implements TransferRelation {
         // this transition will be taken. copy the variables
         AutomatonTransition t = pair.getFirst();
         Map<Integer, AAstNode> transitionVariables = pair.getSecond();
-        actionTime.start();
+        actionTime.get().start();
         Map<String, AutomatonVariable> newVars = deepCloneVars(state.getVars());
         exprArgs.setAutomatonVariables(newVars);
         exprArgs.putTransitionVariables(transitionVariables);
         t.executeActions(exprArgs);
-        actionTime.stop();
+        actionTime.get().stop();
 
         AutomatonSafetyProperty violatedProperty = null;
         if (t.getFollowState().isTarget()) {
@@ -345,11 +362,11 @@ public class AutomatonTransferRelation implements TransferRelation {
       Precision pPrecision)
       throws CPATransferException {
     if (pElement instanceof AutomatonUnknownState) {
-      totalStrengthenTime.start();
+      totalStrengthenTime.get().start();
       Collection<AutomatonState> successors =
           strengthenAutomatonUnknownState(
               (AutomatonUnknownState) pElement, pOtherElements, pCfaEdge, pPrecision);
-      totalStrengthenTime.stop();
+      totalStrengthenTime.get().stop();
       assert !from(successors).anyMatch(instanceOf(AutomatonUnknownState.class));
       return successors;
     }
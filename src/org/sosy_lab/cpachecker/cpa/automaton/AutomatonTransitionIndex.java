@@ -0,0 +1,135 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import java.util.BitSet;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.And;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+
+/**
+ * Precompiled dispatch for the outgoing transitions of an {@link AutomatonInternalState}.
+ *
+ * <p>For each transition, the conjuncts of its trigger that depend only on the CFA edge (edge type,
+ * line and offset ranges, function names, CFA nodes, labels, ...) are extracted once. For each CFA
+ * edge, the set of transitions for which none of these conjuncts is false is computed on first use
+ * and memoized, so that the transfer relation only needs to evaluate the full triggers of these
+ * candidate transitions. The memoized sets are bounded in number and do not keep CFA edges alive,
+ * so edges created only temporarily, e.g., during refinement, do not accumulate in the index.
+ */
+final class AutomatonTransitionIndex {
+
+  /**
+   * For each transition, the conjuncts of its trigger that are {@linkplain
+   * AutomatonBoolExpr#isEdgeLocal() edge local}.
+   */
+  private final ImmutableList<ImmutableList<AutomatonBoolExpr>> edgeFilters;
+
+  /** The maximal number of CFA edges for which the candidate transitions are memoized. */
+  private static final int MAX_CACHED_EDGES = 10_000;
+
+  /**
+   * The candidate transitions per CFA edge, the bit sets are never modified after insertion. The
+   * keys are compared by identity.
+   */
+  private final Cache<CFAEdge, BitSet> candidatesPerEdge =
+      CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_CACHED_EDGES).build();
+
+  private final boolean trivial;
+
+  AutomatonTransitionIndex(List<AutomatonTransition> pTransitions) {
+    ImmutableList.Builder<ImmutableList<AutomatonBoolExpr>> filters = ImmutableList.builder();
+    boolean hasFilter = false;
+    for (AutomatonTransition transition : pTransitions) {
+      ImmutableList.Builder<AutomatonBoolExpr> conjuncts = ImmutableList.builder();
+      collectEdgeLocalConjuncts(transition.getTrigger(), conjuncts);
+      ImmutableList<AutomatonBoolExpr> filter = conjuncts.build();
+      hasFilter |= !filter.isEmpty();
+      filters.add(filter);
+    }
+    edgeFilters = filters.build();
+    trivial = !hasFilter;
+  }
+
+  private static void collectEdgeLocalConjuncts(
+      AutomatonBoolExpr pExpr, ImmutableList.Builder<AutomatonBoolExpr> pConjuncts) {
+    if (pExpr.isEdgeLocal()) {
+      pConjuncts.add(pExpr);
+    } else if (pExpr instanceof And) {
+      // a conjunction is false as soon as one operand is false, even if the other one
+      // cannot be evaluated
+      collectEdgeLocalConjuncts(((And) pExpr).a, pConjuncts);
+      collectEdgeLocalConjuncts(((And) pExpr).b, pConjuncts);
+    }
+  }
+
+  /**
+   * Return the indices of the transitions that can match on the given edge, or <code>null</code>
+   * if every transition can match. All other transitions are guaranteed to evaluate to false on
+   * this edge.
+   */
+  @Nullable BitSet getCandidates(CFAEdge pEdge, LogManager pLogger) throws CPATransferException {
+    if (trivial) {
+      return null;
+    }
+    BitSet candidates = candidatesPerEdge.getIfPresent(pEdge);
+    if (candidates == null) {
+      candidates = computeCandidates(pEdge, pLogger);
+      candidatesPerEdge.put(pEdge, candidates);
+    }
+    return candidates;
+  }
+
+  private BitSet computeCandidates(CFAEdge pEdge, LogManager pLogger)
+      throws CPATransferException {
+    AutomatonExpressionArguments args =
+        new AutomatonExpressionArguments(null, null, null, pEdge, pLogger);
+    BitSet candidates = new BitSet(edgeFilters.size());
+    for (int i = 0; i < edgeFilters.size(); i++) {
+      if (mayMatch(edgeFilters.get(i), args)) {
+        candidates.set(i);
+      }
+    }
+    return candidates;
+  }
+
+  private static boolean mayMatch(
+      List<AutomatonBoolExpr> pFilter, AutomatonExpressionArguments pArgs)
+      throws CPATransferException {
+    for (AutomatonBoolExpr conjunct : pFilter) {
+      ResultValue<Boolean> result = conjunct.eval(pArgs);
+      if (!result.canNotEvaluate() && !result.getValue()) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
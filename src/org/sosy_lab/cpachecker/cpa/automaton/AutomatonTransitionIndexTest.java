@@ -0,0 +1,293 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.And;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.CPAQuery;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchProgramExit;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.Negation;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonState.AutomatonUnknownState;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+
+public class AutomatonTransitionIndexTest {
+
+  /** An expression that is true, but not known to depend only on the edge. */
+  private static final AutomatonBoolExpr NON_LOCAL_TRUE =
+      new AutomatonBoolExpr() {
+        @Override
+        public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
+          return CONST_TRUE;
+        }
+
+        @Override
+        public String toString() {
+          return "NON-LOCAL-TRUE";
+        }
+      };
+
+  /** An edge-local expression that cannot be evaluated. */
+  private static final AutomatonBoolExpr LOCAL_UNKNOWN =
+      new AutomatonBoolExpr() {
+        @Override
+        public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
+          return new ResultValue<>("cannot evaluate", "AutomatonTransitionIndexTest");
+        }
+
+        @Override
+        public boolean isEdgeLocal() {
+          return true;
+        }
+
+        @Override
+        public String toString() {
+          return "LOCAL-UNKNOWN";
+        }
+      };
+
+  /** An expression that cannot be evaluated and is not edge local. */
+  private static final AutomatonBoolExpr CANNOT_EVALUATE = new CPAQuery("none", "none");
+
+  private LogManager logger;
+  private CFAEdge exitEdge;
+  private CFAEdge innerEdge;
+
+  @Before
+  public void setUp() {
+    logger = LogManager.createTestLogManager();
+    CFANode first = new CFANode("main");
+    CFANode second = new CFANode("main");
+    CFANode third = new CFANode("main");
+    innerEdge = new BlankEdge("", FileLocation.DUMMY, first, second, "inner");
+    first.addLeavingEdge(innerEdge);
+    second.addEnteringEdge(innerEdge);
+    exitEdge = new BlankEdge("", FileLocation.DUMMY, second, third, "exit");
+    second.addLeavingEdge(exitEdge);
+    third.addEnteringEdge(exitEdge);
+  }
+
+  private static AutomatonTransition transition(AutomatonBoolExpr pTrigger, String pFollowState) {
+    return new AutomatonTransition.Builder(pTrigger, pFollowState).build();
+  }
+
+  private static AutomatonInternalState sink(String pName) {
+    return new AutomatonInternalState(pName, ImmutableList.of(), false, false, false);
+  }
+
+  /** Create an automaton with the given initial state and one sink state per name. */
+  private static Automaton automaton(AutomatonInternalState pInit, String... pSinks)
+      throws InvalidAutomatonException {
+    ImmutableList.Builder<AutomatonInternalState> states = ImmutableList.builder();
+    states.add(pInit);
+    for (String sink : pSinks) {
+      states.add(sink(sink));
+    }
+    return new Automaton("Test", ImmutableMap.of(), states.build(), pInit.getName());
+  }
+
+  private Collection<AutomatonState> successors(
+      Automaton pAutomaton, AutomatonStatistics pStats, CFAEdge pEdge)
+      throws CPATransferException {
+    AutomatonTransferRelation transfer =
+        new AutomatonTransferRelation(
+            mock(ControlAutomatonCPA.class), logger, MachineModel.LINUX32, pStats);
+    AutomatonState init =
+        AutomatonState.automatonStateFactory(
+            ImmutableMap.of(), pAutomaton.getInitialState(), pAutomaton, 0, 0, null, false);
+    return transfer.getAbstractSuccessorsForEdge(init, SingletonPrecision.getInstance(), pEdge);
+  }
+
+  private static List<String> names(Collection<AutomatonState> pStates) {
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (AutomatonState state : pStates) {
+      names.add(state.getInternalState().getName());
+    }
+    return names.build();
+  }
+
+  @Test
+  public void testFalseEdgeLocalConjunctIsSkipped() throws Exception {
+    AutomatonInternalState init =
+        new AutomatonInternalState(
+            "Init",
+            ImmutableList.of(
+                transition(new And(AutomatonBoolExpr.FALSE, CANNOT_EVALUATE), "A"),
+                transition(new And(CANNOT_EVALUATE, MatchProgramExit.INSTANCE), "B"),
+                transition(new Negation(AutomatonBoolExpr.TRUE), "C")),
+            false,
+            false,
+            false);
+    Automaton automaton = automaton(init, "A", "B", "C");
+
+    BitSet candidates = init.getTransitionIndex().getCandidates(innerEdge, logger);
+    assertThat(candidates).isNotNull();
+    assertThat(candidates.isEmpty()).isTrue();
+
+    // the triggers evaluate to false without the index, too
+    AutomatonExpressionArguments args =
+        new AutomatonExpressionArguments(null, ImmutableMap.of(), null, innerEdge, logger);
+    for (AutomatonTransition t : init.getTransitions()) {
+      ResultValue<Boolean> match = t.match(args);
+      assertThat(match.canNotEvaluate()).isFalse();
+      assertThat(match.getValue()).isFalse();
+    }
+
+    AutomatonStatistics stats = new AutomatonStatistics(automaton);
+    Collection<AutomatonState> successors = successors(automaton, stats, innerEdge);
+    assertThat(names(successors)).containsExactly("Init");
+    AutomatonState successor = successors.iterator().next();
+    assertThat(successor.getMatches()).isEqualTo(0);
+    assertThat(successor.getFailedMatches()).isEqualTo(3);
+    assertThat(stats.skippedMatches.getValue()).isEqualTo(3);
+  }
+
+  @Test
+  public void testUnknownEdgeLocalConjunctStaysCandidate() throws Exception {
+    AutomatonInternalState init =
+        new AutomatonInternalState(
+            "Init",
+            ImmutableList.of(
+                transition(AutomatonBoolExpr.FALSE, "A"),
+                transition(new And(LOCAL_UNKNOWN, NON_LOCAL_TRUE), "B"),
+                transition(new And(MatchProgramExit.INSTANCE, CANNOT_EVALUATE), "C")),
+            false,
+            false,
+            false);
+    Automaton automaton = automaton(init, "A", "B", "C");
+
+    BitSet candidates = init.getTransitionIndex().getCandidates(exitEdge, logger);
+    assertThat(candidates).isNotNull();
+    assertThat(candidates.get(0)).isFalse();
+    assertThat(candidates.get(1)).isTrue();
+    assertThat(candidates.get(2)).isTrue();
+
+    // the second transition is evaluated and cannot be decided
+    AutomatonStatistics stats = new AutomatonStatistics(automaton);
+    Collection<AutomatonState> successors = successors(automaton, stats, exitEdge);
+    assertThat(successors).hasSize(1);
+    assertThat(successors.iterator().next()).isInstanceOf(AutomatonUnknownState.class);
+    assertThat(stats.skippedMatches.getValue()).isEqualTo(1);
+  }
+
+  @Test
+  public void testIndexIsMemoizedPerEdge() throws Exception {
+    AutomatonInternalState init =
+        new AutomatonInternalState(
+            "Init",
+            ImmutableList.of(
+                transition(MatchProgramExit.INSTANCE, "A"),
+                transition(new Negation(MatchProgramExit.INSTANCE), "B")),
+            false,
+            false,
+            false);
+    AutomatonTransitionIndex index = init.getTransitionIndex();
+
+    BitSet exitCandidates = index.getCandidates(exitEdge, logger);
+    BitSet innerCandidates = index.getCandidates(innerEdge, logger);
+    assertThat(exitCandidates.get(0)).isTrue();
+    assertThat(exitCandidates.get(1)).isFalse();
+    assertThat(innerCandidates.get(0)).isFalse();
+    assertThat(innerCandidates.get(1)).isTrue();
+    assertThat(index.getCandidates(exitEdge, logger)).isSameAs(exitCandidates);
+  }
+
+  @Test
+  public void testWithoutEdgeLocalConjunctsEveryTransitionIsCandidate() throws Exception {
+    AutomatonInternalState init =
+        new AutomatonInternalState(
+            "Init",
+            ImmutableList.of(transition(NON_LOCAL_TRUE, "A"), transition(CANNOT_EVALUATE, "B")),
+            false,
+            false,
+            false);
+    assertThat(init.getTransitionIndex().getCandidates(exitEdge, logger)).isNull();
+  }
+
+  @Test
+  public void testOrderOfMatchesInNonDetState() throws Exception {
+    AutomatonInternalState init =
+        new AutomatonInternalState(
+            "Init",
+            ImmutableList.of(
+                transition(MatchProgramExit.INSTANCE, "A"),
+                transition(AutomatonBoolExpr.FALSE, "B"),
+                transition(NON_LOCAL_TRUE, "C"),
+                transition(new And(AutomatonBoolExpr.TRUE, NON_LOCAL_TRUE), "D"),
+                transition(new Negation(MatchProgramExit.INSTANCE), "E"),
+                transition(AutomatonBoolExpr.TRUE, "F")),
+            false,
+            true,
+            false);
+    Automaton automaton = automaton(init, "A", "B", "C", "D", "E", "F");
+
+    AutomatonStatistics stats = new AutomatonStatistics(automaton);
+    Collection<AutomatonState> successors = successors(automaton, stats, exitEdge);
+    assertThat(names(successors)).containsExactly("A", "C", "D", "F").inOrder();
+    for (AutomatonState successor : successors) {
+      assertThat(successor.getMatches()).isEqualTo(1);
+    }
+    assertThat(stats.skippedMatches.getValue()).isEqualTo(2);
+  }
+
+  @Test
+  public void testFirstMatchInDeterministicState() throws Exception {
+    AutomatonInternalState init =
+        new AutomatonInternalState(
+            "Init",
+            ImmutableList.of(
+                transition(new Negation(MatchProgramExit.INSTANCE), "A"),
+                transition(AutomatonBoolExpr.FALSE, "B"),
+                transition(NON_LOCAL_TRUE, "C"),
+                transition(MatchProgramExit.INSTANCE, "D")),
+            false,
+            false,
+            false);
+    Automaton automaton = automaton(init, "A", "B", "C", "D");
+
+    AutomatonStatistics stats = new AutomatonStatistics(automaton);
+    assertThat(names(successors(automaton, stats, exitEdge))).containsExactly("C");
+    assertThat(stats.skippedMatches.getValue()).isEqualTo(2);
+
+    stats = new AutomatonStatistics(automaton);
+    assertThat(names(successors(automaton, stats, innerEdge))).containsExactly("A");
+    assertThat(stats.skippedMatches.getValue()).isEqualTo(0);
+  }
+}
@@ -70,6 +70,7 @@ import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.ThreadSafeCPA;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.ProofChecker.ProofCheckerCPA;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.globalinfo.AutomatonInfo;
@@ -81,7 +82,8 @@ import org.sosy_lab.cpachecker.util.globalinfo.AutomatonInfo;
 public class ControlAutomatonCPA
     implements StatisticsProvider,
         ConfigurableProgramAnalysisWithBAM,
-        ProofCheckerCPA {
+        ProofCheckerCPA,
+        ThreadSafeCPA {
 
   @Option(secure=true, name="dotExport",
       description="export automaton to file")
@@ -101,6 +101,18 @@ class SourceLocationMatcher {
       this(pFileName, pStartLineNumber, pEndLineNumber, true);
     }
 
+    int getStartLineNumber() {
+      return startLineNumber;
+    }
+
+    int getEndLineNumber() {
+      return endLineNumber;
+    }
+
+    boolean isOrigin() {
+      return origin;
+    }
+
     @Override
     public int hashCode() {
       return Objects.hash(getOriginFileName(), startLineNumber, endLineNumber, origin);
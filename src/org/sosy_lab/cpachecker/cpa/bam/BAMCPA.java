@@ -26,6 +26,8 @@ package org.sosy_lab.cpachecker.cpa.bam;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import java.util.Collection;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -34,6 +36,7 @@ import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.Specification;
 import org.sosy_lab.cpachecker.core.algorithm.Algorithm.AlgorithmFactory;
 import org.sosy_lab.cpachecker.core.algorithm.CEGARAlgorithm.CEGARAlgorithmFactory;
@@ -42,6 +45,8 @@ import org.sosy_lab.cpachecker.core.defaults.AutomaticCPAFactory;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.CPAFactory;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.ProofChecker;
@@ -52,8 +57,10 @@ import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheAggressiveImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManagerImpl;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMPersistentCache;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.Precisions;
 
 @Options(prefix = "cpa.bam")
 public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofChecker {
@@ -66,6 +73,7 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
   private final ProofChecker wrappedProofChecker;
   private final BAMDataManager data;
   private final BAMPCCManager bamPccManager;
+  private final @Nullable BAMPersistentCache persistentCache;
 
   @Option(name = "handleRecursiveProcedures", secure = true,
       description = "BAM allows to analyse recursive procedures. This strongly depends on the underlying CPA. "
@@ -78,6 +86,14 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
           "If enabled, cache queries also consider blocks with non-matching precision for reuse.")
   private boolean aggressiveCaching = true;
 
+  @Option(
+      secure = true,
+      description =
+          "If enabled, block summaries are written to a file after the analysis "
+              + "and summaries of unchanged blocks from a previous run are reused, "
+              + "see the options 'cpa.bam.persistentCache.*'.")
+  private boolean persistentCaching = false;
+
   @Option(
       secure = true,
       description = "Should the nested CPA-algorithm be wrapped with CEGAR within BAM?")
@@ -101,12 +117,19 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
       this.wrappedProofChecker = null;
     }
 
-    final BAMCache cache;
+    BAMCache cache;
     if (aggressiveCaching) {
       cache = new BAMCacheAggressiveImpl(config, getReducer(), logger);
     } else {
       cache = new BAMCacheImpl(config, getReducer(), logger);
     }
+    if (persistentCaching) {
+      persistentCache =
+          new BAMPersistentCache(config, cache, getReducer(), pReachedSetFactory, pCfa, logger);
+      cache = persistentCache;
+    } else {
+      persistentCache = null;
+    }
     data = new BAMDataManagerImpl(cache, pReachedSetFactory, pLogger);
 
     bamPccManager = new BAMPCCManager(
@@ -136,6 +159,28 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
     }
   }
 
+  @Override
+  public Precision getInitialPrecision(CFANode pNode, StateSpacePartition pPartition)
+      throws InterruptedException {
+    Precision initialPrecision = super.getInitialPrecision(pNode, pPartition);
+    if (persistentCache != null) {
+      Optional<Precision> importedPrecision = persistentCache.getImportedPrecision();
+      if (importedPrecision.isPresent()
+          && haveSameStructure(importedPrecision.orElseThrow(), initialPrecision)) {
+        return importedPrecision.orElseThrow();
+      }
+    }
+    return initialPrecision;
+  }
+
+  /** Check that an imported precision belongs to the same configuration of CPAs. */
+  private static boolean haveSameStructure(Precision pPrecision1, Precision pPrecision2) {
+    return Precisions.asIterable(pPrecision1)
+        .transform(Object::getClass)
+        .toList()
+        .equals(Precisions.asIterable(pPrecision2).transform(Object::getClass).toList());
+  }
+
   @Override
   public BAMMergeOperator getMergeOperator() {
     return super.getMergeOperator().withBAMPCCManager(bamPccManager);
@@ -52,6 +52,7 @@ import org.sosy_lab.cpachecker.cpa.arg.ARGReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMPersistentCache.RestoredExitState;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.Pair;
 
@@ -140,6 +141,11 @@ public class BAMSubgraphComputer {
     for (BackwardARGState newTreeTarget : newTreeTargets) {
       ARGState target = newTreeTarget.getARGState();
       assert rs.contains(target);
+      if (target instanceof RestoredExitState) {
+        // a summary from a previous run does not contain the inner ARG of the block
+        logger.log(Level.FINE, "Target state refers to a restored block summary. Updating it.");
+        throw new MissingBlockException(rs.getFirstState(), target);
+      }
       finishedStates.put(target, newTreeTarget);
       waitlist.addAll(target.getParents()); // add parent for further processing
     }
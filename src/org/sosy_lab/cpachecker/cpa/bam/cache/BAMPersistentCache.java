@@ -0,0 +1,533 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.FunctionFingerprints;
+import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+import org.sosy_lab.cpachecker.util.globalinfo.NodeNumberTranslatingObjectInputStream;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * A wrapper for a {@link BAMCache} that keeps block summaries across several runs of the analysis.
+ *
+ * <p>After the analysis, the reduced entry state, the reduced precision, and the exit states of
+ * each completely analyzed block are written to a file, keyed by a content hash of the block's
+ * CFA. A later run can import this file. If the wrapped cache misses, a summary of an unchanged
+ * block with an equal entry state and precision is used to build a finished reached-set for the
+ * block, so the block does not need to be analyzed again.
+ *
+ * <p>The file also contains content hashes of all functions of the program. Functions that are
+ * unchanged since the previous run keep their block hashes, even if other functions were changed
+ * and the CFA nodes were numbered differently. Node numbers and CFA nodes in the serialized states
+ * and precisions are mapped onto the nodes of the current CFA (see {@link
+ * NodeNumberTranslatingObjectInputStream}). Additionally, the precision of the initial state of the
+ * previous run can be reused, such that the summaries of unchanged blocks match the precision of
+ * the new analysis. Thus, only the changed part of the program needs to be analyzed again.
+ *
+ * <p>Only serializable states and precisions (as also needed for PCC) can be stored, other
+ * summaries are skipped. A restored reached-set contains no inner ARG of the block, i.e., the
+ * exit states are direct children of the entry state. If a counterexample passes through such a
+ * block, the {@link org.sosy_lab.cpachecker.cpa.bam.BAMSubgraphComputer} reports a missing block
+ * and the restored reached-set is reset, such that the block is analyzed again.
+ */
+@Options(prefix = "cpa.bam.persistentCache")
+public class BAMPersistentCache implements BAMCache {
+
+  private static final String FORMAT_VERSION = "CPAchecker BAM block summaries 2";
+
+  @Option(
+      secure = true,
+      description = "file with block summaries from a previous run that should be reused")
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path importFile = null;
+
+  @Option(secure = true, description = "file where block summaries of this run are written to")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable Path exportFile = Paths.get("BAMSummaries.ser.gz");
+
+  @Option(
+      secure = true,
+      description =
+          "start the analysis with the precision of the initial state of the previous run, "
+              + "such that more block summaries can be reused")
+  private boolean reuseInitialPrecision = true;
+
+  private final BAMCache cache;
+  private final Reducer reducer;
+  private final ReachedSetFactory reachedSetFactory;
+  private final LogManager logger;
+
+  private final FunctionFingerprints fingerprints;
+
+  /** mapping from node numbers of the previous run to nodes of unchanged functions. */
+  private ImmutableMap<Integer, CFANode> nodeTranslation = ImmutableMap.of();
+
+  /** serialized summaries from the imported file, deserialized lazily per block. */
+  private ListMultimap<String, byte[]> importedSummaries = ImmutableListMultimap.of();
+
+  private byte @Nullable [] importedPrecision = null;
+
+  private final Map<String, List<BlockSummary>> deserializedSummaries = new HashMap<>();
+  private final Map<Block, String> blockHashes = new HashMap<>();
+
+  /** all entries of this run, together with their keys. */
+  private final Map<BAMCacheEntry, CacheKey> entries = new LinkedHashMap<>();
+
+  private final Set<BAMCacheEntry> restoredEntries = new HashSet<>();
+
+  private boolean warnedAboutSerialization = false;
+  private int changedFunctionsCount = 0;
+  private int importedSummariesCount = 0;
+  private int exportedSummariesCount = 0;
+  private final StatCounter restoredSummariesCounter =
+      new StatCounter("Number of reused block summaries");
+  private final StatCounter invalidatedSummariesCounter =
+      new StatCounter("Number of reused block summaries analyzed again");
+
+  public BAMPersistentCache(
+      Configuration pConfig,
+      BAMCache pCache,
+      Reducer pReducer,
+      ReachedSetFactory pReachedSetFactory,
+      CFA pCfa,
+      LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    cache = pCache;
+    reducer = pReducer;
+    reachedSetFactory = pReachedSetFactory;
+    logger = pLogger;
+    fingerprints = FunctionFingerprints.of(pCfa);
+    if (importFile != null && Files.isReadable(importFile)) {
+      importSummaries(importFile);
+    }
+  }
+
+  private void importSummaries(Path pFile) {
+    try (InputStream inputStream = Files.newInputStream(pFile);
+        InputStream gzipInputStream = new GZIPInputStream(inputStream);
+        ObjectInputStream ois = new ObjectInputStream(gzipInputStream)) {
+      if (!FORMAT_VERSION.equals(ois.readUTF())) {
+        logger.log(Level.WARNING, "Ignoring block summaries with unknown format in", pFile);
+        return;
+      }
+      FunctionFingerprints previousFingerprints = (FunctionFingerprints) ois.readObject();
+      byte[] precision = (byte[]) ois.readObject();
+      ImmutableListMultimap.Builder<String, byte[]> summaries = ImmutableListMultimap.builder();
+      int size = ois.readInt();
+      for (int i = 0; i < size; i++) {
+        summaries.put(ois.readUTF(), (byte[]) ois.readObject());
+      }
+
+      ImmutableSet<String> changedFunctions = fingerprints.getChangedFunctions(previousFingerprints);
+      logger.log(Level.INFO, "Functions changed since the previous run:", changedFunctions);
+      if (!fingerprints.haveSameGlobalDeclarations(previousFingerprints)) {
+        logger.log(
+            Level.INFO,
+            "Global declarations changed since the previous run, block summaries are not reused.");
+      }
+      changedFunctionsCount = changedFunctions.size();
+      nodeTranslation = fingerprints.getNodeTranslation(previousFingerprints);
+      importedPrecision = precision;
+      importedSummaries = summaries.build();
+      importedSummariesCount = size;
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.logUserException(Level.WARNING, e, "Could not read block summaries from file.");
+    }
+  }
+
+  /**
+   * Returns the precision of the initial state of the previous run, if it should be reused and
+   * can be restored for the current program.
+   */
+  public Optional<Precision> getImportedPrecision() {
+    if (!reuseInitialPrecision || importedPrecision == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(deserialize(importedPrecision, Precision.class));
+  }
+
+  @Override
+  public BAMCacheEntry put(
+      AbstractState pStateKey, Precision pPrecisionKey, Block pContext, ReachedSet pItem) {
+    BAMCacheEntry entry = cache.put(pStateKey, pPrecisionKey, pContext, pItem);
+    entries.put(entry, new CacheKey(pStateKey, pPrecisionKey, pContext));
+    return entry;
+  }
+
+  @Override
+  public BAMCacheEntry get(AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+    BAMCacheEntry entry = cache.get(pStateKey, pPrecisionKey, pContext);
+    if (entry == null) {
+      entry = restore(pStateKey, pPrecisionKey, pContext);
+    } else if (entry.getExitStates() == null && restoredEntries.remove(entry)) {
+      // the summary was invalidated, e.g., because a counterexample passes through the block.
+      // We do not have the inner ARG of the block, thus we analyze the block from scratch.
+      reset(entry.getReachedSet());
+      invalidatedSummariesCounter.inc();
+    }
+    return entry;
+  }
+
+  /** Build a finished reached-set from an imported summary, or return NULL if there is none. */
+  private @Nullable BAMCacheEntry restore(
+      AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+    if (importedSummaries.isEmpty() || !(pStateKey instanceof ARGState)) {
+      return null;
+    }
+    Object key = reducer.getHashCodeForState(pStateKey, pPrecisionKey);
+    for (BlockSummary summary : getSummaries(getBlockHash(pContext))) {
+      ARGState entryState = new ARGState(summary.entryState, null);
+      if (!key.equals(reducer.getHashCodeForState(entryState, summary.precision))) {
+        continue;
+      }
+
+      logger.log(
+          Level.FINEST, "Reusing imported summary for block", pContext.getFunctions(), pContext);
+      ReachedSet reached = reachedSetFactory.create();
+      reached.add(pStateKey, pPrecisionKey);
+      reached.removeOnlyFromWaitlist(pStateKey);
+      List<AbstractState> exitStates = new ArrayList<>(summary.exitStates.size());
+      for (AbstractState exitState : summary.exitStates) {
+        ARGState exit = new RestoredExitState(exitState, (ARGState) pStateKey);
+        reached.add(exit, pPrecisionKey);
+        reached.removeOnlyFromWaitlist(exit);
+        exitStates.add(exit);
+      }
+      BAMCacheEntry entry = put(pStateKey, pPrecisionKey, pContext, reached);
+      entry.setExitStates(new LinkedHashSet<>(exitStates));
+      restoredEntries.add(entry);
+      restoredSummariesCounter.inc();
+      return entry;
+    }
+    return null;
+  }
+
+  /** Remove the restored exit states and prepare the reached-set for a new analysis. */
+  private void reset(ReachedSet pReached) {
+    ARGState root = (ARGState) pReached.getFirstState();
+    for (ARGState exit : ImmutableList.copyOf(root.getChildren())) {
+      pReached.remove(exit);
+      exit.removeFromARG();
+    }
+    pReached.reAddToWaitlist(root);
+  }
+
+  private List<BlockSummary> getSummaries(String pBlockHash) {
+    return deserializedSummaries.computeIfAbsent(pBlockHash, this::deserializeSummaries);
+  }
+
+  private List<BlockSummary> deserializeSummaries(String pBlockHash) {
+    List<BlockSummary> summaries = new ArrayList<>();
+    for (byte[] data : importedSummaries.get(pBlockHash)) {
+      BlockSummary summary = deserialize(data, BlockSummary.class);
+      if (summary != null) {
+        summaries.add(summary);
+      }
+    }
+    return summaries;
+  }
+
+  /**
+   * Deserialize an object from the previous run. Node numbers are resolved with the nodes of
+   * unchanged functions. Returns NULL if the object cannot be restored, e.g., because it refers to
+   * a changed function.
+   */
+  private <T> @Nullable T deserialize(byte[] pData, Class<T> pType) {
+    if (!GlobalInfo.getInstance().getCFAInfo().isPresent()) {
+      return null;
+    }
+    try (ObjectInputStream ois =
+        new NodeNumberTranslatingObjectInputStream(
+            new ByteArrayInputStream(pData), nodeTranslation)) {
+      return pType.cast(ois.readObject());
+    } catch (InvalidObjectException e) {
+      logger.logDebugException(e, "Data of previous run refers to changed code, ignoring it.");
+      return null;
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.logDebugException(e, "Could not read data of previous run, ignoring it.");
+      return null;
+    }
+  }
+
+  /**
+   * Order nodes by function and position in their function. Nodes that are not reachable from
+   * their function entry have no position, for them the node number is used as fallback.
+   */
+  private Comparator<CFANode> nodeOrder() {
+    return Comparator.comparing(CFANode::getFunctionName)
+        .thenComparingInt(fingerprints::getIndex)
+        .thenComparingInt(CFANode::getNodeNumber);
+  }
+
+  private String getBlockHash(Block pBlock) {
+    return blockHashes.computeIfAbsent(pBlock, this::computeBlockHash);
+  }
+
+  /**
+   * Compute a hash of the CFA of a block. The hash is based on the global declarations, on the
+   * content hashes of the functions in the block, and on the positions of the block's nodes in
+   * their functions, but not on node numbers, which change whenever a function before the block
+   * is changed. The result must not depend on the iteration order of the block's sets of nodes,
+   * which differs between runs.
+   */
+  private String computeBlockHash(Block pBlock) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(fingerprints.getGlobalDeclarationsHash(), StandardCharsets.UTF_8);
+    for (String function : ImmutableSortedSet.copyOf(pBlock.getFunctions())) {
+      hasher.putString(function, StandardCharsets.UTF_8);
+      hasher.putString(String.valueOf(fingerprints.getHash(function)), StandardCharsets.UTF_8);
+    }
+    for (Set<CFANode> nodes :
+        ImmutableList.of(pBlock.getCallNodes(), pBlock.getReturnNodes(), pBlock.getNodes())) {
+      hasher.putInt(nodes.size());
+      for (CFANode node : ImmutableList.sortedCopyOf(nodeOrder(), nodes)) {
+        hasher.putString(node.getFunctionName(), StandardCharsets.UTF_8);
+        hasher.putInt(fingerprints.getIndex(node));
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  @Override
+  public void writeOutputFiles(Result pResult, UnmodifiableReachedSet pReached) {
+    cache.writeOutputFiles(pResult, pReached);
+    if (exportFile == null) {
+      return;
+    }
+
+    ListMultimap<String, byte[]> summaries =
+        MultimapBuilder.linkedHashKeys().arrayListValues().build();
+    for (Entry<BAMCacheEntry, CacheKey> entry : entries.entrySet()) {
+      ReachedSet reached = entry.getKey().getReachedSet();
+      Set<AbstractState> exitStates = entry.getKey().getExitStates();
+      CacheKey key = entry.getValue();
+      if (exitStates == null
+          || reached.hasWaitingState()
+          || !(key.stateKey instanceof ARGState)
+          || ((ARGState) key.stateKey).isDestroyed()) {
+        continue; // only finished blocks are useful for later runs
+      }
+      ImmutableList.Builder<AbstractState> wrappedExitStates = ImmutableList.builder();
+      for (AbstractState exitState : exitStates) {
+        wrappedExitStates.add(((ARGState) exitState).getWrappedState());
+      }
+      BlockSummary summary =
+          new BlockSummary(
+              ((ARGState) key.stateKey).getWrappedState(),
+              key.precisionKey,
+              wrappedExitStates.build());
+
+      byte[] data = serialize(summary);
+      if (data != null) {
+        summaries.put(getBlockHash(key.context), data);
+      }
+    }
+
+    byte[] precision = null;
+    if (pReached != null && pReached.getFirstState() != null) {
+      precision = serialize(pReached.getPrecision(pReached.getFirstState()));
+    }
+
+    try {
+      MoreFiles.createParentDirectories(exportFile);
+      try (OutputStream outputStream = Files.newOutputStream(exportFile);
+          OutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+          ObjectOutputStream oos = new ObjectOutputStream(gzipOutputStream)) {
+        oos.writeUTF(FORMAT_VERSION);
+        oos.writeObject(fingerprints);
+        oos.writeObject(precision);
+        oos.writeInt(summaries.size());
+        for (Entry<String, byte[]> summary : summaries.entries()) {
+          oos.writeUTF(summary.getKey());
+          oos.writeObject(summary.getValue());
+        }
+      }
+      exportedSummariesCount = summaries.size();
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write block summaries to file.");
+    }
+  }
+
+  private byte @Nullable [] serialize(Object pObject) {
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(data)) {
+      oos.writeObject(pObject);
+    } catch (NotSerializableException e) {
+      if (!warnedAboutSerialization) {
+        logger.log(
+            Level.WARNING,
+            "Block summaries cannot be stored, because class",
+            e.getMessage(),
+            "does not implement the Serializable interface.");
+        warnedAboutSerialization = true;
+      }
+      return null;
+    } catch (IOException e) {
+      logger.logDebugException(e, "Could not write block summary, ignoring it.");
+      return null;
+    }
+    return data.toByteArray();
+  }
+
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    cache.printStatistics(pOut, pResult, pReached);
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put("Number of functions changed since previous run", changedFunctionsCount)
+        .put("Number of imported block summaries", importedSummariesCount)
+        .put(restoredSummariesCounter)
+        .put(invalidatedSummariesCounter)
+        .put("Number of exported block summaries", exportedSummariesCount);
+  }
+
+  @Override
+  public @Nullable String getName() {
+    return cache.getName();
+  }
+
+  @Override
+  @Deprecated
+  public ARGState getLastAnalyzedBlock() {
+    return cache.getLastAnalyzedBlock();
+  }
+
+  @Override
+  public boolean containsPreciseKey(
+      AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+    return cache.containsPreciseKey(pStateKey, pPrecisionKey, pContext);
+  }
+
+  @Override
+  public Collection<ReachedSet> getAllCachedReachedStates() {
+    return cache.getAllCachedReachedStates();
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+    entries.clear();
+    restoredEntries.clear();
+  }
+
+  /**
+   * Marker for exit states that were restored from an imported summary. Such a state has no inner
+   * ARG, it is a direct child of the entry state of its block.
+   */
+  public static class RestoredExitState extends ARGState {
+
+    private static final long serialVersionUID = -3526803540154377214L;
+
+    private RestoredExitState(AbstractState pWrappedState, ARGState pParent) {
+      super(pWrappedState, pParent);
+    }
+  }
+
+  private static class CacheKey {
+    private final AbstractState stateKey;
+    private final Precision precisionKey;
+    private final Block context;
+
+    private CacheKey(AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+      stateKey = pStateKey;
+      precisionKey = pPrecisionKey;
+      context = pContext;
+    }
+  }
+
+  private static class BlockSummary implements Serializable {
+
+    private static final long serialVersionUID = 7170564946317457313L;
+
+    private final AbstractState entryState;
+    private final Precision precision;
+    private final ImmutableList<AbstractState> exitStates;
+
+    private BlockSummary(
+        AbstractState pEntryState, Precision pPrecision, ImmutableList<AbstractState> pExitStates) {
+      entryState = pEntryState;
+      precision = pPrecision;
+      exitStates = pExitStates;
+    }
+  }
+}
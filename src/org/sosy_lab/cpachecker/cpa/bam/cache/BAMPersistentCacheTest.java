@@ -0,0 +1,179 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+public class BAMPersistentCacheTest {
+
+  private static final String PROGRAM = "test/programs/simple/functionCall.c";
+  private static final String PROGRAM_VERSION_1 = "test/programs/bam/persistentCache-v1.c";
+  private static final String PROGRAM_VERSION_2 = "test/programs/bam/persistentCache-v2.c";
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void reloadedSummariesAreReused() throws Exception {
+    Path summaries = tempFolder.getRoot().toPath().resolve("summaries.ser.gz");
+
+    TestResults first = CPATestRunner.run(configuration(summaries, null).build(), PROGRAM);
+    assertThat(first.getCheckerResult().getResult()).isNotEqualTo(Result.NOT_YET_STARTED);
+    first.getCheckerResult().writeOutputFiles();
+    assertThat(Files.size(summaries)).isGreaterThan(0L);
+
+    // a second run on the same program, with a new CFA and freshly allocated nodes,
+    // must compute the same block hashes and hit the imported summaries
+    TestResults second =
+        CPATestRunner.run(configuration(null, summaries).build(), PROGRAM, Level.FINEST);
+    assertThat(second.getCheckerResult().getResult()).isNotEqualTo(Result.NOT_YET_STARTED);
+    assertThat(second.getLog()).contains("Reusing imported summary for block");
+  }
+
+  @Test
+  public void summariesOfOtherProgramAreNotReused() throws Exception {
+    Path summaries = tempFolder.getRoot().toPath().resolve("summaries.ser.gz");
+
+    TestResults first =
+        CPATestRunner.run(
+            configuration(summaries, null).build(), "test/programs/simple/loop1.c");
+    first.getCheckerResult().writeOutputFiles();
+
+    TestResults second =
+        CPATestRunner.run(configuration(null, summaries).build(), PROGRAM, Level.FINEST);
+    assertThat(second.getCheckerResult().getResult()).isNotEqualTo(Result.NOT_YET_STARTED);
+    assertThat(second.getLog()).doesNotContain("Reusing imported summary for block");
+  }
+
+  @Test
+  public void summariesOfUnchangedFunctionsAreReused() throws Exception {
+    Path summaries = tempFolder.getRoot().toPath().resolve("summaries.ser.gz");
+
+    TestResults first =
+        CPATestRunner.run(configuration(summaries, null).build(), PROGRAM_VERSION_1);
+    first.getCheckerResult().writeOutputFiles();
+
+    // Only the function g is edited in the second version. It comes first in the program,
+    // thus the nodes of f and main are numbered differently, and the states of the summary
+    // for f can only be restored by translating their node numbers.
+    TestResults second =
+        CPATestRunner.run(
+            configuration(null, summaries).build(), PROGRAM_VERSION_2, Level.FINEST);
+    assertThat(second.getCheckerResult().getResult()).isNotEqualTo(Result.NOT_YET_STARTED);
+    assertThat(second.getLog()).contains("Functions changed since the previous run: [g]");
+    assertThat(second.getLog()).contains("Reusing imported summary for block [f]");
+    assertThat(second.getLog()).doesNotContain("Reusing imported summary for block [g]");
+
+    // the summary for g exists, but it is only valid for the unchanged program
+    TestResults third =
+        CPATestRunner.run(
+            configuration(null, summaries).build(), PROGRAM_VERSION_1, Level.FINEST);
+    assertThat(third.getLog()).contains("Reusing imported summary for block [f]");
+    assertThat(third.getLog()).contains("Reusing imported summary for block [g]");
+  }
+
+  @Test
+  public void reloadedLocalizedValuePrecisionsAreEqual() throws Exception {
+    checkValuePrecisionsAreRestored("LOCATION");
+  }
+
+  @Test
+  public void reloadedScopedValuePrecisionsAreEqual() throws Exception {
+    checkValuePrecisionsAreRestored("SCOPE");
+  }
+
+  /**
+   * Summaries are only reused if their precision is equal to the precision of the current run,
+   * thus the refinable precision of the value analysis must survive serialization unchanged.
+   */
+  private void checkValuePrecisionsAreRestored(String pSharing) throws Exception {
+    Path summaries = tempFolder.getRoot().toPath().resolve("summaries.ser.gz");
+    Path precision = tempFolder.getRoot().toPath().resolve("precision.txt");
+    Files.write(precision, ImmutableList.of("f::x", "main::y"), StandardCharsets.UTF_8);
+
+    TestResults first =
+        CPATestRunner.run(valueConfiguration(summaries, null, precision, pSharing), PROGRAM);
+    assertThat(first.getCheckerResult().getResult()).isNotEqualTo(Result.NOT_YET_STARTED);
+    first.getCheckerResult().writeOutputFiles();
+
+    TestResults second =
+        CPATestRunner.run(
+            valueConfiguration(null, summaries, precision, pSharing), PROGRAM, Level.FINEST);
+    assertThat(second.getCheckerResult().getResult()).isNotEqualTo(Result.NOT_YET_STARTED);
+    assertThat(second.getLog()).contains("Reusing imported summary for block [f]");
+  }
+
+  private Configuration valueConfiguration(
+      @Nullable Path pExportFile, @Nullable Path pImportFile, Path pPrecision, String pSharing)
+      throws Exception {
+    return configuration(pExportFile, pImportFile)
+        .setOption(
+            "CompositeCPA.cpas",
+            "cpa.location.LocationCPA, cpa.callstack.CallstackCPA, cpa.value.ValueAnalysisCPA")
+        .setOption("cpa.value.initialPrecisionFile", pPrecision.toString())
+        .setOption("precision.sharing", pSharing)
+        .build();
+  }
+
+  /** Configuration for BAM with persistent caching, all output files are written to a temp dir. */
+  private ConfigurationBuilder configuration(@Nullable Path pExportFile, @Nullable Path pImportFile)
+      throws Exception {
+    FileTypeConverter fileTypeConverter =
+        FileTypeConverter.create(
+            Configuration.builder()
+                .setOption("output.path", tempFolder.getRoot().toString())
+                .build());
+    ConfigurationBuilder config =
+        Configuration.builder()
+            .addConverter(FileOption.class, fileTypeConverter)
+            .setOption("cpa", "cpa.bam.BAMCPA")
+            .setOption("BAMCPA.cpa", "cpa.arg.ARGCPA")
+            .setOption("ARGCPA.cpa", "cpa.composite.CompositeCPA")
+            .setOption("CompositeCPA.cpas", "cpa.location.LocationCPA, cpa.callstack.CallstackCPA")
+            .setOption("cpa.bam.persistentCaching", "true");
+    if (pExportFile != null) {
+      config.setOption("cpa.bam.persistentCache.exportFile", pExportFile.toString());
+    }
+    if (pImportFile != null) {
+      config.setOption("cpa.bam.persistentCache.importFile", pImportFile.toString());
+    }
+    return config;
+  }
+}
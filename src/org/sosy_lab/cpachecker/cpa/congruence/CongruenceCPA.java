@@ -47,6 +47,7 @@ import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
 import org.sosy_lab.cpachecker.cpa.abe.ABECPA;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager.PathFormulaCacheOptions;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
@@ -87,7 +88,9 @@ public class CongruenceCPA
         AnalysisDirection.FORWARD);
 
     if (useCachingPathFormulaManager) {
-      pathFormulaManager = new CachingPathFormulaManager(pathFormulaManager);
+      pathFormulaManager =
+          new CachingPathFormulaManager(
+              pathFormulaManager, new PathFormulaCacheOptions(pConfiguration));
     }
     TemplateToFormulaConversionManager templateToFormulaConversionManager =
         new TemplateToFormulaConversionManager(pCFA, pLogger);
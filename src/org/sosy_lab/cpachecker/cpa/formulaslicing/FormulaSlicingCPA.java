@@ -32,6 +32,7 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.predicates.RCNFManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager.PathFormulaCacheOptions;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
@@ -67,8 +68,9 @@ public class FormulaSlicingCPA extends SingleEdgeTransferRelation
         formulaManager, pConfiguration, pLogger, pShutdownNotifier, cfa,
         AnalysisDirection.FORWARD);
 
-    CachingPathFormulaManager pathFormulaManager = new CachingPathFormulaManager
-        (origPathFormulaManager);
+    CachingPathFormulaManager pathFormulaManager =
+        new CachingPathFormulaManager(
+            origPathFormulaManager, new PathFormulaCacheOptions(pConfiguration));
 
     inductiveWeakeningManager = new InductiveWeakeningManager(pConfiguration, solver, pLogger,
         pShutdownNotifier);
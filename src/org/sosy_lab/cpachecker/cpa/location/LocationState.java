@@ -232,14 +232,21 @@ public class LocationState implements AbstractStateWithLocation, AbstractQueryab
   private static class SerialProxy implements Serializable {
     private static final long serialVersionUID = 6889568471468710163L;
     private final int nodeNumber;
+    private transient CFANode node;
 
     public SerialProxy(int nodeNumber) {
       this.nodeNumber = nodeNumber;
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      node =
+          GlobalInfo.getInstance().getCFAInfo().orElseThrow().getNodeByNodeNumber(nodeNumber, in);
+    }
+
     private Object readResolve() {
       CFAInfo cfaInfo = GlobalInfo.getInstance().getCFAInfo().orElseThrow();
-      return cfaInfo.getLocationStateFactory().getState(cfaInfo.getNodeByNodeNumber(nodeNumber));
+      return cfaInfo.getLocationStateFactory().getState(node);
     }
   }
 }
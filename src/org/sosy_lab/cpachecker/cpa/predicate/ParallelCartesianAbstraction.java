@@ -0,0 +1,231 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.ParallelSolverPool;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Determines the truth values of predicates for a Cartesian abstraction with several solver
+ * contexts in parallel.
+ *
+ * <p>Each worker uses one solver of a {@link ParallelSolverPool} (and thus a separate {@link
+ * FormulaManagerView}) and a prover that keeps the formula of the last abstraction on its stack.
+ * Because formula managers are not thread-safe, the calling thread only dumps the formulas once,
+ * and each worker parses them into its own context: the abstracted formula only if it differs
+ * from the one on its stack, and its fixed share of the predicates. The calling thread waits until
+ * all workers are finished, so the results can be used like those of the sequential
+ * implementation.
+ *
+ * <p>If a computation fails or is interrupted, the workers are not usable anymore, and {@link
+ * #isUsable()} returns false.
+ */
+final class ParallelCartesianAbstraction implements AutoCloseable {
+
+  static final byte PREDICATE_FALSE = -1;
+  static final byte PREDICATE_UNKNOWN = 0;
+  static final byte PREDICATE_TRUE = 1;
+
+  private final FormulaManagerView fmgr;
+  private final ParallelSolverPool pool;
+  private final List<Worker> workers;
+
+  ParallelCartesianAbstraction(
+      int pThreads,
+      FormulaManagerView pFmgr,
+      ThreadSafeTimerContainer pCheckTime,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    checkArgument(pThreads > 1);
+    fmgr = pFmgr;
+    pool =
+        new ParallelSolverPool(
+            "cartesian-abstraction", pThreads, pConfig, pLogger, pShutdownNotifier);
+    workers = new ArrayList<>(pThreads);
+    for (int i = 0; i < pThreads; i++) {
+      workers.add(
+          new Worker(pool.getSolver(i), pool.getShutdownNotifier(), pCheckTime.getNewTimer()));
+    }
+  }
+
+  /** Whether the workers can be used, i.e., no previous computation was cancelled. */
+  boolean isUsable() {
+    return pool.isUsable();
+  }
+
+  /**
+   * Check for each predicate whether it is implied or contradicted by the given formula.
+   *
+   * @param f The formula to abstract, needs to be satisfiable.
+   * @param pInstantiatedPredicates The predicates, instantiated with the SSA indices of f.
+   * @return One of {@link #PREDICATE_TRUE}, {@link #PREDICATE_FALSE}, and {@link
+   *     #PREDICATE_UNKNOWN} for each predicate, in the same order as the given list.
+   */
+  byte[] computePredicateValues(BooleanFormula f, List<BooleanFormula> pInstantiatedPredicates)
+      throws SolverException, InterruptedException {
+    final int size = pInstantiatedPredicates.size();
+    final int usedWorkers = Math.min(workers.size(), size);
+    final byte[] result = new byte[size];
+
+    String dumpedFormula = null;
+    List<Callable<Void>> tasks = new ArrayList<>(usedWorkers);
+    for (int w = 0; w < usedWorkers; w++) {
+      final Worker worker = workers.get(w);
+      // the worker only reads its fields while it is running,
+      // and the previous run has finished before the previous call returned
+      final String newFormula;
+      if (f.equals(worker.formula)) {
+        newFormula = null;
+      } else {
+        if (dumpedFormula == null) {
+          dumpedFormula = fmgr.dumpFormula(f).toString();
+        }
+        newFormula = dumpedFormula;
+      }
+      final List<Integer> indices = new ArrayList<>();
+      final List<String> predicates = new ArrayList<>();
+      for (int i = w; i < size; i += usedWorkers) {
+        indices.add(i);
+        predicates.add(fmgr.dumpFormula(pInstantiatedPredicates.get(i)).toString());
+      }
+
+      tasks.add(
+          () -> {
+            worker.checkPredicates(f, newFormula, predicates, indices, result);
+            return null;
+          });
+    }
+
+    pool.invokeAll(tasks);
+    // each worker writes to disjoint indices
+    return result;
+  }
+
+  @Override
+  public void close() {
+    // the provers need to be closed before their solvers
+    for (Worker worker : workers) {
+      worker.close();
+    }
+    pool.close();
+  }
+
+  private static final class Worker {
+
+    private final Solver solver;
+    private final ShutdownNotifier shutdownNotifier;
+    private final TimerWrapper checkTimer;
+
+    private @Nullable ProverEnvironment prover = null;
+
+    /** The formula (of the calling context) that is on the stack of the prover, if any. */
+    private @Nullable BooleanFormula formula = null;
+
+    private Worker(Solver pSolver, ShutdownNotifier pShutdownNotifier, TimerWrapper pCheckTimer) {
+      solver = pSolver;
+      shutdownNotifier = pShutdownNotifier;
+      checkTimer = pCheckTimer;
+    }
+
+    /**
+     * Check the given predicates and write their values to the given indices of the result.
+     *
+     * @param pFormula The formula to abstract, in the context of the calling thread.
+     * @param pDumpedFormula The dumped formula, or null if it is already on the stack.
+     */
+    private void checkPredicates(
+        BooleanFormula pFormula,
+        @Nullable String pDumpedFormula,
+        List<String> pPredicates,
+        List<Integer> pIndices,
+        byte[] pResult)
+        throws SolverException, InterruptedException {
+      checkTimer.start();
+      try {
+        FormulaManagerView workerFmgr = solver.getFormulaManager();
+        BooleanFormulaManagerView bfmgr = workerFmgr.getBooleanFormulaManager();
+        if (prover == null) {
+          prover = solver.newProverEnvironment();
+        }
+        if (pDumpedFormula != null) {
+          if (formula != null) {
+            prover.pop();
+            formula = null;
+          }
+          prover.push(workerFmgr.parse(pDumpedFormula));
+          formula = pFormula;
+        }
+
+        for (int i = 0; i < pPredicates.size(); i++) {
+          shutdownNotifier.shutdownIfNecessary();
+          BooleanFormula predTrue = workerFmgr.parse(pPredicates.get(i));
+          byte predVal = PREDICATE_UNKNOWN;
+
+          prover.push(bfmgr.not(predTrue));
+          boolean isTrue = prover.isUnsat();
+          prover.pop();
+
+          if (isTrue) {
+            predVal = PREDICATE_TRUE;
+          } else {
+            prover.push(predTrue);
+            boolean isFalse = prover.isUnsat();
+            prover.pop();
+            if (isFalse) {
+              predVal = PREDICATE_FALSE;
+            }
+          }
+          pResult[pIndices.get(i)] = predVal;
+        }
+      } finally {
+        checkTimer.stop();
+      }
+    }
+
+    private void close() {
+      if (prover != null) {
+        prover.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.sosy_lab.cpachecker.cpa.predicate.ParallelCartesianAbstraction.PREDICATE_FALSE;
+import static org.sosy_lab.cpachecker.cpa.predicate.ParallelCartesianAbstraction.PREDICATE_TRUE;
+import static org.sosy_lab.cpachecker.cpa.predicate.ParallelCartesianAbstraction.PREDICATE_UNKNOWN;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+
+public class ParallelCartesianAbstractionTest extends SolverViewBasedTest0 {
+
+  private ShutdownManager shutdownManager;
+  private ThreadSafeTimerContainer checkTime;
+  private ParallelCartesianAbstraction abstraction;
+
+  private IntegerFormula x;
+  private IntegerFormula y;
+
+  @Before
+  public void createAbstraction() throws Exception {
+    shutdownManager = ShutdownManager.create();
+    checkTime = new ThreadSafeTimerContainer("Time for parallel predicate checks");
+    abstraction =
+        new ParallelCartesianAbstraction(
+            3, mgrv, checkTime, config, logger, shutdownManager.getNotifier());
+    x = imgrv.makeVariable("x");
+    y = imgrv.makeVariable("y");
+  }
+
+  @After
+  public void closeAbstraction() {
+    abstraction.close();
+  }
+
+  /** x > 0 && y = x + 1 */
+  private BooleanFormula formula() {
+    return bmgrv.and(
+        imgrv.greaterThan(x, imgrv.makeNumber(0)),
+        imgrv.equal(y, imgrv.add(x, imgrv.makeNumber(1))));
+  }
+
+  private List<BooleanFormula> predicates() {
+    return ImmutableList.of(
+        imgrv.greaterThan(x, imgrv.makeNumber(0)),
+        imgrv.lessOrEquals(y, imgrv.makeNumber(0)),
+        imgrv.greaterThan(x, imgrv.makeNumber(5)),
+        imgrv.greaterThan(y, imgrv.makeNumber(1)),
+        imgrv.equal(x, y));
+  }
+
+  /** Check the predicates like the sequential Cartesian abstraction does. */
+  private byte[] sequentialValues(BooleanFormula f, List<BooleanFormula> predicates)
+      throws Exception {
+    byte[] result = new byte[predicates.size()];
+    try (ProverEnvironment prover = solver.newProverEnvironment()) {
+      prover.push(f);
+      for (int i = 0; i < predicates.size(); i++) {
+        prover.push(bmgrv.not(predicates.get(i)));
+        boolean isTrue = prover.isUnsat();
+        prover.pop();
+        prover.push(predicates.get(i));
+        boolean isFalse = prover.isUnsat();
+        prover.pop();
+        result[i] = isTrue ? PREDICATE_TRUE : isFalse ? PREDICATE_FALSE : PREDICATE_UNKNOWN;
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void valuesMatchSequentialCheck() throws Exception {
+    byte[] values = abstraction.computePredicateValues(formula(), predicates());
+
+    assertThat(values)
+        .isEqualTo(
+            new byte[] {
+              PREDICATE_TRUE, PREDICATE_FALSE, PREDICATE_UNKNOWN, PREDICATE_TRUE, PREDICATE_FALSE
+            });
+    assertThat(values).isEqualTo(sequentialValues(formula(), predicates()));
+    // each of the three workers checked its share once
+    assertThat(checkTime.getNumberOfIntervals()).isEqualTo(3);
+  }
+
+  @Test
+  public void formulaOnWorkerStackIsReplaced() throws Exception {
+    abstraction.computePredicateValues(formula(), predicates());
+    // same formula again, kept on the stacks of the workers
+    assertThat(abstraction.computePredicateValues(formula(), predicates().subList(1, 4)))
+        .isEqualTo(sequentialValues(formula(), predicates().subList(1, 4)));
+
+    // a different formula that contradicts the first one must replace it
+    BooleanFormula other = imgrv.lessThan(x, imgrv.makeNumber(0));
+    assertThat(abstraction.computePredicateValues(other, predicates()))
+        .isEqualTo(sequentialValues(other, predicates()));
+    assertThat(abstraction.computePredicateValues(formula(), predicates()))
+        .isEqualTo(sequentialValues(formula(), predicates()));
+  }
+
+  @Test
+  public void shutdownCancelsWorkers() throws Exception {
+    assertThat(abstraction.isUsable()).isTrue();
+    shutdownManager.requestShutdown("test");
+
+    assertThrows(
+        InterruptedException.class,
+        () -> abstraction.computePredicateValues(formula(), predicates()));
+    assertThat(abstraction.isUsable()).isFalse();
+  }
+}
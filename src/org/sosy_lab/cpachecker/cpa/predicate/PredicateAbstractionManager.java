@@ -88,6 +88,7 @@ import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.predicates.weakening.InductiveWeakeningManager;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
@@ -95,7 +96,7 @@ import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 
 @Options(prefix = "cpa.predicate")
-public class PredicateAbstractionManager {
+public class PredicateAbstractionManager implements AutoCloseable {
 
   static class Stats {
 
@@ -114,6 +115,7 @@ public class PredicateAbstractionManager {
     public int numInductivePredicates = 0;
     public int numCartesianAbsPredicates = 0;
     public int numCartesianAbsPredicatesCached = 0;
+    public int numParallelCartesianAbsPredicates = 0; // checked by parallel workers
     public int numBooleanAbsPredicates = 0;
     public final Timer abstractionReuseTime = new Timer();
     public final StatTimer abstractionReuseImplicationTime = new StatTimer("Time for checking reusability of abstractions");
@@ -124,6 +126,8 @@ public class PredicateAbstractionManager {
     public final Timer booleanAbstractionTime = new Timer();
     public final NestedTimer abstractionEnumTime = new NestedTimer(); // outer: solver time, inner: bdd time
     public final Timer abstractionSolveTime = new Timer(); // only the time for solving, not for model enumeration
+    public final ThreadSafeTimerContainer parallelCartesianAbstractionTime =
+        new ThreadSafeTimerContainer("Time for parallel predicate checks"); // sum of all workers
 
     public long allSatCount = 0;
     public int maxAllSatCount = 0;
@@ -142,6 +146,7 @@ public class PredicateAbstractionManager {
   private final InvariantSupplier invariantSupplier;
   private final @Nullable InductiveWeakeningManager weakeningManager;
   private final ShutdownNotifier shutdownNotifier;
+  private final @Nullable ParallelCartesianAbstraction parallelCartesianAbstraction;
 
   private static final Set<Integer> noAbstractionReuse = ImmutableSet.of();
 
@@ -189,6 +194,15 @@ public class PredicateAbstractionManager {
       description="Simplify the abstraction formula that is stored to represent the state space. Helpful when debugging (formulas get smaller).")
   private boolean simplifyAbstractionFormula = false;
 
+  @Option(
+      secure = true,
+      name = "abstraction.cartesianThreads",
+      description =
+          "Number of threads (each with its own solver instance) that are used for checking"
+              + " the predicates of a Cartesian abstraction in parallel."
+              + " A value of 1 disables parallel abstraction computation.")
+  private int cartesianAbstractionThreads = 1;
+
   private boolean warnedOfCartesianAbstraction = false;
 
   private boolean abstractionReuseDisabledBecauseOfAmbiguity = false;
@@ -253,9 +267,31 @@ public class PredicateAbstractionManager {
       cartesianAbstractionCache = null;
     }
 
+    if (cartesianAbstractionThreads > 1
+        && (abstractionType == AbstractionType.CARTESIAN
+            || abstractionType == AbstractionType.COMBINED)) {
+      parallelCartesianAbstraction =
+          new ParallelCartesianAbstraction(
+              cartesianAbstractionThreads,
+              fmgr,
+              stats.parallelCartesianAbstractionTime,
+              pConfig,
+              pLogger,
+              pShutdownNotifier);
+    } else {
+      parallelCartesianAbstraction = null;
+    }
+
     abstractionStorage = new PredicateAbstractionsStorage(reuseAbstractionsFrom, logger, fmgr, null);
   }
 
+  @Override
+  public void close() {
+    if (parallelCartesianAbstraction != null) {
+      parallelCartesianAbstraction.close();
+    }
+  }
+
   /**
    * Compute an abstraction of a single boolean formula.
    * @param f The formula to be abstracted. Needs to be instantiated
@@ -854,6 +890,9 @@ public class PredicateAbstractionManager {
 
       // check whether each of the predicate is implied in the next state...
 
+      final Map<AbstractionPredicate, Byte> precomputedValues =
+          computePredicateValuesInParallel(f, pPredicates, instantiator);
+
       final Iterator<AbstractionPredicate> predicateIt = pPredicates.iterator();
       while (predicateIt.hasNext()) {
         final AbstractionPredicate p = predicateIt.next();
@@ -880,44 +919,45 @@ public class PredicateAbstractionManager {
           logger.log(Level.ALL, "DEBUG_1",
               "CHECKING VALUE OF PREDICATE: ", p.getSymbolicAtom());
 
-          // instantiate the definition of the predicate
-          BooleanFormula predTrue = instantiator.apply(p.getSymbolicAtom());
-          BooleanFormula predFalse = bfmgr.not(predTrue);
-
           // check whether this predicate has a truth value in the next
           // state
           byte predVal = 0; // pred is neither true nor false
 
-          thmProver.push(predFalse);
-          boolean isTrue = thmProver.isUnsat();
-          thmProver.pop();
+          if (precomputedValues.containsKey(p)) {
+            predVal = precomputedValues.get(p);
+          } else {
+            // instantiate the definition of the predicate
+            BooleanFormula predTrue = instantiator.apply(p.getSymbolicAtom());
+            BooleanFormula predFalse = bfmgr.not(predTrue);
 
-          if (isTrue) {
+            thmProver.push(predFalse);
+            boolean isTrue = thmProver.isUnsat();
+            thmProver.pop();
+
+            if (isTrue) {
+              predVal = 1;
+            } else {
+              // check whether it's false...
+              thmProver.push(predTrue);
+              boolean isFalse = thmProver.isUnsat();
+              thmProver.pop();
+
+              if (isFalse) {
+                predVal = -1;
+              }
+            }
+          }
+
+          if (predVal != 0) {
             stats.numCartesianAbsPredicates++;
             stats.abstractionEnumTime.getCurentInnerTimer().start();
             Region v = p.getAbstractVariable();
+            if (predVal == -1) {
+              v = rmgr.makeNot(v);
+            }
             absbdd = rmgr.makeAnd(absbdd, v);
             predicateIt.remove(); // mark predicate as handled
             stats.abstractionEnumTime.getCurentInnerTimer().stop();
-
-            predVal = 1;
-          } else {
-            // check whether it's false...
-            thmProver.push(predTrue);
-            boolean isFalse = thmProver.isUnsat();
-            thmProver.pop();
-
-            if (isFalse) {
-              stats.numCartesianAbsPredicates++;
-              stats.abstractionEnumTime.getCurentInnerTimer().start();
-              Region v = p.getAbstractVariable();
-              v = rmgr.makeNot(v);
-              absbdd = rmgr.makeAnd(absbdd, v);
-              predicateIt.remove(); // mark predicate as handled
-              stats.abstractionEnumTime.getCurentInnerTimer().stop();
-
-              predVal = -1;
-            }
           }
 
           if (useCache) {
@@ -933,6 +973,44 @@ public class PredicateAbstractionManager {
     }
   }
 
+  /**
+   * Determine the values of all predicates that are not cached
+   * with the worker solvers of {@link ParallelCartesianAbstraction}, if enabled and usable.
+   * Otherwise the predicates are checked sequentially by the caller.
+   *
+   * @return A map with the values (-1, 0, or 1) of some of the given predicates.
+   */
+  private Map<AbstractionPredicate, Byte> computePredicateValuesInParallel(
+      final BooleanFormula f,
+      final Collection<AbstractionPredicate> pPredicates,
+      final Function<BooleanFormula, BooleanFormula> instantiator)
+      throws SolverException, InterruptedException {
+    if (parallelCartesianAbstraction == null || !parallelCartesianAbstraction.isUsable()) {
+      return ImmutableMap.of();
+    }
+
+    List<AbstractionPredicate> predicates = new ArrayList<>();
+    List<BooleanFormula> instantiatedPredicates = new ArrayList<>();
+    for (AbstractionPredicate p : pPredicates) {
+      if (!useCache || !cartesianAbstractionCache.containsKey(Pair.of(f, p))) {
+        predicates.add(p);
+        instantiatedPredicates.add(instantiator.apply(p.getSymbolicAtom()));
+      }
+    }
+    if (predicates.size() < 2) {
+      return ImmutableMap.of();
+    }
+
+    stats.numParallelCartesianAbsPredicates += predicates.size();
+    byte[] values =
+        parallelCartesianAbstraction.computePredicateValues(f, instantiatedPredicates);
+    Map<AbstractionPredicate, Byte> result = new HashMap<>();
+    for (int i = 0; i < predicates.size(); i++) {
+      result.put(predicates.get(i), values[i]);
+    }
+    return result;
+  }
+
   /** Build cartesian abstraction using the inductive weakening approach. */
   private Region buildCartesianAbstractionUsingWeakening(
       final BooleanFormula f, final SSAMap ssa, final Collection<AbstractionPredicate> pPredicates)
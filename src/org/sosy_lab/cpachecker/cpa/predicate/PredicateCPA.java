@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.configuration.Configuration;
@@ -63,7 +64,9 @@ import org.sosy_lab.cpachecker.util.blocking.interfaces.BlockComputer;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.BlockOperator;
 import org.sosy_lab.cpachecker.util.predicates.bdd.BDDManagerFactory;
+import org.sosy_lab.cpachecker.util.predicates.interpolation.InterpolationManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager.PathFormulaCacheOptions;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
@@ -134,6 +137,9 @@ public class PredicateCPA
   // path formulas for PCC
   private final Map<PredicateAbstractState, PathFormula> computedPathFormulaePcc = new HashMap<>();
 
+  /** Shared by the refiners and forced coverings of this CPA, created on first use. */
+  private @Nullable InterpolationManager interpolationManager = null;
+
   protected PredicateCPA(
       Configuration config,
       LogManager logger,
@@ -164,7 +170,7 @@ public class PredicateCPA
 
     PathFormulaManager pfMgr = new PathFormulaManagerImpl(formulaManager, config, logger, shutdownNotifier, cfa, direction);
     if (useCache) {
-      pfMgr = new CachingPathFormulaManager(pfMgr);
+      pfMgr = new CachingPathFormulaManager(pfMgr, new PathFormulaCacheOptions(config));
     }
     pathFormulaManager = pfMgr;
 
@@ -288,6 +294,26 @@ public class PredicateCPA
     return config;
   }
 
+  /**
+   * Return the interpolation manager for this CPA. It may have own solvers and threads (cf. option
+   * cpa.predicate.refinement.strategy), which are released when this CPA is closed.
+   */
+  public synchronized InterpolationManager getInterpolationManager()
+      throws InvalidConfigurationException {
+    if (interpolationManager == null) {
+      interpolationManager =
+          new InterpolationManager(
+              pathFormulaManager,
+              solver,
+              cfa.getLoopStructure(),
+              cfa.getVarClassification(),
+              config,
+              shutdownNotifier,
+              logger);
+    }
+    return interpolationManager;
+  }
+
   LogManager getLogger() {
     return logger;
   }
@@ -331,6 +357,12 @@ public class PredicateCPA
 
   @Override
   public void close() {
+    synchronized (this) {
+      if (interpolationManager != null) {
+        interpolationManager.close();
+      }
+    }
+    predicateManager.close();
     solver.close();
   }
 
@@ -34,12 +34,16 @@ import java.io.PrintStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -59,9 +63,12 @@ import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.ParallelSolverPool;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
@@ -74,7 +81,7 @@ import org.sosy_lab.java_smt.api.SolverException;
  * abstraction, this is left to an instance of {@link GlobalRefinementStrategy}.
  */
 @Options(prefix="cpa.predicate.refinement.global")
-public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
+public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider, AutoCloseable {
 
   @Option(secure = true,
           description = "Instead of updating precision and arg we say that the refinement was not successful"
@@ -83,32 +90,62 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
   @IntegerOption(min = 0)
   private int stopAfterNRefinements = 0;
 
+  @Option(
+      secure = true,
+      description =
+          "Number of threads (each with its own solver instance) for checking and interpolating"
+              + " the paths to the target states in parallel. With more than one thread,"
+              + " each path is handled separately instead of sharing common prefixes"
+              + " on one incremental solver stack.")
+  @IntegerOption(min = 1)
+  private int threads = 1;
+
   // statistics
   private final StatTimer totalTime = new StatTimer("Time for refinement");
   private final StatTimer interpolationTime = new StatTimer("Time for interpolation");
-  private final StatTimer satCheckTime = new StatTimer("Time for sat-checks");
+  private final ThreadSafeTimerContainer satCheckTime =
+      new ThreadSafeTimerContainer("Time for sat-checks");
+  private final TimerWrapper satCheckTimer = satCheckTime.getNewTimer();
 
   private final LogManager logger;
   private final GlobalRefinementStrategy strategy;
   private final Solver solver;
+  private final FormulaManagerView fmgr;
   private final BooleanFormulaManager bfmgr;
   private final ARGCPA argCPA;
 
+  // solvers and timers of the parallel workers, each used by one thread at a time
+  private final @Nullable ParallelSolverPool workerPool;
+  private final List<TimerWrapper> workerSatCheckTimers;
+
   public PredicateCPAGlobalRefiner(
       final LogManager pLogger,
       final FormulaManagerView pFmgr,
       final GlobalRefinementStrategy pStrategy,
       final Solver pSolver,
       final ARGCPA pArgcpa,
-      final Configuration pConfig) throws InvalidConfigurationException {
+      final Configuration pConfig,
+      final ShutdownNotifier pShutdownNotifier) throws InvalidConfigurationException {
     pConfig.inject(this);
 
     logger = pLogger;
+    fmgr = pFmgr;
     bfmgr = pFmgr.getBooleanFormulaManager();
     solver = pSolver;
     strategy = pStrategy;
     argCPA = pArgcpa;
 
+    workerSatCheckTimers = new ArrayList<>();
+    if (threads > 1) {
+      workerPool =
+          new ParallelSolverPool("global-refinement", threads, pConfig, pLogger, pShutdownNotifier);
+      for (int i = 0; i < threads; i++) {
+        workerSatCheckTimers.add(satCheckTime.getNewTimer());
+      }
+    } else {
+      workerPool = null;
+    }
+
     logger.log(
         Level.INFO,
         "Using refinement for predicate analysis with "
@@ -128,7 +165,10 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
 
       ARGReachedSet argReachedSet = new ARGReachedSet(pReached, argCPA);
       strategy.initializeGlobalRefinement();
-      Optional<ARGState> errorState = doPathWiseRefinement(argReachedSet, targets);
+      Optional<ARGState> errorState =
+          workerPool != null && workerPool.isUsable()
+              ? doParallelPathRefinement(argReachedSet, targets)
+              : doPathWiseRefinement(argReachedSet, targets);
 
       // TODO fix handling of counterexamples
       // + 1 for update count as the current interval is not finished
@@ -259,9 +299,9 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
       itpStack.add(itpProver.push(blockFormula));
       currentPath.add(succ);
       try {
-        satCheckTime.start();
+        satCheckTimer.start();
         boolean isUnsat = itpProver.isUnsat();
-        satCheckTime.stop();
+        satCheckTimer.stop();
         if (isUnsat) {
           logger.log(Level.FINE, "Found unreachable state", succ);
           List<ARGState> abstractionStatesTrace = new ArrayList<>(currentPath);
@@ -351,6 +391,154 @@ public class PredicateCPAGlobalRefiner implements Refiner, StatisticsProvider {
     strategy.performRefinement(reached, pAbstractionStatesTrace, interpolants, false);
   }
 
+  /**
+   * Do refinement for a set of target states by checking and interpolating the path to each
+   * target state separately, using several solver instances in parallel.
+   *
+   * <p>The interpolants of all infeasible paths are passed to the strategy in the order of the
+   * target states, so the precision increments of all paths are merged deterministically and the
+   * ARG is updated only once afterwards.
+   *
+   * <p>If a worker fails or the refinement is interrupted, all workers are stopped before this
+   * method returns, such that no worker uses its solver anymore. Later refinements are done
+   * sequentially.
+   *
+   * @return The first feasible target state, if any.
+   */
+  private Optional<ARGState> doParallelPathRefinement(
+      ARGReachedSet pReached, List<AbstractState> targets)
+      throws CPAException, InterruptedException, SolverException {
+    logger.log(Level.FINE, "Starting parallel refinement for", targets.size(), "elements.");
+
+    List<List<ARGState>> paths = new ArrayList<>(targets.size());
+    for (AbstractState target : targets) {
+      paths.add(getAbstractionStatesTrace((ARGState) target));
+    }
+
+    int workers = Math.min(threads, paths.size());
+    Map<Integer, Optional<List<BooleanFormula>>> interpolants = new HashMap<>();
+    interpolationTime.start();
+    try {
+      // Formula managers are not thread-safe,
+      // so translate all formulas before any worker is started.
+      List<Callable<Map<Integer, Optional<List<BooleanFormula>>>>> tasks = new ArrayList<>();
+      ShutdownNotifier workerShutdownNotifier = workerPool.getShutdownNotifier();
+      for (int w = 0; w < workers; w++) {
+        Solver workerSolver = workerPool.getSolver(w);
+        TimerWrapper workerSatCheckTimer = workerSatCheckTimers.get(w);
+        FormulaManagerView workerFmgr = workerSolver.getFormulaManager();
+
+        Map<Integer, List<BooleanFormula>> workerPaths = new HashMap<>();
+        for (int i = w; i < paths.size(); i += workers) {
+          List<BooleanFormula> blockFormulas = new ArrayList<>();
+          for (ARGState state : paths.get(i)) {
+            BooleanFormula blockFormula =
+                getPredicateState(state).getAbstractionFormula().getBlockFormula().getFormula();
+            blockFormulas.add(workerFmgr.translateFrom(blockFormula, fmgr));
+          }
+          workerPaths.put(i, blockFormulas);
+        }
+
+        tasks.add(
+            () -> {
+              Map<Integer, Optional<List<BooleanFormula>>> result = new HashMap<>();
+              for (Map.Entry<Integer, List<BooleanFormula>> path : workerPaths.entrySet()) {
+                workerShutdownNotifier.shutdownIfNecessary();
+                try (InterpolatingProverEnvironment<?> itpProver =
+                    workerSolver.newProverEnvironmentWithInterpolation()) {
+                  result.put(
+                      path.getKey(),
+                      interpolatePath(itpProver, path.getValue(), workerSatCheckTimer));
+                }
+              }
+              return result;
+            });
+      }
+
+      for (Map<Integer, Optional<List<BooleanFormula>>> result : workerPool.invokeAll(tasks)) {
+        interpolants.putAll(result);
+      }
+
+      for (int i = 0; i < paths.size(); i++) {
+        if (!interpolants.get(i).isPresent()) {
+          ARGState target = (ARGState) targets.get(i);
+          logger.log(Level.FINE, "Found reachable target state", target);
+          return Optional.of(target);
+        }
+      }
+
+      for (int i = 0; i < paths.size(); i++) {
+        FormulaManagerView workerFmgr = workerPool.getSolver(i % workers).getFormulaManager();
+        List<BooleanFormula> translated = new ArrayList<>();
+        for (BooleanFormula itp : interpolants.get(i).orElseThrow()) {
+          translated.add(fmgr.translateFrom(itp, workerFmgr));
+        }
+        interpolants.put(i, Optional.of(translated));
+      }
+
+    } finally {
+      interpolationTime.stop();
+    }
+
+    for (int i = 0; i < paths.size(); i++) {
+      // TODO repeated counterexample is always false currently, we also ignore the return value
+      strategy.performRefinement(
+          pReached, paths.get(i), interpolants.get(i).orElseThrow(), false);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Get the abstraction states on the path from the root (exclusive) to the given target state
+   * (inclusive).
+   */
+  private static List<ARGState> getAbstractionStatesTrace(ARGState target) {
+    List<ARGState> trace = new ArrayList<>();
+    ARGState current = target;
+    while (!current.getParents().isEmpty()) {
+      trace.add(current);
+      do {
+        current = current.getParents().iterator().next();
+      } while (!getPredicateState(current).isAbstractionState());
+    }
+    Collections.reverse(trace);
+    return trace;
+  }
+
+  /**
+   * Check whether the conjunction of the given block formulas is unsatisfiable.
+   *
+   * @return The sequence of interpolants for the block formulas, or empty if they are satisfiable.
+   */
+  private static <T> Optional<List<BooleanFormula>> interpolatePath(
+      InterpolatingProverEnvironment<T> itpProver,
+      List<BooleanFormula> blockFormulas,
+      TimerWrapper satCheckTimer)
+      throws SolverException, InterruptedException {
+    List<T> itpIds = new ArrayList<>(blockFormulas.size());
+    for (BooleanFormula blockFormula : blockFormulas) {
+      itpIds.add(itpProver.push(blockFormula));
+    }
+    satCheckTimer.start();
+    boolean isUnsat;
+    try {
+      isUnsat = itpProver.isUnsat();
+    } finally {
+      satCheckTimer.stop();
+    }
+    if (!isUnsat) {
+      return Optional.empty();
+    }
+    return Optional.of(itpProver.getSeqInterpolants0(itpIds));
+  }
+
+  @Override
+  public void close() {
+    if (workerPool != null) {
+      workerPool.close();
+    }
+  }
+
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(new Stats());
@@ -0,0 +1,128 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/** Tests that global refinement with several threads has the same results as with one thread. */
+public class PredicateCPAGlobalRefinerTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void safeProgram() throws Exception {
+    checkParallelResult(program("i != 10"), Result.TRUE);
+  }
+
+  @Test
+  public void unsafeProgram() throws Exception {
+    checkParallelResult(program("i == 10 && x == 5"), Result.FALSE);
+  }
+
+  private void checkParallelResult(String pProgram, Result pExpected) throws Exception {
+    assertThat(run(pProgram, 1).getCheckerResult().getResult()).isEqualTo(pExpected);
+
+    TestResults parallel = run(pProgram, 3);
+    assertThat(parallel.getCheckerResult().getResult()).isEqualTo(pExpected);
+
+    ByteArrayOutputStream statistics = new ByteArrayOutputStream();
+    @SuppressWarnings("checkstyle:IllegalInstantiation")
+    PrintStream out = new PrintStream(statistics, true, StandardCharsets.UTF_8.name());
+    parallel.getCheckerResult().printStatistics(out);
+    String printed = statistics.toString(StandardCharsets.UTF_8.name());
+    assertThat(printed).containsMatch("Number of predicate refinements: +[1-9]");
+    assertThat(printed).containsMatch("Time for sat-checks: +[0-9.]+s");
+
+    // the worker threads are stopped when the analysis is closed
+    for (int i = 0; i < 100 && hasWorkerThreads(); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(hasWorkerThreads()).isFalse();
+  }
+
+  private static boolean hasWorkerThreads() {
+    return Thread.getAllStackTraces()
+        .keySet()
+        .stream()
+        .anyMatch(t -> t.getName().startsWith("global-refinement-"));
+  }
+
+  private static TestResults run(String pProgram, int pThreads) throws Exception {
+    Configuration config =
+        TestDataTools.configurationForTest()
+            .loadFromFile("config/predicateAnalysis.properties")
+            .setOption("solver.solver", "SMTINTERPOL")
+            .setOption("cpa.predicate.encodeBitvectorAs", "INTEGER")
+            .setOption("cpa.predicate.encodeFloatAs", "RATIONAL")
+            .setOption("analysis.checkCounterexamples", "false")
+            .setOption("cegar.refiner", "cpa.predicate.PredicateGlobalRefiner")
+            .setOption("cegar.globalRefinement", "true")
+            .setOption("cpa.predicate.refinement.global.threads", Integer.toString(pThreads))
+            .build();
+    return CPATestRunner.run(config, pProgram);
+  }
+
+  /**
+   * A program with a loop and two error locations, the second of which is reachable if the given
+   * condition holds after the loop.
+   */
+  private String program(String pCondition) throws Exception {
+    Path program = tempFolder.newFile("program.c").toPath();
+    Files.write(
+        program,
+        ImmutableList.of(
+            "extern int __VERIFIER_nondet_int();",
+            "int main() {",
+            "  int i = 0;",
+            "  int x = __VERIFIER_nondet_int();",
+            "  while (i < 10) {",
+            "    i++;",
+            "    if (x > 0 && i > 10) {",
+            "      ERROR: return 1;",
+            "    }",
+            "  }",
+            "  if (" + pCondition + ") {",
+            "    goto ERROR;",
+            "  }",
+            "  return 0;",
+            "}"),
+        StandardCharsets.UTF_8);
+    return program.toString();
+  }
+}
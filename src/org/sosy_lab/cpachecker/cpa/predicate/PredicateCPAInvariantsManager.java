@@ -84,6 +84,7 @@ import org.sosy_lab.cpachecker.core.algorithm.bmc.CandidateGenerator;
 import org.sosy_lab.cpachecker.core.algorithm.bmc.StaticCandidateProvider;
 import org.sosy_lab.cpachecker.core.algorithm.bmc.candidateinvariants.CandidateInvariant;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.CPAInvariantGenerator;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantExchange;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantGenerator;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.KInductionInvariantChecker;
@@ -256,6 +257,7 @@ class PredicateCPAInvariantsManager implements StatisticsProvider, InvariantSupp
   private final Map<CFANode, Set<BooleanFormula>> locationInvariantsCache = new HashMap<>();
 
   private final FormulaInvariantsSupplier globalInvariants;
+  private final InvariantExchange invariantExchange;
   private final Specification specification;
 
   public PredicateCPAInvariantsManager(
@@ -275,6 +277,7 @@ class PredicateCPAInvariantsManager implements StatisticsProvider, InvariantSupp
     cfa = pCfa;
 
     globalInvariants = new FormulaInvariantsSupplier(pAggregatedReachedSets);
+    invariantExchange = pAggregatedReachedSets.getInvariantExchange();
     updateGlobalInvariants();
 
     if (generationStrategy.contains(InvariantGenerationStrategy.PF_CNF_KIND)
@@ -318,6 +321,12 @@ class PredicateCPAInvariantsManager implements StatisticsProvider, InvariantSupp
       globalInvariant =
           globalInvariants.getInvariantFor(
               pNode, pCallstackInformation, pFormulaManager, pPathFormulaManager, pContext);
+      // invariants published by analyses that are still running
+      globalInvariant =
+          bfManager.and(
+              globalInvariant,
+              invariantExchange.getInvariantFor(
+                  pNode, pCallstackInformation, pFormulaManager, pPathFormulaManager, pContext));
     }
 
     return bfManager.and(globalInvariant, bfManager.and(localInvariants));
@@ -802,15 +811,19 @@ class PredicateCPAInvariantsManager implements StatisticsProvider, InvariantSupp
       InvCandidateGenerator candidateGenerator =
           new InvCandidateGenerator(pPath, pAbstractionStatesTrace);
 
-      KInductionInvariantChecker invChecker =
-          new KInductionInvariantChecker(
-              config,
-              pInvariantShutdown,
-              new OnlyWarningsLogmanager(logger),
-              cfa,
-              specification,
-              candidateGenerator);
-      invChecker.checkCandidates();
+      try {
+        KInductionInvariantChecker invChecker =
+            new KInductionInvariantChecker(
+                config,
+                pInvariantShutdown,
+                new OnlyWarningsLogmanager(logger),
+                cfa,
+                specification,
+                candidateGenerator);
+        invChecker.checkCandidates();
+      } finally {
+        candidateGenerator.imgr.close();
+      }
 
       if (candidateGenerator.hasFoundInvariants()) {
         List<Pair<BooleanFormula, CFANode>> invariants =
@@ -444,7 +444,8 @@ public class PredicateCPARefiner implements ARGBasedRefiner, StatisticsProvider
       throws CPAException, InterruptedException {
 
     CounterexampleTraceInfo counterexample =
-        interpolationManager.buildCounterexampleTraceWithoutInterpolation(formulas);
+        interpolationManager.buildCounterexampleTraceWithoutInterpolation(
+            formulas, abstractionStatesTrace);
 
     // if error is spurious refine
     if (counterexample.isSpurious()) {
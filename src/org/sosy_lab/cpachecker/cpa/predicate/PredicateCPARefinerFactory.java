@@ -145,9 +145,7 @@ public class PredicateCPARefinerFactory {
             config, logger, solver, predicateCpa.getPathFormulaManager(), shutdownNotifier);
     PrefixSelector prefixSelector = new PrefixSelector(variableClassification, loopStructure);
 
-    InterpolationManager interpolationManager =
-        new InterpolationManager(
-            pfmgr, solver, loopStructure, variableClassification, config, shutdownNotifier, logger);
+    InterpolationManager interpolationManager = predicateCpa.getInterpolationManager();
 
     PathChecker pathChecker =
         new PathChecker(config, logger, shutdownNotifier, machineModel, pfmgr, solver);
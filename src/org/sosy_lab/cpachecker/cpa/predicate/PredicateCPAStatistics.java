@@ -295,6 +295,15 @@ class PredicateCPAStatistics implements Statistics {
     out.println("Number of SMT sat checks:          " + solver.satChecks);
     out.println("  trivial:                         " + solver.trivialSatChecks);
     out.println("  cached:                          " + solver.cachedSatChecks);
+    if (solver.canonicalCachedSatChecks > 0) {
+      out.println("    after SSA renaming:            " + solver.canonicalCachedSatChecks + " (" + toPercent(solver.canonicalCachedSatChecks, solver.satChecks) + ")");
+    }
+    if (solver.storedSatChecks > 0) {
+      out.println("    from query store:              " + solver.storedSatChecks + " (" + toPercent(solver.storedSatChecks, solver.satChecks) + ")");
+    }
+    if (solver.queryStoreTime.getNumberOfIntervals() > 0) {
+      out.println("  Time for query-store lookups:    " + solver.queryStoreTime);
+    }
     out.println();
     out.println("Max ABE block size:                       " + statistics.blockSize.getMaxValue());
     put(out, 0, statistics.blockSize);
@@ -321,6 +330,9 @@ class PredicateCPAStatistics implements Statistics {
       if (as.cartesianAbstractionTime.getNumberOfIntervals() > 0) {
         out.println("Number of preds cached for cartesian abs: " + valueWithPercentage(as.numCartesianAbsPredicatesCached, as.numTotalPredicates));
         out.println("Number of preds solved by cartesian abs:  " + valueWithPercentage(as.numCartesianAbsPredicates, as.numTotalPredicates));
+        if (as.numParallelCartesianAbsPredicates > 0) {
+          out.println("  Number of preds checked in parallel:    " + valueWithPercentage(as.numParallelCartesianAbsPredicates, as.numTotalPredicates));
+        }
       }
       if (as.booleanAbstractionTime.getNumberOfIntervals() > 0) {
         out.println("Number of preds handled by boolean abs:   " + valueWithPercentage(as.numBooleanAbsPredicates, as.numTotalPredicates));
@@ -351,6 +363,9 @@ class PredicateCPAStatistics implements Statistics {
       }
       if (as.cartesianAbstractionTime.getNumberOfIntervals() > 0) {
         out.println("    Cartesian abstraction:           " + as.cartesianAbstractionTime);
+        if (as.numParallelCartesianAbsPredicates > 0) {
+          out.println("      Parallel predicate checks:     " + as.parallelCartesianAbstractionTime.prettyFormat());
+        }
       }
       if (as.booleanAbstractionTime.getNumberOfIntervals() > 0) {
         out.println("    Boolean abstraction:             " + as.booleanAbstractionTime);
@@ -119,14 +119,8 @@ public class PredicateForcedCovering implements ForcedCovering, StatisticsProvid
     @SuppressWarnings("resource")
     PredicateCPA predicateCpa =
         CPAs.retrieveCPAOrFail(pCpa, PredicateCPA.class, PredicateForcedCovering.class);
-    imgr = new InterpolationManager(
-                                                   predicateCpa.getPathFormulaManager(),
-                                                   predicateCpa.getSolver(),
-                                                   predicateCpa.getCfa().getLoopStructure(),
-                                                   predicateCpa.getCfa().getVarClassification(),
-                                                   config,
-                                                   predicateCpa.getShutdownNotifier(),
-                                                   pLogger);
+    // shared with the refiner, and closed together with the PredicateCPA
+    imgr = predicateCpa.getInterpolationManager();
     fmgr = predicateCpa.getSolver().getFormulaManager();
     predAbsMgr = predicateCpa.getPredicateManager();
     impact = new ImpactUtility(config, fmgr, predAbsMgr);
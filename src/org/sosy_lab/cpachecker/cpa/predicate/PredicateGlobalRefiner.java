@@ -56,6 +56,7 @@ public abstract class PredicateGlobalRefiner implements Refiner {
         strategy,
         solver,
         CPAs.retrieveCPAOrFail(pCpa, ARGCPA.class, PredicateGlobalRefiner.class),
-        config);
+        config,
+        predicateCpa.getShutdownNotifier());
   }
 }
@@ -225,7 +225,8 @@ public class PredicateStaticRefiner extends StaticRefiner
     satCheckTime.start();
     try {
       counterexample =
-          itpManager.buildCounterexampleTraceWithoutInterpolation(formulas);
+          itpManager.buildCounterexampleTraceWithoutInterpolation(
+              formulas, abstractionStatesTrace);
     } finally {
       satCheckTime.stop();
     }
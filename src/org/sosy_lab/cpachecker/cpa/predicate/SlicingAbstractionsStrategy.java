@@ -566,7 +566,7 @@ public class SlicingAbstractionsStrategy extends RefinementStrategy implements S
       throws InterruptedException, CPAException {
     boolean infeasible = false;
 
-    SSAMap startSSAMap = SSAMap.emptySSAMap().withDefault(1);
+    SSAMap startSSAMap = pfmgr.makeEmptyPathFormula().getSsa().withDefault(1);
     PointerTargetSet startPts = PointerTargetSet.emptyPointerTargetSet();
     BooleanFormula formula = buildPathFormula(start, stop, segmentList, startSSAMap, startPts, solver, pfmgr, true).getFormula();
     try (ProverEnvironment thmProver = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
@@ -442,7 +442,7 @@ public class SlicingAbstractionsUtils {
         pSolver,
         pRoot,
         pPath,
-        SSAMap.emptySSAMap().withDefault(1),
+        pfmgr.makeEmptyPathFormula().getSsa().withDefault(1),
         PointerTargetSet.emptyPointerTargetSet(),
         includePartialInvariants);
   }
@@ -429,13 +429,12 @@ public class ReachingDefState implements AbstractState, Serializable,
       out.writeInt(exit.getNodeNumber());
     }
 
-    @SuppressWarnings("UnusedVariable") // parameter is required by API
     private void readObject(java.io.ObjectInputStream in) throws IOException {
       int nodeNumber = in.readInt();
       CFAInfo cfaInfo = GlobalInfo.getInstance().getCFAInfo().orElseThrow();
-      entry = cfaInfo.getNodeByNodeNumber(nodeNumber);
+      entry = cfaInfo.getNodeByNodeNumber(nodeNumber, in);
       nodeNumber = in.readInt();
-      exit = cfaInfo.getNodeByNodeNumber(nodeNumber);
+      exit = cfaInfo.getNodeByNodeNumber(nodeNumber, in);
     }
 
   }
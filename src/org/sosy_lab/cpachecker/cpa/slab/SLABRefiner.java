@@ -183,9 +183,9 @@ public class SLABRefiner implements Refiner, StatisticsProvider {
   private boolean isInfeasibleEdge(SLARGState startState, SLARGState endState)
       throws InterruptedException, CPAException {
 
-    SSAMap startSSAMap = SSAMap.emptySSAMap().withDefault(1);
-    PointerTargetSet startPts = PointerTargetSet.emptyPointerTargetSet();
     PathFormulaManager pfmgr = slabCpa.getPredicateCpa().getPathFormulaManager();
+    SSAMap startSSAMap = pfmgr.makeEmptyPathFormula().getSsa().withDefault(1);
+    PointerTargetSet startPts = PointerTargetSet.emptyPointerTargetSet();
 
     BooleanFormula formula =
         buildPathFormula(startState, endState, startSSAMap, startPts, solver, pfmgr, true)
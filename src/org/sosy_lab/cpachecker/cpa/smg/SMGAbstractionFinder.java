@@ -56,10 +56,23 @@ public abstract class SMGAbstractionFinder {
     seqLengthIncomparableThreshold = pSeqLengthIncomparableThreshold;
   }
 
-  public abstract Set<SMGAbstractionCandidate> traverse(
+  public Set<SMGAbstractionCandidate> traverse(
       UnmodifiableCLangSMG pSmg,
       UnmodifiableSMGState pSMGState,
       Set<SMGAbstractionBlock> abstractionBlocks)
+      throws SMGInconsistentException {
+    return traverse(pSmg, pSMGState, abstractionBlocks, pSmg.getHeapObjects());
+  }
+
+  /**
+   * Find all candidates whose sequences start at or run through one of the given heap objects.
+   * Sequences are always followed to their end, even beyond the given objects.
+   */
+  public abstract Set<SMGAbstractionCandidate> traverse(
+      UnmodifiableCLangSMG pSmg,
+      UnmodifiableSMGState pSMGState,
+      Set<SMGAbstractionBlock> abstractionBlocks,
+      Iterable<SMGObject> pStartObjects)
       throws SMGInconsistentException;
 
   protected boolean isSubSmgSeperate(
@@ -25,16 +25,26 @@ package org.sosy_lab.cpachecker.cpa.smg;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.CLangSMG;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.dll.SMGDoublyLinkedListFinder;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.sll.SMGSingleLinkedListFinder;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 
 public class SMGAbstractionManager {
 
@@ -46,6 +56,12 @@ public class SMGAbstractionManager {
   private final SMGDoublyLinkedListFinder dllCandidateFinder;
   private final SMGSingleLinkedListFinder sllCandidateFinder;
 
+  /**
+   * Whether the heap had no candidates when its changes were last cleared, such that only
+   * candidates touching changed objects need to be searched.
+   */
+  private final boolean incremental;
+
   @VisibleForTesting
   public SMGAbstractionManager(LogManager pLogger, CLangSMG pSMG, SMGState pSMGstate) {
     smg = pSMG;
@@ -54,25 +70,110 @@ public class SMGAbstractionManager {
     blocks = ImmutableSet.of();
     dllCandidateFinder = new SMGDoublyLinkedListFinder();
     sllCandidateFinder = new SMGSingleLinkedListFinder();
+    incremental = false;
   }
 
   public SMGAbstractionManager(LogManager pLogger, CLangSMG pSMG, SMGState pSMGstate,
       Set<SMGAbstractionBlock> pBlocks, int equalSeq, int entailSeq, int incSeq) {
+    this(pLogger, pSMG, pSMGstate, pBlocks, equalSeq, entailSeq, incSeq, false);
+  }
+
+  /**
+   * Create a manager for heap abstraction.
+   *
+   * @param pIncremental whether the SMG did not contain any abstraction candidates for the given
+   *     blocks when {@link CLangSMG#markClean()} was called last. Then only sequences that touch
+   *     an object or value changed since then are searched.
+   */
+  public SMGAbstractionManager(
+      LogManager pLogger,
+      CLangSMG pSMG,
+      SMGState pSMGstate,
+      Set<SMGAbstractionBlock> pBlocks,
+      int equalSeq,
+      int entailSeq,
+      int incSeq,
+      boolean pIncremental) {
     smg = pSMG;
     smgState = pSMGstate;
     logger = pLogger;
     blocks = pBlocks;
     dllCandidateFinder = new SMGDoublyLinkedListFinder(equalSeq, entailSeq, incSeq);
     sllCandidateFinder = new SMGSingleLinkedListFinder(equalSeq, entailSeq, incSeq);
+    incremental = pIncremental;
   }
 
   private List<SMGAbstractionCandidate> getCandidates() throws SMGInconsistentException {
+    Iterable<SMGObject> startObjects = smg.getHeapObjects();
+    if (incremental) {
+      Set<SMGObject> affectedObjects = getObjectsAffectedByChanges();
+      if (affectedObjects != null) {
+        if (affectedObjects.isEmpty()) {
+          return ImmutableList.of();
+        }
+        startObjects = Iterables.filter(startObjects, affectedObjects::contains);
+      }
+    }
     return ImmutableList.<SMGAbstractionCandidate>builder()
-        .addAll(dllCandidateFinder.traverse(smg, smgState, blocks))
-        .addAll(sllCandidateFinder.traverse(smg, smgState, blocks))
+        .addAll(dllCandidateFinder.traverse(smg, smgState, blocks, startObjects))
+        .addAll(sllCandidateFinder.traverse(smg, smgState, blocks, startObjects))
         .build();
   }
 
+  /**
+   * Returns all objects from which a changed object or an object with a changed value is
+   * reachable, or null if changes are not tracked.
+   *
+   * <p>A sequence of list segments is only valid if the segments can be joined with their sub-SMGs
+   * (all objects reachable from them, including their values, inequalities and explicit values), and
+   * if there are no other pointers into the segments. A sequence that touches none of the changed
+   * objects and values thus is as invalid as in the heap without candidates when changes were
+   * cleared. Any sequence that touches a change starts at an object from which the change is
+   * reachable.
+   */
+  @VisibleForTesting
+  @Nullable Set<SMGObject> getObjectsAffectedByChanges() {
+    Set<SMGObject> dirtyObjects = smg.getDirtyObjects();
+    Set<SMGValue> dirtyValues = smg.getDirtyValues();
+    if (dirtyObjects == null || dirtyValues == null) {
+      return null;
+    }
+
+    // The null pointer never changes its target, and its inequalities are also stored for the
+    // other value. Without ignoring it, every object with a null pointer would be affected.
+    Set<SMGObject> affected = new HashSet<>(dirtyObjects);
+    for (SMGValue value : dirtyValues) {
+      if (!value.isZero() && smg.isPointer(value)) {
+        affected.add(smg.getPointer(value).getObject());
+      }
+    }
+
+    // objects with a changed value, and the objects pointing to each object
+    Multimap<SMGObject, SMGObject> predecessors = HashMultimap.create();
+    for (SMGEdgeHasValue hve : smg.getHVEdges()) {
+      SMGValue value = hve.getValue();
+      if (value.isZero()) {
+        continue;
+      }
+      if (dirtyValues.contains(value)) {
+        affected.add(hve.getObject());
+      }
+      if (smg.isPointer(value)) {
+        predecessors.put(smg.getPointer(value).getObject(), hve.getObject());
+      }
+    }
+
+    Deque<SMGObject> waitlist = new ArrayDeque<>(affected);
+    while (!waitlist.isEmpty()) {
+      for (SMGObject predecessor : predecessors.get(waitlist.pop())) {
+        if (affected.add(predecessor)) {
+          waitlist.push(predecessor);
+        }
+      }
+    }
+    return affected;
+  }
+
   private SMGAbstractionCandidate getBestCandidate(
       List<SMGAbstractionCandidate> abstractionCandidates) {
     return Collections.max(
@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.smg;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import java.util.Set;
 import org.junit.Before;
@@ -46,15 +47,26 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGZeroValue;
 
 public class SMGAbstractionManagerTest {
   private CLangSMG smg;
+  private SMGState dummyState;
+
   @Before
-  public void setUp() {
+  public void setUp() throws InvalidConfigurationException {
     smg = new CLangSMG(MachineModel.LINUX64);
+    addList("pointer");
+    dummyState =
+        new SMGState(
+            LogManager.createTestLogManager(),
+            MachineModel.LINUX32,
+            new SMGOptions(Configuration.defaultConfiguration()));
+  }
 
-    SMGRegion globalVar = new SMGRegion(64, "pointer");
+  /** Add a list of 20 nodes, pointed to by a global variable with the given name. */
+  private void addList(String pGlobalName) {
+    SMGRegion globalVar = new SMGRegion(64, pGlobalName);
 
     SMGRegion next = null;
     for (int i = 0; i < 20; i++) {
-      SMGRegion node = new SMGRegion(128, "node " + i);
+      SMGRegion node = new SMGRegion(128, pGlobalName + " node " + i);
       SMGEdgeHasValue hv;
       smg.addHeapObject(node);
       if (next != null) {
@@ -89,18 +101,82 @@ public class SMGAbstractionManagerTest {
     smg.addHasValueEdge(hv);
   }
 
+  private SMGObject getListSegment(String pGlobalName) {
+    SMGRegion globalVar = smg.getObjectForVisibleVariable(pGlobalName);
+    Set<SMGEdgeHasValue> hvs = smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(globalVar));
+    assertThat(hvs).hasSize(1);
+    SMGEdgeHasValue hv = Iterables.getOnlyElement(hvs);
+    SMGEdgePointsTo pt = smg.getPointer(hv.getValue());
+    return pt.getObject();
+  }
+
+  private SMGAbstractionManager createIncrementalManager() {
+    return new SMGAbstractionManager(
+        LogManager.createTestLogManager(), smg, dummyState, ImmutableSet.of(), 2, 2, 3, true);
+  }
+
   @Test
-  public void testExecute() throws SMGInconsistentException, InvalidConfigurationException {
-    SMGState dummyState = new SMGState(LogManager.createTestLogManager(), MachineModel.LINUX32, new SMGOptions(Configuration.defaultConfiguration()));
+  public void testExecute() throws SMGInconsistentException {
     SMGAbstractionManager manager = new SMGAbstractionManager(LogManager.createTestLogManager(), smg, dummyState);
     manager.execute();
 
+    assertThat(getListSegment("pointer").isAbstract()).isTrue();
+  }
+
+  @Test
+  public void testIncrementalWithoutChanges() throws SMGInconsistentException {
+    new SMGAbstractionManager(LogManager.createTestLogManager(), smg, dummyState).execute();
+    smg.markClean();
+    SMGObject segment = getListSegment("pointer");
+
+    SMGAbstractionManager manager = createIncrementalManager();
+    assertThat(manager.getObjectsAffectedByChanges()).isEmpty();
+    assertThat(manager.execute()).isFalse();
+    assertThat(getListSegment("pointer")).isSameInstanceAs(segment);
+  }
+
+  @Test
+  public void testIncrementalWithoutTrackedChanges() throws SMGInconsistentException {
+    // changes are not tracked before the first call of markClean, so everything is searched
+    SMGAbstractionManager manager = createIncrementalManager();
+    assertThat(manager.getObjectsAffectedByChanges()).isNull();
+    assertThat(manager.execute()).isTrue();
+    assertThat(getListSegment("pointer").isAbstract()).isTrue();
+  }
+
+  @Test
+  public void testIncrementalOnlySearchesChangedList() throws SMGInconsistentException {
+    new SMGAbstractionManager(LogManager.createTestLogManager(), smg, dummyState).execute();
+    smg.markClean();
+    SMGObject segment = getListSegment("pointer");
+
+    addList("other");
+    SMGObject otherHead = getListSegment("other");
+
+    SMGAbstractionManager manager = createIncrementalManager();
+    Set<SMGObject> affected = manager.getObjectsAffectedByChanges();
+    assertThat(affected).contains(otherHead);
+    assertThat(affected).doesNotContain(segment);
+    assertThat(affected).doesNotContain(smg.getObjectForVisibleVariable("pointer"));
+
+    assertThat(manager.execute()).isTrue();
+    assertThat(getListSegment("other").isAbstract()).isTrue();
+    assertThat(getListSegment("pointer")).isSameInstanceAs(segment);
+  }
+
+  @Test
+  public void testIncrementalTracksValueRelations() throws SMGInconsistentException {
+    new SMGAbstractionManager(LogManager.createTestLogManager(), smg, dummyState).execute();
+    smg.markClean();
     SMGRegion globalVar = smg.getObjectForVisibleVariable("pointer");
-    Set<SMGEdgeHasValue> hvs = smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(globalVar));
-    assertThat(hvs).hasSize(1);
-    SMGEdgeHasValue hv = Iterables.getOnlyElement(hvs);
-    SMGEdgePointsTo pt = smg.getPointer(hv.getValue());
-    SMGObject segment = pt.getObject();
-    assertThat(segment.isAbstract()).isTrue();
+    SMGObject segment = getListSegment("pointer");
+    SMGValue address =
+        Iterables.getOnlyElement(smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(globalVar)))
+            .getValue();
+
+    // an inequality changes the objects holding the value and the object it points to
+    smg.addNeqRelation(address, SMGZeroValue.INSTANCE);
+    assertThat(createIncrementalManager().getObjectsAffectedByChanges())
+        .containsAtLeast(globalVar, segment);
   }
 }
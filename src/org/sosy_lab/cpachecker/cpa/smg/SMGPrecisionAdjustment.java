@@ -139,8 +139,11 @@ public class SMGPrecisionAdjustment implements PrecisionAdjustment {
             SMGExportLevel.EVERY, exportOptions);
         logger.log(Level.ALL, "Heap abstraction on node ", node.getNodeNumber(),
             " with state id: ", pState.getId());
-        result = newState;
       }
+
+      // Only the copy tracks the changes since this heap abstraction,
+      // such that the heap abstraction of its successors is incremental.
+      result = newState;
     }
 
     statistics.totalAbstraction.stop();
@@ -24,7 +24,6 @@
 package org.sosy_lab.cpachecker.cpa.smg;
 
 import java.math.BigInteger;
-import java.util.Map.Entry;
 import java.util.logging.Level;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -36,8 +35,6 @@ import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.PredRelation;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.PredRelation.ExplicitRelation;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.PredRelation.SymbolicRelation;
-import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
-import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.predicates.smt.BitvectorFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
@@ -174,10 +171,9 @@ public class SMGPredicateManager {
       return result;
     }
 
-    for (Entry<Pair<SMGValue, SMGValue>, SymbolicRelation> entry : pRelation.getValuesRelations()) {
-      if (entry.getKey().getSecond().compareTo(entry.getKey().getFirst()) > 0) {
-        SymbolicRelation value = entry.getValue();
-        result = addPredicateToFormula(result, value, pRelation, conjunction);
+    for (SymbolicRelation relation : pRelation.getValuesRelations()) {
+      if (relation.getFirstValue().compareTo(relation.getSecondValue()) != 0) {
+        result = addPredicateToFormula(result, relation, pRelation, conjunction);
       }
     }
 
@@ -26,7 +26,6 @@ package org.sosy_lab.cpachecker.cpa.smg;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -89,6 +88,7 @@ import org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual;
 import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoin;
 import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoinStatus;
 import org.sosy_lab.cpachecker.cpa.smg.refiner.SMGMemoryPath;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentBiMap;
 import org.sosy_lab.cpachecker.cpa.smg.util.PersistentSet;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
@@ -110,13 +110,21 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   private final int predecessorId;
   private final int id;
 
-  private final BiMap<SMGKnownSymbolicValue, SMGKnownExpValue> explicitValues = HashBiMap.create();
+  // after construction, changed only by setExplicitValue, which marks the changes in the heap
+  private PersistentBiMap<SMGKnownSymbolicValue, SMGKnownExpValue> explicitValues;
   private final CLangSMG heap;
 
   private final boolean blockEnded;
 
   private SMGErrorInfo errorInfo;
 
+  /**
+   * The abstraction blocks of the last complete heap abstraction of this state or of the state it
+   * was copied from, or null if there was none. The heap tracks all changes since that abstraction,
+   * thus the next heap abstraction with the same blocks only needs to consider changed objects.
+   */
+  private @Nullable ImmutableSet<SMGAbstractionBlock> heapAbstractionBlocks = null;
+
   private final LogManager logger;
   private final SMGOptions options;
   private final long sizeOfVoidPointerInBits;
@@ -138,14 +146,17 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
   @Override
   public SMGState withErrorDescription(String pErrorDescription) {
-    return new SMGState(
-        logger,
-        options,
-        heap.copyOf(),
-        id,
-        explicitValues,
-        errorInfo.withErrorMessage(pErrorDescription),
-        blockEnded);
+    SMGState copy =
+        new SMGState(
+            logger,
+            options,
+            heap.copyOf(),
+            id,
+            explicitValues,
+            errorInfo.withErrorMessage(pErrorDescription),
+            blockEnded);
+    copy.heapAbstractionBlocks = heapAbstractionBlocks;
+    return copy;
   }
 
   /**
@@ -171,16 +182,26 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       CLangSMG pHeap,
       int pPredId,
       Map<SMGKnownSymbolicValue, SMGKnownExpValue> pMergedExplicitValues) {
-    this(pLogger, pOptions, pHeap, pPredId, pMergedExplicitValues, SMGErrorInfo.of(), false);
+    this(
+        pLogger,
+        pOptions,
+        pHeap,
+        pPredId,
+        toPersistentBiMap(pMergedExplicitValues),
+        SMGErrorInfo.of(),
+        false);
   }
 
-  /** Copy constructor. */
+  /**
+   * Copy constructor. The explicit values are immutable and thus shared with the original state,
+   * such that copying a state does not depend on the number of explicit values.
+   */
   private SMGState(
       LogManager pLogger,
       SMGOptions pOptions,
       CLangSMG pHeap,
       int pPredId,
-      Map<SMGKnownSymbolicValue, SMGKnownExpValue> pExplicitValues,
+      PersistentBiMap<SMGKnownSymbolicValue, SMGKnownExpValue> pExplicitValues,
       SMGErrorInfo pErrorInfo,
       boolean pBlockEnded) {
     options = pOptions;
@@ -188,9 +209,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     logger = pLogger;
     predecessorId = pPredId;
     id = ID_COUNTER.getFreshId();
-    Preconditions.checkArgument(!pExplicitValues.containsKey(null));
-    Preconditions.checkArgument(!pExplicitValues.containsValue(null));
-    explicitValues.putAll(pExplicitValues);
+    explicitValues = pExplicitValues;
     errorInfo = pErrorInfo;
     blockEnded = pBlockEnded;
     sizeOfVoidPointerInBits =
@@ -203,25 +222,41 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     options = pOriginalState.options;
     predecessorId = pOriginalState.getId();
     id = ID_COUNTER.getFreshId();
-    explicitValues.putAll(pOriginalState.explicitValues);
+    explicitValues = pOriginalState.explicitValues;
     blockEnded = pOriginalState.blockEnded;
     errorInfo = pOriginalState.errorInfo.withProperty(pProperty);
     sizeOfVoidPointerInBits = pOriginalState.sizeOfVoidPointerInBits;
+    heapAbstractionBlocks = pOriginalState.heapAbstractionBlocks;
+  }
+
+  private static PersistentBiMap<SMGKnownSymbolicValue, SMGKnownExpValue> toPersistentBiMap(
+      Map<SMGKnownSymbolicValue, SMGKnownExpValue> pExplicitValues) {
+    Preconditions.checkArgument(!pExplicitValues.containsKey(null));
+    Preconditions.checkArgument(!pExplicitValues.containsValue(null));
+    return PersistentBiMap.<SMGKnownSymbolicValue, SMGKnownExpValue>of()
+        .putAllAndCopy(pExplicitValues);
   }
 
   @Override
   public SMGState copyOf() {
-    return new SMGState(logger, options, heap.copyOf(), id, explicitValues, errorInfo, blockEnded);
+    SMGState copy =
+        new SMGState(logger, options, heap.copyOf(), id, explicitValues, errorInfo, blockEnded);
+    copy.heapAbstractionBlocks = heapAbstractionBlocks;
+    return copy;
   }
 
   @Override
   public SMGState copyWith(CLangSMG pSmg, BiMap<SMGKnownSymbolicValue, SMGKnownExpValue> pValues) {
-    return new SMGState(logger, options, pSmg, id, pValues, errorInfo, blockEnded);
+    return new SMGState(
+        logger, options, pSmg, id, toPersistentBiMap(pValues), errorInfo, blockEnded);
   }
 
   @Override
   public SMGState copyWithBlockEnd(boolean isBlockEnd) {
-    return new SMGState(logger, options, heap.copyOf(), id, explicitValues, errorInfo, isBlockEnd);
+    SMGState copy =
+        new SMGState(logger, options, heap.copyOf(), id, explicitValues, errorInfo, isBlockEnd);
+    copy.heapAbstractionBlocks = heapAbstractionBlocks;
+    return copy;
   }
 
   @Override
@@ -229,7 +264,15 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     if (errorInfo.equals(pOther.errorInfo)) {
       return this;
     }
-    SMGState result = new SMGState(logger, options, heap, ID_COUNTER.getFreshId(), explicitValues);
+    SMGState result =
+        new SMGState(
+            logger,
+            options,
+            heap,
+            ID_COUNTER.getFreshId(),
+            explicitValues,
+            SMGErrorInfo.of(),
+            false);
     result.errorInfo = result.errorInfo.mergeWith(pOther.errorInfo);
     return result;
   }
@@ -403,7 +446,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   @Override
   public String toDot(String pName, String pLocation) {
     SMGPlotter plotter = new SMGPlotter();
-    return plotter.smgAsDot(heap, pName, pLocation, explicitValues);
+    return plotter.smgAsDot(heap, pName, pLocation, explicitValues.asMap());
   }
 
   /**
@@ -1354,7 +1397,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
     // join explicit values
     Map<SMGKnownSymbolicValue, SMGKnownExpValue> mergedExplicitValues = new HashMap<>();
-    for (Entry<SMGKnownSymbolicValue, SMGKnownExpValue> entry : explicitValues.entrySet()) {
+    for (Entry<SMGKnownSymbolicValue, SMGKnownExpValue> entry : getExplicitValues()) {
       if (destHeap.getValues().contains(entry.getKey())) {
         mergedExplicitValues.put(entry.getKey(), entry.getValue());
       }
@@ -1787,9 +1830,10 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     }
 
     heap.replaceValue(pKnownVal1, pKnownVal2);
-    SMGKnownExpValue expVal = explicitValues.remove(pKnownVal2);
+    SMGKnownExpValue expVal = explicitValues.get(pKnownVal2);
     if (expVal != null) {
-      explicitValues.put(pKnownVal1, expVal);
+      setExplicitValue(pKnownVal2, null);
+      setExplicitValue(pKnownVal1, expVal);
     }
   }
 
@@ -1814,7 +1858,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     }
       logger.logf(
           Level.FINER, "SymValue1 %s %s SymValue2 %s AddPredicate: %s", pV1, temp, pV2, pEdge);
-      getPathPredicateRelation().addRelation(pV1, pCType1, pV2, pCType2, temp);
+      heap.addPredicateRelation(pV1, pCType1, pV2, pCType2, temp);
   }
 }
 
@@ -1830,7 +1874,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       }
       logger.logf(
           Level.FINER, "SymValue %s %s; ExplValue %s; AddPredicate: %s", pV1, temp, pV2, pEdge);
-      getPathPredicateRelation().addExplicitRelation(pV1, pCType1, pV2, pCType2, temp);
+      heap.addPredicateRelation(pV1, pCType1, pV2, pCType2, temp);
     }
   }
 
@@ -1846,9 +1890,8 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       logger.log(Level.FINER, "Add Error Predicate: SymValue  ",
           pSymbolicValue, " ; ExplValue", " ",
           pExplicitValue, "; on edge: ", pEdge);
-      getErrorPredicateRelation()
-          .addExplicitRelation(
-              pSymbolicValue, pCType1, pExplicitValue, pCType2, BinaryOperator.GREATER_THAN);
+      heap.addErrorPredicate(
+          pSymbolicValue, pCType1, pExplicitValue, pCType2, BinaryOperator.GREATER_THAN);
     }
   }
 
@@ -1872,30 +1915,44 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     Preconditions.checkNotNull(pKey);
     Preconditions.checkNotNull(pValue);
 
-    if (explicitValues.inverse().containsKey(pValue)) {
-      SMGKnownSymbolicValue symValue = explicitValues.inverse().get(pValue);
+    if (explicitValues.containsValue(pValue)) {
+      SMGKnownSymbolicValue symValue = explicitValues.getKey(pValue);
 
       if (!pKey.equals(symValue)) {
-        explicitValues.remove(symValue);
+        setExplicitValue(symValue, null);
         if (symValue.isZero()) { // swap values, we prefer ZERO in the SMG.
           heap.replaceValue(symValue, pKey);
         } else {
           heap.replaceValue(pKey, symValue);
         }
-        explicitValues.put(pKey, pValue);
+        setExplicitValue(pKey, pValue);
         return symValue;
       }
 
       return null;
     }
 
-    explicitValues.put(pKey, pValue);
+    setExplicitValue(pKey, pValue);
     return null;
   }
 
   @Deprecated // unused
   public void clearExplicit(SMGKnownSymbolicValue pKey) {
-    explicitValues.remove(pKey);
+    setExplicitValue(pKey, null);
+  }
+
+  /**
+   * Sets the explicit value of a symbolic value, or removes it if the given explicit value is null.
+   * All changes of the explicit values go through this method, because it marks the symbolic value
+   * as changed for the incremental heap abstraction.
+   */
+  private void setExplicitValue(SMGKnownSymbolicValue pKey, @Nullable SMGKnownExpValue pValue) {
+    if (pValue == null) {
+      explicitValues = explicitValues.removeAndCopy(pKey);
+    } else {
+      explicitValues = explicitValues.putAndCopy(pKey, pValue);
+    }
+    heap.markValueDirty(pKey);
   }
 
   @Override
@@ -1970,17 +2027,26 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     return "__" + functionName;
   }
 
+  /**
+   * Abstract the heap with the given blocks. If the last complete heap abstraction of this state
+   * (or of the state it was copied from) used the same blocks, only list segments that touch
+   * objects changed since then are considered, because all other segments were already rejected.
+   */
   public boolean executeHeapAbstraction(Set<SMGAbstractionBlock> blocks)
       throws SMGInconsistentException {
     final SMGAbstractionManager manager;
+    boolean incremental = blocks.equals(heapAbstractionBlocks);
     boolean usesHeapInterpolation = true; // TODO do we need this flag?
     if (usesHeapInterpolation) {
-      manager = new SMGAbstractionManager(logger, heap, this, blocks, 2, 2, 2);
+      manager = new SMGAbstractionManager(logger, heap, this, blocks, 2, 2, 2, incremental);
     } else {
-      manager = new SMGAbstractionManager(logger, heap, this, blocks, 2, 2, 3);
+      manager = new SMGAbstractionManager(logger, heap, this, blocks, 2, 2, 3, incremental);
     }
     boolean change = manager.execute();
     performConsistencyCheck(SMGRuntimeCheck.HALF);
+    // no candidates are left, so start tracking changes for the next heap abstraction
+    heap.markClean();
+    heapAbstractionBlocks = ImmutableSet.copyOf(blocks);
     return change;
   }
 
@@ -2148,6 +2214,6 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
   @Override
   public Set<Entry<SMGKnownSymbolicValue, SMGKnownExpValue>> getExplicitValues() {
-    return Collections.unmodifiableSet(explicitValues.entrySet());
+    return Collections.unmodifiableSet(explicitValues.asMap().entrySet());
   }
 }
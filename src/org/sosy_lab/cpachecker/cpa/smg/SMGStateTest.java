@@ -59,6 +59,7 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.dll.SMGDoublyLinkedList;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.sll.SMGSingleLinkedList;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGAddressValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownExpValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymbolicValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGSymbolicValue;
@@ -620,6 +621,24 @@ public class SMGStateTest {
     assertThat(original.getId()).isEqualTo(copy.getPredecessorId());
   }
 
+  @Test
+  public void explicitValueChangesAreTrackedTest() throws InvalidConfigurationException {
+    CLangSMG heap = new CLangSMG(MachineModel.LINUX64);
+    SMGKnownSymbolicValue value = SMGKnownSymValue.of();
+    heap.addValue(value);
+    SMGState state =
+        new SMGState(
+            logger,
+            new SMGOptions(Configuration.defaultConfiguration()),
+            heap,
+            0,
+            HashBiMap.create());
+    heap.markClean();
+
+    state.putExplicit(value, SMGKnownExpValue.valueOf(5));
+    assertThat(heap.getDirtyValues()).containsExactly(value);
+  }
+
   @Test
   public void WriteReinterpretationTest() throws SMGInconsistentException, InvalidConfigurationException {
     // Empty state
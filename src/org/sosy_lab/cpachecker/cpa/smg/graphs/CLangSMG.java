@@ -137,6 +137,17 @@ public class CLangSMG extends SMG implements UnmodifiableCLangSMG {
     return new CLangSMG(this);
   }
 
+  @Override
+  public boolean sharesStructureWith(UnmodifiableSMG pOther) {
+    if (!super.sharesStructureWith(pOther)) {
+      return false;
+    }
+    CLangSMG other = (CLangSMG) pOther;
+    return stack_objects == other.stack_objects
+        && heap_objects == other.heap_objects
+        && global_objects == other.global_objects;
+  }
+
   /**
    * Add a object to the heap.
    *
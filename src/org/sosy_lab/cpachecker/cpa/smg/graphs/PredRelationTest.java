@@ -0,0 +1,140 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg.graphs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.PredRelation.ExplicitRelation;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.PredRelation.SymbolicRelation;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownExpValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymbolicValue;
+
+public class PredRelationTest {
+
+  private static final int SIZE = 32;
+
+  private final SMGKnownSymbolicValue a = SMGKnownSymValue.of();
+  private final SMGKnownSymbolicValue b = SMGKnownSymValue.of();
+  private final SMGKnownSymbolicValue c = SMGKnownSymValue.of();
+  private final SMGKnownExpValue five = SMGKnownExpValue.valueOf(5);
+
+  private final SymbolicRelation aLessThanB =
+      new SymbolicRelation(a, b, BinaryOperator.LESS_THAN);
+  private final SymbolicRelation bLessThanC =
+      new SymbolicRelation(b, c, BinaryOperator.LESS_THAN);
+  private final ExplicitRelation aEqualsFive =
+      new ExplicitRelation(a, five, BinaryOperator.EQUALS);
+
+  private PredRelation createRelation() {
+    return new PredRelation()
+        .addRelationAndCopy(a, SIZE, b, SIZE, BinaryOperator.LESS_THAN)
+        .addRelationAndCopy(b, SIZE, c, SIZE, BinaryOperator.LESS_THAN)
+        .addExplicitRelationAndCopy(a, SIZE, five, SIZE, BinaryOperator.EQUALS);
+  }
+
+  @Test
+  public void addRelation() {
+    PredRelation relation = createRelation();
+
+    assertThat(relation.getValuesRelations()).containsExactly(aLessThanB, bLessThanC);
+    assertThat(relation.getExplicitRelations()).containsExactly(aEqualsFive);
+    assertThat(relation.getSymbolicSize(a)).isEqualTo(SIZE);
+    assertThat(relation.isEmpty()).isFalse();
+    assertThat(new PredRelation().isEmpty()).isTrue();
+
+    // adding an existing relation does not create a new instance
+    assertThat(relation.addRelationAndCopy(a, b, BinaryOperator.LESS_THAN))
+        .isSameInstanceAs(relation);
+    assertThat(relation.addExplicitRelationAndCopy(a, five, BinaryOperator.EQUALS))
+        .isSameInstanceAs(relation);
+  }
+
+  @Test
+  public void removeValue() {
+    PredRelation relation = createRelation();
+
+    PredRelation withoutB = relation.removeValueAndCopy(b);
+    assertThat(withoutB.getValuesRelations()).isEmpty();
+    assertThat(withoutB.getExplicitRelations()).containsExactly(aEqualsFive);
+    assertThat(withoutB.getSymbolicSize(b)).isNull();
+    assertThat(withoutB.getSymbolicSize(a)).isEqualTo(SIZE);
+
+    PredRelation withoutA = relation.removeValueAndCopy(a);
+    assertThat(withoutA.getValuesRelations()).containsExactly(bLessThanC);
+    assertThat(withoutA.getExplicitRelations()).isEmpty();
+    assertThat(withoutA.getSymbolicSize(a)).isNull();
+
+    // the original relation is unchanged
+    assertThat(relation.getValuesRelations()).containsExactly(aLessThanB, bLessThanC);
+    assertThat(relation.getExplicitRelations()).containsExactly(aEqualsFive);
+    assertThat(relation.getSymbolicSize(a)).isEqualTo(SIZE);
+  }
+
+  @Test
+  public void replace() {
+    PredRelation relation = createRelation();
+    SMGKnownSymbolicValue fresh = SMGKnownSymValue.of();
+
+    PredRelation replaced = relation.replaceAndCopy(fresh, a);
+    assertThat(replaced.getValuesRelations()).containsExactly(bLessThanC);
+    assertThat(replaced.getExplicitRelations())
+        .containsExactly(new ExplicitRelation(fresh, five, BinaryOperator.EQUALS));
+    assertThat(replaced.getSymbolicSize(fresh)).isEqualTo(SIZE);
+    assertThat(replaced.getSymbolicSize(a)).isNull();
+
+    // the original relation is unchanged
+    assertThat(relation.getValuesRelations()).containsExactly(aLessThanB, bLessThanC);
+    assertThat(relation.getExplicitRelations()).containsExactly(aEqualsFive);
+    assertThat(relation.getSymbolicSize(fresh)).isNull();
+  }
+
+  @Test
+  public void isLessOrEqual() {
+    PredRelation empty = new PredRelation();
+    PredRelation symbolic =
+        empty.addRelationAndCopy(a, SIZE, b, SIZE, BinaryOperator.LESS_THAN);
+    PredRelation full = createRelation();
+
+    assertThat(empty.isLessOrEqual(full)).isTrue();
+    assertThat(symbolic.isLessOrEqual(full)).isTrue();
+    assertThat(full.isLessOrEqual(full)).isTrue();
+    assertThat(full.isLessOrEqual(symbolic)).isFalse();
+    assertThat(full.isLessOrEqual(empty)).isFalse();
+
+    // a relation with another operator is not contained
+    PredRelation otherOperator =
+        empty.addRelationAndCopy(a, SIZE, b, SIZE, BinaryOperator.GREATER_THAN);
+    assertThat(otherOperator.isLessOrEqual(full)).isFalse();
+
+    // a separately built relation with the same content
+    assertThat(createRelation().isLessOrEqual(full)).isTrue();
+    assertThat(full.isLessOrEqual(createRelation())).isTrue();
+
+    assertThat(full.removeValueAndCopy(c).isLessOrEqual(full)).isTrue();
+    assertThat(full.isLessOrEqual(full.removeValueAndCopy(c))).isFalse();
+  }
+}
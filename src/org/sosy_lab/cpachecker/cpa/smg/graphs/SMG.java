@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cpa.smg.graphs;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map.Entry;
@@ -33,6 +34,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdge;
@@ -42,7 +44,9 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsTo;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsToFilter;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGNullObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGExplicitValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownAddressValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGSymbolicValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGZeroValue;
 import org.sosy_lab.cpachecker.cpa.smg.util.PersistentSet;
@@ -63,7 +67,7 @@ public class SMG implements UnmodifiableSMG {
   private PersistentSet<SMGObject> externalObjectAllocation;
   private NeqRelation neq = new NeqRelation();
 
-  private final PredRelation pathPredicate = new PredRelation();
+  private PredRelation pathPredicate = new PredRelation();
   private PredRelation errorPredicate = new PredRelation();
 
 
@@ -104,8 +108,8 @@ public class SMG implements UnmodifiableSMG {
     hv_edges = pHeap.hv_edges;
     pt_edges = pHeap.pt_edges;
     neq = pHeap.neq;
-    pathPredicate.putAll(pHeap.pathPredicate);
-    errorPredicate.putAll(pHeap.errorPredicate);
+    pathPredicate = pHeap.pathPredicate;
+    errorPredicate = pHeap.errorPredicate;
     validObjects = pHeap.validObjects;
     externalObjectAllocation = pHeap.externalObjectAllocation;
     objects = pHeap.objects;
@@ -117,6 +121,27 @@ public class SMG implements UnmodifiableSMG {
     return new SMG(this);
   }
 
+  @Override
+  public boolean sharesStructureWith(UnmodifiableSMG pOther) {
+    if (this == pOther) {
+      return true;
+    }
+    if (pOther == null || getClass() != pOther.getClass()) {
+      return false;
+    }
+    SMG other = (SMG) pOther;
+    return objects == other.objects
+        && values == other.values
+        && hv_edges == other.hv_edges
+        && pt_edges == other.pt_edges
+        && validObjects == other.validObjects
+        && externalObjectAllocation == other.externalObjectAllocation
+        && neq == other.neq
+        && pathPredicate == other.pathPredicate
+        && errorPredicate == other.errorPredicate
+        && machine_model.equals(other.machine_model);
+  }
+
   @Override
   public final int hashCode() {
     return Objects.hash(machine_model, hv_edges, neq, validObjects, objects, pt_edges, values);
@@ -171,9 +196,13 @@ public class SMG implements UnmodifiableSMG {
   public final void removeValue(final SMGValue pValue) {
     Preconditions.checkArgument(!pValue.isZero(), "Can not remove NULL from SMG");
     values = values.removeAndCopy(pValue);
+    markValueDirty(pValue);
+    for (SMGValue other : neq.getNeqsForValue(pValue)) {
+      markValueDirty(other);
+    }
     neq = neq.removeValueAndCopy(pValue);
-    pathPredicate.removeValue(pValue);
-    errorPredicate.removeValue(pValue);
+    pathPredicate = pathPredicate.removeValueAndCopy(pValue);
+    errorPredicate = errorPredicate.removeValueAndCopy(pValue);
   }
   /**
    * Remove pObj from the SMG. This method does not remove
@@ -200,6 +229,11 @@ public class SMG implements UnmodifiableSMG {
   final public void removeObjectAndEdges(final SMGObject pObj) {
     Preconditions.checkArgument(pObj != SMGNullObject.INSTANCE, "Can not remove NULL from SMG");
     removeObject(pObj);
+    if (hv_edges.getDirtyValues() != null) {
+      for (SMGEdgePointsTo edge : SMGEdgePointsToFilter.targetObjectFilter(pObj).filter(pt_edges)) {
+        markValueDirty(edge.getValue());
+      }
+    }
     hv_edges = hv_edges.removeAllEdgesOfObjectAndCopy(pObj);
     pt_edges = pt_edges.removeAllEdgesOfObjectAndCopy(pObj);
 
@@ -255,6 +289,7 @@ public class SMG implements UnmodifiableSMG {
   final public void addPointsToEdge(SMGEdgePointsTo pEdge) {
     Preconditions.checkArgument(values.contains(pEdge.getValue()), "adding an edge without source");
     pt_edges = pt_edges.addAndCopy(pEdge);
+    markValueDirty(pEdge.getValue());
   }
 
   /**
@@ -290,6 +325,7 @@ public class SMG implements UnmodifiableSMG {
   public final void removePointsToEdge(SMGValue pValue) {
     Preconditions.checkArgument(!pValue.isZero(), "Can not remove NULL from SMG");
     pt_edges = pt_edges.removeEdgeWithValueAndCopy(pValue);
+    markValueDirty(pValue);
   }
 
   /**
@@ -304,6 +340,7 @@ public class SMG implements UnmodifiableSMG {
    */
   public void setValidity(SMGObject pObject, boolean pValidity) {
     Preconditions.checkArgument(objects.contains(pObject), "Object [" + pObject + "] not in SMG");
+    hv_edges = hv_edges.markObjectDirtyAndCopy(pObject);
     if (pValidity) {
       validObjects = validObjects.addAndCopy(pObject);
     } else {
@@ -333,6 +370,29 @@ public class SMG implements UnmodifiableSMG {
   /** Adds a neq relation between two values to the SMG Keeps consistency: no */
   public void addNeqRelation(SMGValue pV1, SMGValue pV2) {
     neq = neq.addRelationAndCopy(pV1, pV2);
+    markValueDirty(pV1);
+    markValueDirty(pV2);
+  }
+
+  /**
+   * Marks a value as changed for incremental heap abstraction, e.g., if its explicit value changed.
+   * Changes of edges, object validity and inequalities are marked automatically.
+   *
+   * <p>Keeps consistency: yes
+   */
+  public void markValueDirty(SMGValue pValue) {
+    hv_edges = hv_edges.markValueDirtyAndCopy(pValue);
+  }
+
+  /**
+   * Clears all changes tracked for incremental heap abstraction, i.e., the SMG tracks all changes
+   * from now on. Before the first call, changes are not tracked.
+   *
+   * <p>Keeps consistency: yes
+   */
+  public void markClean() {
+    hv_edges = hv_edges.markCleanAndCopy();
+    pt_edges = pt_edges.markCleanAndCopy();
   }
 
   @Override
@@ -349,6 +409,38 @@ public class SMG implements UnmodifiableSMG {
     errorPredicate = new PredRelation();
   }
 
+  /** Adds a predicate relation between two symbolic values to the SMG. Keeps consistency: yes */
+  public void addPredicateRelation(
+      SMGSymbolicValue pV1,
+      int pCType1,
+      SMGSymbolicValue pV2,
+      int pCType2,
+      BinaryOperator pOp) {
+    pathPredicate = pathPredicate.addRelationAndCopy(pV1, pCType1, pV2, pCType2, pOp);
+  }
+
+  /** Adds a predicate relation between a symbolic and an explicit value. Keeps consistency: yes */
+  public void addPredicateRelation(
+      SMGSymbolicValue pV1,
+      int pCType1,
+      SMGExplicitValue pV2,
+      int pCType2,
+      BinaryOperator pOp) {
+    pathPredicate = pathPredicate.addExplicitRelationAndCopy(pV1, pCType1, pV2, pCType2, pOp);
+  }
+
+  /** Adds a relation to the error predicate of the SMG. Keeps consistency: yes */
+  public void addErrorPredicate(
+      SMGSymbolicValue pSymbolicValue,
+      Integer pCType1,
+      SMGExplicitValue pExplicitValue,
+      Integer pCType2,
+      BinaryOperator pOp) {
+    errorPredicate =
+        errorPredicate.addExplicitRelationAndCopy(
+            pSymbolicValue, pCType1, pExplicitValue, pCType2, pOp);
+  }
+
   /* ********************************************* */
   /* Non-modifying functions: getters and the like */
   /* ********************************************* */
@@ -403,6 +495,30 @@ public class SMG implements UnmodifiableSMG {
     return pt_edges;
   }
 
+  /**
+   * Returns all objects that changed since the last call of {@link #markClean()}, or null if
+   * changes are not tracked. An object changed if its has-value edges, the points-to edges to it or
+   * its validity changed. Changes of values are available from {@link #getDirtyValues()}.
+   */
+  public @Nullable Set<SMGObject> getDirtyObjects() {
+    Set<SMGObject> hvDirtyObjects = hv_edges.getDirtyObjects();
+    Set<SMGObject> ptDirtyObjects = pt_edges.getDirtyObjects();
+    if (hvDirtyObjects == null || ptDirtyObjects == null) {
+      return null;
+    }
+    return Sets.union(hvDirtyObjects, ptDirtyObjects);
+  }
+
+  /**
+   * Returns all values that changed since the last call of {@link #markClean()}, or null if
+   * changes are not tracked. A value changed if a has-value edge with it was added or removed, if
+   * its points-to edge or its inequalities changed, or if it was marked with {@link
+   * #markValueDirty(SMGValue)}.
+   */
+  public @Nullable Set<SMGValue> getDirtyValues() {
+    return hv_edges.getDirtyValues();
+  }
+
   /**
    * Getter for obtaining an object, pointed by a value pValue. Constant.
    *
@@ -569,8 +685,12 @@ public class SMG implements UnmodifiableSMG {
 
     addValue(fresh);
 
+    markValueDirty(fresh);
+    for (SMGValue other : neq.getNeqsForValue(old)) {
+      markValueDirty(other);
+    }
     neq = neq.replaceValueAndCopy(fresh, old);
-    pathPredicate.replace(fresh, old);
+    pathPredicate = pathPredicate.replaceAndCopy(fresh, old);
 
     removeValue(old);
 
@@ -615,7 +735,7 @@ public class SMG implements UnmodifiableSMG {
     hv_edges = new SMGHasValueEdgeSet();
     pt_edges = new SMGPointsToMap();
     neq = new NeqRelation();
-    pathPredicate.clear();
+    pathPredicate = new PredRelation();
     initializeNullAddress();
   }
 
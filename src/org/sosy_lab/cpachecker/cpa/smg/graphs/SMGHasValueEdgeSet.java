@@ -24,31 +24,68 @@
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 import org.sosy_lab.cpachecker.cpa.smg.util.PersistentMultimap;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentSet;
 
 public class SMGHasValueEdgeSet implements SMGHasValueEdges {
 
   private final PersistentMultimap<SMGObject, SMGEdgeHasValue> map;
 
+  /**
+   * Objects whose edges changed since the last call of {@link #markCleanAndCopy()}, or null if
+   * changes are not tracked.
+   */
+  private final @Nullable PersistentSet<SMGObject> dirtyObjects;
+
+  /**
+   * Values whose edges or relations changed since the last call of {@link #markCleanAndCopy()},
+   * or null if changes are not tracked.
+   */
+  private final @Nullable PersistentSet<SMGValue> dirtyValues;
+
   public SMGHasValueEdgeSet() {
     map = PersistentMultimap.of();
+    dirtyObjects = null;
+    dirtyValues = null;
   }
 
-  private SMGHasValueEdgeSet(PersistentMultimap<SMGObject, SMGEdgeHasValue> pMap) {
+  private SMGHasValueEdgeSet(
+      PersistentMultimap<SMGObject, SMGEdgeHasValue> pMap,
+      @Nullable PersistentSet<SMGObject> pDirtyObjects,
+      @Nullable PersistentSet<SMGValue> pDirtyValues) {
     map = pMap;
+    dirtyObjects = pDirtyObjects;
+    dirtyValues = pDirtyValues;
+  }
+
+  private static <T extends Comparable<? super T>> @Nullable PersistentSet<T> markDirty(
+      @Nullable PersistentSet<T> pDirty, T pElement) {
+    return pDirty == null ? null : pDirty.addAndCopy(pElement);
   }
 
   @Override
   public SMGHasValueEdgeSet removeAllEdgesOfObjectAndCopy(SMGObject obj) {
-    return new SMGHasValueEdgeSet(map.removeAndCopy(obj));
+    PersistentSet<SMGValue> newDirtyValues = dirtyValues;
+    if (newDirtyValues != null) {
+      for (SMGEdgeHasValue edge : getEdgesForObject(obj)) {
+        newDirtyValues = newDirtyValues.addAndCopy(edge.getValue());
+      }
+    }
+    return new SMGHasValueEdgeSet(
+        map.removeAndCopy(obj), markDirty(dirtyObjects, obj), newDirtyValues);
   }
 
   @Override
   public SMGHasValueEdgeSet addEdgeAndCopy(SMGEdgeHasValue pEdge) {
-    return new SMGHasValueEdgeSet(map.putAndCopy(pEdge.getObject(), pEdge));
+    return new SMGHasValueEdgeSet(
+        map.putAndCopy(pEdge.getObject(), pEdge),
+        markDirty(dirtyObjects, pEdge.getObject()),
+        markDirty(dirtyValues, pEdge.getValue()));
   }
 
   @Override
@@ -58,8 +95,42 @@ public class SMGHasValueEdgeSet implements SMGHasValueEdges {
     if (map == updated) {
       return this;
     } else {
-      return new SMGHasValueEdgeSet(updated);
+      return new SMGHasValueEdgeSet(
+          updated,
+          markDirty(dirtyObjects, pEdge.getObject()),
+          markDirty(dirtyValues, pEdge.getValue()));
+    }
+  }
+
+  @Override
+  public SMGHasValueEdgeSet markCleanAndCopy() {
+    return new SMGHasValueEdgeSet(map, PersistentSet.of(), PersistentSet.of());
+  }
+
+  @Override
+  public SMGHasValueEdgeSet markObjectDirtyAndCopy(SMGObject pObject) {
+    if (dirtyObjects == null || dirtyObjects.contains(pObject)) {
+      return this;
+    }
+    return new SMGHasValueEdgeSet(map, dirtyObjects.addAndCopy(pObject), dirtyValues);
+  }
+
+  @Override
+  public SMGHasValueEdgeSet markValueDirtyAndCopy(SMGValue pValue) {
+    if (dirtyValues == null || dirtyValues.contains(pValue)) {
+      return this;
     }
+    return new SMGHasValueEdgeSet(map, dirtyObjects, dirtyValues.addAndCopy(pValue));
+  }
+
+  @Override
+  public @Nullable Set<SMGObject> getDirtyObjects() {
+    return dirtyObjects == null ? null : dirtyObjects.asSet();
+  }
+
+  @Override
+  public @Nullable Set<SMGValue> getDirtyValues() {
+    return dirtyValues == null ? null : dirtyValues.asSet();
   }
 
   @Override
@@ -24,8 +24,11 @@
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
 
 /** An immutable collection of has-value-edges. */
 public interface SMGHasValueEdges {
@@ -38,6 +41,20 @@ public interface SMGHasValueEdges {
 
   SMGHasValueEdges removeEdgeAndCopy(SMGEdgeHasValue pEdge);
 
+  // Change tracking for incremental heap abstraction
+
+  /**
+   * Returns a copy without dirty objects and values that tracks all further changes. Before the
+   * first call, changes are not tracked.
+   */
+  SMGHasValueEdges markCleanAndCopy();
+
+  /** mark an object as changed, e.g., if its validity changed. */
+  SMGHasValueEdges markObjectDirtyAndCopy(SMGObject pObject);
+
+  /** mark a value as changed, e.g., if its relations or its explicit value changed. */
+  SMGHasValueEdges markValueDirtyAndCopy(SMGValue pValue);
+
   // Querying methods
 
   /** get all outgoing edges of all {@link SMGObject}s. */
@@ -45,4 +62,18 @@ public interface SMGHasValueEdges {
 
   /** get all outgoing edges of an {@link SMGObject}, e.g., all values of this object. */
   ImmutableSet<SMGEdgeHasValue> getEdgesForObject(SMGObject pObject);
+
+  /**
+   * get all objects with added or removed edges since the last {@link #markCleanAndCopy()}, or
+   * null if changes are not tracked.
+   */
+  @Nullable
+  Set<SMGObject> getDirtyObjects();
+
+  /**
+   * get all values of added or removed edges and all values marked as changed since the last
+   * {@link #markCleanAndCopy()}, or null if changes are not tracked.
+   */
+  @Nullable
+  Set<SMGValue> getDirtyValues();
 }
\ No newline at end of file
@@ -23,6 +23,7 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
+import java.util.Set;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsTo;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
@@ -41,6 +42,14 @@ public interface SMGPointsToEdges extends Iterable<SMGEdgePointsTo> {
 
   SMGPointsToEdges removeEdgeWithValueAndCopy(SMGValue pValue);
 
+  // Change tracking for incremental heap abstraction
+
+  /**
+   * Returns a copy without dirty objects that tracks all further changes. Before the first call,
+   * changes are not tracked.
+   */
+  SMGPointsToEdges markCleanAndCopy();
+
   // Querying methods
 
   boolean containsEdgeWithValue(SMGValue pValue);
@@ -50,4 +59,11 @@ public interface SMGPointsToEdges extends Iterable<SMGEdgePointsTo> {
   SMGEdgePointsTo getEdgeWithValue(SMGValue pValue);
 
   int size();
+
+  /**
+   * get all target objects of added or removed edges since the last {@link #markCleanAndCopy()}, or
+   * null if changes are not tracked.
+   */
+  @Nullable
+  Set<SMGObject> getDirtyObjects();
 }
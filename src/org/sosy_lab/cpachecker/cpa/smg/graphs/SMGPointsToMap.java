@@ -24,28 +24,46 @@
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
 import java.util.Iterator;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsTo;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgePointsToFilter;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentSet;
 
 public class SMGPointsToMap implements SMGPointsToEdges {
 
   private final PersistentMap<SMGValue, SMGEdgePointsTo> map;
 
+  /**
+   * Target objects of edges that changed since the last call of {@link #markCleanAndCopy()}, or
+   * null if changes are not tracked.
+   */
+  private final @Nullable PersistentSet<SMGObject> dirtyObjects;
+
   public SMGPointsToMap() {
     map = PathCopyingPersistentTreeMap.of();
+    dirtyObjects = null;
   }
 
-  private SMGPointsToMap(PersistentMap<SMGValue, SMGEdgePointsTo> pMap) {
+  private SMGPointsToMap(
+      PersistentMap<SMGValue, SMGEdgePointsTo> pMap,
+      @Nullable PersistentSet<SMGObject> pDirtyObjects) {
     map = pMap;
+    dirtyObjects = pDirtyObjects;
+  }
+
+  private @Nullable PersistentSet<SMGObject> markDirty(SMGObject pObject) {
+    return dirtyObjects == null ? null : dirtyObjects.addAndCopy(pObject);
   }
 
   @Override
   public SMGPointsToMap addAndCopy(SMGEdgePointsTo pEdge) {
-    return new SMGPointsToMap(map.putAndCopy(pEdge.getValue(), pEdge));
+    return new SMGPointsToMap(
+        map.putAndCopy(pEdge.getValue(), pEdge), markDirty(pEdge.getObject()));
   }
 
   @Override
@@ -59,12 +77,26 @@ public class SMGPointsToMap implements SMGPointsToEdges {
     for (SMGEdgePointsTo edge : SMGEdgePointsToFilter.targetObjectFilter(pObj).filter(this)) {
       tmp = tmp.removeAndCopy(edge.getValue());
     }
-    return new SMGPointsToMap(tmp);
+    return new SMGPointsToMap(tmp, markDirty(pObj));
   }
 
   @Override
   public SMGPointsToMap removeEdgeWithValueAndCopy(SMGValue pValue) {
-    return new SMGPointsToMap(map.removeAndCopy(pValue));
+    SMGEdgePointsTo edge = map.get(pValue);
+    if (edge == null) {
+      return new SMGPointsToMap(map.removeAndCopy(pValue), dirtyObjects);
+    }
+    return new SMGPointsToMap(map.removeAndCopy(pValue), markDirty(edge.getObject()));
+  }
+
+  @Override
+  public SMGPointsToMap markCleanAndCopy() {
+    return new SMGPointsToMap(map, PersistentSet.of());
+  }
+
+  @Override
+  public @Nullable Set<SMGObject> getDirtyObjects() {
+    return dirtyObjects == null ? null : dirtyObjects.asSet();
   }
 
   @Override
@@ -94,6 +94,43 @@ public class SMGTest {
     assertThat(nullEdges).containsExactly(32L, 32);
   }
 
+  @Test
+  public void dirtyTrackingTest() {
+    assertThat(smg.getDirtyObjects()).isNull();
+    assertThat(smg.getDirtyValues()).isNull();
+
+    smg.markClean();
+    assertThat(smg.getDirtyObjects()).isEmpty();
+    assertThat(smg.getDirtyValues()).isEmpty();
+
+    SMG copy = smg.copyOf();
+    copy.addNeqRelation(val1, val2);
+    assertThat(copy.getDirtyObjects()).isEmpty();
+    assertThat(copy.getDirtyValues()).containsExactly(val1, val2);
+    assertThat(smg.getDirtyValues()).isEmpty();
+
+    copy = smg.copyOf();
+    copy.setValidity(obj1, false);
+    assertThat(copy.getDirtyObjects()).containsExactly(obj1);
+    assertThat(copy.getDirtyValues()).isEmpty();
+
+    copy = smg.copyOf();
+    copy.removeHasValueEdge(hv2has1at4);
+    assertThat(copy.getDirtyObjects()).containsExactly(obj2);
+    assertThat(copy.getDirtyValues()).containsExactly(val1);
+
+    // removing the target of a pointer also changes the pointer
+    copy = smg.copyOf();
+    copy.removeObjectAndEdges(obj1);
+    assertThat(copy.getDirtyObjects()).containsExactly(obj1);
+    assertThat(copy.getDirtyValues()).containsExactly(val1);
+
+    copy.markClean();
+    assertThat(copy.getDirtyObjects()).isEmpty();
+    assertThat(copy.getDirtyValues()).isEmpty();
+    assertThat(copy.getHVEdges()).containsExactly(hv2has2at0, hv2has1at4);
+  }
+
   @Test
   public void SMGConstructorTest() {
     SMG smg1 = getNewSMG64();
@@ -49,6 +49,13 @@ public interface UnmodifiableSMG {
    */
   SMG copyOf();
 
+  /**
+   * Returns whether this SMG and the given SMG share all their (immutable) components, which
+   * implies that both SMGs are equal. This is a cheap check based on reference equality, it does
+   * not compare the graphs element by element and can return false for equal SMGs.
+   */
+  boolean sharesStructureWith(UnmodifiableSMG pOther);
+
   PredRelation getPathPredicateRelation();
 
   PredRelation getErrorPredicateRelation();
@@ -68,11 +68,12 @@ public class SMGDoublyLinkedListFinder extends SMGAbstractionFinder {
   public Set<SMGAbstractionCandidate> traverse(
       UnmodifiableCLangSMG pSmg,
       UnmodifiableSMGState pSMGState,
-      Set<SMGAbstractionBlock> pAbstractionBlocks)
+      Set<SMGAbstractionBlock> pAbstractionBlocks,
+      Iterable<SMGObject> pStartObjects)
       throws SMGInconsistentException {
     SMGJoinDllProgress progress = new SMGJoinDllProgress();
 
-    for (SMGObject object : pSmg.getHeapObjects()) {
+    for (SMGObject object : pStartObjects) {
       startTraversal(object, pSmg, pSMGState, progress);
     }
 
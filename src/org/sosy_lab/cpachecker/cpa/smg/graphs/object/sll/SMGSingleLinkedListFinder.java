@@ -61,11 +61,12 @@ public class SMGSingleLinkedListFinder extends SMGAbstractionFinder {
   public Set<SMGAbstractionCandidate> traverse(
       UnmodifiableCLangSMG pSmg,
       UnmodifiableSMGState pSMGState,
-      Set<SMGAbstractionBlock> pAbstractionBlocks)
+      Set<SMGAbstractionBlock> pAbstractionBlocks,
+      Iterable<SMGObject> pStartObjects)
       throws SMGInconsistentException {
     SMGJoinSllProgress pProgress = new SMGJoinSllProgress();
 
-    for (SMGObject object : pSmg.getHeapObjects()) {
+    for (SMGObject object : pStartObjects) {
       startTraversal(object, pSmg, pSMGState, pProgress);
     }
 
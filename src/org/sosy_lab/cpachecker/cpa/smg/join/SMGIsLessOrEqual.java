@@ -72,7 +72,7 @@ public class SMGIsLessOrEqual {
     try {
 
       // if smg1 is smg2, smg1 is equal to smg2
-      if (pSMG1 == pSMG2) {
+      if (pSMG1 == pSMG2 || pSMG1.sharesStructureWith(pSMG2)) {
         return true;
       }
 
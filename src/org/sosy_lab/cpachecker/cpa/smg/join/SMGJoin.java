@@ -71,6 +71,14 @@ public final class SMGJoin {
       UnmodifiableSMGState pStateOfSmg2)
       throws SMGInconsistentException {
 
+    // states forked from a common predecessor without any further modification share their heap,
+    // such that there is no need to walk over the graphs.
+    if (opSMG1.sharesStructureWith(opSMG2)) {
+      smg = opSMG1.copyOf();
+      defined = true;
+      return;
+    }
+
     smg = new CLangSMG(opSMG1.getMachineModel());
 
     // FIT-TR-2012-04, Alg 10, line 2
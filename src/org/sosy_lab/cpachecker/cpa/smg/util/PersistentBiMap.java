@@ -0,0 +1,135 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2017  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg.util;
+
+import com.google.common.base.Preconditions;
+import com.google.errorprone.annotations.Immutable;
+import java.util.Map;
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentMap;
+
+/**
+ * A BiMap-implementation based on two {@link PathCopyingPersistentTreeMap}s, one for each
+ * direction. As for a BiMap, each value is bound to at most one key.
+ */
+@Immutable(containerOf = {"K", "V"})
+public class PersistentBiMap<K, V> {
+
+  private final PersistentMap<K, V> delegate;
+  private final PersistentMap<V, K> inverse;
+
+  private PersistentBiMap(PersistentMap<K, V> pDelegate, PersistentMap<V, K> pInverse) {
+    delegate = pDelegate;
+    inverse = pInverse;
+  }
+
+  public static <K extends Comparable<? super K>, V extends Comparable<? super V>>
+      PersistentBiMap<K, V> of() {
+    return new PersistentBiMap<>(
+        PathCopyingPersistentTreeMap.of(), PathCopyingPersistentTreeMap.of());
+  }
+
+  /**
+   * Binds the key to the value, replacing a previous value of the key.
+   *
+   * @throws IllegalArgumentException if the value is already bound to another key.
+   */
+  public PersistentBiMap<K, V> putAndCopy(K key, V value) {
+    K oldKey = inverse.get(value);
+    if (oldKey != null) {
+      Preconditions.checkArgument(oldKey.equals(key), "value already present: %s", value);
+      return this;
+    }
+    PersistentMap<V, K> newInverse = inverse;
+    V oldValue = delegate.get(key);
+    if (oldValue != null) {
+      newInverse = newInverse.removeAndCopy(oldValue);
+    }
+    return new PersistentBiMap<>(
+        delegate.putAndCopy(key, value), newInverse.putAndCopy(value, key));
+  }
+
+  public PersistentBiMap<K, V> putAllAndCopy(Map<? extends K, ? extends V> pMap) {
+    PersistentBiMap<K, V> result = this;
+    for (Map.Entry<? extends K, ? extends V> entry : pMap.entrySet()) {
+      result = result.putAndCopy(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  public PersistentBiMap<K, V> removeAndCopy(K key) {
+    V oldValue = delegate.get(key);
+    if (oldValue == null) {
+      return this;
+    }
+    return new PersistentBiMap<>(delegate.removeAndCopy(key), inverse.removeAndCopy(oldValue));
+  }
+
+  public @Nullable V get(K key) {
+    return delegate.get(key);
+  }
+
+  public @Nullable K getKey(V value) {
+    return inverse.get(value);
+  }
+
+  public boolean containsKey(K key) {
+    return delegate.containsKey(key);
+  }
+
+  public boolean containsValue(V value) {
+    return inverse.containsKey(value);
+  }
+
+  public int size() {
+    return delegate.size();
+  }
+
+  public boolean isEmpty() {
+    return delegate.isEmpty();
+  }
+
+  /** Returns an immutable view of the mapping from keys to values. */
+  public PersistentMap<K, V> asMap() {
+    return delegate;
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof PersistentBiMap
+        && Objects.equals(delegate, ((PersistentBiMap<?, ?>) o).delegate);
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+public class PersistentBiMapTest {
+
+  private final PersistentBiMap<String, Integer> map =
+      PersistentBiMap.<String, Integer>of().putAndCopy("a", 1).putAndCopy("b", 2);
+
+  @Test
+  public void putAndGet() {
+    assertThat(map.get("a")).isEqualTo(1);
+    assertThat(map.getKey(2)).isEqualTo("b");
+    assertThat(map.containsKey("a")).isTrue();
+    assertThat(map.containsValue(2)).isTrue();
+    assertThat(map.containsValue(3)).isFalse();
+    assertThat(map.size()).isEqualTo(2);
+    assertThat(map.asMap()).containsExactly("a", 1, "b", 2);
+    assertThat(PersistentBiMap.<String, Integer>of().isEmpty()).isTrue();
+  }
+
+  @Test
+  public void valueOfOtherKeyIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> map.putAndCopy("c", 1));
+    assertThrows(IllegalArgumentException.class, () -> map.putAndCopy("b", 1));
+    assertThrows(
+        IllegalArgumentException.class, () -> map.putAllAndCopy(ImmutableMap.of("c", 2)));
+    assertThat(map.asMap()).containsExactly("a", 1, "b", 2);
+  }
+
+  @Test
+  public void putExistingEntry() {
+    assertThat(map.putAndCopy("a", 1)).isSameInstanceAs(map);
+  }
+
+  @Test
+  public void replaceValueOfKey() {
+    PersistentBiMap<String, Integer> replaced = map.putAndCopy("a", 3);
+    assertThat(replaced.get("a")).isEqualTo(3);
+    assertThat(replaced.getKey(3)).isEqualTo("a");
+    assertThat(replaced.containsValue(1)).isFalse();
+    assertThat(replaced.getKey(1)).isNull();
+
+    // the old value is free again
+    PersistentBiMap<String, Integer> reused = replaced.putAndCopy("c", 1);
+    assertThat(reused.asMap()).containsExactly("a", 3, "b", 2, "c", 1);
+    assertThat(reused.getKey(1)).isEqualTo("c");
+
+    // the original map is unchanged
+    assertThat(map.asMap()).containsExactly("a", 1, "b", 2);
+    assertThat(map.getKey(1)).isEqualTo("a");
+  }
+
+  @Test
+  public void remove() {
+    PersistentBiMap<String, Integer> removed = map.removeAndCopy("a");
+    assertThat(removed.asMap()).containsExactly("b", 2);
+    assertThat(removed.containsValue(1)).isFalse();
+    assertThat(removed.putAndCopy("c", 1).getKey(1)).isEqualTo("c");
+    assertThat(map.removeAndCopy("c")).isSameInstanceAs(map);
+
+    // the original map is unchanged
+    assertThat(map.getKey(1)).isEqualTo("a");
+  }
+
+  @Test
+  public void equality() {
+    PersistentBiMap<String, Integer> other =
+        PersistentBiMap.<String, Integer>of().putAndCopy("b", 2).putAndCopy("a", 1);
+    assertThat(other).isEqualTo(map);
+    assertThat(other.hashCode()).isEqualTo(map.hashCode());
+    assertThat(map.putAndCopy("a", 3)).isNotEqualTo(map);
+  }
+}
@@ -25,6 +25,8 @@ package org.sosy_lab.cpachecker.cpa.value;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Multimap;
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -34,6 +36,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -63,10 +66,12 @@ import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.ThreadSafeCPA;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.ProofChecker.ProofCheckerCPA;
 import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
 import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisPrecisionAdjustment.PrecAdjustmentOptions;
 import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisPrecisionAdjustment.PrecAdjustmentStatistics;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.CanonicalConstantsMap;
 import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisTransferRelation.ValueTransferOptions;
 import org.sosy_lab.cpachecker.cpa.value.refiner.ValueAnalysisConcreteErrorPathAllocator;
 import org.sosy_lab.cpachecker.cpa.value.symbolic.ConstraintsStrengthenOperator;
@@ -82,7 +87,8 @@ public class ValueAnalysisCPA extends AbstractCPA
     implements ConfigurableProgramAnalysisWithBAM,
         StatisticsProvider,
         ProofCheckerCPA,
-        ConfigurableProgramAnalysisWithConcreteCex {
+        ConfigurableProgramAnalysisWithConcreteCex,
+        ThreadSafeCPA {
 
   @Option(secure=true, name="merge", toUppercase=true, values={"SEP", "JOIN"},
       description="which merge operator to use for ValueAnalysisCPA")
@@ -107,6 +113,14 @@ public class ValueAnalysisCPA extends AbstractCPA
           + " Otherwise, symbolic values will be created, but not evaluated.")
   private boolean useSymbolicValues = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Use hash consing for abstract states: equal states share the same map of values,"
+              + " such that equality, coverage and join of equal states can be checked in"
+              + " constant time. This costs one hash lookup per new abstract state.")
+  private boolean hashConsing = false;
+
   public static CPAFactory factory() {
     return AutomaticCPAFactory.forType(ValueAnalysisCPA.class);
   }
@@ -129,6 +143,7 @@ public class ValueAnalysisCPA extends AbstractCPA
   private final PrecAdjustmentOptions precisionAdjustmentOptions;
   private final PrecAdjustmentStatistics precisionAdjustmentStatistics;
   private final SymbolicStatistics symbolicStats;
+  private final Optional<Interner<CanonicalConstantsMap>> stateInterner;
 
   private ValueAnalysisCPA(Configuration config, LogManager logger,
       ShutdownNotifier pShutdownNotifier, CFA cfa) throws InvalidConfigurationException {
@@ -158,6 +173,7 @@ public class ValueAnalysisCPA extends AbstractCPA
     transferOptions = new ValueTransferOptions(config);
     precisionAdjustmentOptions = new PrecAdjustmentOptions(config, cfa);
     precisionAdjustmentStatistics = new PrecAdjustmentStatistics();
+    stateInterner = hashConsing ? Optional.of(Interners.newWeakInterner()) : Optional.empty();
   }
 
   private VariableTrackingPrecision initializePrecision(Configuration pConfig, CFA pCfa) throws InvalidConfigurationException {
@@ -271,10 +287,15 @@ public class ValueAnalysisCPA extends AbstractCPA
           cfa,
           precisionAdjustmentOptions,
           precisionAdjustmentStatistics,
-          Preconditions.checkNotNull(symbolicStats));
+          Preconditions.checkNotNull(symbolicStats),
+          stateInterner);
     } else {
       return new ValueAnalysisPrecisionAdjustment(
-          statistics, cfa, precisionAdjustmentOptions, precisionAdjustmentStatistics);
+          statistics,
+          cfa,
+          precisionAdjustmentOptions,
+          precisionAdjustmentStatistics,
+          stateInterner);
     }
   }
 
@@ -27,6 +27,7 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.PrintStream;
 import java.util.Map.Entry;
@@ -51,6 +52,7 @@ import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.conditions.path.AssignmentsInPathCondition.UniqueAssignmentsInPathConditionState;
 import org.sosy_lab.cpachecker.cpa.location.LocationState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.CanonicalConstantsMap;
 import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.ValueAndType;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
@@ -162,6 +164,9 @@ public class ValueAnalysisPrecisionAdjustment implements PrecisionAdjustment {
         new ThreadSafeTimerContainer("Total time for abstraction computation");
     private final ThreadSafeTimerContainer totalEnforcePathTimer =
         new ThreadSafeTimerContainer("Total time for path thresholds");
+    private final StatCounter internedStates = new StatCounter("Number of hash-consed states");
+    private final StatCounter sharedStates =
+        new StatCounter("Number of states sharing values with an existing state");
 
     @Override
     public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
@@ -170,6 +175,10 @@ public class ValueAnalysisPrecisionAdjustment implements PrecisionAdjustment {
       writer.put(totalLivenessTimer);
       writer.put(totalAbstractionTimer);
       writer.put(totalEnforcePathTimer);
+      if (internedStates.getValue() > 0) {
+        writer.put(internedStates);
+        writer.beginLevel().put(sharedStates);
+      }
     }
 
     @Override
@@ -181,12 +190,15 @@ public class ValueAnalysisPrecisionAdjustment implements PrecisionAdjustment {
   private final ValueAnalysisCPAStatistics stats;
   private final PrecAdjustmentOptions options;
   private final Optional<LiveVariables> liveVariables;
+  private final Optional<Interner<CanonicalConstantsMap>> stateInterner;
 
   // for statistics
   private final StatCounter abstractions;
   private final TimerWrapper totalLiveness;
   private final TimerWrapper totalAbstraction;
   private final TimerWrapper totalEnforcePath;
+  private final StatCounter internedStates;
+  private final StatCounter sharedStates;
 
   @SuppressFBWarnings(value = "URF_UNREAD_FIELD", justification = "false alarm")
   private boolean performPrecisionBasedAbstraction = false;
@@ -195,16 +207,20 @@ public class ValueAnalysisPrecisionAdjustment implements PrecisionAdjustment {
       final ValueAnalysisCPAStatistics pStats,
       final CFA pCfa,
       final PrecAdjustmentOptions pOptions,
-      final PrecAdjustmentStatistics pStatistics) {
+      final PrecAdjustmentStatistics pStatistics,
+      final Optional<Interner<CanonicalConstantsMap>> pStateInterner) {
 
     options = pOptions;
     stats = pStats;
     liveVariables = pCfa.getLiveVariables();
+    stateInterner = pStateInterner;
 
     abstractions = pStatistics.abstractions;
     totalLiveness = pStatistics.totalLivenessTimer.getNewTimer();
     totalAbstraction = pStatistics.totalAbstractionTimer.getNewTimer();
     totalEnforcePath = pStatistics.totalEnforcePathTimer.getNewTimer();
+    internedStates = pStatistics.internedStates;
+    sharedStates = pStatistics.sharedStates;
   }
 
   @Override
@@ -247,6 +263,14 @@ public class ValueAnalysisPrecisionAdjustment implements PrecisionAdjustment {
 
     resultState = resultState.equals(pState) ? pState : resultState;
 
+    // share the values with equal states, which are then cheap to compare in merge and stop
+    if (stateInterner.isPresent()) {
+      internedStates.inc();
+      if (resultState.internConstantsMap(stateInterner.orElseThrow())) {
+        sharedStates.inc();
+      }
+    }
+
     return Optional.of(PrecisionAdjustmentResult.create(resultState, pPrecision, Action.CONTINUE));
   }
 
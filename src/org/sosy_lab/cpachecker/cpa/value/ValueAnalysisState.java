@@ -28,6 +28,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.collect.Interner;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -100,6 +101,13 @@ public final class ValueAnalysisState
    */
   private int hashCode = 0;
 
+  /**
+   * The canonical instance of {@link #constantsMap} if this state was hash-consed with {@link
+   * #internConstantsMap(Interner)}. This reference keeps the canonical instance alive in a weak
+   * interner as long as this state exists.
+   */
+  private transient @Nullable CanonicalConstantsMap canonicalConstantsMap = null;
+
   private final @Nullable MachineModel machineModel;
 
   public ValueAnalysisState(MachineModel pMachineModel) {
@@ -126,6 +134,7 @@ public final class ValueAnalysisState
     machineModel = state.machineModel;
     constantsMap = checkNotNull(state.constantsMap);
     hashCode = state.hashCode;
+    canonicalConstantsMap = state.canonicalConstantsMap;
     assert hashCode == constantsMap.hashCode();
   }
 
@@ -133,6 +142,24 @@ public final class ValueAnalysisState
     return new ValueAnalysisState(state);
   }
 
+  /**
+   * Replace the map of this state by the canonical instance of the given interner (hash
+   * consing). All equal states that are interned with the same interner share the same map
+   * afterwards, such that {@link #equals(Object)}, {@link #isLessOrEqual(ValueAnalysisState)} and
+   * {@link #join(ValueAnalysisState)} need only constant time for them.
+   *
+   * @return whether the state now shares the map of a previously interned state
+   */
+  boolean internConstantsMap(Interner<CanonicalConstantsMap> pInterner) {
+    if (canonicalConstantsMap != null && canonicalConstantsMap.map == constantsMap) {
+      return false; // already interned
+    }
+    CanonicalConstantsMap candidate = new CanonicalConstantsMap(constantsMap, hashCode);
+    canonicalConstantsMap = pInterner.intern(candidate);
+    constantsMap = canonicalConstantsMap.map;
+    return canonicalConstantsMap != candidate;
+  }
+
   /**
    * This method assigns a value to the variable and puts it in the map.
    *
@@ -357,19 +384,26 @@ public final class ValueAnalysisState
    */
   @Override
   public ValueAnalysisState join(ValueAnalysisState reachedState) {
-    PersistentMap<MemoryLocation, ValueAndType> newConstantsMap = PathCopyingPersistentTreeMap.of();
+    if (constantsMap == reachedState.constantsMap) {
+      // both states share the same map, e.g., because of hash consing
+      return reachedState;
+    }
+
+    // Start with the map of the reached state and remove all differing entries,
+    // such that the new map shares most of its structure with the old one.
+    PersistentMap<MemoryLocation, ValueAndType> newConstantsMap = reachedState.constantsMap;
 
     for (Entry<MemoryLocation, ValueAndType> otherEntry : reachedState.constantsMap.entrySet()) {
       MemoryLocation key = otherEntry.getKey();
       ValueAndType value = otherEntry.getValue();
 
-      if (Objects.equals(value, constantsMap.get(key))) {
-        newConstantsMap = newConstantsMap.putAndCopy(key, value);
+      if (!Objects.equals(value, constantsMap.get(key))) {
+        newConstantsMap = newConstantsMap.removeAndCopy(key);
       }
     }
 
     // return the reached state if both maps are equal
-    if (newConstantsMap.size() == reachedState.constantsMap.size()) {
+    if (newConstantsMap == reachedState.constantsMap) {
       return reachedState;
     } else {
       return new ValueAnalysisState(machineModel, newConstantsMap);
@@ -385,6 +419,11 @@ public final class ValueAnalysisState
   @Override
   public boolean isLessOrEqual(ValueAnalysisState other) {
 
+    // equal states share the same map if hash consing is used
+    if (constantsMap == other.constantsMap) {
+      return true;
+    }
+
     // also, this element is not less or equal than the other element, if it contains less elements
     if (constantsMap.size() < other.constantsMap.size()) {
       return false;
@@ -427,6 +466,10 @@ public final class ValueAnalysisState
     }
 
     ValueAnalysisState otherElement = (ValueAnalysisState) other;
+    if (otherElement.constantsMap == constantsMap) {
+      // equal states share the same map if hash consing is used
+      return true;
+    }
     // hashCode is used as optimization: about 20% speedup when using many SingletonSets
     return otherElement.hashCode == hashCode && otherElement.constantsMap.equals(constantsMap);
   }
@@ -752,6 +795,37 @@ public final class ValueAnalysisState
     return this;
   }
 
+  /**
+   * Key for hash consing the maps of value-analysis states. It caches the hash code of the map,
+   * which is already known from the state.
+   */
+  public static final class CanonicalConstantsMap {
+    private final PersistentMap<MemoryLocation, ValueAndType> map;
+    private final int hashCode;
+
+    private CanonicalConstantsMap(PersistentMap<MemoryLocation, ValueAndType> pMap, int pHashCode) {
+      map = pMap;
+      hashCode = pHashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CanonicalConstantsMap)) {
+        return false;
+      }
+      CanonicalConstantsMap other = (CanonicalConstantsMap) o;
+      return hashCode == other.hashCode && (map == other.map || map.equals(other.map));
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
   public static class ValueAndType implements Serializable {
     private static final long serialVersionUID = 1L;
     private final Value value;
@@ -0,0 +1,162 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.List;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.CanonicalConstantsMap;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+public class ValueAnalysisStateTest {
+
+  private static final MachineModel MACHINE_MODEL = MachineModel.LINUX32;
+
+  private static final MemoryLocation X = MemoryLocation.valueOf("x");
+  private static final MemoryLocation Y = MemoryLocation.valueOf("y");
+  private static final MemoryLocation Z = MemoryLocation.valueOf("main", "z");
+
+  private static ValueAnalysisState state(MemoryLocation[] pLocations, long... pValues) {
+    assert pLocations.length == pValues.length;
+    ValueAnalysisState state = new ValueAnalysisState(MACHINE_MODEL);
+    for (int i = 0; i < pLocations.length; i++) {
+      state.assignConstant(pLocations[i], new NumericValue(pValues[i]), CNumericTypes.INT);
+    }
+    return state;
+  }
+
+  /** Some states that are pairwise equal, ordered, or incomparable. */
+  private static List<ValueAnalysisState> createStates() {
+    return ImmutableList.of(
+        new ValueAnalysisState(MACHINE_MODEL),
+        state(new MemoryLocation[] {X}, 1),
+        state(new MemoryLocation[] {X}, 2),
+        state(new MemoryLocation[] {X, Y}, 1, 2),
+        state(new MemoryLocation[] {Y, X}, 2, 1),
+        state(new MemoryLocation[] {X, Y}, 1, 3),
+        state(new MemoryLocation[] {X, Y, Z}, 1, 2, 3),
+        state(new MemoryLocation[] {Y, Z}, 2, 3));
+  }
+
+  private static List<ValueAnalysisState> intern(
+      List<ValueAnalysisState> pStates, Interner<CanonicalConstantsMap> pInterner) {
+    ImmutableList.Builder<ValueAnalysisState> interned = ImmutableList.builder();
+    for (ValueAnalysisState state : pStates) {
+      ValueAnalysisState copy = ValueAnalysisState.copyOf(state);
+      copy.internConstantsMap(pInterner);
+      interned.add(copy);
+    }
+    return interned.build();
+  }
+
+  @Test
+  public void testInternedAndPlainStatesGiveSameResults() {
+    List<ValueAnalysisState> plain = createStates();
+    List<ValueAnalysisState> interned = intern(createStates(), Interners.newWeakInterner());
+
+    for (int i = 0; i < plain.size(); i++) {
+      for (int j = 0; j < plain.size(); j++) {
+        ValueAnalysisState plain1 = plain.get(i);
+        ValueAnalysisState plain2 = plain.get(j);
+        ValueAnalysisState interned1 = interned.get(i);
+        ValueAnalysisState interned2 = interned.get(j);
+
+        assertThat(interned1.isLessOrEqual(interned2)).isEqualTo(plain1.isLessOrEqual(plain2));
+        assertThat(interned1.join(interned2)).isEqualTo(plain1.join(plain2));
+        assertThat(interned1.equals(interned2)).isEqualTo(plain1.equals(plain2));
+
+        // the join is an upper bound of both states
+        ValueAnalysisState join = interned1.join(interned2);
+        assertThat(interned1.isLessOrEqual(join)).isTrue();
+        assertThat(interned2.isLessOrEqual(join)).isTrue();
+      }
+    }
+  }
+
+  @Test
+  public void testInterningSharesMapsOfEqualStates() {
+    Interner<CanonicalConstantsMap> interner = Interners.newWeakInterner();
+    ValueAnalysisState first = state(new MemoryLocation[] {X, Y}, 1, 2);
+    ValueAnalysisState second = state(new MemoryLocation[] {Y, X}, 2, 1);
+    ValueAnalysisState other = state(new MemoryLocation[] {X, Y}, 1, 3);
+
+    assertThat(first.internConstantsMap(interner)).isFalse();
+    assertThat(second.internConstantsMap(interner)).isTrue();
+    assertThat(other.internConstantsMap(interner)).isFalse();
+    // interning again does not change anything
+    assertThat(second.internConstantsMap(interner)).isFalse();
+
+    assertThat(second.join(first)).isSameAs(first);
+    assertThat(first.join(second)).isSameAs(second);
+    assertThat(first.isLessOrEqual(second)).isTrue();
+    assertThat(first.isLessOrEqual(other)).isFalse();
+  }
+
+  @Test
+  public void testJoinWithItselfReturnsSameInstance() {
+    List<ValueAnalysisState> plain = createStates();
+    for (ValueAnalysisState state : plain) {
+      assertThat(state.join(state)).isSameAs(state);
+    }
+    for (ValueAnalysisState state : intern(plain, Interners.newWeakInterner())) {
+      assertThat(state.join(state)).isSameAs(state);
+    }
+  }
+
+  @Test
+  public void testJoinOfEqualStatesReturnsReachedState() {
+    List<ValueAnalysisState> first = createStates();
+    List<ValueAnalysisState> second = createStates();
+    for (int i = 0; i < first.size(); i++) {
+      assertThat(first.get(i).join(second.get(i))).isSameAs(second.get(i));
+    }
+  }
+
+  @Test
+  public void testEqualStatesFromDifferentInternersAreEqual() {
+    List<ValueAnalysisState> plain = createStates();
+    List<ValueAnalysisState> interned1 = intern(plain, Interners.newWeakInterner());
+    List<ValueAnalysisState> interned2 = intern(plain, Interners.newWeakInterner());
+
+    for (int i = 0; i < plain.size(); i++) {
+      for (int j = 0; j < plain.size(); j++) {
+        boolean expected = plain.get(i).equals(plain.get(j));
+        assertThat(interned1.get(i).equals(interned2.get(j))).isEqualTo(expected);
+        assertThat(interned2.get(j).equals(interned1.get(i))).isEqualTo(expected);
+        assertThat(interned1.get(i).isLessOrEqual(interned2.get(j)))
+            .isEqualTo(plain.get(i).isLessOrEqual(plain.get(j)));
+        if (expected) {
+          assertThat(interned1.get(i).hashCode()).isEqualTo(interned2.get(j).hashCode());
+        }
+      }
+    }
+  }
+}
@@ -23,9 +23,12 @@
  */
 package org.sosy_lab.cpachecker.cpa.value;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -36,6 +39,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.function.Supplier;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
@@ -112,6 +116,7 @@ import org.sosy_lab.cpachecker.core.defaults.ForwardingTransferRelation;
 import org.sosy_lab.cpachecker.core.defaults.precision.VariableTrackingPrecision;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithAssumptions;
+import org.sosy_lab.cpachecker.core.interfaces.ConcurrentlyUsableTransferRelation;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.cpa.constraints.domain.ConstraintsState;
 import org.sosy_lab.cpachecker.cpa.pointer2.PointerState;
@@ -138,7 +143,8 @@ import org.sosy_lab.cpachecker.util.states.MemoryLocation;
 import org.sosy_lab.cpachecker.util.states.MemoryLocationValueHandler;
 
 public class ValueAnalysisTransferRelation
-    extends ForwardingTransferRelation<ValueAnalysisState, ValueAnalysisState, VariableTrackingPrecision> {
+    extends ForwardingTransferRelation<ValueAnalysisState, ValueAnalysisState, VariableTrackingPrecision>
+    implements ConcurrentlyUsableTransferRelation {
   // set of functions that may not appear in the source code
   // the value of the map entry is the explanation for the user
   private static final ImmutableMap<String, String> UNSUPPORTED_FUNCTIONS = ImmutableMap.of();
@@ -202,7 +208,19 @@ public class ValueAnalysisTransferRelation
 
   private final ConstraintsStrengthenOperator constraintsStrengthenOperator;
 
-  private final Set<String> javaNonStaticVariables = new HashSet<>();
+  /** Shared by all copies of this transfer relation, see {@link #threadLocalCopies}. */
+  private final Set<String> javaNonStaticVariables;
+
+  /** Creates copies of this transfer relation for concurrent use, null for copies. */
+  private final @Nullable Supplier<ValueAnalysisTransferRelation> copyFactory;
+
+  /**
+   * The handling of an edge stores intermediate information in fields of this transfer relation
+   * and of {@link ForwardingTransferRelation}. Thus while this transfer relation is used
+   * concurrently, each thread that computes successors or strengthens states uses its own copy,
+   * and the fields of this instance are not used. Null while there is no concurrent use.
+   */
+  private volatile @Nullable ThreadLocal<ValueAnalysisTransferRelation> threadLocalCopies = null;
 
   private JRightHandSide missingInformationRightJExpression = null;
   private String missingInformationLeftJVariable = null;
@@ -247,6 +265,30 @@ public class ValueAnalysisTransferRelation
       MemoryLocationValueHandler pUnknownValueHandler,
       ConstraintsStrengthenOperator pConstraintsStrengthenOperator,
       @Nullable ValueAnalysisCPAStatistics pStats) {
+    this(
+        pLogger,
+        pCfa,
+        pOptions,
+        pUnknownValueHandler,
+        pConstraintsStrengthenOperator,
+        pStats,
+        Sets.newConcurrentHashSet(),
+        true);
+  }
+
+  /**
+   * Create a transfer relation, copies for concurrent use share the non-static Java variables with
+   * their original and cannot be copied themselves.
+   */
+  private ValueAnalysisTransferRelation(
+      LogManager pLogger,
+      CFA pCfa,
+      ValueTransferOptions pOptions,
+      MemoryLocationValueHandler pUnknownValueHandler,
+      ConstraintsStrengthenOperator pConstraintsStrengthenOperator,
+      @Nullable ValueAnalysisCPAStatistics pStats,
+      Set<String> pJavaNonStaticVariables,
+      boolean pCreateThreadLocalCopies) {
     options = pOptions;
     machineModel = pCfa.getMachineModel();
     logger = new LogManagerWithoutDuplicates(pLogger);
@@ -262,6 +304,46 @@ public class ValueAnalysisTransferRelation
 
     unknownValueHandler = pUnknownValueHandler;
     constraintsStrengthenOperator = pConstraintsStrengthenOperator;
+    javaNonStaticVariables = pJavaNonStaticVariables;
+
+    if (pCreateThreadLocalCopies) {
+      copyFactory =
+          () ->
+              new ValueAnalysisTransferRelation(
+                  pLogger,
+                  pCfa,
+                  pOptions,
+                  pUnknownValueHandler,
+                  pConstraintsStrengthenOperator,
+                  pStats,
+                  pJavaNonStaticVariables,
+                  false);
+    } else {
+      copyFactory = null;
+    }
+  }
+
+  @Override
+  public void beginConcurrentUse() {
+    checkState(copyFactory != null, "copies of the transfer relation are not used concurrently");
+    threadLocalCopies = ThreadLocal.withInitial(copyFactory);
+  }
+
+  /** Drop the copies, they are garbage collected once their threads have terminated. */
+  @Override
+  public void endConcurrentUse() {
+    threadLocalCopies = null;
+  }
+
+  @Override
+  public Collection<ValueAnalysisState> getAbstractSuccessorsForEdge(
+      AbstractState pState, Precision pPrecision, CFAEdge pCfaEdge)
+      throws CPATransferException, InterruptedException {
+    ThreadLocal<ValueAnalysisTransferRelation> copies = threadLocalCopies;
+    if (copies != null) {
+      return copies.get().getAbstractSuccessorsForEdge(pState, pPrecision, pCfaEdge);
+    }
+    return super.getAbstractSuccessorsForEdge(pState, pPrecision, pCfaEdge);
   }
 
   @Override
@@ -1250,6 +1332,11 @@ public class ValueAnalysisTransferRelation
       CFAEdge pCfaEdge,
       Precision pPrecision)
       throws CPATransferException {
+    ThreadLocal<ValueAnalysisTransferRelation> copies = threadLocalCopies;
+    if (copies != null) {
+      // the same copy as for the preceding successor computation of this thread
+      return copies.get().strengthen(pElement, pElements, pCfaEdge, pPrecision);
+    }
     assert pElement instanceof ValueAnalysisState;
 
     List<ValueAnalysisState> toStrengthen = new ArrayList<>();
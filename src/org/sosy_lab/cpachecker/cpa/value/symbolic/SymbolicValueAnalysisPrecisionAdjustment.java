@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cpa.value.symbolic;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Function;
+import com.google.common.collect.Interner;
 import java.io.PrintStream;
 import java.util.Optional;
 import org.sosy_lab.cpachecker.cfa.CFA;
@@ -41,6 +42,7 @@ import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisPrecisionAdjustment;
 import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisPrecisionAdjustment.PrecAdjustmentOptions;
 import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisPrecisionAdjustment.PrecAdjustmentStatistics;
 import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.CanonicalConstantsMap;
 import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicValue;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.util.statistics.StatInt;
@@ -63,8 +65,10 @@ public class SymbolicValueAnalysisPrecisionAdjustment implements PrecisionAdjust
       final CFA pCfa,
       final PrecAdjustmentOptions pOptions,
       final PrecAdjustmentStatistics pStatistics,
-      final SymbolicStatistics pSymbolicStats) {
-    delegate = new ValueAnalysisPrecisionAdjustment(pStats, pCfa, pOptions, pStatistics);
+      final SymbolicStatistics pSymbolicStats,
+      final Optional<Interner<CanonicalConstantsMap>> pStateInterner) {
+    delegate =
+        new ValueAnalysisPrecisionAdjustment(pStats, pCfa, pOptions, pStatistics, pStateInterner);
     symbolicStats = pSymbolicStats;
   }
 
@@ -46,6 +46,7 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocations;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
 import org.sosy_lab.cpachecker.core.interfaces.FormulaReportingState;
 import org.sosy_lab.cpachecker.core.interfaces.Targetable;
+import org.sosy_lab.cpachecker.core.reachedset.LocationIndexedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.LocationMappedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.assumptions.storage.AssumptionStorageState;
@@ -156,6 +157,9 @@ public final class AbstractStates {
       // because this method is imprecise for the rest
       return ((LocationMappedReachedSet)pStates).getReached(pLoc);
     }
+    if (pStates instanceof LocationIndexedReachedSet) {
+      return ((LocationIndexedReachedSet) pStates).getReached(pLoc);
+    }
 
     Predicate<AbstractState> statesWithRightLocation =
         Predicates.compose(equalTo(pLoc), AbstractStates::extractLocation);
@@ -169,6 +173,10 @@ public final class AbstractStates {
       final LocationMappedReachedSet states = (LocationMappedReachedSet)pStates;
       return from(pLocs).transformAndConcat(states::getReached);
     }
+    if (pStates instanceof LocationIndexedReachedSet) {
+      final LocationIndexedReachedSet states = (LocationIndexedReachedSet) pStates;
+      return from(pLocs).transformAndConcat(states::getReached);
+    }
 
     Predicate<AbstractState> statesWithRightLocation =
         Predicates.compose(in(pLocs), AbstractStates::extractLocation);
@@ -0,0 +1,228 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.ADeclarationEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionSummaryEdge;
+
+/**
+ * Content hashes of all functions of a CFA, independent of the numbering of CFA nodes.
+ *
+ * <p>The nodes of each function are ordered by a deterministic depth-first traversal from the
+ * function entry, which does not enter called functions. The hash of a function covers the
+ * descriptions and types of all edges and the order of the nodes. Thus, two functions with equal
+ * hashes in two versions of a program have the same structure, and the i-th node of one function
+ * corresponds to the i-th node of the other function. This can be used to find changed functions
+ * and to map node numbers from a previous run onto the current CFA.
+ *
+ * <p>Additionally, there is a separate hash of all global declarations (variables with their
+ * initializers, type definitions, and function declarations), because the semantics of a function
+ * depends on them although they are not part of the function itself.
+ */
+public final class FunctionFingerprints implements Serializable {
+
+  private static final long serialVersionUID = 7725938340911290123L;
+
+  private final String globalDeclarationsHash;
+  private final ImmutableMap<String, String> hashes;
+  private final ImmutableMap<String, ImmutableList<Integer>> nodeNumbers;
+
+  // only available for the CFA of the current run
+  private final transient @Nullable ImmutableMap<String, ImmutableList<CFANode>> nodes;
+  private final transient @Nullable ImmutableMap<CFANode, Integer> nodeIndices;
+
+  private FunctionFingerprints(
+      String pGlobalDeclarationsHash,
+      ImmutableMap<String, String> pHashes,
+      ImmutableMap<String, ImmutableList<Integer>> pNodeNumbers,
+      ImmutableMap<String, ImmutableList<CFANode>> pNodes,
+      ImmutableMap<CFANode, Integer> pNodeIndices) {
+    globalDeclarationsHash = pGlobalDeclarationsHash;
+    hashes = pHashes;
+    nodeNumbers = pNodeNumbers;
+    nodes = pNodes;
+    nodeIndices = pNodeIndices;
+  }
+
+  public static FunctionFingerprints of(CFA pCfa) {
+    ImmutableMap.Builder<String, String> hashes = ImmutableMap.builder();
+    ImmutableMap.Builder<String, ImmutableList<Integer>> nodeNumbers = ImmutableMap.builder();
+    ImmutableMap.Builder<String, ImmutableList<CFANode>> nodes = ImmutableMap.builder();
+    ImmutableMap.Builder<CFANode, Integer> nodeIndices = ImmutableMap.builder();
+    Hasher globalDeclarations = Hashing.sha256().newHasher();
+
+    // sorted by name, such that the hash of the global declarations is deterministic
+    for (Entry<String, FunctionEntryNode> function :
+        ImmutableSortedMap.copyOf(pCfa.getAllFunctions()).entrySet()) {
+      ImmutableList<CFANode> functionNodes = collectNodes(function.getValue());
+      Map<CFANode, Integer> indices = new HashMap<>();
+      for (CFANode node : functionNodes) {
+        indices.put(node, indices.size());
+      }
+
+      Hasher hasher = Hashing.sha256().newHasher();
+      for (CFANode node : functionNodes) {
+        hasher.putInt(-1); // separator between nodes
+        for (CFAEdge edge : getEdges(node)) {
+          hasher.putString(edge.getEdgeType().name(), StandardCharsets.UTF_8);
+          hasher.putString(edge.getDescription(), StandardCharsets.UTF_8);
+          hasher.putInt(indices.getOrDefault(edge.getSuccessor(), -1));
+          if (edge instanceof ADeclarationEdge
+              && ((ADeclarationEdge) edge).getDeclaration().isGlobal()) {
+            globalDeclarations.putString(
+                ((ADeclarationEdge) edge).getDeclaration().toASTString(), StandardCharsets.UTF_8);
+          }
+        }
+      }
+
+      hashes.put(function.getKey(), hasher.hash().toString());
+      nodeNumbers.put(
+          function.getKey(),
+          ImmutableList.copyOf(Lists.transform(functionNodes, CFANode::getNodeNumber)));
+      nodes.put(function.getKey(), functionNodes);
+      nodeIndices.putAll(indices);
+    }
+
+    return new FunctionFingerprints(
+        globalDeclarations.hash().toString(),
+        hashes.build(),
+        nodeNumbers.build(),
+        nodes.build(),
+        nodeIndices.build());
+  }
+
+  /** Collect the nodes of a function in a deterministic depth-first order. */
+  private static ImmutableList<CFANode> collectNodes(FunctionEntryNode pEntry) {
+    Set<CFANode> visited = new LinkedHashSet<>();
+    Deque<CFANode> waitlist = new ArrayDeque<>();
+    waitlist.push(pEntry);
+    while (!waitlist.isEmpty()) {
+      CFANode node = waitlist.pop();
+      if (!visited.add(node)) {
+        continue;
+      }
+      List<CFAEdge> edges = getEdges(node);
+      for (CFAEdge edge : Lists.reverse(edges)) {
+        if (!visited.contains(edge.getSuccessor())) {
+          waitlist.push(edge.getSuccessor());
+        }
+      }
+    }
+    return ImmutableList.copyOf(visited);
+  }
+
+  /** The leaving edges of a node within its function, i.e., function calls are skipped. */
+  private static List<CFAEdge> getEdges(CFANode pNode) {
+    ImmutableList.Builder<CFAEdge> edges = ImmutableList.builder();
+    for (CFAEdge edge : CFAUtils.leavingEdges(pNode)) {
+      if (edge.getSuccessor().getFunctionName().equals(pNode.getFunctionName())) {
+        edges.add(edge);
+      }
+    }
+    FunctionSummaryEdge summaryEdge = pNode.getLeavingSummaryEdge();
+    if (summaryEdge != null) {
+      edges.add(summaryEdge);
+    }
+    return edges.build();
+  }
+
+  /** Returns the content hash of all global declarations of the program. */
+  public String getGlobalDeclarationsHash() {
+    return globalDeclarationsHash;
+  }
+
+  /** Returns whether the global declarations of both programs are equal. */
+  public boolean haveSameGlobalDeclarations(FunctionFingerprints pOther) {
+    return globalDeclarationsHash.equals(pOther.globalDeclarationsHash);
+  }
+
+  /** Returns the content hash of the given function, or NULL if there is no such function. */
+  public @Nullable String getHash(String pFunction) {
+    return hashes.get(pFunction);
+  }
+
+  /**
+   * Returns the position of a node in the deterministic order of the nodes of its function, or -1
+   * if the node is not reachable from the function entry. Only available for the current CFA.
+   */
+  public int getIndex(CFANode pNode) {
+    return checkNotNull(nodeIndices, "node indices are not available after deserialization")
+        .getOrDefault(pNode, -1);
+  }
+
+  /** Returns all functions of this CFA that do not exist with the same content in the other. */
+  public ImmutableSet<String> getChangedFunctions(FunctionFingerprints pPrevious) {
+    ImmutableSet.Builder<String> changed = ImmutableSet.builder();
+    for (Entry<String, String> function : hashes.entrySet()) {
+      if (!function.getValue().equals(pPrevious.hashes.get(function.getKey()))) {
+        changed.add(function.getKey());
+      }
+    }
+    return changed.build();
+  }
+
+  /**
+   * Map the node numbers of all unchanged functions in the other (previous) CFA to the
+   * corresponding nodes of this (current) CFA.
+   */
+  public ImmutableMap<Integer, CFANode> getNodeTranslation(FunctionFingerprints pPrevious) {
+    checkNotNull(nodes, "nodes are not available after deserialization");
+    ImmutableMap.Builder<Integer, CFANode> translation = ImmutableMap.builder();
+    for (Entry<String, ImmutableList<CFANode>> function : nodes.entrySet()) {
+      String name = function.getKey();
+      if (hashes.get(name).equals(pPrevious.hashes.get(name))) {
+        List<Integer> previousNodeNumbers = pPrevious.nodeNumbers.get(name);
+        List<CFANode> currentNodes = function.getValue();
+        for (int i = 0; i < currentNodes.size(); i++) {
+          translation.put(previousNodeNumbers.get(i), currentNodes.get(i));
+        }
+      }
+    }
+    return translation.build();
+  }
+}
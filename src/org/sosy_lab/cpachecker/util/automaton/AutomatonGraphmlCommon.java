@@ -30,6 +30,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
@@ -58,9 +59,12 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.CFA;
@@ -114,6 +118,8 @@ import org.w3c.dom.DOMException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
 public class AutomatonGraphmlCommon {
 
@@ -348,6 +354,53 @@ public class AutomatonGraphmlCommon {
     return BaseEncoding.base16().lowerCase().encode(hash.asBytes());
   }
 
+  private static List<Map.Entry<KeyDef, String>> getGraphData(
+      WitnessType pGraphType, CFA pCfa, VerificationTaskMetaData pVerificationTaskMetaData)
+      throws IOException {
+    List<Map.Entry<KeyDef, String>> result = new ArrayList<>();
+    result.add(Maps.immutableEntry(KeyDef.WITNESS_TYPE, pGraphType.toString()));
+    result.add(Maps.immutableEntry(KeyDef.SOURCECODELANGUAGE, pCfa.getLanguage().toString()));
+    result.add(
+        Maps.immutableEntry(KeyDef.PRODUCER, pVerificationTaskMetaData.getProducerString()));
+
+    int nSpecs = 0;
+    for (SpecificationProperty property : pVerificationTaskMetaData.getProperties()) {
+      result.add(Maps.immutableEntry(KeyDef.SPECIFICATION, property.toString()));
+      ++nSpecs;
+    }
+
+    for (Path specFile : pVerificationTaskMetaData.getNonPropertySpecificationFiles()) {
+      result.add(
+          Maps.immutableEntry(
+              KeyDef.SPECIFICATION,
+              MoreFiles.asCharSource(specFile, Charsets.UTF_8).read().trim()));
+      ++nSpecs;
+    }
+
+    if (nSpecs == 0) {
+      result.add(Maps.immutableEntry(KeyDef.SPECIFICATION, "TRUE"));
+    }
+
+    for (Path inputWitness : pVerificationTaskMetaData.getInputWitnessFiles()) {
+      result.add(Maps.immutableEntry(KeyDef.INPUTWITNESSHASH, computeHash(inputWitness)));
+    }
+
+    for (Path programFile : pCfa.getFileNames()) {
+      result.add(Maps.immutableEntry(KeyDef.PROGRAMFILE, programFile.toString()));
+    }
+    for (Path programFile : pCfa.getFileNames()) {
+      result.add(Maps.immutableEntry(KeyDef.PROGRAMHASH, computeHash(programFile)));
+    }
+
+    result.add(
+        Maps.immutableEntry(KeyDef.ARCHITECTURE, getArchitecture(pCfa.getMachineModel())));
+    ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault()).withNano(0);
+    result.add(
+        Maps.immutableEntry(
+            KeyDef.CREATIONTIME, now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+    return result;
+  }
+
   public static class GraphMlBuilder {
 
     private final Document doc;
@@ -380,47 +433,10 @@ public class AutomatonGraphmlCommon {
       graph = doc.createElement("graph");
       root.appendChild(graph);
       graph.setAttribute("edgedefault", "directed");
-      graph.appendChild(createDataElement(KeyDef.WITNESS_TYPE, pGraphType.toString()));
-      graph.appendChild(
-          createDataElement(KeyDef.SOURCECODELANGUAGE, pCfa.getLanguage().toString()));
-      graph.appendChild(
-          createDataElement(KeyDef.PRODUCER, pVerificationTaskMetaData.getProducerString()));
-
-      int nSpecs = 0;
-      for (SpecificationProperty property : pVerificationTaskMetaData.getProperties()) {
-        graph.appendChild(createDataElement(KeyDef.SPECIFICATION, property.toString()));
-        ++nSpecs;
-      }
-
-      for (Path specFile : pVerificationTaskMetaData.getNonPropertySpecificationFiles()) {
-        graph.appendChild(
-            createDataElement(
-                KeyDef.SPECIFICATION,
-                MoreFiles.asCharSource(specFile, Charsets.UTF_8).read().trim()));
-        ++nSpecs;
-      }
-
-      if (nSpecs == 0) {
-        graph.appendChild(createDataElement(KeyDef.SPECIFICATION, "TRUE"));
+      for (Map.Entry<KeyDef, String> graphData :
+          getGraphData(pGraphType, pCfa, pVerificationTaskMetaData)) {
+        graph.appendChild(createDataElement(graphData.getKey(), graphData.getValue()));
       }
-
-      for (Path inputWitness : pVerificationTaskMetaData.getInputWitnessFiles()) {
-        graph.appendChild(createDataElement(KeyDef.INPUTWITNESSHASH, computeHash(inputWitness)));
-      }
-
-      for (Path programFile : pCfa.getFileNames()) {
-        graph.appendChild(createDataElement(KeyDef.PROGRAMFILE, programFile.toString()));
-      }
-      for (Path programFile : pCfa.getFileNames()) {
-        graph.appendChild(createDataElement(KeyDef.PROGRAMHASH, computeHash(programFile)));
-      }
-
-      graph.appendChild(
-          createDataElement(KeyDef.ARCHITECTURE, getArchitecture(pCfa.getMachineModel())));
-      ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault()).withNano(0);
-      graph.appendChild(
-          createDataElement(
-              KeyDef.CREATIONTIME, now.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
     }
 
     private void defineKey(KeyDef pKeyDef) {
@@ -508,11 +524,7 @@ public class AutomatonGraphmlCommon {
 
         TransformerFactory tf = TransformerFactory.newInstance();
         Transformer transformer = tf.newTransformer();
-        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "1");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        setOutputProperties(transformer);
 
         transformer.transform(new DOMSource(doc), new StreamResult(CharStreams.asWriter(pTarget)));
       } catch (TransformerException ex) {
@@ -525,6 +537,191 @@ public class AutomatonGraphmlCommon {
 
   }
 
+  private static void setOutputProperties(Transformer pTransformer) {
+    pTransformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+    pTransformer.setOutputProperty(OutputKeys.METHOD, "xml");
+    pTransformer.setOutputProperty(OutputKeys.INDENT, "yes");
+    pTransformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "1");
+    pTransformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+  }
+
+  /**
+   * Writes a GraphML witness directly to an {@link Appendable} while its nodes and edges are
+   * produced, without building a document in memory first.
+   *
+   * <p>In contrast to {@link GraphMlBuilder}, all data keys used by nodes and edges need to be
+   * known when the writer is created, because their definitions precede the graph. Like in {@link
+   * GraphMlBuilder}, the key definitions are ordered like {@link KeyDef}, and the elements are
+   * passed to the same serializer that {@link GraphMlBuilder} uses for its document, so both
+   * produce the same output.
+   */
+  public static class GraphMlWriter {
+
+    private final TransformerHandler handler;
+    private final Set<KeyDef> definedKeys = EnumSet.noneOf(KeyDef.class);
+
+    public GraphMlWriter(
+        Appendable pTarget,
+        WitnessType pGraphType,
+        @Nullable String pDefaultSourceFileName,
+        CFA pCfa,
+        VerificationTaskMetaData pVerificationTaskMetaData,
+        Iterable<KeyDef> pDataKeys)
+        throws IOException {
+      List<Map.Entry<KeyDef, String>> graphData =
+          getGraphData(pGraphType, pCfa, pVerificationTaskMetaData);
+
+      definedKeys.add(KeyDef.ORIGINFILE);
+      for (KeyDef keyDef : KeyDef.values()) {
+        if (keyDef.keyFor == ElementType.GRAPH) {
+          definedKeys.add(keyDef);
+        }
+      }
+      Iterables.addAll(definedKeys, pDataKeys);
+
+      pTarget.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+      try {
+        handler =
+            ((SAXTransformerFactory) TransformerFactory.newInstance()).newTransformerHandler();
+      } catch (TransformerConfigurationException e) {
+        throw new RuntimeException("Error while writing witness.", e);
+      }
+      setOutputProperties(handler.getTransformer());
+      handler.setResult(new StreamResult(CharStreams.asWriter(pTarget)));
+
+      // Attributes are given in alphabetical order, like in the serialized document of
+      // GraphMlBuilder.
+      try {
+        handler.startDocument();
+        startElement(
+            "graphml",
+            "xmlns",
+            "http://graphml.graphdrawing.org/xmlns",
+            "xmlns:xsi",
+            "http://www.w3.org/2001/XMLSchema-instance");
+
+        for (KeyDef keyDef : definedKeys) {
+          writeKeyDef(
+              keyDef,
+              keyDef == KeyDef.ORIGINFILE
+                  ? Optional.of(pDefaultSourceFileName)
+                  : Optional.empty());
+        }
+
+        startElement(GraphMLTag.GRAPH.toString(), "edgedefault", "directed");
+      } catch (SAXException e) {
+        throw asIOException(e);
+      }
+      for (Map.Entry<KeyDef, String> data : graphData) {
+        writeData(data.getKey(), data.getValue());
+      }
+    }
+
+    private void writeKeyDef(KeyDef pKeyDef, Optional<String> pDefaultValue) throws SAXException {
+      startElement(
+          GraphMLTag.KEY.toString(),
+          "attr.name",
+          pKeyDef.attrName,
+          "attr.type",
+          pKeyDef.attrType,
+          "for",
+          pKeyDef.keyFor.toString(),
+          "id",
+          pKeyDef.id);
+
+      String defaultValue = pDefaultValue.orElse(pKeyDef.defaultValue);
+      if (defaultValue != null) {
+        startElement(GraphMLTag.DEFAULT.toString());
+        characters(defaultValue);
+        endElement(GraphMLTag.DEFAULT.toString());
+      }
+      endElement(GraphMLTag.KEY.toString());
+    }
+
+    /** Starts an element with the given alternating attribute names and values. */
+    private void startElement(String pTag, String... pAttributes) throws SAXException {
+      AttributesImpl attributes = new AttributesImpl();
+      for (int i = 0; i < pAttributes.length; i += 2) {
+        attributes.addAttribute("", "", pAttributes[i], "CDATA", pAttributes[i + 1]);
+      }
+      handler.startElement("", "", pTag, attributes);
+    }
+
+    private void endElement(String pTag) throws SAXException {
+      handler.endElement("", "", pTag);
+    }
+
+    private void characters(String pText) throws SAXException {
+      handler.characters(pText.toCharArray(), 0, pText.length());
+    }
+
+    public void startNode(String pNodeId, NodeType pNodeType) throws IOException {
+      try {
+        startElement(GraphMLTag.NODE.toString(), "id", pNodeId);
+      } catch (SAXException e) {
+        throw asIOException(e);
+      }
+      if (pNodeType != defaultNodeType) {
+        writeData(KeyDef.NODETYPE, pNodeType.toString());
+      }
+    }
+
+    public void startEdge(String pFrom, String pTo) throws IOException {
+      try {
+        startElement(GraphMLTag.EDGE.toString(), "source", pFrom, "target", pTo);
+      } catch (SAXException e) {
+        throw asIOException(e);
+      }
+    }
+
+    /** Writes a data child of the current node or edge, whose key must have been announced. */
+    public void writeData(KeyDef pKey, String pValue) throws IOException {
+      Preconditions.checkState(
+          definedKeys.contains(pKey), "Data key %s was not announced to the writer", pKey);
+      try {
+        startElement(GraphMLTag.DATA.toString(), "key", pKey.id);
+        characters(pValue);
+        endElement(GraphMLTag.DATA.toString());
+      } catch (SAXException e) {
+        throw asIOException(e);
+      }
+    }
+
+    public void endNode() throws IOException {
+      try {
+        endElement(GraphMLTag.NODE.toString());
+      } catch (SAXException e) {
+        throw asIOException(e);
+      }
+    }
+
+    public void endEdge() throws IOException {
+      try {
+        endElement(GraphMLTag.EDGE.toString());
+      } catch (SAXException e) {
+        throw asIOException(e);
+      }
+    }
+
+    /** Closes the graph and the document. No further nodes or edges may be written. */
+    public void finish() throws IOException {
+      try {
+        endElement(GraphMLTag.GRAPH.toString());
+        endElement("graphml");
+        handler.endDocument();
+      } catch (SAXException e) {
+        throw asIOException(e);
+      }
+    }
+
+    private static IOException asIOException(SAXException pException) {
+      if (pException.getException() instanceof IOException) {
+        return (IOException) pException.getException();
+      }
+      return new IOException("Error while writing witness.", pException);
+    }
+  }
+
   public static boolean handleAsEpsilonEdge(CFAEdge pEdge, CFAEdgeWithAdditionalInfo
       pAdditionalInfo) {
     if (pAdditionalInfo != null && !pAdditionalInfo.getInfos().isEmpty()) {
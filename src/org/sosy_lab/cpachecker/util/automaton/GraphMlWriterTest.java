@@ -0,0 +1,260 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreator;
+import org.sosy_lab.cpachecker.cfa.CProgramScope;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.cpa.automaton.Automaton;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonGraphmlParser;
+import org.sosy_lab.cpachecker.util.Property;
+import org.sosy_lab.cpachecker.util.Property.CommonPropertyType;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlBuilder;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlWriter;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.w3c.dom.Element;
+
+/**
+ * Tests that {@link GraphMlWriter} writes the same document as {@link GraphMlBuilder} for the same
+ * nodes and edges.
+ */
+public class GraphMlWriterTest {
+
+  /** The nodes and edges of the witness, in the order in which they are written. */
+  private static final ImmutableList<GraphElement> WITNESS =
+      ImmutableList.of(
+          node("N0", KeyDef.ISENTRYNODE, "true"),
+          edge(
+              "N0",
+              "N1",
+              KeyDef.STARTLINE,
+              "2",
+              KeyDef.SOURCECODE,
+              "int i = 0;",
+              KeyDef.ASSUMPTION,
+              "i == 0;",
+              KeyDef.ASSUMPTIONSCOPE,
+              "main"),
+          node("N1"),
+          edge(
+              "N1",
+              "N2",
+              KeyDef.STARTLINE,
+              "3",
+              KeyDef.SOURCECODE,
+              "[i < 5 && i != 3]",
+              KeyDef.CONTROLCASE,
+              "condition-true",
+              KeyDef.ENTERLOOPHEAD,
+              "true"),
+          node("N2", KeyDef.ISVIOLATIONNODE, "true"));
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Configuration config;
+  private LogManager logger;
+  private String programName;
+  private CFA cfa;
+  private VerificationTaskMetaData metaData;
+
+  @Before
+  public void setUp() throws Exception {
+    config = TestDataTools.configurationForTest().build();
+    logger = LogManager.createTestLogManager();
+    Path program = tempFolder.newFile("program.c").toPath();
+    Files.write(
+        program,
+        ImmutableList.of(
+            "int main() {",
+            "  int i = 0;",
+            "  while (i < 5) {",
+            "    i++;",
+            "  }",
+            "  return 0;",
+            "}"),
+        StandardCharsets.UTF_8);
+    programName = program.toString();
+    cfa =
+        new CFACreator(config, logger, ShutdownNotifier.createDummy())
+            .parseFileAndCreateCFA(ImmutableList.of(programName));
+    metaData = new VerificationTaskMetaData(config, Specification.alwaysSatisfied());
+  }
+
+  @Test
+  public void sameOutputAsBuilder() throws Exception {
+    assertThat(withoutCreationTime(writeWithWriter()))
+        .isEqualTo(withoutCreationTime(writeWithBuilder()));
+  }
+
+  @Test
+  public void keysInOrderOfFirstUse() throws Exception {
+    String output = writeWithWriter();
+    // the entry flag is used before the violation flag, although it is declared after it
+    assertThat(output.indexOf("<key attr.name=\"isEntryNode\""))
+        .isLessThan(output.indexOf("<key attr.name=\"isViolationNode\""));
+    assertThat(output.indexOf("<key attr.name=\"isViolationNode\""))
+        .isLessThan(output.indexOf("<graph "));
+  }
+
+  @Test
+  public void sameAutomatonAsBuilder() throws Exception {
+    Path expected = tempFolder.newFile("builder.graphml").toPath();
+    Files.write(expected, writeWithBuilder().getBytes(StandardCharsets.UTF_8));
+    Path actual = tempFolder.newFile("writer.graphml").toPath();
+    Files.write(actual, writeWithWriter().getBytes(StandardCharsets.UTF_8));
+
+    AutomatonGraphmlParser parser =
+        new AutomatonGraphmlParser(
+            config, logger, ShutdownNotifier.createDummy(), cfa, new CProgramScope(cfa, logger));
+    Set<Property> properties = ImmutableSet.of(CommonPropertyType.REACHABILITY_LABEL);
+    List<Automaton> expectedAutomata = parser.parseAutomatonFile(expected, properties);
+    List<Automaton> actualAutomata = parser.parseAutomatonFile(actual, properties);
+    assertThat(expectedAutomata).isNotEmpty();
+    assertThat(actualAutomata.toString()).isEqualTo(expectedAutomata.toString());
+  }
+
+  @Test
+  public void unannouncedKey() throws Exception {
+    GraphMlWriter writer =
+        new GraphMlWriter(
+            new StringBuilder(),
+            WitnessType.VIOLATION_WITNESS,
+            programName,
+            cfa,
+            metaData,
+            ImmutableList.of(KeyDef.ISENTRYNODE));
+    writer.startNode("N0", NodeType.ONPATH);
+    writer.writeData(KeyDef.ISENTRYNODE, "true");
+    assertThrows(
+        IllegalStateException.class, () -> writer.writeData(KeyDef.ISVIOLATIONNODE, "true"));
+  }
+
+  private String writeWithBuilder() throws Exception {
+    GraphMlBuilder builder =
+        new GraphMlBuilder(WitnessType.VIOLATION_WITNESS, programName, cfa, metaData);
+    for (GraphElement element : WITNESS) {
+      Element result =
+          element.target == null
+              ? builder.createNodeElement(element.source, NodeType.ONPATH)
+              : builder.createEdgeElement(element.source, element.target);
+      for (Map.Entry<KeyDef, String> data : element.data) {
+        builder.addDataElementChild(result, data.getKey(), data.getValue());
+      }
+    }
+    StringBuilder output = new StringBuilder();
+    builder.appendTo(output);
+    return output.toString();
+  }
+
+  private String writeWithWriter() throws Exception {
+    Set<KeyDef> keys = new LinkedHashSet<>();
+    for (GraphElement element : WITNESS) {
+      for (Map.Entry<KeyDef, String> data : element.data) {
+        keys.add(data.getKey());
+      }
+    }
+    // the writer orders the key definitions like GraphMlBuilder, regardless of the given order
+    StringBuilder output = new StringBuilder();
+    GraphMlWriter writer =
+        new GraphMlWriter(
+            output,
+            WitnessType.VIOLATION_WITNESS,
+            programName,
+            cfa,
+            metaData,
+            ImmutableList.copyOf(keys).reverse());
+    for (GraphElement element : WITNESS) {
+      if (element.target == null) {
+        writer.startNode(element.source, NodeType.ONPATH);
+      } else {
+        writer.startEdge(element.source, element.target);
+      }
+      for (Map.Entry<KeyDef, String> data : element.data) {
+        writer.writeData(data.getKey(), data.getValue());
+      }
+      if (element.target == null) {
+        writer.endNode();
+      } else {
+        writer.endEdge();
+      }
+    }
+    writer.finish();
+    return output.toString();
+  }
+
+  /** Both writers take the current time, which may differ between them. */
+  private static String withoutCreationTime(String pGraphMl) {
+    return pGraphMl.replaceAll("<data key=\"creationtime\">[^<]*</data>", "");
+  }
+
+  private static GraphElement node(String pId, Object... pData) {
+    return new GraphElement(pId, null, pData);
+  }
+
+  private static GraphElement edge(String pSource, String pTarget, Object... pData) {
+    return new GraphElement(pSource, pTarget, pData);
+  }
+
+  private static class GraphElement {
+
+    private final String source;
+    private final @Nullable String target;
+    private final ImmutableList<Map.Entry<KeyDef, String>> data;
+
+    private GraphElement(String pSource, @Nullable String pTarget, Object... pData) {
+      source = pSource;
+      target = pTarget;
+      ImmutableList.Builder<Map.Entry<KeyDef, String>> builder = ImmutableList.builder();
+      for (int i = 0; i < pData.length; i += 2) {
+        builder.add(Maps.immutableEntry((KeyDef) pData[i], (String) pData[i + 1]));
+      }
+      data = builder.build();
+    }
+  }
+}
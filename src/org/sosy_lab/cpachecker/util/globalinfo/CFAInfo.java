@@ -24,6 +24,8 @@
 package org.sosy_lab.cpachecker.util.globalinfo;
 
 import com.google.common.collect.ImmutableMap;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cpa.location.LocationStateFactory;
@@ -46,6 +48,19 @@ public class CFAInfo {
     return nodeNumberToNode.get(nodeNumber);
   }
 
+  /**
+   * Resolve a node number that was read from the given stream during deserialization. If the
+   * stream is a {@link NodeNumberTranslatingObjectInputStream}, the node number belongs to another
+   * version of the CFA and is translated onto the current CFA.
+   */
+  public CFANode getNodeByNodeNumber(int nodeNumber, ObjectInputStream pStream)
+      throws InvalidObjectException {
+    if (pStream instanceof NodeNumberTranslatingObjectInputStream) {
+      return ((NodeNumberTranslatingObjectInputStream) pStream).translate(nodeNumber);
+    }
+    return getNodeByNodeNumber(nodeNumber);
+  }
+
   public void storeLocationStateFactory(LocationStateFactory pElementFactory) {
     locationStateFactory = pElementFactory;
   }
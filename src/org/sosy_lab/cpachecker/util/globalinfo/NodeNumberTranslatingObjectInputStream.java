@@ -0,0 +1,69 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.globalinfo;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.util.Map;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+
+/**
+ * An {@link ObjectInputStream} for objects that were serialized for another version of the CFA.
+ * Node numbers that are read by {@link CFAInfo#getNodeByNodeNumber(int, ObjectInputStream)} from
+ * this stream are translated onto the nodes of the current CFA with the given mapping. Directly
+ * serialized {@link CFANode}s are replaced by the corresponding nodes of the current CFA, too,
+ * because nodes are compared by identity. Unknown node numbers cause an {@link
+ * InvalidObjectException}.
+ */
+public class NodeNumberTranslatingObjectInputStream extends ObjectInputStream {
+
+  private final ImmutableMap<Integer, CFANode> translation;
+
+  public NodeNumberTranslatingObjectInputStream(
+      InputStream pIn, Map<Integer, CFANode> pTranslation) throws IOException {
+    super(pIn);
+    translation = ImmutableMap.copyOf(pTranslation);
+    enableResolveObject(true);
+  }
+
+  @Override
+  protected Object resolveObject(Object pObj) throws IOException {
+    if (pObj instanceof CFANode) {
+      return translate(((CFANode) pObj).getNodeNumber());
+    }
+    return pObj;
+  }
+
+  CFANode translate(int pNodeNumber) throws InvalidObjectException {
+    CFANode node = translation.get(pNodeNumber);
+    if (node == null) {
+      throw new InvalidObjectException(
+          "no node of the current CFA corresponds to node number " + pNodeNumber);
+    }
+    return node;
+  }
+}
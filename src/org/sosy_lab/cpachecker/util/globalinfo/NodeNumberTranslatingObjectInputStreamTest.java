@@ -0,0 +1,89 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.globalinfo;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+
+public class NodeNumberTranslatingObjectInputStreamTest {
+
+  private final CFANode previousNode = new CFANode("f");
+  private final CFANode currentNode = new CFANode("f");
+
+  private static byte[] serialize(Object pObject) throws IOException {
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(data)) {
+      oos.writeObject(pObject);
+    }
+    return data.toByteArray();
+  }
+
+  private static Object deserialize(byte[] pData, Map<Integer, CFANode> pTranslation)
+      throws IOException, ClassNotFoundException {
+    try (ObjectInputStream ois =
+        new NodeNumberTranslatingObjectInputStream(new ByteArrayInputStream(pData), pTranslation)) {
+      return ois.readObject();
+    }
+  }
+
+  @Test
+  public void testNodeIsTranslated() throws IOException, ClassNotFoundException {
+    byte[] data = serialize(previousNode);
+    Object result = deserialize(data, ImmutableMap.of(previousNode.getNodeNumber(), currentNode));
+    assertThat(result).isSameInstanceAs(currentNode);
+  }
+
+  @Test
+  public void testNodeInMapIsTranslated() throws IOException, ClassNotFoundException {
+    Map<CFANode, String> map = new HashMap<>();
+    map.put(previousNode, "value");
+    byte[] data = serialize(map);
+
+    @SuppressWarnings("unchecked")
+    Map<CFANode, String> result =
+        (Map<CFANode, String>)
+            deserialize(data, ImmutableMap.of(previousNode.getNodeNumber(), currentNode));
+    // CFANodes use identity hash codes, thus the lookup only works with the translated node
+    assertThat(result).containsExactly(currentNode, "value");
+    assertThat(result.get(currentNode)).isEqualTo("value");
+  }
+
+  @Test
+  public void testUnknownNode() throws IOException {
+    byte[] data = serialize(previousNode);
+    assertThrows(InvalidObjectException.class, () -> deserialize(data, ImmutableMap.of()));
+  }
+}
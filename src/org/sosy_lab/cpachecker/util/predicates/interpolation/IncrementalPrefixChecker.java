@@ -0,0 +1,154 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.interpolation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Feasibility checks of counterexample traces that keep the solver stack between checks.
+ *
+ * <p>Each block formula of a trace is pushed as a checkpoint that is identified by the abstraction
+ * state at the end of the block. When the next trace is checked, the checkpoints for the longest
+ * common prefix (same abstraction states and block formulas) are kept, and only the remaining
+ * blocks are popped and pushed. In a CEGAR loop, the ARG above the refinement pivot is not changed,
+ * thus subsequent counterexamples typically share a long prefix with the previous ones. If a
+ * prefix was already found to be infeasible, a trace with this prefix is known to be infeasible
+ * without a solver call.
+ *
+ * <p>Not thread-safe, and {@link #close()} needs to be called when the instance is not used
+ * anymore.
+ */
+class IncrementalPrefixChecker implements AutoCloseable {
+
+  private static class Checkpoint {
+    private final AbstractState state;
+    private final BooleanFormula formula;
+
+    /** whether the trace up to and including this checkpoint is unsat, null if unknown */
+    private @Nullable Boolean unsat = null;
+
+    private Checkpoint(AbstractState pState, BooleanFormula pFormula) {
+      state = pState;
+      formula = pFormula;
+    }
+  }
+
+  private final Solver solver;
+  private @Nullable ProverEnvironment prover = null;
+  private final List<Checkpoint> checkpoints = new ArrayList<>();
+
+  // stats
+  int reusedCheckpoints = 0;
+  int infeasiblePrefixHits = 0;
+
+  IncrementalPrefixChecker(Solver pSolver) {
+    solver = pSolver;
+  }
+
+  /**
+   * Check whether the conjunction of the given block formulas is unsatisfiable. If it is
+   * satisfiable, {@link #getProver()} can be used to retrieve a model afterwards.
+   *
+   * @param pFormulas the block formulas of the trace
+   * @param pStates the abstraction state at the end of each block
+   */
+  boolean isUnsat(List<BooleanFormula> pFormulas, List<? extends AbstractState> pStates)
+      throws SolverException, InterruptedException {
+    checkArgument(pFormulas.size() == pStates.size());
+
+    int commonPrefix = 0;
+    while (commonPrefix < checkpoints.size()
+        && commonPrefix < pFormulas.size()
+        && checkpoints.get(commonPrefix).state == pStates.get(commonPrefix)
+        && checkpoints.get(commonPrefix).formula.equals(pFormulas.get(commonPrefix))) {
+      if (Boolean.TRUE.equals(checkpoints.get(commonPrefix).unsat)) {
+        // an infeasible prefix cannot be extended to a feasible trace
+        infeasiblePrefixHits++;
+        return true;
+      }
+      commonPrefix++;
+    }
+    reusedCheckpoints += commonPrefix;
+
+    try {
+      if (prover == null || commonPrefix == 0) {
+        reset();
+        prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
+      }
+      while (checkpoints.size() > commonPrefix) {
+        prover.pop();
+        checkpoints.remove(checkpoints.size() - 1);
+      }
+      for (int i = commonPrefix; i < pFormulas.size(); i++) {
+        prover.push(pFormulas.get(i));
+        checkpoints.add(new Checkpoint(pStates.get(i), pFormulas.get(i)));
+      }
+
+      boolean unsat = prover.isUnsat();
+      if (!checkpoints.isEmpty()) {
+        checkpoints.get(checkpoints.size() - 1).unsat = unsat;
+      }
+      return unsat;
+
+    } catch (SolverException | InterruptedException | RuntimeException e) {
+      // the solver stack might not match the checkpoints anymore
+      reset();
+      throw e;
+    }
+  }
+
+  /**
+   * The prover with the formulas of the last checked trace. If its stack is modified, {@link
+   * #reset()} needs to be called before the next check.
+   */
+  ProverEnvironment getProver() {
+    checkState(prover != null, "no trace was checked");
+    return prover;
+  }
+
+  /** Discard all checkpoints, e.g., if the solver stack of {@link #getProver()} was modified. */
+  void reset() {
+    if (prover != null) {
+      prover.close();
+      prover = null;
+    }
+    checkpoints.clear();
+  }
+
+  @Override
+  public void close() {
+    reset();
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.interpolation;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.SolverException;
+
+@SuppressFBWarnings("NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
+public class IncrementalPrefixCheckerTest extends SolverViewBasedTest0 {
+
+  private IncrementalPrefixChecker checker;
+
+  private final AbstractState s1 = newState();
+  private final AbstractState s2 = newState();
+  private final AbstractState s3 = newState();
+
+  private BooleanFormula positive; // x > 0
+  private BooleanFormula small; // x < 5
+  private BooleanFormula large; // x > 2
+  private BooleanFormula negative; // x < 0
+
+  private static AbstractState newState() {
+    return new AbstractState() {};
+  }
+
+  @Before
+  public void setUp() {
+    checker = new IncrementalPrefixChecker(solver);
+
+    IntegerFormula x = imgrv.makeVariable("x");
+    positive = imgrv.greaterThan(x, imgrv.makeNumber(0));
+    small = imgrv.lessThan(x, imgrv.makeNumber(5));
+    large = imgrv.greaterThan(x, imgrv.makeNumber(2));
+    negative = imgrv.lessThan(x, imgrv.makeNumber(0));
+  }
+
+  @After
+  public void tearDown() {
+    checker.close();
+  }
+
+  @Test
+  public void testCommonPrefixIsReused() throws SolverException, InterruptedException {
+    assertThat(checker.isUnsat(ImmutableList.of(positive, negative), ImmutableList.of(s1, s2)))
+        .isTrue();
+    assertThat(checker.reusedCheckpoints).isEqualTo(0);
+
+    // only the last block is replaced
+    assertThat(checker.isUnsat(ImmutableList.of(positive, large), ImmutableList.of(s1, s3)))
+        .isFalse();
+    assertThat(checker.reusedCheckpoints).isEqualTo(1);
+
+    assertThat(
+            checker.isUnsat(
+                ImmutableList.of(positive, large, small), ImmutableList.of(s1, s3, s2)))
+        .isFalse();
+    assertThat(checker.reusedCheckpoints).isEqualTo(3);
+    assertThat(checker.infeasiblePrefixHits).isEqualTo(0);
+  }
+
+  @Test
+  public void testPrefixNeedsSameStates() throws SolverException, InterruptedException {
+    assertThat(checker.isUnsat(ImmutableList.of(positive, large), ImmutableList.of(s1, s2)))
+        .isFalse();
+
+    // equal formulas, but a different state for the second block
+    assertThat(checker.isUnsat(ImmutableList.of(positive, large), ImmutableList.of(s1, s3)))
+        .isFalse();
+    assertThat(checker.reusedCheckpoints).isEqualTo(1);
+
+    // equal formulas, but a different state for the first block
+    assertThat(checker.isUnsat(ImmutableList.of(positive, large), ImmutableList.of(s2, s3)))
+        .isFalse();
+    assertThat(checker.reusedCheckpoints).isEqualTo(1);
+  }
+
+  @Test
+  public void testPrefixNeedsSameFormulas() throws SolverException, InterruptedException {
+    assertThat(checker.isUnsat(ImmutableList.of(positive, large), ImmutableList.of(s1, s2)))
+        .isFalse();
+
+    // same states, but a different formula for the first block
+    assertThat(checker.isUnsat(ImmutableList.of(negative, large), ImmutableList.of(s1, s2)))
+        .isTrue();
+    assertThat(checker.reusedCheckpoints).isEqualTo(0);
+
+    // same states, but a different formula for the second block
+    assertThat(checker.isUnsat(ImmutableList.of(negative, small), ImmutableList.of(s1, s2)))
+        .isFalse();
+    assertThat(checker.reusedCheckpoints).isEqualTo(1);
+  }
+
+  @Test
+  public void testInfeasiblePrefix() throws SolverException, InterruptedException {
+    assertThat(checker.isUnsat(ImmutableList.of(positive, negative), ImmutableList.of(s1, s2)))
+        .isTrue();
+
+    assertThat(
+            checker.isUnsat(
+                ImmutableList.of(positive, negative, large), ImmutableList.of(s1, s2, s3)))
+        .isTrue();
+    assertThat(checker.infeasiblePrefixHits).isEqualTo(1);
+    assertThat(checker.reusedCheckpoints).isEqualTo(0);
+
+    // the infeasible prefix ends with a different state, thus it needs to be checked
+    assertThat(
+            checker.isUnsat(
+                ImmutableList.of(positive, negative, large), ImmutableList.of(s1, s3, s2)))
+        .isTrue();
+    assertThat(checker.infeasiblePrefixHits).isEqualTo(1);
+    assertThat(checker.reusedCheckpoints).isEqualTo(1);
+  }
+
+  @Test
+  public void testResetAfterSat() throws SolverException, InterruptedException {
+    assertThat(checker.isUnsat(ImmutableList.of(positive, small), ImmutableList.of(s1, s2)))
+        .isFalse();
+    assertThat(checker.getProver().getModel()).isNotNull();
+
+    checker.reset();
+    assertThrows(IllegalStateException.class, checker::getProver);
+
+    // nothing is reused after a reset
+    assertThat(checker.isUnsat(ImmutableList.of(positive, small), ImmutableList.of(s1, s2)))
+        .isFalse();
+    assertThat(checker.reusedCheckpoints).isEqualTo(0);
+  }
+
+  @Test
+  public void testResetAfterException() throws SolverException, InterruptedException {
+    assertThat(checker.isUnsat(ImmutableList.of(positive, negative), ImmutableList.of(s1, s2)))
+        .isTrue();
+
+    shutdownManager.requestShutdown("test");
+    assertThrows(
+        InterruptedException.class,
+        () -> checker.isUnsat(ImmutableList.of(positive, large), ImmutableList.of(s1, s3)));
+
+    // the checkpoints of the failed check are discarded
+    assertThrows(IllegalStateException.class, checker::getProver);
+  }
+
+  /**
+   * After a timeout, {@link InterpolationManager} abandons the running check and queues a reset of
+   * the checker on the same single-threaded executor.
+   */
+  @Test
+  public void testResetQueuedAfterAbandonedCheck() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      Future<Boolean> abandoned =
+          executor.submit(
+              () -> {
+                started.countDown();
+                release.await();
+                return checker.isUnsat(
+                    ImmutableList.of(positive, small), ImmutableList.of(s1, s2));
+              });
+      started.await();
+      executor.execute(checker::reset);
+      release.countDown();
+
+      // the running check is not disturbed by the reset
+      assertThat(abandoned.get()).isFalse();
+
+    } finally {
+      executor.shutdown();
+      assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+    }
+
+    // but its solver stack is not reused
+    assertThrows(IllegalStateException.class, checker::getProver);
+    assertThat(checker.isUnsat(ImmutableList.of(positive, small), ImmutableList.of(s1, s2)))
+        .isFalse();
+    assertThat(checker.reusedCheckpoints).isEqualTo(0);
+  }
+}
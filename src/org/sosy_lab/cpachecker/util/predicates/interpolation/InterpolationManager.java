@@ -49,9 +49,11 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -69,6 +71,7 @@ import org.sosy_lab.cpachecker.util.Triple;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.DomainSpecificAbstraction;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.ITPStrategy;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.NestedInterpolation;
+import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.ParallelTreeInterpolation;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.SequentialInterpolation;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.SequentialInterpolation.SeqInterpolationStrategy;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.SequentialInterpolationWithSolver;
@@ -78,6 +81,7 @@ import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.WellScoped
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.ParallelSolverPool;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 import org.sosy_lab.cpachecker.util.variableclassification.VariableClassification;
@@ -90,7 +94,7 @@ import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 
 @Options(prefix="cpa.predicate.refinement")
-public final class InterpolationManager {
+public final class InterpolationManager implements AutoCloseable {
 
   private final Timer cexAnalysisTimer = new Timer();
   private final Timer satCheckTimer = new Timer();
@@ -167,6 +171,10 @@ public final class InterpolationManager {
     if (reuseInterpolationEnvironment && satCheckTimer.getNumberOfIntervals() > 0) {
       w1.put("Reused formulas on solver stack", reusedFormulasOnSolverStack + " (Avg: " + div(reusedFormulasOnSolverStack, satCheckTimer.getNumberOfIntervals()) + ")");
     }
+    if (prefixChecker != null) {
+      w1.put("Reused prefix checkpoints", prefixChecker.reusedCheckpoints);
+      w1.put("Traces with known infeasible prefix", prefixChecker.infeasiblePrefixHits);
+    }
     w1.put("Interpolant computation", getInterpolantTimer);
     if (interpolantVerificationTimer.getNumberOfIntervals() > 0) {
       w1.put("Interpolant verification", interpolantVerificationTimer);
@@ -217,7 +225,9 @@ public final class InterpolationManager {
           "\n- TREE_WELLSCOPED: We return each interpolant for i={0..n-1} for the partitions " +
           "A=[lastFunctionEntryIndex .. i] and B=[0 .. lastFunctionEntryIndex-1 , i+1 .. n]. Based on a tree-like scheme." +
           "\n- TREE_NESTED: use callstack and previous interpolants for next interpolants (see 'Nested Interpolants')," +
-          "\n- TREE_CPACHECKER: similar to TREE_NESTED, but the algorithm is taken from 'Tree Interpolation in Vampire'.")
+          "\n- TREE_CPACHECKER: similar to TREE_NESTED, but the algorithm is taken from 'Tree Interpolation in Vampire'." +
+          "\n- TREE_PARALLEL: similar to TREE_CPACHECKER, but independent subtrees are interpolated in parallel " +
+          "with separate solver instances (see option treeInterpolationThreads).")
   private InterpolationStrategy strategy = InterpolationStrategy.SEQ_CPACHECKER;
 
   private enum InterpolationStrategy {
@@ -226,8 +236,17 @@ public final class InterpolationManager {
     TREE_WELLSCOPED,
     TREE_NESTED,
     TREE_CPACHECKER,
+    TREE_PARALLEL,
   }
 
+  @Option(
+      secure = true,
+      description =
+          "Number of threads (each with its own solver instance) for interpolating "
+              + "independent subtrees with the interpolation strategy TREE_PARALLEL.")
+  @IntegerOption(min = 1)
+  private int treeInterpolationThreads = 2;
+
   @Option(secure = true, description = "In case we apply sequential interpolation, "
       + "forward and backward directions return valid interpolants. "
       + "We can either choose one of the directions, fallback to the other "
@@ -254,7 +273,22 @@ public final class InterpolationManager {
   @Option(secure=true, description="Use a single SMT solver environment for several interpolation queries")
   private boolean reuseInterpolationEnvironment = false;
 
+  @Option(
+      secure = true,
+      description =
+          "For feasibility checks of counterexamples without interpolation, keep the solver"
+              + " stack between checks and resume from the longest prefix of abstraction states"
+              + " that was already checked for the previous counterexample. This affects only"
+              + " refinements that check counterexamples without interpolation (e.g., the"
+              + " invariant-based refinement and the static refiner), and has no effect on the"
+              + " default interpolation-based refinement.")
+  private boolean reusePrefixCheckpoints = false;
+
   private final ExecutorService executor;
+  private final @Nullable IncrementalPrefixChecker prefixChecker;
+
+  /** worker solvers for TREE_PARALLEL, null for all other strategies. */
+  private final @Nullable ParallelSolverPool treeInterpolationWorkers;
   private final LoopStructure loopStructure;
   private final VariableClassification variableClassification;
 
@@ -281,7 +315,8 @@ public final class InterpolationManager {
     if (itpTimeLimit.isEmpty()) {
       executor = null;
     } else {
-      // important to use daemon threads here, because we never have the chance to stop the executor
+      // important to use daemon threads here, because a task that was abandoned after a timeout
+      // might never terminate, and then the executor cannot be stopped
       executor =
           Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true).build());
     }
@@ -291,6 +326,45 @@ public final class InterpolationManager {
     } else {
       interpolator = null;
     }
+
+    if (reusePrefixCheckpoints) {
+      prefixChecker = new IncrementalPrefixChecker(solver);
+    } else {
+      prefixChecker = null;
+    }
+
+    if (strategy == InterpolationStrategy.TREE_PARALLEL) {
+      treeInterpolationWorkers =
+          new ParallelSolverPool(
+              "tree-itp", treeInterpolationThreads, config, logger, shutdownNotifier);
+    } else {
+      treeInterpolationWorkers = null;
+    }
+  }
+
+  /**
+   * Release the additional solvers, provers, and threads of this instance (if the configuration
+   * needs any). The solver given to the constructor is not closed.
+   */
+  @Override
+  public void close() {
+    if (executor == null) {
+      closeResources();
+    } else if (!executor.isShutdown()) {
+      // A task that was abandoned after a timeout might still be running and use the resources,
+      // thus they are released by the executor after all its tasks are finished.
+      executor.execute(this::closeResources);
+      executor.shutdown();
+    }
+  }
+
+  private void closeResources() {
+    if (prefixChecker != null) {
+      prefixChecker.close();
+    }
+    if (treeInterpolationWorkers != null) {
+      treeInterpolationWorkers.close();
+    }
   }
 
   /**
@@ -336,6 +410,11 @@ public final class InterpolationManager {
 
     } catch (TimeoutException e) {
       logger.log(Level.SEVERE, "SMT-solver timed out during interpolation process");
+      if (prefixChecker != null) {
+        // The task keeps running and might still use the solver stack of the prefix checker,
+        // thus the stack is not reused but discarded by the executor after the task has finished.
+        executor.execute(prefixChecker::reset);
+      }
       throw new RefinementFailedException(Reason.TIMEOUT, null);
 
     } catch (ExecutionException e) {
@@ -399,13 +478,29 @@ public final class InterpolationManager {
   public CounterexampleTraceInfo buildCounterexampleTraceWithoutInterpolation(
       final BlockFormulas pFormulas)
       throws CPAException, InterruptedException {
+    return buildCounterexampleTraceWithoutInterpolation(pFormulas, ImmutableList.of());
+  }
+
+  /**
+   * Counterexample analysis without interpolation, see {@link
+   * #buildCounterexampleTraceWithoutInterpolation(BlockFormulas)}. If the abstraction states are
+   * given, the solver stack of a previous check with the same prefix of abstraction states can be
+   * reused.
+   *
+   * @param pFormulas the formulas for the path
+   * @param pAbstractionStates the abstraction states at the end of each formula (can be empty)
+   */
+  public CounterexampleTraceInfo buildCounterexampleTraceWithoutInterpolation(
+      final BlockFormulas pFormulas, final List<? extends AbstractState> pAbstractionStates)
+      throws CPAException, InterruptedException {
+    assert pAbstractionStates.isEmpty() || pFormulas.getSize() == pAbstractionStates.size();
 
     return callWithTimelimit(
-        () -> buildCounterexampleTraceWithoutInterpolation0(pFormulas));
+        () -> buildCounterexampleTraceWithoutInterpolation0(pFormulas, pAbstractionStates));
   }
 
   private CounterexampleTraceInfo buildCounterexampleTraceWithoutInterpolation0(
-      final BlockFormulas pFormulas)
+      final BlockFormulas pFormulas, final List<? extends AbstractState> pAbstractionStates)
       throws CPAException, InterruptedException {
 
     cexAnalysisTimer.start();
@@ -413,6 +508,9 @@ public final class InterpolationManager {
       final BlockFormulas f = prepareCounterexampleFormulas(pFormulas);
 
       try {
+        if (prefixChecker != null && f.getSize() == pAbstractionStates.size()) {
+          return solveCounterexampleIncrementally(f, pAbstractionStates);
+        }
         return solveCounterexample(f);
       } catch (SolverException e) {
         throw new RefinementFailedException(Reason.InterpolationFailed, null, e);
@@ -485,22 +583,47 @@ public final class InterpolationManager {
         prover.push(block);
       }
       if (!prover.isUnsat()) {
-        try {
-          return getErrorPath(f, prover);
-        } catch (SolverException modelException) {
-          logger.log(
-              Level.WARNING,
-              "Solver could not produce model, variable assignment of error path can not be dumped.");
-          logger.logDebugException(modelException);
-          return CounterexampleTraceInfo.feasible(
-              f.getFormulas(), ImmutableList.of(), ImmutableMap.of());
-        }
+        return getErrorPathOrImprecise(f, prover);
       } else {
         return CounterexampleTraceInfo.infeasibleNoItp();
       }
     }
   }
 
+  /**
+   * Analyze a counterexample for feasibility without computing interpolants, reusing the solver
+   * stack for the common prefix with previously analyzed counterexamples.
+   */
+  private CounterexampleTraceInfo solveCounterexampleIncrementally(
+      BlockFormulas f, List<? extends AbstractState> pAbstractionStates)
+      throws SolverException, InterruptedException {
+    assert prefixChecker != null;
+    if (!prefixChecker.isUnsat(f.getFormulas(), pAbstractionStates)) {
+      try {
+        return getErrorPathOrImprecise(f, prefixChecker.getProver());
+      } finally {
+        // the solver stack does not match the checkpoints anymore
+        prefixChecker.reset();
+      }
+    } else {
+      return CounterexampleTraceInfo.infeasibleNoItp();
+    }
+  }
+
+  private CounterexampleTraceInfo getErrorPathOrImprecise(
+      BlockFormulas f, BasicProverEnvironment<?> prover) throws InterruptedException {
+    try {
+      return getErrorPath(f, prover);
+    } catch (SolverException modelException) {
+      logger.log(
+          Level.WARNING,
+          "Solver could not produce model, variable assignment of error path can not be dumped.");
+      logger.logDebugException(modelException);
+      return CounterexampleTraceInfo.feasible(
+          f.getFormulas(), ImmutableList.of(), ImmutableMap.of());
+    }
+  }
+
   /**
    * Add axioms about bitwise operations to a list of formulas, if such operations
    * are used. This is probably not that helpful currently, we would have to the
@@ -714,6 +837,15 @@ public final class InterpolationManager {
         case TREE:
           itpStrategy = new TreeInterpolationWithSolver<>(logger, shutdownNotifier, fmgr, bfmgr);
           break;
+        case TREE_PARALLEL:
+          itpStrategy =
+              new ParallelTreeInterpolation<>(
+                  logger,
+                  shutdownNotifier,
+                  fmgr,
+                  bfmgr,
+                  checkNotNull(treeInterpolationWorkers));
+          break;
         default:
           throw new AssertionError("unknown interpolation strategy");
       }
@@ -0,0 +1,297 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.interpolation.strategy;
+
+import com.google.common.collect.Lists;
+import com.google.common.primitives.ImmutableIntArray;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.Triple;
+import org.sosy_lab.cpachecker.util.predicates.interpolation.InterpolationManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.ParallelSolverPool;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+public class ParallelTreeInterpolation<T> extends AbstractTreeInterpolation<T> {
+
+  private final ShutdownNotifier shutdownNotifier;
+  private final ParallelSolverPool workers;
+
+  /**
+   * This strategy computes tree interpolants like {@link TreeInterpolation}, but computes the
+   * interpolants of independent subtrees in parallel, each worker thread with its own solver.
+   *
+   * <p>The nodes of the tree are processed level by level (by their height in the tree), such that
+   * all children of a node are finished before the node itself. For a node, partition A consists
+   * of the interpolants of its children and its own formula, and partition B consists of all
+   * formulas outside of its subtree. In contrast to {@link TreeInterpolation}, partition B contains
+   * the formulas of sibling subtrees instead of their interpolants, because these interpolants
+   * might not be computed yet. Thus it is not guaranteed that the interpolants of all children
+   * together with the formula of their parent are still unsatisfiable together with partition B.
+   * If this is not the case for some node (or for the root), we fall back to the sequential {@link
+   * TreeInterpolation}, such that the result is always an inductive tree of interpolants.
+   *
+   * <p>If a worker fails or the refinement is interrupted, the other workers are stopped by the
+   * given {@link ParallelSolverPool}. Afterwards the workers cannot be used anymore, and all
+   * further interpolation problems are solved sequentially.
+   */
+  public ParallelTreeInterpolation(
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      FormulaManagerView pFmgr,
+      BooleanFormulaManager pBfmgr,
+      ParallelSolverPool pWorkers) {
+    super(pLogger, pShutdownNotifier, pFmgr, pBfmgr);
+    shutdownNotifier = pShutdownNotifier;
+    workers = pWorkers;
+  }
+
+  @Override
+  public List<BooleanFormula> getInterpolants(
+      final InterpolationManager.Interpolator<T> interpolator,
+      final List<Triple<BooleanFormula, AbstractState, T>> formulasWithStatesAndGroupdIds)
+      throws InterruptedException, SolverException {
+    if (!workers.isUsable()) {
+      // the workers were stopped during a previous refinement
+      shutdownNotifier.shutdownIfNecessary();
+      return sequentialInterpolation(interpolator, formulasWithStatesAndGroupdIds);
+    }
+
+    final Pair<List<Triple<BooleanFormula, AbstractState, T>>, ImmutableIntArray> p =
+        buildTreeStructure(formulasWithStatesAndGroupdIds);
+    final List<BooleanFormula> formulas = Lists.transform(p.getFirst(), Triple::getFirst);
+    final ImmutableIntArray startOfSubTree = p.getSecond();
+    final int root = formulas.size() - 1;
+
+    // in post-order, the children of a node are the maximal subtrees directly left of it
+    final List<List<Integer>> children = new ArrayList<>(formulas.size());
+    final List<List<Integer>> levels = new ArrayList<>();
+    final int[] height = new int[formulas.size()];
+    int maxLevelSize = 0;
+    for (int node = 0; node <= root; node++) {
+      final List<Integer> nodeChildren = new ArrayList<>();
+      for (int child = node - 1; child >= startOfSubTree.get(node); ) {
+        nodeChildren.add(child);
+        height[node] = Math.max(height[node], height[child] + 1);
+        child = startOfSubTree.get(child) - 1;
+      }
+      children.add(nodeChildren);
+      if (node < root) {
+        while (levels.size() <= height[node]) {
+          levels.add(new ArrayList<>());
+        }
+        levels.get(height[node]).add(node);
+        maxLevelSize = Math.max(maxLevelSize, levels.get(height[node]).size());
+      }
+    }
+
+    if (maxLevelSize <= 1) {
+      // the tree is a sequence, there is nothing to compute in parallel
+      return sequentialInterpolation(interpolator, formulasWithStatesAndGroupdIds);
+    }
+
+    // Formulas are translated lazily and only into those workers that are actually used.
+    final int usedWorkers = Math.min(workers.size(), maxLevelSize);
+    final List<TranslatedFormulas> workerFormulas = new ArrayList<>(usedWorkers);
+    for (int w = 0; w < usedWorkers; w++) {
+      workerFormulas.add(new TranslatedFormulas(workers.getSolver(w), formulas));
+    }
+
+    final BooleanFormula[] itps = new BooleanFormula[root];
+    for (List<Integer> level : levels) {
+      shutdownNotifier.shutdownIfNecessary();
+      final List<BooleanFormula> levelItps =
+          interpolateLevel(level, children, startOfSubTree, itps, workerFormulas);
+      for (int i = 0; i < level.size(); i++) {
+        if (levelItps.get(i) == null) {
+          return fallback(interpolator, formulasWithStatesAndGroupdIds, level.get(i));
+        }
+        itps[level.get(i)] = levelItps.get(i);
+      }
+    }
+
+    // the interpolants of the root's children need to contradict the root formula
+    try (InterpolatingProverEnvironment<T> prover = interpolator.newEnvironment()) {
+      for (int child : children.get(root)) {
+        prover.push(itps[child]);
+      }
+      prover.push(formulas.get(root));
+      if (!prover.isUnsat()) {
+        return fallback(interpolator, formulasWithStatesAndGroupdIds, root);
+      }
+    }
+
+    logger.log(Level.ALL, "received interpolants of tree :", itps);
+    return flattenTreeItps(formulasWithStatesAndGroupdIds, Arrays.asList(itps));
+  }
+
+  private List<BooleanFormula> fallback(
+      final InterpolationManager.Interpolator<T> interpolator,
+      final List<Triple<BooleanFormula, AbstractState, T>> formulasWithStatesAndGroupdIds,
+      final int node)
+      throws InterruptedException, SolverException {
+    logger.log(
+        Level.FINEST,
+        "Interpolants of subtrees are not sufficient for node",
+        node,
+        ", falling back to sequential tree interpolation");
+    return sequentialInterpolation(interpolator, formulasWithStatesAndGroupdIds);
+  }
+
+  private List<BooleanFormula> sequentialInterpolation(
+      final InterpolationManager.Interpolator<T> interpolator,
+      final List<Triple<BooleanFormula, AbstractState, T>> formulasWithStatesAndGroupdIds)
+      throws InterruptedException, SolverException {
+    return new TreeInterpolation<T>(logger, shutdownNotifier, fmgr, bfmgr)
+        .getInterpolants(interpolator, formulasWithStatesAndGroupdIds);
+  }
+
+  /**
+   * Compute the interpolants for all given nodes in parallel. The interpolants of all children of
+   * these nodes need to be available.
+   *
+   * @return the interpolant for each node, or null if the query of the node was satisfiable.
+   */
+  private List<@Nullable BooleanFormula> interpolateLevel(
+      final List<Integer> nodes,
+      final List<List<Integer>> children,
+      final ImmutableIntArray startOfSubTree,
+      final BooleanFormula[] itps,
+      final List<TranslatedFormulas> workerFormulas)
+      throws InterruptedException, SolverException {
+    final int usedWorkers = Math.min(workerFormulas.size(), nodes.size());
+    final ShutdownNotifier workerShutdownNotifier = workers.getShutdownNotifier();
+    final List<Callable<List<@Nullable BooleanFormula>>> tasks = new ArrayList<>(usedWorkers);
+    for (int w = 0; w < usedWorkers; w++) {
+      final Solver worker = workers.getSolver(w);
+      final TranslatedFormulas translated = workerFormulas.get(w);
+      final List<Pair<List<BooleanFormula>, List<BooleanFormula>>> queries = new ArrayList<>();
+      for (int i = w; i < nodes.size(); i += usedWorkers) {
+        final int node = nodes.get(i);
+        final List<BooleanFormula> partitionA = new ArrayList<>();
+        for (int child : children.get(node)) {
+          partitionA.add(worker.getFormulaManager().translateFrom(itps[child], fmgr));
+        }
+        partitionA.add(translated.get(node));
+        final List<BooleanFormula> partitionB = new ArrayList<>();
+        for (int j = 0; j < startOfSubTree.get(node); j++) {
+          partitionB.add(translated.get(j));
+        }
+        for (int j = node + 1; j < translated.size(); j++) {
+          partitionB.add(translated.get(j));
+        }
+        queries.add(Pair.of(partitionA, partitionB));
+      }
+      tasks.add(
+          () -> {
+            final List<@Nullable BooleanFormula> result = new ArrayList<>(queries.size());
+            for (Pair<List<BooleanFormula>, List<BooleanFormula>> query : queries) {
+              workerShutdownNotifier.shutdownIfNecessary();
+              result.add(interpolate(worker, query.getFirst(), query.getSecond()));
+            }
+            return result;
+          });
+    }
+
+    final List<List<@Nullable BooleanFormula>> workerResults = workers.invokeAll(tasks);
+
+    // translate back in the original order of the nodes
+    final List<@Nullable BooleanFormula> result = new ArrayList<>(nodes.size());
+    for (int i = 0; i < nodes.size(); i++) {
+      final int w = i % usedWorkers;
+      final BooleanFormula itp = workerResults.get(w).get(i / usedWorkers);
+      result.add(
+          itp == null ? null : fmgr.translateFrom(itp, workers.getSolver(w).getFormulaManager()));
+    }
+    return result;
+  }
+
+  /** Interpolate A and B with a new prover, or return null if A and B are satisfiable. */
+  private static <S> @Nullable BooleanFormula interpolate(
+      final Solver solver,
+      final List<BooleanFormula> partitionA,
+      final List<BooleanFormula> partitionB)
+      throws InterruptedException, SolverException {
+    @SuppressWarnings("unchecked")
+    final InterpolatingProverEnvironment<S> prover =
+        (InterpolatingProverEnvironment<S>) solver.newProverEnvironmentWithInterpolation();
+    try {
+      final List<S> groupsOfA = new ArrayList<>(partitionA.size());
+      for (BooleanFormula f : partitionA) {
+        groupsOfA.add(prover.push(f));
+      }
+      for (BooleanFormula f : partitionB) {
+        prover.push(f);
+      }
+      if (!prover.isUnsat()) {
+        return null;
+      }
+      return prover.getInterpolant(groupsOfA);
+    } finally {
+      prover.close();
+    }
+  }
+
+  /**
+   * The formulas of the tree, translated into the context of one worker solver on first access.
+   * This is not thread-safe and needs to be used only from the refinement thread.
+   */
+  private final class TranslatedFormulas {
+
+    private final Solver worker;
+    private final List<BooleanFormula> formulas;
+    private final @Nullable BooleanFormula[] translated;
+
+    private TranslatedFormulas(Solver pWorker, List<BooleanFormula> pFormulas) {
+      worker = pWorker;
+      formulas = pFormulas;
+      translated = new BooleanFormula[pFormulas.size()];
+    }
+
+    private BooleanFormula get(int index) {
+      BooleanFormula result = translated[index];
+      if (result == null) {
+        result = worker.getFormulaManager().translateFrom(formulas.get(index), fmgr);
+        translated[index] = result;
+      }
+      return result;
+    }
+
+    private int size() {
+      return formulas.size();
+    }
+  }
+}
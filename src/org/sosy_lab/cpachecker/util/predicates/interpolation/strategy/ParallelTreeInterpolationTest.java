@@ -0,0 +1,212 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.interpolation.strategy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CVoidType;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocation;
+import org.sosy_lab.cpachecker.cpa.predicate.BlockFormulaStrategy.BlockFormulas;
+import org.sosy_lab.cpachecker.util.predicates.interpolation.CounterexampleTraceInfo;
+import org.sosy_lab.cpachecker.util.predicates.interpolation.InterpolationManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+
+@RunWith(Parameterized.class)
+public class ParallelTreeInterpolationTest extends SolverViewBasedTest0 {
+
+  @Parameters(name = "{0}")
+  public static Object[] getInterpolatingSolvers() {
+    return new Object[] {Solvers.SMTINTERPOL, Solvers.PRINCESS};
+  }
+
+  @Parameter(0)
+  public Solvers solverUnderTest;
+
+  @Override
+  protected Solvers solverToUse() {
+    return solverUnderTest;
+  }
+
+  /** An abstraction state that only has a location. */
+  private static class LocationState implements AbstractStateWithLocation {
+
+    private final CFANode location;
+
+    private LocationState(CFANode pLocation) {
+      location = pLocation;
+    }
+
+    @Override
+    public CFANode getLocationNode() {
+      return location;
+    }
+
+    @Override
+    public Iterable<CFANode> getLocationNodes() {
+      return ImmutableList.of(location);
+    }
+
+    @Override
+    public Iterable<CFAEdge> getOutgoingEdges() {
+      return ImmutableList.of();
+    }
+
+    @Override
+    public Iterable<CFAEdge> getIngoingEdges() {
+      return ImmutableList.of();
+    }
+  }
+
+  private InterpolationManager sequential;
+  private InterpolationManager parallel;
+
+  @Before
+  public void setUp() throws InvalidConfigurationException {
+    PathFormulaManager pfmgr =
+        new PathFormulaManagerImpl(
+            mgrv,
+            config,
+            logger,
+            ShutdownNotifier.createDummy(),
+            MachineModel.LINUX32,
+            Optional.empty(),
+            AnalysisDirection.FORWARD);
+    sequential = createInterpolationManager(pfmgr, "TREE_CPACHECKER");
+    parallel = createInterpolationManager(pfmgr, "TREE_PARALLEL");
+  }
+
+  private InterpolationManager createInterpolationManager(PathFormulaManager pfmgr, String strategy)
+      throws InvalidConfigurationException {
+    Configuration itpConfig =
+        Configuration.builder()
+            .copyFrom(config)
+            .setOption("cpa.predicate.refinement.strategy", strategy)
+            .setOption("cpa.predicate.refinement.treeInterpolationThreads", "2")
+            .build();
+    return new InterpolationManager(
+        pfmgr,
+        solver,
+        Optional.empty(),
+        Optional.empty(),
+        itpConfig,
+        ShutdownNotifier.createDummy(),
+        logger);
+  }
+
+  @After
+  public void closeInterpolationManagers() {
+    sequential.close();
+    parallel.close();
+  }
+
+  private static FunctionEntryNode function(String name) {
+    CFunctionType type = CFunctionType.functionTypeWithReturnType(CVoidType.VOID);
+    FunctionExitNode exit = new FunctionExitNode(name);
+    FunctionEntryNode entry =
+        new CFunctionEntryNode(
+            FileLocation.DUMMY,
+            new CFunctionDeclaration(FileLocation.DUMMY, type, name, ImmutableList.of()),
+            exit,
+            com.google.common.base.Optional.absent());
+    exit.setEntryNode(entry);
+    return entry;
+  }
+
+  @Test
+  public void sameInterpolantsAsSequentialTreeInterpolation() throws Exception {
+    // main calls f and then g, f sets x, g sets y, and main checks both.
+    // The subtrees of f and g are independent and are interpolated in parallel.
+    // The formulas are chosen such that each interpolant is unique up to equivalence.
+    IntegerFormula x = imgrv.makeVariable("x");
+    IntegerFormula y = imgrv.makeVariable("y");
+    IntegerFormula one = imgrv.makeNumber(1);
+    List<BooleanFormula> formulas =
+        ImmutableList.of(
+            imgrv.equal(imgrv.makeVariable("p"), imgrv.makeNumber(2)), // call of f
+            imgrv.equal(x, one), // body of f
+            imgrv.equal(imgrv.makeVariable("q"), imgrv.makeNumber(3)), // call of g
+            imgrv.equal(y, one), // body of g
+            bmgrv.not(bmgrv.and(imgrv.equal(x, one), imgrv.equal(y, one)))); // rest of main
+
+    FunctionEntryNode f = function("f");
+    FunctionEntryNode g = function("g");
+    List<AbstractState> states =
+        ImmutableList.of(
+            new LocationState(f),
+            new LocationState(f.getExitNode()),
+            new LocationState(g),
+            new LocationState(g.getExitNode()),
+            new LocationState(new CFANode("main")));
+
+    CounterexampleTraceInfo expected =
+        sequential.buildCounterexampleTrace(
+            new BlockFormulas(formulas, bmgrv.makeTrue()), states);
+    CounterexampleTraceInfo actual =
+        parallel.buildCounterexampleTrace(new BlockFormulas(formulas, bmgrv.makeTrue()), states);
+
+    assertThat(expected.isSpurious()).isTrue();
+    assertThat(actual.isSpurious()).isTrue();
+    List<BooleanFormula> expectedItps = expected.getInterpolants();
+    List<BooleanFormula> actualItps = actual.getInterpolants();
+    assertThat(actualItps).hasSize(expectedItps.size());
+    for (int i = 0; i < expectedItps.size(); i++) {
+      assertWithMessage("interpolant %s", i)
+          .that(solver.implies(actualItps.get(i), expectedItps.get(i)))
+          .isTrue();
+      assertWithMessage("interpolant %s", i)
+          .that(solver.implies(expectedItps.get(i), actualItps.get(i)))
+          .isTrue();
+    }
+  }
+}
@@ -25,12 +25,21 @@ package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableSet;
 import java.io.PrintStream;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import org.sosy_lab.common.time.Timer;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
@@ -41,6 +50,8 @@ import org.sosy_lab.cpachecker.exceptions.UnrecognizedCFAEdgeException;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCodeException;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.Model.ValueAssignment;
@@ -48,46 +59,128 @@ import org.sosy_lab.java_smt.api.Model.ValueAssignment;
 /**
  * Implementation of {@link PathFormulaManager} that delegates to another
  * instance but caches results of some methods.
+ *
+ * <p>The caches are thread-safe and can be bounded in size or weight, see {@link
+ * PathFormulaCacheOptions}, to avoid running out of memory in long analyses.
  */
 public class CachingPathFormulaManager implements PathFormulaManager {
 
-  public final Timer pathFormulaComputationTimer = new Timer();
-  public int pathFormulaCacheHits = 0;
+  @Options(prefix = "cpa.predicate.pathFormulaCache")
+  public static class PathFormulaCacheOptions {
+
+    @Option(
+        secure = true,
+        description =
+            "maximum number of entries in each cache of path formulas (-1 for unbounded). "
+                + "Least recently used entries are evicted first.")
+    @IntegerOption(min = -1)
+    private long maximumSize = -1;
+
+    @Option(
+        secure = true,
+        description =
+            "maximum total weight of the entries in each cache of path formulas "
+                + "(-1 for unbounded), where the weight of an entry is the length of its "
+                + "resulting path formula (the number of edges it encodes) plus one. "
+                + "The length is a cheap estimate of the size of the formula, "
+                + "which is not measured. Cannot be combined with maximumSize.")
+    @IntegerOption(min = -1)
+    private long maximumWeight = -1;
+
+    @Option(
+        secure = true,
+        description =
+            "reference cached path formulas softly, "
+                + "such that the garbage collector can evict them if memory is low")
+    private boolean softValues = false;
+
+    /** Options for unbounded caches. */
+    private PathFormulaCacheOptions() {}
+
+    public PathFormulaCacheOptions(Configuration pConfig) throws InvalidConfigurationException {
+      pConfig.inject(this);
+      if (maximumSize >= 0 && maximumWeight >= 0) {
+        throw new InvalidConfigurationException(
+            "Path-formula cache can be bounded either by size or by weight, but not both.");
+      }
+    }
+
+    private <K, V> Cache<K, V> createCache(Weigher<? super K, ? super V> pWeigher) {
+      CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+      if (maximumSize >= 0) {
+        builder = builder.maximumSize(maximumSize);
+      }
+      if (softValues) {
+        builder = builder.softValues();
+      }
+      if (maximumWeight >= 0) {
+        return builder.maximumWeight(maximumWeight).weigher(pWeigher).build();
+      }
+      return builder.build();
+    }
+  }
+
+  public final ThreadSafeTimerContainer pathFormulaComputationTime =
+      new ThreadSafeTimerContainer("Time for path formula computation");
+
+  /** Each thread measures with its own timer, the container sums them up. */
+  private final ThreadLocal<TimerWrapper> pathFormulaComputationTimer =
+      ThreadLocal.withInitial(pathFormulaComputationTime::getNewTimer);
 
   public final PathFormulaManager delegate;
 
-  private final Map<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>> andFormulaWithConditionsCache
-            = new HashMap<>();
-  private final Map<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache
-            = new HashMap<>();
+  private final Cache<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>>
+      andFormulaWithConditionsCache;
+  private final Cache<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache;
 
-  private final Map<Pair<PathFormula, PathFormula>, PathFormula> orFormulaCache
-            = new HashMap<>();
+  /** Disjunction is commutative, so both orders of the operands share one entry. */
+  private final Cache<ImmutableSet<PathFormula>, PathFormula> orFormulaCache;
 
-  private final Map<PathFormula, PathFormula> emptyFormulaCache
-            = new HashMap<>();
+  private final Cache<PathFormula, PathFormula> emptyFormulaCache;
 
   private final PathFormula emptyFormula;
 
   public CachingPathFormulaManager(PathFormulaManager pDelegate) {
+    this(pDelegate, new PathFormulaCacheOptions());
+  }
+
+  public CachingPathFormulaManager(
+      PathFormulaManager pDelegate, PathFormulaCacheOptions pOptions) {
     delegate = pDelegate;
     emptyFormula = delegate.makeEmptyPathFormula();
+
+    andFormulaWithConditionsCache =
+        pOptions.createCache((key, value) -> weigh(value.getFirst()));
+    andFormulaCache = pOptions.createCache((key, value) -> weigh(value));
+    orFormulaCache = pOptions.createCache((key, value) -> weigh(value));
+    emptyFormulaCache = pOptions.createCache((key, value) -> weigh(value));
+  }
+
+  /**
+   * Weigh a cached path formula by its length, i.e., by the number of edges it encodes, plus one
+   * for the entry itself. Measuring the actual size of the formula would require a traversal of
+   * the formula for each entry, the length is a cheap estimate that grows with it.
+   */
+  private static int weigh(PathFormula pFormula) {
+    return pFormula.getLength() + 1;
   }
 
   @Override
   public Pair<PathFormula, ErrorConditions> makeAndWithErrorConditions(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
 
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
-    Pair<PathFormula, ErrorConditions> result = andFormulaWithConditionsCache.get(formulaCacheKey);
+    Pair<PathFormula, ErrorConditions> result =
+        andFormulaWithConditionsCache.getIfPresent(formulaCacheKey);
     if (result == null) {
-      pathFormulaComputationTimer.start();
-      // compute new pathFormula with the operation on the edge
-      result = delegate.makeAndWithErrorConditions(pOldFormula, pEdge);
-      pathFormulaComputationTimer.stop();
-      andFormulaWithConditionsCache.put(formulaCacheKey, result);
-
-    } else {
-      pathFormulaCacheHits++;
+      TimerWrapper timer = pathFormulaComputationTimer.get();
+      timer.start();
+      try {
+        // compute new pathFormula with the operation on the edge
+        result = delegate.makeAndWithErrorConditions(pOldFormula, pEdge);
+        andFormulaWithConditionsCache.put(formulaCacheKey, result);
+      } finally {
+        timer.stop();
+      }
     }
     return result;
   }
@@ -95,38 +188,29 @@ public class CachingPathFormulaManager implements PathFormulaManager {
   @Override
   public PathFormula makeAnd(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
     final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
-    PathFormula result = andFormulaCache.get(formulaCacheKey);
+    PathFormula result = andFormulaCache.getIfPresent(formulaCacheKey);
     if (result == null) {
+      TimerWrapper timer = pathFormulaComputationTimer.get();
+      timer.start();
       try {
-      pathFormulaComputationTimer.start();
-      // compute new pathFormula with the operation on the edge
-      result = delegate.makeAnd(pOldFormula, pEdge);
-      andFormulaCache.put(formulaCacheKey, result);
+        // compute new pathFormula with the operation on the edge
+        result = delegate.makeAnd(pOldFormula, pEdge);
+        andFormulaCache.put(formulaCacheKey, result);
       } finally {
-        pathFormulaComputationTimer.stop();
+        timer.stop();
       }
-
-    } else {
-      pathFormulaCacheHits++;
     }
     return result;
   }
 
   @Override
   public PathFormula makeOr(PathFormula pF1, PathFormula pF2) throws InterruptedException {
-    final Pair<PathFormula, PathFormula> formulaCacheKey = Pair.of(pF1, pF2);
-
-    PathFormula result = orFormulaCache.get(formulaCacheKey);
-    if (result == null) {
-      // try again with other order
-      result = orFormulaCache.get(Pair.of(pF2, pF1));
-    }
+    final ImmutableSet<PathFormula> formulaCacheKey = ImmutableSet.of(pF1, pF2);
 
+    PathFormula result = orFormulaCache.getIfPresent(formulaCacheKey);
     if (result == null) {
       result = delegate.makeOr(pF1, pF2);
       orFormulaCache.put(formulaCacheKey, result);
-    } else {
-      pathFormulaCacheHits++;
     }
     return result;
   }
@@ -138,12 +222,10 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public PathFormula makeEmptyPathFormula(PathFormula pOldFormula) {
-    PathFormula result = emptyFormulaCache.get(pOldFormula);
+    PathFormula result = emptyFormulaCache.getIfPresent(pOldFormula);
     if (result == null) {
       result = delegate.makeEmptyPathFormula(pOldFormula);
       emptyFormulaCache.put(pOldFormula, result);
-    } else {
-      pathFormulaCacheHits++;
     }
     return result;
   }
@@ -205,10 +287,10 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public void clearCaches() {
-    andFormulaWithConditionsCache.clear();
-    andFormulaCache.clear();
-    orFormulaCache.clear();
-    emptyFormulaCache.clear();
+    andFormulaWithConditionsCache.invalidateAll();
+    andFormulaCache.invalidateAll();
+    orFormulaCache.invalidateAll();
+    emptyFormulaCache.invalidateAll();
     delegate.clearCaches();
   }
 
@@ -223,22 +305,38 @@ public class CachingPathFormulaManager implements PathFormulaManager {
     return delegate.buildImplicationTestAsUnsat(pF1, pF2);
   }
 
+  /** Returns the number of cache hits over all caches. */
+  public long getPathFormulaCacheHits() {
+    return getCombinedCacheStats().hitCount();
+  }
+
+  @VisibleForTesting
+  CacheStats getCombinedCacheStats() {
+    return andFormulaWithConditionsCache
+        .stats()
+        .plus(andFormulaCache.stats())
+        .plus(orFormulaCache.stats())
+        .plus(emptyFormulaCache.stats());
+  }
+
   @Override
   public void printStatistics(PrintStream out) {
-    int cacheHits = this.pathFormulaCacheHits;
-    int totalPathFormulaComputations =
-        this.pathFormulaComputationTimer.getNumberOfIntervals() + cacheHits;
+    CacheStats cacheStats = getCombinedCacheStats();
+    long cacheHits = cacheStats.hitCount();
+    long cacheRequests = cacheStats.requestCount();
     out.println(
         "Number of path formula cache hits:   "
             + cacheHits
             + " ("
-            + toPercent(cacheHits, totalPathFormulaComputations)
+            + toPercent(cacheHits, cacheRequests)
             + ")");
+    out.println("Number of path formula cache misses: " + cacheStats.missCount());
+    out.println("Number of path formula cache evictions: " + cacheStats.evictionCount());
     out.println();
 
     out.println("Inside post operator:                  ");
     out.println("  Inside path formula creation:        ");
-    out.println("    Time for path formula computation: " + pathFormulaComputationTimer);
+    out.println("    Time for path formula computation: " + pathFormulaComputationTime);
     out.println();
 
     delegate.printStatistics(out);
@@ -0,0 +1,242 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheStats;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.CachingPathFormulaManager.PathFormulaCacheOptions;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+@SuppressFBWarnings("NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
+public class CachingPathFormulaManagerTest extends SolverViewBasedTest0 {
+
+  private static final String OPTION_PREFIX = "cpa.predicate.pathFormulaCache.";
+
+  private PathFormulaManager delegate;
+  private PathFormula empty;
+
+  private final CFAEdge e0 = newEdge("e0");
+  private final CFAEdge e1 = newEdge("e1");
+  private final CFAEdge e2 = newEdge("e2");
+
+  private static CFAEdge newEdge(String pName) {
+    return new BlankEdge("", FileLocation.DUMMY, new CFANode("test"), new CFANode("test"), pName);
+  }
+
+  @Before
+  public void setUp() throws CPATransferException, InterruptedException {
+    empty =
+        new PathFormula(
+            bmgrv.makeTrue(),
+            SSAMap.emptySSAMap(),
+            PointerTargetSet.emptyPointerTargetSet(),
+            0);
+
+    // each edge adds a variable named after the edge and increases the length by one
+    delegate = mock(PathFormulaManager.class);
+    when(delegate.makeEmptyPathFormula()).thenReturn(empty);
+    when(delegate.makeAnd(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              PathFormula old = invocation.getArgument(0);
+              CFAEdge edge = invocation.getArgument(1);
+              return new PathFormula(
+                  bmgrv.and(old.getFormula(), bmgrv.makeVariable(edge.getDescription())),
+                  old.getSsa(),
+                  old.getPointerTargetSet(),
+                  old.getLength() + 1);
+            });
+    when(delegate.makeOr(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              PathFormula f1 = invocation.getArgument(0);
+              PathFormula f2 = invocation.getArgument(1);
+              return new PathFormula(
+                  bmgrv.or(f1.getFormula(), f2.getFormula()),
+                  f1.getSsa(),
+                  f1.getPointerTargetSet(),
+                  Math.max(f1.getLength(), f2.getLength()));
+            });
+  }
+
+  private CachingPathFormulaManager createManager(String pOption, String pValue)
+      throws InvalidConfigurationException {
+    Configuration cacheConfig =
+        Configuration.builder().setOption(OPTION_PREFIX + pOption, pValue).build();
+    return new CachingPathFormulaManager(delegate, new PathFormulaCacheOptions(cacheConfig));
+  }
+
+  /**
+   * Fills a cache that has room for two entries with three entries and re-requests the newest and
+   * the evicted one.
+   */
+  private void checkEvictionOfLeastRecentlyUsed(CachingPathFormulaManager pfmgr)
+      throws CPATransferException, InterruptedException {
+    PathFormula r0 = pfmgr.makeAnd(empty, e0);
+    PathFormula r1 = pfmgr.makeAnd(empty, e1);
+    PathFormula r2 = pfmgr.makeAnd(empty, e2);
+    assertThat(pfmgr.getCombinedCacheStats().evictionCount()).isEqualTo(1);
+
+    assertThat(pfmgr.makeAnd(empty, e2)).isSameInstanceAs(r2);
+    assertThat(pfmgr.makeAnd(empty, e0)).isEqualTo(r0);
+    assertThat(pfmgr.makeAnd(empty, e1)).isEqualTo(r1);
+
+    // only the re-request of e2 was answered from the cache
+    CacheStats stats = pfmgr.getCombinedCacheStats();
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.missCount()).isEqualTo(5);
+    assertThat(stats.evictionCount()).isEqualTo(3);
+    assertThat(pfmgr.getPathFormulaCacheHits()).isEqualTo(1);
+    verify(delegate, times(5)).makeAnd(any(), any());
+  }
+
+  @Test
+  public void testUnbounded() throws CPATransferException, InterruptedException {
+    CachingPathFormulaManager pfmgr = new CachingPathFormulaManager(delegate);
+    PathFormula r0 = pfmgr.makeAnd(empty, e0);
+    PathFormula r1 = pfmgr.makeAnd(empty, e1);
+    PathFormula r2 = pfmgr.makeAnd(empty, e2);
+
+    assertThat(pfmgr.makeAnd(empty, e0)).isSameInstanceAs(r0);
+    assertThat(pfmgr.makeAnd(empty, e1)).isSameInstanceAs(r1);
+    assertThat(pfmgr.makeAnd(empty, e2)).isSameInstanceAs(r2);
+
+    CacheStats stats = pfmgr.getCombinedCacheStats();
+    assertThat(stats.hitCount()).isEqualTo(3);
+    assertThat(stats.missCount()).isEqualTo(3);
+    assertThat(stats.evictionCount()).isEqualTo(0);
+    verify(delegate, times(3)).makeAnd(any(), any());
+  }
+
+  @Test
+  public void testMaximumSize()
+      throws InvalidConfigurationException, CPATransferException, InterruptedException {
+    checkEvictionOfLeastRecentlyUsed(createManager("maximumSize", "2"));
+  }
+
+  @Test
+  public void testMaximumWeight()
+      throws InvalidConfigurationException, CPATransferException, InterruptedException {
+    // each result has length 1 and thus weight 1 + 1
+    checkEvictionOfLeastRecentlyUsed(createManager("maximumWeight", "4"));
+  }
+
+  @Test
+  public void testMaximumWeightCountsLength()
+      throws InvalidConfigurationException, CPATransferException, InterruptedException {
+    CachingPathFormulaManager pfmgr = createManager("maximumWeight", "4");
+    PathFormula r0 = pfmgr.makeAnd(empty, e0);
+    PathFormula r01 = pfmgr.makeAnd(r0, e1);
+    PathFormula r012 = pfmgr.makeAnd(r01, e2);
+
+    // with the lengths 1, 2, and 3 and thus the weights 2, 3, and 4 of the results,
+    // each new entry evicts the previous one
+    CacheStats stats = pfmgr.getCombinedCacheStats();
+    assertThat(stats.evictionCount()).isEqualTo(2);
+    assertThat(pfmgr.makeAnd(r01, e2)).isSameInstanceAs(r012);
+    assertThat(pfmgr.makeAnd(r0, e1)).isEqualTo(r01);
+    verify(delegate, times(4)).makeAnd(any(), any());
+  }
+
+  @Test
+  public void testMaximumWeightIgnoresFormulaSize()
+      throws InvalidConfigurationException, CPATransferException, InterruptedException {
+    CachingPathFormulaManager pfmgr = createManager("maximumWeight", "4");
+    BooleanFormula large = bmgrv.makeTrue();
+    for (int i = 0; i < 100; i++) {
+      large = bmgrv.and(large, bmgrv.makeVariable("v" + i));
+    }
+    PathFormula largeEmpty =
+        new PathFormula(large, SSAMap.emptySSAMap(), PointerTargetSet.emptyPointerTargetSet(), 0);
+    PathFormula r0 = pfmgr.makeAnd(largeEmpty, e0);
+    PathFormula r1 = pfmgr.makeAnd(largeEmpty, e1);
+
+    // both results have length 1 and thus weight 2, regardless of the size of their formulas
+    assertThat(pfmgr.getCombinedCacheStats().evictionCount()).isEqualTo(0);
+    assertThat(pfmgr.makeAnd(largeEmpty, e0)).isSameInstanceAs(r0);
+    assertThat(pfmgr.makeAnd(largeEmpty, e1)).isSameInstanceAs(r1);
+    verify(delegate, times(2)).makeAnd(any(), any());
+  }
+
+  @Test
+  public void testDisjunctionIsCachedForBothOrders()
+      throws CPATransferException, InterruptedException {
+    CachingPathFormulaManager pfmgr = new CachingPathFormulaManager(delegate);
+    PathFormula r0 = pfmgr.makeAnd(empty, e0);
+    PathFormula r1 = pfmgr.makeAnd(empty, e1);
+
+    PathFormula disjunction = pfmgr.makeOr(r0, r1);
+    assertThat(pfmgr.makeOr(r1, r0)).isSameInstanceAs(disjunction);
+    assertThat(pfmgr.makeOr(r0, r1)).isSameInstanceAs(disjunction);
+    verify(delegate, times(1)).makeOr(any(), any());
+  }
+
+  @Test
+  public void testSoftValues()
+      throws InvalidConfigurationException, CPATransferException, InterruptedException {
+    CachingPathFormulaManager pfmgr = createManager("softValues", "true");
+    PathFormula r0 = pfmgr.makeAnd(empty, e0);
+    PathFormula r1 = pfmgr.makeAnd(empty, e1);
+
+    // the results are strongly reachable from here, so they cannot be collected
+    assertThat(pfmgr.makeAnd(empty, e0)).isSameInstanceAs(r0);
+    assertThat(pfmgr.makeAnd(empty, e1)).isSameInstanceAs(r1);
+
+    CacheStats stats = pfmgr.getCombinedCacheStats();
+    assertThat(stats.hitCount()).isEqualTo(2);
+    assertThat(stats.missCount()).isEqualTo(2);
+    verify(delegate, times(2)).makeAnd(any(), any());
+  }
+
+  @Test
+  public void testSizeAndWeightExcludeEachOther() {
+    assertThrows(
+        InvalidConfigurationException.class,
+        () ->
+            new PathFormulaCacheOptions(
+                Configuration.builder()
+                    .setOption(OPTION_PREFIX + "maximumSize", "2")
+                    .setOption(OPTION_PREFIX + "maximumWeight", "4")
+                    .build()));
+  }
+}
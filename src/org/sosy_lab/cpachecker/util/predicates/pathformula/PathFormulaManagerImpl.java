@@ -129,6 +129,12 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
   private final LogManager logger;
   private final ShutdownNotifier shutdownNotifier;
 
+  /**
+   * The empty SSA map of this manager. It has its own table of variable ids, which is thus shared
+   * by all SSA maps of the analysis that uses this manager.
+   */
+  private final SSAMap emptySSAMap = SSAMap.emptySSAMapWithNewVariableIds();
+
   @Option(
     secure = true,
     description = "add special information to formulas about non-deterministic functions"
@@ -297,7 +303,7 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
   @Override
   public PathFormula makeEmptyPathFormula() {
     return new PathFormula(bfmgr.makeTrue(),
-                           SSAMap.emptySSAMap(),
+                           emptySSAMap,
                            PointerTargetSet.emptyPointerTargetSet(),
                            0);
   }
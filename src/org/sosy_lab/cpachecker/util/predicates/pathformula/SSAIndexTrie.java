@@ -0,0 +1,287 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+
+/**
+ * Persistent big-endian Patricia trie from variable ids (see {@link SSAVariableIds}) to SSA
+ * indices and types, used as storage of {@link SSAMap}.
+ *
+ * <p>The empty trie is NULL. All operations return a new trie and share unchanged subtrees with
+ * their input, or return the input itself if nothing changed. Keys have to be non-negative. The
+ * shape of a Patricia trie depends only on its keys, so merging two tries that were derived from a
+ * common ancestor can skip all identical subtrees, and iteration visits the keys in ascending
+ * order.
+ */
+final class SSAIndexTrie {
+
+  /** Marker for a leaf that has a type but no SSA index. */
+  static final int NO_INDEX = Integer.MIN_VALUE;
+
+  private SSAIndexTrie() {}
+
+  abstract static class Node {}
+
+  static final class Leaf extends Node {
+    final int key;
+    final int index;
+    final @Nullable CType type;
+
+    Leaf(int pKey, int pIndex, @Nullable CType pType) {
+      key = pKey;
+      index = pIndex;
+      type = pType;
+    }
+
+    boolean hasIndex() {
+      return index != NO_INDEX;
+    }
+  }
+
+  private static final class Branch extends Node {
+    private final int prefix;
+    private final int mask;
+    private final Node left;
+    private final Node right;
+
+    private Branch(int pPrefix, int pMask, Node pLeft, Node pRight) {
+      prefix = pPrefix;
+      mask = pMask;
+      left = pLeft;
+      right = pRight;
+    }
+  }
+
+  /** Callback for merging two leaves with the same key. */
+  interface LeafMerger {
+    Leaf merge(Leaf left, Leaf right);
+
+    /** Called for all leaves that exist only in one of both tries. */
+    void onlyIn(Leaf leaf, boolean isLeft);
+  }
+
+  private static boolean isZero(int key, int mask) {
+    return (key & mask) == 0;
+  }
+
+  private static int maskPrefix(int key, int mask) {
+    return key & (~(mask - 1) ^ mask);
+  }
+
+  private static boolean matchesPrefix(int key, int prefix, int mask) {
+    return maskPrefix(key, mask) == prefix;
+  }
+
+  private static Node join(int prefix1, Node node1, int prefix2, Node node2) {
+    int mask = Integer.highestOneBit(prefix1 ^ prefix2);
+    if (isZero(prefix1, mask)) {
+      return new Branch(maskPrefix(prefix1, mask), mask, node1, node2);
+    } else {
+      return new Branch(maskPrefix(prefix1, mask), mask, node2, node1);
+    }
+  }
+
+  private static Node branch(Branch original, Node left, Node right) {
+    if (left == original.left && right == original.right) {
+      return original;
+    }
+    return new Branch(original.prefix, original.mask, left, right);
+  }
+
+  static @Nullable Leaf get(@Nullable Node node, int key) {
+    while (node instanceof Branch) {
+      Branch branch = (Branch) node;
+      if (!matchesPrefix(key, branch.prefix, branch.mask)) {
+        return null;
+      }
+      node = isZero(key, branch.mask) ? branch.left : branch.right;
+    }
+    Leaf leaf = (Leaf) node;
+    return leaf != null && leaf.key == key ? leaf : null;
+  }
+
+  /** Insert the leaf, replacing a leaf with the same key. */
+  static Node put(@Nullable Node node, Leaf leaf) {
+    if (node == null) {
+      return leaf;
+    } else if (node instanceof Leaf) {
+      Leaf other = (Leaf) node;
+      return other.key == leaf.key ? leaf : join(leaf.key, leaf, other.key, other);
+    } else {
+      Branch branch = (Branch) node;
+      if (!matchesPrefix(leaf.key, branch.prefix, branch.mask)) {
+        return join(leaf.key, leaf, branch.prefix, branch);
+      } else if (isZero(leaf.key, branch.mask)) {
+        return branch(branch, put(branch.left, leaf), branch.right);
+      } else {
+        return branch(branch, branch.left, put(branch.right, leaf));
+      }
+    }
+  }
+
+  static @Nullable Node remove(@Nullable Node node, int key) {
+    if (node == null) {
+      return null;
+    } else if (node instanceof Leaf) {
+      return ((Leaf) node).key == key ? null : node;
+    } else {
+      Branch branch = (Branch) node;
+      if (!matchesPrefix(key, branch.prefix, branch.mask)) {
+        return branch;
+      } else if (isZero(key, branch.mask)) {
+        Node left = remove(branch.left, key);
+        return left == null ? branch.right : branch(branch, left, branch.right);
+      } else {
+        Node right = remove(branch.right, key);
+        return right == null ? branch.left : branch(branch, branch.left, right);
+      }
+    }
+  }
+
+  /** Union of two tries, identical subtrees are neither visited nor copied. */
+  static @Nullable Node merge(@Nullable Node node1, @Nullable Node node2, LeafMerger merger) {
+    if (node1 == node2) {
+      return node1;
+    } else if (node1 == null) {
+      forEachLeaf(node2, leaf -> merger.onlyIn(leaf, false));
+      return node2;
+    } else if (node2 == null) {
+      forEachLeaf(node1, leaf -> merger.onlyIn(leaf, true));
+      return node1;
+    } else if (node1 instanceof Leaf) {
+      return mergeLeaf((Leaf) node1, node2, true, merger);
+    } else if (node2 instanceof Leaf) {
+      return mergeLeaf((Leaf) node2, node1, false, merger);
+    }
+
+    Branch branch1 = (Branch) node1;
+    Branch branch2 = (Branch) node2;
+    if (branch1.mask == branch2.mask && branch1.prefix == branch2.prefix) {
+      Node left = merge(branch1.left, branch2.left, merger);
+      Node right = merge(branch1.right, branch2.right, merger);
+      return left == branch2.left && right == branch2.right
+          ? branch2
+          : branch(branch1, left, right);
+
+    } else if (branch1.mask > branch2.mask
+        && matchesPrefix(branch2.prefix, branch1.prefix, branch1.mask)) {
+      // node2 is contained in one side of node1
+      if (isZero(branch2.prefix, branch1.mask)) {
+        forEachLeaf(branch1.right, leaf -> merger.onlyIn(leaf, true));
+        return branch(branch1, merge(branch1.left, branch2, merger), branch1.right);
+      } else {
+        forEachLeaf(branch1.left, leaf -> merger.onlyIn(leaf, true));
+        return branch(branch1, branch1.left, merge(branch1.right, branch2, merger));
+      }
+
+    } else if (branch2.mask > branch1.mask
+        && matchesPrefix(branch1.prefix, branch2.prefix, branch2.mask)) {
+      // node1 is contained in one side of node2
+      if (isZero(branch1.prefix, branch2.mask)) {
+        forEachLeaf(branch2.right, leaf -> merger.onlyIn(leaf, false));
+        return branch(branch2, merge(branch1, branch2.left, merger), branch2.right);
+      } else {
+        forEachLeaf(branch2.left, leaf -> merger.onlyIn(leaf, false));
+        return branch(branch2, branch2.left, merge(branch1, branch2.right, merger));
+      }
+
+    } else {
+      // disjoint prefixes
+      forEachLeaf(branch1, leaf -> merger.onlyIn(leaf, true));
+      forEachLeaf(branch2, leaf -> merger.onlyIn(leaf, false));
+      return join(branch1.prefix, branch1, branch2.prefix, branch2);
+    }
+  }
+
+  private static Node mergeLeaf(Leaf leaf, Node other, boolean leafIsLeft, LeafMerger merger) {
+    Leaf otherLeaf = get(other, leaf.key);
+    forEachLeaf(
+        other,
+        l -> {
+          if (l.key != leaf.key) {
+            merger.onlyIn(l, !leafIsLeft);
+          }
+        });
+    if (otherLeaf == null) {
+      merger.onlyIn(leaf, leafIsLeft);
+      return put(other, leaf);
+    }
+    Leaf merged = leafIsLeft ? merger.merge(leaf, otherLeaf) : merger.merge(otherLeaf, leaf);
+    return merged == otherLeaf ? other : put(other, merged);
+  }
+
+  interface LeafVisitor {
+    void visit(Leaf leaf);
+  }
+
+  static void forEachLeaf(@Nullable Node node, LeafVisitor visitor) {
+    if (node == null) {
+      return;
+    } else if (node instanceof Leaf) {
+      visitor.visit((Leaf) node);
+    } else {
+      Branch branch = (Branch) node;
+      forEachLeaf(branch.left, visitor);
+      forEachLeaf(branch.right, visitor);
+    }
+  }
+
+  /** Iterate over all leaves in ascending order of their keys. */
+  static Iterator<Leaf> iterator(@Nullable Node node) {
+    return new Iterator<>() {
+      private final Deque<Node> stack = new ArrayDeque<>();
+
+      {
+        if (node != null) {
+          stack.push(node);
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return !stack.isEmpty();
+      }
+
+      @Override
+      public Leaf next() {
+        if (stack.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        Node current = stack.pop();
+        while (current instanceof Branch) {
+          Branch branch = (Branch) current;
+          stack.push(branch.right);
+          current = branch.left;
+        }
+        return (Leaf) current;
+      }
+    };
+  }
+}
@@ -25,17 +25,19 @@ package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
-import com.google.common.base.Equivalence;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSortedSet;
 import java.io.Serializable;
 import java.util.AbstractMap.SimpleImmutableEntry;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NavigableSet;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.collect.MapsDifference;
-import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
-import org.sosy_lab.common.collect.PersistentSortedMap;
-import org.sosy_lab.common.collect.PersistentSortedMaps;
 import org.sosy_lab.common.collect.PersistentSortedMaps.MergeConflictHandler;
 import org.sosy_lab.cpachecker.cfa.types.c.CComplexType;
 import org.sosy_lab.cpachecker.cfa.types.c.CComplexType.ComplexTypeKind;
@@ -44,10 +46,22 @@ import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
 import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cfa.types.c.CTypes;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAIndexTrie.Leaf;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAIndexTrie.LeafMerger;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAIndexTrie.Node;
 
 /**
  * Maps a variable name to its latest "SSA index", that should be used when
  * referring to that variable.
+ *
+ * <p>Variable names are mapped to dense integer ids (see {@link SSAVariableIds}),
+ * and indices and types are stored in a persistent Patricia trie over these ids
+ * (see {@link SSAIndexTrie}). Thus lookups avoid string comparisons,
+ * indices are not boxed, and merging two maps skips all shared parts.
+ * The table of ids is shared by all maps derived from the same map,
+ * maps with different tables are compared and merged by variable names.
+ * The empty map of a {@link PathFormulaManagerImpl} has its own table,
+ * such that all maps of one analysis share it.
  */
 public class SSAMap implements Serializable {
 
@@ -97,9 +111,9 @@ public class SSAMap implements Serializable {
   public static class SSAMapBuilder {
 
     private SSAMap ssa;
-    private PersistentSortedMap<String, Integer> vars; // Do not update without updating varsHashCode!
+    private @Nullable SSAVariableIds ids;
+    private @Nullable Node vars; // Do not update without updating varsHashCode!
     private FreshValueProvider freshValueProvider;
-    private PersistentSortedMap<String, CType> varTypes;
 
     // Instead of computing vars.hashCode(),
     // we calculate the hashCode ourselves incrementally
@@ -108,24 +122,23 @@ public class SSAMap implements Serializable {
 
     private SSAMapBuilder(SSAMap ssa) {
       this.ssa = ssa;
+      this.ids = ssa.ids;
       this.vars = ssa.vars;
       this.freshValueProvider = ssa.freshValueProvider;
-
-      this.varTypes = ssa.varTypes;
       this.varsHashCode = ssa.varsHashCode;
     }
 
     public int getIndex(String variable) {
-      return SSAMap.getIndex(variable, vars, ssa.defaultValue);
+      return SSAMap.getIndex(variable, ids, vars, ssa.defaultValue);
     }
 
     public int getFreshIndex(String variable) {
       return freshValueProvider.getFreshValue(variable,
-          SSAMap.getIndex(variable, vars, ssa.defaultValue));
+          SSAMap.getIndex(variable, ids, vars, ssa.defaultValue));
     }
 
     public CType getType(String name) {
-      return varTypes.get(name);
+      return SSAMap.getType(name, ids, vars);
     }
 
     @SuppressWarnings("CheckReturnValue")
@@ -136,21 +149,30 @@ public class SSAMap implements Serializable {
 
       type = type.getCanonicalType();
       assert !(type instanceof CFunctionType) : "Variable " + name + " has function type " + type;
-      CType oldType = varTypes.get(name);
+      if (ids == null) {
+        ids = new SSAVariableIds();
+      }
+      int id = ids.idOf(name);
+      Leaf oldLeaf = SSAIndexTrie.get(vars, id);
+      CType oldType = oldLeaf == null ? null : oldLeaf.type;
       if (oldType != null) {
         TYPE_CONFLICT_CHECKER.resolveConflict(name, oldType, type);
-      } else {
-        varTypes = varTypes.putAndCopy(name, type);
+        type = oldType;
       }
 
+      int newIdx = oldLeaf == null ? SSAIndexTrie.NO_INDEX : oldLeaf.index;
       if (idx > oldIdx || idx == ssa.defaultValue) {
-        vars = vars.putAndCopy(name, idx);
+        newIdx = idx;
         if (oldIdx != ssa.defaultValue) {
           varsHashCode -= mapEntryHashCode(name, oldIdx);
         }
         varsHashCode += mapEntryHashCode(name, idx);
       }
 
+      if (oldLeaf == null || oldLeaf.index != newIdx || oldLeaf.type != type) {
+        vars = SSAIndexTrie.put(vars, new Leaf(id, newIdx, type));
+      }
+
       return this;
     }
 
@@ -161,17 +183,24 @@ public class SSAMap implements Serializable {
     public SSAMapBuilder deleteVariable(String variable) {
       int index = getIndex(variable);
       if (index != ssa.defaultValue) {
-        vars = vars.removeAndCopy(variable);
+        vars = SSAIndexTrie.remove(vars, ids.lookup(variable));
         varsHashCode -= mapEntryHashCode(variable, index);
-
-        varTypes = varTypes.removeAndCopy(variable);
       }
 
       return this;
     }
 
     public NavigableSet<String> allVariables() {
-      return varTypes.keySet();
+      ImmutableSortedSet.Builder<String> variables = ImmutableSortedSet.naturalOrder();
+      SSAVariableIds currentIds = ids;
+      SSAIndexTrie.forEachLeaf(
+          vars,
+          leaf -> {
+            if (leaf.type != null) {
+              variables.add(currentIds.nameOf(leaf.key));
+            }
+          });
+      return variables.build();
     }
 
     /**
@@ -182,7 +211,7 @@ public class SSAMap implements Serializable {
         return ssa;
       }
 
-      ssa = new SSAMap(vars, freshValueProvider, varsHashCode, varTypes, ssa.defaultValue);
+      ssa = new SSAMap(vars, ids, freshValueProvider, varsHashCode, ssa.defaultValue);
       return ssa;
     }
 
@@ -196,10 +225,11 @@ public class SSAMap implements Serializable {
   }
 
   private static final SSAMap EMPTY_SSA_MAP = new SSAMap(
-      PathCopyingPersistentTreeMap.of(),
+      null,
+      null,
       new FreshValueProvider(),
       0,
-      PathCopyingPersistentTreeMap.of());
+      DEFAULT_DEFAULT_IDX);
 
   /**
    * Returns an empty immutable SSAMap.
@@ -208,8 +238,22 @@ public class SSAMap implements Serializable {
     return EMPTY_SSA_MAP;
   }
 
+  /**
+   * Returns an empty immutable SSAMap with a new table of variable ids. All maps derived from it
+   * share this table, even if they are derived independently of each other.
+   */
+  static SSAMap emptySSAMapWithNewVariableIds() {
+    return new SSAMap(
+        null,
+        new SSAVariableIds(),
+        EMPTY_SSA_MAP.freshValueProvider,
+        0,
+        DEFAULT_DEFAULT_IDX);
+  }
+
   public SSAMap withDefault(final int pDefaultValue) {
-    return new SSAMap(this.vars, this.freshValueProvider, this.varsHashCode, this.varTypes, pDefaultValue);
+    return new SSAMap(
+        this.vars, this.ids, this.freshValueProvider, this.varsHashCode, pDefaultValue);
   }
 
   /**
@@ -217,78 +261,153 @@ public class SSAMap implements Serializable {
    * If there are conflicting indices, the maximum of both is used.
    * Further returns a list with all variables for which different indices
    * were found, together with the two conflicting indices.
+   * The differences are reported in the order of the variable names.
    */
   public static SSAMap merge(
       SSAMap s1, SSAMap s2, MapsDifference.Visitor<String, Integer> collectDifferences) {
     // This method uses some optimizations to avoid work when parts of both SSAMaps
     // are equal. These checks use == instead of equals() because it is much faster
-    // and we create sets lazily (so when they are not identical, they are
-    // probably not equal, too).
-    // We don't bother checking the vars set for emptiness, because this will
-    // probably never be the case on a merge.
+    // and the trie shares all unchanged parts (so when they are not identical,
+    // they are probably not equal, too).
 
     checkArgument(s1.defaultValue == s2.defaultValue);
-    PersistentSortedMap<String, Integer> vars;
-    FreshValueProvider freshValueProvider;
-    int defaultIndex;
     if (s1.vars == s2.vars && s1.freshValueProvider == s2.freshValueProvider) {
       // both are absolutely identical
       return s1;
+    }
 
-    } else {
-      vars =
-          PersistentSortedMaps.merge(
-              s1.vars,
-              s2.vars,
-              Equivalence.equals(),
-              PersistentSortedMaps.getMaximumMergeConflictHandler(),
-              collectDifferences);
-      freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
-      defaultIndex = s1.defaultValue;
+    // translate the ids of s2 only if s1 has variables with ids of another table
+    SSAVariableIds ids = s1.vars != null || s2.ids == null ? s1.ids : s2.ids;
+    List<Leaf[]> differences = new ArrayList<>();
+    Node vars =
+        SSAIndexTrie.merge(
+            s1.vars,
+            withIds(s2, ids),
+            new LeafMerger() {
+              @Override
+              public Leaf merge(Leaf left, Leaf right) {
+                CType type = left.type;
+                if (type == null) {
+                  type = right.type;
+                } else if (right.type != null
+                    && !CTypes.canonicalTypeEquivalence().equivalent(type, right.type)) {
+                  type =
+                      TYPE_CONFLICT_CHECKER.resolveConflict(
+                          ids.nameOf(left.key), type, right.type);
+                }
+                if (left.index != right.index) {
+                  differences.add(new Leaf[] {left, right});
+                }
+                int index = Math.max(left.index, right.index);
+                if (index == left.index && type == left.type) {
+                  return left;
+                } else if (index == right.index && type == right.type) {
+                  return right;
+                }
+                return new Leaf(left.key, index, type);
+              }
+
+              @Override
+              public void onlyIn(Leaf leaf, boolean isLeft) {
+                differences.add(isLeft ? new Leaf[] {leaf, null} : new Leaf[] {null, leaf});
+              }
+            });
+    FreshValueProvider freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
+
+    differences.sort(
+        Comparator.comparing(
+            difference ->
+                ids.nameOf((difference[0] != null ? difference[0] : difference[1]).key)));
+    for (Leaf[] difference : differences) {
+      Leaf left = difference[0];
+      Leaf right = difference[1];
+      boolean hasLeft = left != null && left.hasIndex();
+      boolean hasRight = right != null && right.hasIndex();
+      if (hasLeft && hasRight) {
+        collectDifferences.differingValues(ids.nameOf(left.key), left.index, right.index);
+      } else if (hasLeft) {
+        collectDifferences.leftValueOnly(ids.nameOf(left.key), left.index);
+      } else if (hasRight) {
+        collectDifferences.rightValueOnly(ids.nameOf(right.key), right.index);
+      }
     }
 
-    PersistentSortedMap<String, CType> varTypes =
-        PersistentSortedMaps.merge(
-            s1.varTypes,
-            s2.varTypes,
-            CTypes.canonicalTypeEquivalence(),
-            TYPE_CONFLICT_CHECKER,
-            MapsDifference.ignoreMapsDifference());
+    return new SSAMap(vars, ids, freshValueProvider, 0, s1.defaultValue);
+  }
 
-    return new SSAMap(vars, freshValueProvider, 0, varTypes, defaultIndex);
+  /** Returns the trie of the given map with the ids of the given table. */
+  private static @Nullable Node withIds(SSAMap pSsa, @Nullable SSAVariableIds pIds) {
+    if (pSsa.ids == pIds || pSsa.vars == null) {
+      return pSsa.vars;
+    }
+    Node[] result = {null};
+    SSAIndexTrie.forEachLeaf(
+        pSsa.vars,
+        leaf ->
+            result[0] =
+                SSAIndexTrie.put(
+                    result[0],
+                    new Leaf(pIds.idOf(pSsa.ids.nameOf(leaf.key)), leaf.index, leaf.type)));
+    return result[0];
   }
 
-  private final PersistentSortedMap<String, Integer> vars;
+  /**
+   * Returns the table of the ids of this map. Merging or comparing maps with different tables is
+   * much slower, because one of the tries needs to be rebuilt or the maps need to be compared by
+   * variable names.
+   */
+  @VisibleForTesting
+  @Nullable SSAVariableIds getVariableIds() {
+    return ids;
+  }
+
+  private final transient @Nullable Node vars;
+
+  /**
+   * The table of the ids in {@link #vars}, null only if the map derives from {@link
+   * #emptySSAMap()} and no variable was ever added.
+   */
+  private final transient @Nullable SSAVariableIds ids;
+
   private final FreshValueProvider freshValueProvider;
-  private final PersistentSortedMap<String, CType> varTypes;
 
   // Cache hashCode of potentially big map
   private final int varsHashCode;
 
-  private SSAMap(PersistentSortedMap<String, Integer> vars,
+  // lazily computed sorted view of all variables with an index
+  private transient volatile @Nullable NavigableSet<String> variables = null;
+
+  private SSAMap(@Nullable Node vars,
+                 @Nullable SSAVariableIds ids,
                  FreshValueProvider freshValueProvider,
                  int varsHashCode,
-                 PersistentSortedMap<String, CType> varTypes,
                  int defaultSSAIdx) {
+    assert vars == null || ids != null;
     this.vars = vars;
+    this.ids = ids;
     this.freshValueProvider = freshValueProvider;
-    this.varTypes = varTypes;
 
     if (varsHashCode == 0) {
-      this.varsHashCode = vars.hashCode();
+      this.varsHashCode = computeHashCode(vars, ids);
     } else {
       this.varsHashCode = varsHashCode;
-      assert varsHashCode == vars.hashCode();
+      assert varsHashCode == computeHashCode(vars, ids);
     }
 
     defaultValue = defaultSSAIdx;
   }
 
-  private SSAMap(PersistentSortedMap<String, Integer> vars,
-                 FreshValueProvider freshValueProvider,
-                 int varsHashCode,
-                 PersistentSortedMap<String, CType> varTypes) {
-    this(vars, freshValueProvider, varsHashCode, varTypes, DEFAULT_DEFAULT_IDX);
+  /** Compute the hashCode of the map from variable names to indices. */
+  private static int computeHashCode(@Nullable Node vars, @Nullable SSAVariableIds ids) {
+    int[] hashCode = {0};
+    SSAIndexTrie.forEachLeaf(
+        vars,
+        leaf -> {
+          if (leaf.hasIndex()) {
+            hashCode[0] += ids.nameOf(leaf.key).hashCode() ^ leaf.index;
+          }
+        });
+    return hashCode[0];
   }
 
   /**
@@ -298,12 +417,28 @@ public class SSAMap implements Serializable {
     return new SSAMapBuilder(this);
   }
 
-  private static int getIndex(String variable, Map<String, Integer> vars, int defaultValue) {
-    Integer value = vars.get(variable);
-    if (value == null) {
+  private static int getIndex(
+      String variable, @Nullable SSAVariableIds ids, @Nullable Node vars, int defaultValue) {
+    Leaf leaf = getLeaf(variable, ids, vars);
+    if (leaf == null || !leaf.hasIndex()) {
       return defaultValue;
     }
-    return value;
+    return leaf.index;
+  }
+
+  private static @Nullable CType getType(
+      String variable, @Nullable SSAVariableIds ids, @Nullable Node vars) {
+    Leaf leaf = getLeaf(variable, ids, vars);
+    return leaf == null ? null : leaf.type;
+  }
+
+  private static @Nullable Leaf getLeaf(
+      String variable, @Nullable SSAVariableIds ids, @Nullable Node vars) {
+    if (ids == null) {
+      return null;
+    }
+    int id = ids.lookup(variable);
+    return id == SSAVariableIds.UNKNOWN ? null : SSAIndexTrie.get(vars, id);
   }
 
   /**
@@ -311,26 +446,41 @@ public class SSAMap implements Serializable {
    * or the [defaultValue].
    */
   public int getIndex(String variable) {
-    return getIndex(variable, vars, defaultValue);
+    return getIndex(variable, ids, vars, defaultValue);
   }
 
   public boolean containsVariable(String variable) {
-    return vars.containsKey(variable);
+    Leaf leaf = getLeaf(variable, ids, vars);
+    return leaf != null && leaf.hasIndex();
   }
 
   public CType getType(String name) {
-    return varTypes.get(name);
+    return getType(name, ids, vars);
   }
 
   public NavigableSet<String> allVariables() {
-    return vars.keySet();
+    NavigableSet<String> result = variables;
+    if (result == null) {
+      ImmutableSortedSet.Builder<String> builder = ImmutableSortedSet.naturalOrder();
+      SSAIndexTrie.forEachLeaf(
+          vars,
+          leaf -> {
+            if (leaf.hasIndex()) {
+              builder.add(ids.nameOf(leaf.key));
+            }
+          });
+      result = builder.build();
+      variables = result;
+    }
+    return result;
   }
 
   private static final Joiner joiner = Joiner.on(" ");
 
   @Override
   public String toString() {
-    return joiner.join(vars.entrySet());
+    return joiner.join(
+        allVariables().stream().map(variable -> variable + "=" + getIndex(variable)).iterator());
   }
 
   @Override
@@ -348,8 +498,103 @@ public class SSAMap implements Serializable {
       SSAMap other = (SSAMap)obj;
       // Do a few cheap checks before the expensive ones.
       return varsHashCode == other.varsHashCode
-          && vars.equals(other.vars)
+          && (vars == other.vars || equalIndices(this, other))
           && freshValueProvider.equals(other.freshValueProvider);
     }
   }
+
+  /** Compare the indices of both maps, ignoring the types. */
+  private static boolean equalIndices(SSAMap s1, SSAMap s2) {
+    if (s1.ids == null || s2.ids == null || s1.ids == s2.ids) {
+      return equalIndices(s1.vars, s2.vars);
+    }
+    // ids of different tables are not comparable, but the variable names are
+    if (!s1.allVariables().equals(s2.allVariables())) {
+      return false;
+    }
+    for (String variable : s1.allVariables()) {
+      if (s1.getIndex(variable) != s2.getIndex(variable)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Compare the indices in both tries of the same table, ignoring the types. */
+  private static boolean equalIndices(@Nullable Node vars1, @Nullable Node vars2) {
+    Iterator<Leaf> it1 = SSAIndexTrie.iterator(vars1);
+    Iterator<Leaf> it2 = SSAIndexTrie.iterator(vars2);
+    while (true) {
+      Leaf leaf1 = nextWithIndex(it1);
+      Leaf leaf2 = nextWithIndex(it2);
+      if (leaf1 == null || leaf2 == null) {
+        return leaf1 == leaf2;
+      } else if (leaf1.key != leaf2.key || leaf1.index != leaf2.index) {
+        return false;
+      }
+    }
+  }
+
+  private static @Nullable Leaf nextWithIndex(Iterator<Leaf> it) {
+    while (it.hasNext()) {
+      Leaf leaf = it.next();
+      if (leaf.hasIndex()) {
+        return leaf;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Variable ids are only valid within their table,
+   * thus we serialize the variable names.
+   */
+  private Object writeReplace() {
+    List<String> names = new ArrayList<>();
+    List<Integer> indices = new ArrayList<>();
+    List<CType> types = new ArrayList<>();
+    SSAIndexTrie.forEachLeaf(
+        vars,
+        leaf -> {
+          names.add(ids.nameOf(leaf.key));
+          indices.add(leaf.index);
+          types.add(leaf.type);
+        });
+    return new SerialProxy(names, indices, types, freshValueProvider, defaultValue);
+  }
+
+  private static class SerialProxy implements Serializable {
+
+    private static final long serialVersionUID = -3170924916587418374L;
+
+    private final ArrayList<String> names;
+    private final ArrayList<Integer> indices;
+    private final ArrayList<CType> types;
+    private final FreshValueProvider freshValueProvider;
+    private final int defaultValue;
+
+    private SerialProxy(
+        List<String> pNames,
+        List<Integer> pIndices,
+        List<CType> pTypes,
+        FreshValueProvider pFreshValueProvider,
+        int pDefaultValue) {
+      names = new ArrayList<>(pNames);
+      indices = new ArrayList<>(pIndices);
+      types = new ArrayList<>(pTypes);
+      freshValueProvider = pFreshValueProvider;
+      defaultValue = pDefaultValue;
+    }
+
+    private Object readResolve() {
+      SSAVariableIds ids = names.isEmpty() ? null : new SSAVariableIds();
+      Node vars = null;
+      for (int i = 0; i < names.size(); i++) {
+        vars =
+            SSAIndexTrie.put(
+                vars, new Leaf(ids.idOf(names.get(i)), indices.get(i), types.get(i)));
+      }
+      return new SSAMap(vars, ids, freshValueProvider, 0, defaultValue);
+    }
+  }
 }
@@ -0,0 +1,366 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.sosy_lab.common.collect.MapsDifference.collectMapsDifferenceTo;
+
+import com.google.common.base.Equivalence;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.sosy_lab.common.collect.MapsDifference;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentSortedMap;
+import org.sosy_lab.common.collect.PersistentSortedMaps;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.arg.ARGUtils;
+import org.sosy_lab.cpachecker.cpa.arg.path.ARGPath;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicateCPA;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/**
+ * Tests {@link SSAMap} against a model of its former implementation, which stored the indices and
+ * the types of the variables in two persistent sorted maps. Also checks that the maps of an
+ * analysis share one table of variable ids.
+ */
+public class SSAMapTest {
+
+  private static final ImmutableList<String> VARIABLES =
+      ImmutableList.of("a", "b", "c", "main::x", "main::y", "f::x", "__ADDRESS_OF_a", "tmp");
+
+  private static CType typeOf(String pVariable) {
+    return pVariable.startsWith("main::") ? CNumericTypes.LONG_INT : CNumericTypes.INT;
+  }
+
+  /** An SSAMap and the maps of the former implementation with the same content. */
+  private static final class Model {
+
+    private final SSAMap ssa;
+    private final PersistentSortedMap<String, Integer> indices;
+    private final PersistentSortedMap<String, CType> types;
+
+    private Model(
+        SSAMap pSsa,
+        PersistentSortedMap<String, Integer> pIndices,
+        PersistentSortedMap<String, CType> pTypes) {
+      ssa = pSsa;
+      indices = pIndices;
+      types = pTypes;
+    }
+
+    private static Model empty() {
+      return empty(SSAMap.emptySSAMap());
+    }
+
+    private static Model empty(SSAMap pEmptySsa) {
+      return new Model(
+          pEmptySsa, PathCopyingPersistentTreeMap.of(), PathCopyingPersistentTreeMap.of());
+    }
+
+    private Model setIndex(String pVariable, int pIndex) {
+      PersistentSortedMap<String, Integer> newIndices = indices;
+      if (pIndex > indices.getOrDefault(pVariable, -1)) {
+        newIndices = indices.putAndCopy(pVariable, pIndex);
+      }
+      PersistentSortedMap<String, CType> newTypes = types;
+      if (!types.containsKey(pVariable)) {
+        newTypes = types.putAndCopy(pVariable, typeOf(pVariable));
+      }
+      return new Model(
+          ssa.builder().setIndex(pVariable, typeOf(pVariable), pIndex).build(),
+          newIndices,
+          newTypes);
+    }
+
+    private Model deleteVariable(String pVariable) {
+      if (!indices.containsKey(pVariable)) {
+        return new Model(ssa.builder().deleteVariable(pVariable).build(), indices, types);
+      }
+      return new Model(
+          ssa.builder().deleteVariable(pVariable).build(),
+          indices.removeAndCopy(pVariable),
+          types.removeAndCopy(pVariable));
+    }
+
+    /** Rebuilds the content from the empty map in random order, i.e., with a new id table. */
+    private Model rebuild(Random pRandom) {
+      List<String> variables = new ArrayList<>(indices.keySet());
+      Collections.shuffle(variables, pRandom);
+      Model result = empty();
+      for (String variable : variables) {
+        result = result.setIndex(variable, indices.get(variable));
+      }
+      return result;
+    }
+  }
+
+  private static Model randomChanges(Random pRandom, Model pModel, int pChanges) {
+    Model result = pModel;
+    for (int i = 0; i < pChanges; i++) {
+      String variable = VARIABLES.get(pRandom.nextInt(VARIABLES.size()));
+      if (pRandom.nextInt(5) == 0) {
+        result = result.deleteVariable(variable);
+      } else {
+        int index = Math.max(1, result.ssa.getIndex(variable) + pRandom.nextInt(3));
+        result = result.setIndex(variable, index);
+      }
+    }
+    return result;
+  }
+
+  private static void checkContent(Model pModel) {
+    SSAMap ssa = pModel.ssa;
+    assertThat(ssa.allVariables()).containsExactlyElementsIn(pModel.indices.keySet()).inOrder();
+    for (String variable : VARIABLES) {
+      assertThat(ssa.getIndex(variable)).isEqualTo(pModel.indices.getOrDefault(variable, -1));
+      assertThat(ssa.containsVariable(variable)).isEqualTo(pModel.indices.containsKey(variable));
+      assertThat(ssa.getType(variable)).isEqualTo(pModel.types.get(variable));
+      assertThat(ssa.builder().getIndex(variable)).isEqualTo(ssa.getIndex(variable));
+    }
+  }
+
+  private static void checkEquality(Model pModel1, Model pModel2) {
+    boolean equal = pModel1.indices.equals(pModel2.indices);
+    assertThat(pModel1.ssa.equals(pModel2.ssa)).isEqualTo(equal);
+    assertThat(pModel2.ssa.equals(pModel1.ssa)).isEqualTo(equal);
+    if (equal) {
+      assertThat(pModel1.ssa.hashCode()).isEqualTo(pModel2.ssa.hashCode());
+    }
+  }
+
+  private static void checkMerge(Model pModel1, Model pModel2) {
+    List<MapsDifference.Entry<String, Integer>> expectedDifferences = new ArrayList<>();
+    PersistentSortedMap<String, Integer> expectedIndices =
+        PersistentSortedMaps.merge(
+            pModel1.indices,
+            pModel2.indices,
+            Equivalence.equals(),
+            PersistentSortedMaps.getMaximumMergeConflictHandler(),
+            collectMapsDifferenceTo(expectedDifferences));
+    // the type of a variable is the same in both maps
+    PersistentSortedMap<String, CType> expectedTypes = pModel1.types;
+    for (Map.Entry<String, CType> entry : pModel2.types.entrySet()) {
+      expectedTypes = expectedTypes.putAndCopy(entry.getKey(), entry.getValue());
+    }
+
+    List<MapsDifference.Entry<String, Integer>> differences = new ArrayList<>();
+    SSAMap merged =
+        SSAMap.merge(pModel1.ssa, pModel2.ssa, collectMapsDifferenceTo(differences));
+
+    checkContent(new Model(merged, expectedIndices, expectedTypes));
+    assertThat(toStrings(differences)).containsExactlyElementsIn(toStrings(expectedDifferences))
+        .inOrder();
+  }
+
+  private static List<String> toStrings(List<MapsDifference.Entry<String, Integer>> pDifferences) {
+    List<String> result = new ArrayList<>();
+    for (MapsDifference.Entry<String, Integer> difference : pDifferences) {
+      result.add(
+          difference.getKey()
+              + ": "
+              + difference.getLeftValue()
+              + " / "
+              + difference.getRightValue());
+    }
+    return result;
+  }
+
+  @Test
+  public void builderLikeSortedMaps() {
+    Random random = new Random(0);
+    for (int round = 0; round < 100; round++) {
+      checkContent(randomChanges(random, Model.empty(), 30));
+    }
+  }
+
+  @Test
+  public void builderWithoutChanges() {
+    SSAMap ssa = Model.empty().setIndex("a", 2).ssa;
+    assertThat(ssa.builder().build()).isSameInstanceAs(ssa);
+    assertThat(ssa.builder().setIndex("a", CNumericTypes.INT, 2).build()).isSameInstanceAs(ssa);
+    assertThat(ssa.builder().deleteVariable("b").build()).isSameInstanceAs(ssa);
+  }
+
+  @Test
+  public void mergeLikeSortedMaps() {
+    Random random = new Random(0);
+    for (int round = 0; round < 200; round++) {
+      // maps with a common ancestor share their id table and parts of their tries
+      Model ancestor = randomChanges(random, Model.empty(), 10);
+      Model model1 = randomChanges(random, ancestor, random.nextInt(6));
+      Model model2 = randomChanges(random, ancestor, random.nextInt(6));
+
+      checkMerge(model1, model2);
+      checkMerge(model2, model1);
+      checkMerge(model1, model1);
+      checkMerge(model1, Model.empty());
+      checkMerge(Model.empty(), model1);
+    }
+  }
+
+  @Test
+  public void mergeOfIndependentMaps() {
+    Random random = new Random(0);
+    for (int round = 0; round < 200; round++) {
+      Model ancestor = randomChanges(random, Model.empty(), 10);
+      Model model1 = randomChanges(random, ancestor, random.nextInt(6));
+      // maps that were built independently have different id tables
+      Model model2 = randomChanges(random, ancestor, random.nextInt(6)).rebuild(random);
+
+      checkMerge(model1, model2);
+      checkMerge(model2, model1);
+      checkMerge(model1, model1.rebuild(random));
+    }
+  }
+
+  @Test
+  public void equalityLikeSortedMaps() {
+    Random random = new Random(0);
+    for (int round = 0; round < 200; round++) {
+      Model ancestor = randomChanges(random, Model.empty(), 10);
+      Model model1 = randomChanges(random, ancestor, random.nextInt(3));
+      Model model2 = randomChanges(random, ancestor, random.nextInt(3));
+
+      checkEquality(model1, model2);
+      checkEquality(model1, model2.rebuild(random));
+      checkEquality(model1, model1.rebuild(random));
+      checkEquality(model1, Model.empty());
+    }
+  }
+
+  @Test
+  public void equalityIgnoresTypesOfDeletedVariables() {
+    Model model = Model.empty().setIndex("a", 1);
+    Model withDeleted = model.setIndex("b", 1).deleteVariable("b");
+    checkEquality(model, withDeleted);
+    assertThat(withDeleted.ssa.getType("b")).isNull();
+  }
+
+  @Test
+  public void mergedTypesOfIndependentMaps() {
+    SSAMap ssa1 = Model.empty().setIndex("main::x", 1).ssa;
+    SSAMap ssa2 = Model.empty().setIndex("a", 3).ssa;
+    SSAMap merged = SSAMap.merge(ssa1, ssa2, MapsDifference.ignoreMapsDifference());
+    assertThat(merged.getType("main::x")).isEqualTo(CNumericTypes.LONG_INT);
+    assertThat(merged.getType("a")).isEqualTo(CNumericTypes.INT);
+    assertThat(merged.toString()).isEqualTo("a=3 main::x=1");
+  }
+
+  @Test
+  public void independentDerivationsShareIdTable() {
+    Random random = new Random(0);
+    // like the empty map of a PathFormulaManagerImpl
+    SSAMap emptySsa = SSAMap.emptySSAMapWithNewVariableIds();
+    SSAVariableIds table = emptySsa.getVariableIds();
+    for (int round = 0; round < 200; round++) {
+      // e.g., the path formulas of the reached set and of a refinement
+      Model model1 = randomChanges(random, Model.empty(emptySsa), 10);
+      Model model2 = randomChanges(random, Model.empty(emptySsa), 10);
+      assertThat(model1.ssa.getVariableIds()).isSameInstanceAs(table);
+      assertThat(model2.ssa.getVariableIds()).isSameInstanceAs(table);
+
+      checkMerge(model1, model2);
+      checkMerge(model2, model1);
+      checkMerge(model1, Model.empty());
+      checkMerge(Model.empty(), model1);
+      checkEquality(model1, model2);
+
+      // no merge needs to translate the ids into another table
+      SSAMap merged = SSAMap.merge(model1.ssa, model2.ssa, MapsDifference.ignoreMapsDifference());
+      assertThat(merged.getVariableIds()).isSameInstanceAs(table);
+      merged = SSAMap.merge(Model.empty().ssa, model1.ssa, MapsDifference.ignoreMapsDifference());
+      assertThat(merged.getVariableIds()).isSameInstanceAs(table);
+    }
+  }
+
+  /**
+   * SSAMaps with different id tables are merged and compared by variable names, which is much
+   * slower. Within one analysis, all maps derive from the empty map of its path-formula manager
+   * and share its table, so this slow path is never taken. This holds also for maps that are
+   * derived independently of the reached set, e.g., during refinements.
+   */
+  @Test
+  public void predicateAnalysisUsesOneIdTable() throws Exception {
+    for (String program :
+        ImmutableList.of(
+            "test/programs/bmc/loopWithError_true-unreach-label.c",
+            "test/programs/simple/functionCall.c")) {
+      Configuration config =
+          TestDataTools.configurationForTest()
+              .loadFromFile("config/predicateAnalysis.properties")
+              .setOption("specification", "config/specification/default.spc")
+              .setOption("solver.solver", "SMTINTERPOL")
+              .setOption("cpa.predicate.encodeBitvectorAs", "INTEGER")
+              .setOption("cpa.predicate.encodeFloatAs", "RATIONAL")
+              .build();
+      TestResults results = CPATestRunner.run(config, program);
+      results.assertIsSafe();
+
+      Set<SSAVariableIds> tables = Sets.newIdentityHashSet();
+      for (AbstractState state : results.getCheckerResult().getReached()) {
+        PredicateAbstractState predicateState =
+            AbstractStates.extractStateByType(state, PredicateAbstractState.class);
+        for (PathFormula pathFormula :
+            ImmutableList.of(
+                predicateState.getPathFormula(),
+                predicateState.getAbstractionFormula().getBlockFormula())) {
+          SSAVariableIds table = pathFormula.getSsa().getVariableIds();
+          if (table != null) {
+            tables.add(table);
+          }
+        }
+      }
+
+      // path formulas for a path are derived independently of the reached set
+      PathFormulaManager pfmgr =
+          CPAs.retrieveCPAOrFail(
+                  GlobalInfo.getInstance().getCPA().orElseThrow(),
+                  PredicateCPA.class,
+                  SSAMapTest.class)
+              .getPathFormulaManager();
+      for (AbstractState state : results.getCheckerResult().getReached()) {
+        ARGPath path = ARGUtils.getOnePathTo((ARGState) state);
+        tables.add(pfmgr.makeFormulaForPath(path.getFullPath()).getSsa().getVariableIds());
+      }
+      assertThat(tables).hasSize(1);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Table that assigns dense integer ids to the variable names used in {@link SSAMap}s. Ids are
+ * assigned in the order of first use and never released, thus the table grows with the number of
+ * distinct variable names, not with the number of SSAMaps.
+ *
+ * <p>There is no global table. A table is created for the first variable that is added to an empty
+ * SSAMap and is shared by all SSAMaps derived from it, which usually are all SSAMaps of one
+ * analysis. The table is garbage collected together with the last of these SSAMaps.
+ *
+ * <p>This class is thread-safe. Reading a name is lock-free.
+ */
+final class SSAVariableIds {
+
+  static final int UNKNOWN = -1;
+
+  private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+  // written only while holding the lock of the table, always re-published after an update
+  private volatile String[] names = new String[64];
+  private int size = 0;
+
+  /** Returns the id of a name, or {@link #UNKNOWN} if the name never got an id. */
+  int lookup(String pName) {
+    Integer id = ids.get(pName);
+    return id == null ? UNKNOWN : id;
+  }
+
+  /** Returns the id of a name and assigns a new id if necessary. */
+  int idOf(String pName) {
+    Integer id = ids.get(pName);
+    return id == null ? register(pName) : id;
+  }
+
+  private synchronized int register(String pName) {
+    Integer id = ids.get(pName);
+    if (id != null) {
+      return id;
+    }
+    String[] currentNames = names;
+    if (size == currentNames.length) {
+      currentNames = Arrays.copyOf(currentNames, 2 * size);
+    }
+    currentNames[size] = pName;
+    names = currentNames; // publish the new name before the id becomes visible
+    ids.put(pName, size);
+    return size++;
+  }
+
+  String nameOf(int pId) {
+    return names[pId];
+  }
+}
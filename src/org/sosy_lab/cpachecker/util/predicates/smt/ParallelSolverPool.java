@@ -0,0 +1,176 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * A fixed number of worker threads for solving independent queries in parallel, each worker with
+ * its own {@link Solver}.
+ *
+ * <p>Formula managers are not thread-safe. Thus the calling thread needs to translate (or dump) the
+ * formulas of each task into the context of the task's solver before calling {@link
+ * #invokeAll(List)}, and needs to translate the results back afterwards. The i-th task of a call
+ * may use the solver {@link #getSolver(int) getSolver(i)}, because all tasks are finished when the
+ * call returns.
+ *
+ * <p>If a task fails or the calling thread is interrupted, the other tasks are stopped with the
+ * {@link ShutdownManager} of the worker solvers, and the calling thread waits until no task uses
+ * its solver anymore. Afterwards the pool cannot be used anymore, and {@link #isUsable()} returns
+ * false.
+ */
+public final class ParallelSolverPool implements AutoCloseable {
+
+  private final String name;
+  private final ShutdownManager shutdownManager;
+  private final ImmutableList<Solver> solvers;
+  private final ExecutorService executor;
+
+  /**
+   * Create a pool with the given number of workers.
+   *
+   * @param pName the name of the computation, used for the worker threads and for messages
+   * @param pShutdownNotifier the notifier of the calling context, whose shutdown requests are
+   *     propagated to the worker solvers
+   */
+  public ParallelSolverPool(
+      String pName,
+      int pThreads,
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    checkArgument(pThreads > 0);
+    name = pName;
+    shutdownManager = ShutdownManager.createWithParent(pShutdownNotifier);
+    ImmutableList.Builder<Solver> solverBuilder = ImmutableList.builder();
+    for (int i = 0; i < pThreads; i++) {
+      solverBuilder.add(Solver.create(pConfig, pLogger, shutdownManager.getNotifier()));
+    }
+    solvers = solverBuilder.build();
+    executor =
+        Executors.newFixedThreadPool(
+            pThreads,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat(pName + "-%d").build());
+  }
+
+  /** The number of workers. */
+  public int size() {
+    return solvers.size();
+  }
+
+  /** The solver of the i-th worker. */
+  public Solver getSolver(int i) {
+    return solvers.get(i);
+  }
+
+  /**
+   * The notifier of the worker solvers, which tasks should check regularly. It is triggered if the
+   * computation is cancelled or if the calling context is shut down.
+   */
+  public ShutdownNotifier getShutdownNotifier() {
+    return shutdownManager.getNotifier();
+  }
+
+  /** Whether the workers can be used, i.e., no previous computation was cancelled. */
+  public boolean isUsable() {
+    return !shutdownManager.getNotifier().shouldShutdown();
+  }
+
+  /**
+   * Run the given tasks in parallel and wait until all of them are finished.
+   *
+   * @param pTasks at most one task for each worker, the i-th task may use the i-th solver
+   * @return the results of the tasks, in the same order
+   * @throws InterruptedException if the pool was stopped before, or a task was interrupted
+   */
+  public <T> List<T> invokeAll(List<? extends Callable<T>> pTasks)
+      throws SolverException, InterruptedException {
+    shutdownManager.getNotifier().shutdownIfNecessary();
+    checkArgument(pTasks.size() <= solvers.size());
+    List<Future<T>> futures = new ArrayList<>(pTasks.size());
+    try {
+      for (Callable<T> task : pTasks) {
+        futures.add(executor.submit(task));
+      }
+      // Future.get() establishes happens-before for everything the task wrote
+      List<T> results = new ArrayList<>(futures.size());
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+
+    } catch (ExecutionException e) {
+      cancel(futures);
+      Throwable t = e.getCause();
+      Throwables.propagateIfPossible(t, SolverException.class, InterruptedException.class);
+      throw new UnexpectedCheckedException(name, t);
+    } catch (InterruptedException | RuntimeException e) {
+      cancel(futures);
+      throw e;
+    }
+  }
+
+  /**
+   * Stop all tasks of the current computation and wait until they are finished, such that no task
+   * uses its solver anymore.
+   */
+  private void cancel(List<? extends Future<?>> futures) {
+    shutdownManager.requestShutdown(name + " was cancelled");
+    for (Future<?> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException | CancellationException e) {
+        // already handled by the caller, or irrelevant after the shutdown
+      }
+    }
+  }
+
+  /** Stop the worker threads and close the solvers. All provers need to be closed before. */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    solvers.forEach(Solver::close);
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+public class ParallelSolverPoolTest extends SolverViewBasedTest0 {
+
+  private ShutdownManager parentShutdownManager;
+  private ParallelSolverPool pool;
+
+  @Before
+  public void createPool() throws Exception {
+    parentShutdownManager = ShutdownManager.create();
+    pool = new ParallelSolverPool("test", 3, config, logger, parentShutdownManager.getNotifier());
+  }
+
+  @After
+  public void closePool() {
+    pool.close();
+  }
+
+  /** A task that checks x > i && x < bound with the i-th solver. */
+  private Callable<Boolean> isUnsat(int i, int bound) {
+    FormulaManagerView fmgr = pool.getSolver(i).getFormulaManager();
+    IntegerFormulaManagerView ifmgr = fmgr.getIntegerFormulaManager();
+    IntegerFormula x = ifmgr.makeVariable("x");
+    BooleanFormula query =
+        fmgr.getBooleanFormulaManager()
+            .and(
+                ifmgr.greaterThan(x, ifmgr.makeNumber(i)),
+                ifmgr.lessThan(x, ifmgr.makeNumber(bound)));
+    return () -> {
+      try (ProverEnvironment prover = pool.getSolver(i).newProverEnvironment()) {
+        prover.push(query);
+        return prover.isUnsat();
+      }
+    };
+  }
+
+  @Test
+  public void resultsInOrderOfTasks() throws Exception {
+    assertThat(pool.invokeAll(ImmutableList.of(isUnsat(0, 2), isUnsat(1, 2), isUnsat(2, 2))))
+        .containsExactly(false, true, true)
+        .inOrder();
+
+    // the pool can be reused, also with fewer tasks
+    assertThat(pool.invokeAll(ImmutableList.of(isUnsat(0, 0), isUnsat(1, 5))))
+        .containsExactly(true, false)
+        .inOrder();
+    assertThat(pool.isUsable()).isTrue();
+  }
+
+  @Test
+  public void tooManyTasks() {
+    Callable<Boolean> task = () -> true;
+    List<Callable<Boolean>> tasks = ImmutableList.of(task, task, task, task);
+    assertThrows(IllegalArgumentException.class, () -> pool.invokeAll(tasks));
+    assertThat(pool.isUsable()).isTrue();
+  }
+
+  @Test
+  public void failingTaskStopsOtherTasks() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    Callable<Boolean> waiting =
+        () -> {
+          started.countDown();
+          while (true) {
+            pool.getShutdownNotifier().shutdownIfNecessary();
+            Thread.sleep(10);
+          }
+        };
+    Callable<Boolean> failing =
+        () -> {
+          started.await();
+          throw new SolverException("test");
+        };
+
+    assertThrows(SolverException.class, () -> pool.invokeAll(ImmutableList.of(waiting, failing)));
+    assertThat(pool.isUsable()).isFalse();
+    assertThat(parentShutdownManager.getNotifier().shouldShutdown()).isFalse();
+
+    // all further computations are rejected
+    assertThrows(
+        InterruptedException.class, () -> pool.invokeAll(ImmutableList.of(isUnsat(0, 2))));
+  }
+
+  @Test
+  public void unexpectedCheckedException() {
+    Callable<Boolean> failing =
+        () -> {
+          throw new IOException("test");
+        };
+    UnexpectedCheckedException e =
+        assertThrows(
+            UnexpectedCheckedException.class, () -> pool.invokeAll(ImmutableList.of(failing)));
+    assertThat(e).hasCauseThat().isInstanceOf(IOException.class);
+    assertThat(pool.isUsable()).isFalse();
+  }
+
+  @Test
+  public void parentShutdownStopsPool() {
+    parentShutdownManager.requestShutdown("test");
+    assertThat(pool.isUsable()).isFalse();
+    assertThrows(
+        InterruptedException.class, () -> pool.invokeAll(ImmutableList.of(isUnsat(0, 2))));
+  }
+}
@@ -0,0 +1,423 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.common.primitives.UnsignedBytes;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.log.LogManager;
+
+/**
+ * On-disk store for the results of satisfiability checks, such that the results can be reused by
+ * later runs of CPAchecker.
+ *
+ * <p>Queries are identified by the SHA-256 hash of their SMTLIB representation, which should be
+ * created from a formula with normalized SSA indices. The file consists of a header and a sorted
+ * sequence of fixed-size records (hash, result, and time of the last use). It is memory-mapped when
+ * the store is opened, and lookups are binary searches directly in the mapped file. Results of the
+ * current run and stored results that were used in the current run are kept in memory and merged
+ * into the file when the store is flushed. If the file would contain more than the given maximum
+ * number of records, the least recently used records are dropped.
+ *
+ * <p>There is only one open store per file in each process, which is shared by all solvers and
+ * which is thread-safe. Each solver closes the store when it is closed, and the store is released
+ * when its last user has closed it. The file is locked while it is rewritten, such that concurrent
+ * processes do not lose results.
+ */
+final class PersistentQueryStore {
+
+  private static final long MAGIC = 0x4350414348514432L; // "CPACHQD2"
+  private static final int HEADER_SIZE = Long.BYTES;
+  private static final int KEY_SIZE = 32; // SHA-256
+  private static final int RESULT_OFFSET = KEY_SIZE;
+  private static final int TIME_OFFSET = RESULT_OFFSET + 1;
+  private static final int RECORD_SIZE = TIME_OFFSET + Integer.BYTES;
+
+  private static final Comparator<byte[]> KEY_ORDER = UnsignedBytes.lexicographicalComparator();
+
+  /** The open stores of this process, one per file. */
+  private static final Map<Path, PersistentQueryStore> openStores = new HashMap<>();
+
+  /**
+   * Locks for writing the files within this process. The file lock does not exclude other threads
+   * of the same process, which can write the same file if there are unshared stores (only in
+   * tests).
+   */
+  private static final Map<Path, Object> writeLocks = new ConcurrentHashMap<>();
+
+  private final Path file;
+  private final int maxRecords;
+  private final IntSupplier clock;
+  private final LogManager logger;
+
+  /** Number of users that have opened and not yet closed this store, guarded by openStores. */
+  private int users = 1;
+
+  private volatile @Nullable ByteBuffer storedRecords;
+  private final Map<HashCode, Boolean> newRecords = new ConcurrentHashMap<>();
+
+  private PersistentQueryStore(
+      Path pFile,
+      @Nullable ByteBuffer pStoredRecords,
+      int pMaxRecords,
+      IntSupplier pClock,
+      LogManager pLogger) {
+    file = pFile.toAbsolutePath().normalize();
+    storedRecords = pStoredRecords;
+    maxRecords = pMaxRecords;
+    clock = pClock;
+    logger = pLogger;
+  }
+
+  /**
+   * Open the store in the given file, which does not need to exist. If the file is already used by
+   * another solver of this process, its store is returned (and the given maximum size is ignored).
+   * Each call needs to be matched by a call to {@link #close()}.
+   */
+  static PersistentQueryStore open(Path pFile, int pMaxRecords, LogManager pLogger) {
+    Path file = pFile.toAbsolutePath().normalize();
+    synchronized (openStores) {
+      PersistentQueryStore store = openStores.get(file);
+      if (store != null) {
+        store.users++;
+      } else {
+        store = openUnshared(file, pMaxRecords, PersistentQueryStore::currentTime, pLogger);
+        openStores.put(file, store);
+      }
+      return store;
+    }
+  }
+
+  /** Open a store that is not shared with other solvers of this process, for tests. */
+  static PersistentQueryStore openUnshared(
+      Path pFile, int pMaxRecords, IntSupplier pClock, LogManager pLogger) {
+    ByteBuffer records = null;
+    if (Files.isReadable(pFile)) {
+      try {
+        records = map(pFile);
+      } catch (IOException e) {
+        pLogger.logUserException(
+            Level.WARNING, e, "Could not read stored results of satisfiability checks");
+      }
+    }
+    return new PersistentQueryStore(pFile, records, pMaxRecords, pClock, pLogger);
+  }
+
+  /** The time of the last use of a record, in minutes since the epoch. */
+  private static int currentTime() {
+    return (int) TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+  }
+
+  static HashCode hash(String pQuery) {
+    return Hashing.sha256().hashString(pQuery, UTF_8);
+  }
+
+  /**
+   * Write the results of this run and release the store for this user. Once the last user has
+   * closed the store, it is removed from the open stores of this process and may not be used
+   * anymore, and the next call to {@link #open} reads the file again.
+   */
+  void close() {
+    flush();
+    synchronized (openStores) {
+      checkState(users > 0, "Store for %s closed more often than opened", file);
+      users--;
+      if (users > 0) {
+        return;
+      }
+      openStores.remove(file, this);
+    }
+    // release the mapping of the file
+    storedRecords = null;
+  }
+
+  /** Return whether the query with the given hash is unsat, or null if it is unknown. */
+  @Nullable Boolean lookup(HashCode pKey) {
+    Boolean result = newRecords.get(pKey);
+    if (result == null) {
+      ByteBuffer records = storedRecords;
+      if (records != null) {
+        result = binarySearch(records, pKey.asBytes());
+        if (result != null) {
+          // remember the use, such that the record is not evicted
+          newRecords.put(pKey, result);
+        }
+      }
+    }
+    return result;
+  }
+
+  void store(HashCode pKey, boolean pUnsat) {
+    newRecords.put(pKey, pUnsat);
+  }
+
+  private static MappedByteBuffer map(Path pFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE
+          || (size - HEADER_SIZE) % RECORD_SIZE != 0
+          || size > Integer.MAX_VALUE) {
+        throw new IOException("Invalid size of file " + pFile);
+      }
+      // the mapping stays valid after the channel is closed
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+      if (buffer.getLong(0) != MAGIC) {
+        throw new IOException("Unknown format of file " + pFile);
+      }
+      return buffer;
+    }
+  }
+
+  private static int recordCount(ByteBuffer pRecords) {
+    return (pRecords.limit() - HEADER_SIZE) / RECORD_SIZE;
+  }
+
+  private static int offset(int pIndex) {
+    return HEADER_SIZE + pIndex * RECORD_SIZE;
+  }
+
+  private static @Nullable Boolean binarySearch(ByteBuffer pRecords, byte[] pKey) {
+    int low = 0;
+    int high = recordCount(pRecords) - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int offset = offset(mid);
+      int cmp = compareKey(pRecords, offset, pKey);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return pRecords.get(offset + RESULT_OFFSET) != 0;
+      }
+    }
+    return null;
+  }
+
+  private static int compareKey(ByteBuffer pRecords, int pOffset, byte[] pKey) {
+    for (int i = 0; i < KEY_SIZE; i++) {
+      int cmp = UnsignedBytes.compare(pRecords.get(pOffset + i), pKey[i]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Write the results of this run, merged with the current content of the file. The store can
+   * still be used afterwards, and later results are written by the next flush.
+   */
+  synchronized void flush() {
+    if (newRecords.isEmpty()) {
+      return;
+    }
+
+    List<Map.Entry<byte[], Boolean>> flushed = new ArrayList<>(newRecords.size());
+    newRecords.forEach((key, unsat) -> flushed.add(Maps.immutableEntry(key.asBytes(), unsat)));
+    flushed.sort(Map.Entry.comparingByKey(KEY_ORDER));
+
+    try {
+      MoreFiles.createParentDirectories(file);
+      synchronized (writeLocks.computeIfAbsent(file, f -> new Object())) {
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        try (FileChannel lockChannel =
+            FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+          lockChannel.lock(); // released when the channel is closed
+          write(flushed);
+        }
+      }
+    } catch (IOException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not write results of satisfiability checks to file");
+      return;
+    }
+
+    // the new file contains all flushed records, so they are not needed in memory anymore
+    try {
+      storedRecords = map(file);
+      for (Map.Entry<byte[], Boolean> entry : flushed) {
+        newRecords.remove(HashCode.fromBytes(entry.getKey()), entry.getValue());
+      }
+    } catch (IOException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not read stored results of satisfiability checks");
+    }
+  }
+
+  /**
+   * Merge the current content of the file with the given sorted records and write the result to
+   * the file. Must be called while holding the lock of the file.
+   */
+  private void write(List<Map.Entry<byte[], Boolean>> pNewRecords) throws IOException {
+    // read the file again, it might have been extended by other processes in the meantime
+    ByteBuffer current = null;
+    if (Files.isReadable(file)) {
+      try {
+        current = map(file);
+      } catch (IOException e) {
+        logger.logUserException(
+            Level.WARNING, e, "Could not read stored results of satisfiability checks");
+      }
+    }
+    int now = clock.getAsInt();
+
+    // first pass: determine the timestamps of the merged records for eviction
+    Merge merge = new Merge(current, pNewRecords);
+    int[] times = new int[merge.fileCount + pNewRecords.size()];
+    int count = 0;
+    while (merge.next()) {
+      times[count++] = merge.fromFile() ? merge.fileTime() : now;
+    }
+    times = Arrays.copyOf(times, count);
+    int minTime = Integer.MIN_VALUE;
+    int tiesToKeep = Integer.MAX_VALUE;
+    if (times.length > maxRecords) {
+      // keep the maxRecords most recently used records,
+      // of those with the oldest kept timestamp the first ones in key order
+      Arrays.sort(times);
+      minTime = times[times.length - maxRecords];
+      int newer = 0;
+      for (int time : times) {
+        if (time > minTime) {
+          newer++;
+        }
+      }
+      tiesToKeep = maxRecords - newer;
+    }
+
+    // second pass: write the merged records
+    Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+        out.writeLong(MAGIC);
+        merge = new Merge(current, pNewRecords);
+        while (merge.next()) {
+          int time = merge.fromFile() ? merge.fileTime() : now;
+          if (time < minTime || (time == minTime && tiesToKeep-- <= 0)) {
+            continue; // evicted
+          }
+          if (merge.fromFile()) {
+            int offset = offset(merge.fileIndex);
+            for (int i = 0; i < KEY_SIZE; i++) {
+              out.writeByte(current.get(offset + i));
+            }
+            out.writeBoolean(current.get(offset + RESULT_OFFSET) != 0);
+          } else {
+            Map.Entry<byte[], Boolean> record = pNewRecords.get(merge.newIndex);
+            out.write(record.getKey());
+            out.writeBoolean(record.getValue());
+          }
+          out.writeInt(time);
+        }
+      }
+      Files.move(
+          tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  /**
+   * Iteration over the union of the sorted records of the file and the sorted new records. If a
+   * key is contained in both, only the new record is visited.
+   */
+  private static final class Merge {
+
+    private final @Nullable ByteBuffer file;
+    private final List<Map.Entry<byte[], Boolean>> newRecords;
+    private final int fileCount;
+
+    // position of the next unvisited record in each sequence
+    private int nextFile = 0;
+    private int nextNew = 0;
+
+    // current record, i.e., index of the record in the file or in the new records (other is -1)
+    private int fileIndex = -1;
+    private int newIndex = -1;
+
+    private Merge(@Nullable ByteBuffer pFile, List<Map.Entry<byte[], Boolean>> pNewRecords) {
+      file = pFile;
+      newRecords = pNewRecords;
+      fileCount = pFile == null ? 0 : recordCount(pFile);
+    }
+
+    private boolean next() {
+      fileIndex = -1;
+      newIndex = -1;
+      if (nextFile < fileCount && nextNew < newRecords.size()) {
+        int cmp = compareKey(file, offset(nextFile), newRecords.get(nextNew).getKey());
+        if (cmp < 0) {
+          fileIndex = nextFile++;
+        } else {
+          if (cmp == 0) {
+            nextFile++; // overridden by the new record
+          }
+          newIndex = nextNew++;
+        }
+      } else if (nextFile < fileCount) {
+        fileIndex = nextFile++;
+      } else if (nextNew < newRecords.size()) {
+        newIndex = nextNew++;
+      }
+      return fileIndex >= 0 || newIndex >= 0;
+    }
+
+    private boolean fromFile() {
+      return fileIndex >= 0;
+    }
+
+    private int fileTime() {
+      return file.getInt(offset(fileIndex) + TIME_OFFSET);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.hash.HashCode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.log.LogManager;
+
+public class PersistentQueryStoreTest {
+
+  private static final LogManager logger = LogManager.createTestLogManager();
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final AtomicInteger clock = new AtomicInteger(0);
+
+  private Path file() {
+    return tempFolder.getRoot().toPath().resolve("queries.bin");
+  }
+
+  private PersistentQueryStore open(int pMaxRecords) {
+    return PersistentQueryStore.openUnshared(file(), pMaxRecords, clock::get, logger);
+  }
+
+  private static HashCode key(int i) {
+    return PersistentQueryStore.hash("query " + i);
+  }
+
+  @Test
+  public void roundTrip() {
+    PersistentQueryStore store = open(100);
+    store.store(key(1), true);
+    store.store(key(2), false);
+    assertThat(store.lookup(key(1))).isTrue();
+    store.flush();
+
+    // still usable after a flush
+    assertThat(store.lookup(key(2))).isFalse();
+    store.store(key(3), true);
+    store.flush();
+
+    PersistentQueryStore reopened = open(100);
+    assertThat(reopened.lookup(key(1))).isTrue();
+    assertThat(reopened.lookup(key(2))).isFalse();
+    assertThat(reopened.lookup(key(3))).isTrue();
+    assertThat(reopened.lookup(key(4))).isNull();
+  }
+
+  @Test
+  public void newResultOverridesStoredResult() {
+    PersistentQueryStore store = open(100);
+    store.store(key(1), true);
+    store.flush();
+
+    PersistentQueryStore other = open(100);
+    other.store(key(1), false);
+    other.flush();
+
+    assertThat(open(100).lookup(key(1))).isFalse();
+  }
+
+  @Test
+  public void sharedStorePerFile() {
+    PersistentQueryStore store = PersistentQueryStore.open(file(), 100, logger);
+    Path sameFile = file().getParent().resolve(".").resolve("queries.bin");
+    assertThat(PersistentQueryStore.open(sameFile, 1, logger)).isSameInstanceAs(store);
+    store.close();
+    store.close();
+  }
+
+  @Test
+  public void sharedStoreReleasedByLastUser() {
+    PersistentQueryStore store = PersistentQueryStore.open(file(), 100, logger);
+    PersistentQueryStore other = PersistentQueryStore.open(file(), 100, logger);
+    assertThat(other).isSameInstanceAs(store);
+
+    // still open for the other user, and its results are written
+    store.store(key(1), true);
+    store.close();
+    assertThat(open(100).lookup(key(1))).isTrue();
+    assertThat(PersistentQueryStore.open(file(), 100, logger)).isSameInstanceAs(store);
+    other.close();
+
+    other.store(key(2), false);
+    other.close();
+    assertThrows(IllegalStateException.class, other::close);
+
+    // the released store is not returned anymore, a new one reads the file
+    PersistentQueryStore reopened = PersistentQueryStore.open(file(), 100, logger);
+    assertThat(reopened).isNotSameInstanceAs(store);
+    assertThat(reopened.lookup(key(1))).isTrue();
+    assertThat(reopened.lookup(key(2))).isFalse();
+    reopened.close();
+  }
+
+  @Test(timeout = 60000)
+  public void concurrentFlushLosesNothing() throws Exception {
+    final int stores = 4;
+    final int recordsPerStore = 200;
+    ExecutorService executor = Executors.newFixedThreadPool(stores);
+    try {
+      CyclicBarrier barrier = new CyclicBarrier(stores);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int s = 0; s < stores; s++) {
+        final int first = s * recordsPerStore;
+        futures.add(
+            executor.submit(
+                () -> {
+                  // like separate processes, each with their own store for the file
+                  PersistentQueryStore store = open(Integer.MAX_VALUE);
+                  for (int i = first; i < first + recordsPerStore; i++) {
+                    store.store(key(i), i % 2 == 0);
+                    if (i % 50 == 0) {
+                      barrier.await();
+                      store.flush();
+                    }
+                  }
+                  store.flush();
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    PersistentQueryStore reopened = open(Integer.MAX_VALUE);
+    for (int i = 0; i < stores * recordsPerStore; i++) {
+      assertThat(reopened.lookup(key(i))).isEqualTo(i % 2 == 0);
+    }
+  }
+
+  @Test
+  public void leastRecentlyUsedRecordsAreEvicted() {
+    PersistentQueryStore store = open(2);
+    clock.set(1);
+    store.store(key(1), true);
+    store.flush();
+    clock.set(2);
+    store.store(key(2), true);
+    store.flush();
+
+    // using the older record in a later run keeps it in the file
+    PersistentQueryStore laterRun = open(2);
+    clock.set(3);
+    assertThat(laterRun.lookup(key(1))).isTrue();
+    laterRun.store(key(3), true);
+    laterRun.flush();
+
+    PersistentQueryStore reopened = open(2);
+    assertThat(reopened.lookup(key(1))).isTrue();
+    assertThat(reopened.lookup(key(2))).isNull();
+    assertThat(reopened.lookup(key(3))).isTrue();
+  }
+}
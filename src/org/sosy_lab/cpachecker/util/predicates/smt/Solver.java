@@ -28,17 +28,27 @@ import static org.sosy_lab.java_smt.api.SolverContext.ProverOptions.GENERATE_UNS
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Verify;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.SetMultimap;
+import com.google.common.hash.HashCode;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.OptionalInt;
 import java.util.Set;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -102,6 +112,42 @@ public final class Solver implements AutoCloseable {
               + "otherwise nothing is logged from the solver.")
   private boolean enableLoggingInSolver = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Additionally cache the results of satisfiability and implication checks"
+              + " for formulas with consistently renamed SSA indices, such that"
+              + " a query is answered without the solver if an equivalent query"
+              + " with shifted indices was checked before by any component"
+              + " that uses this solver.")
+  private boolean canonicalQueryCache = false;
+
+  @Option(
+      secure = true,
+      description =
+          "Maximum number of entries in the cache for canonicalized queries"
+              + " (least recently used entries are evicted first).")
+  @IntegerOption(min = 1)
+  private int canonicalQueryCacheSize = 100000;
+
+  @Option(
+      description =
+          "File for storing the results of satisfiability and implication checks"
+              + " across runs. Queries are identified by their SMTLIB representation"
+              + " with normalized SSA indices. Results from previous runs are reused,"
+              + " and the results of this run are added to the file."
+              + " Note that every query that is not answered by the in-memory caches"
+              + " needs to be dumped and hashed for the lookup.")
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path queryStore = null;
+
+  @Option(
+      description =
+          "Maximum number of results in solver.queryStore"
+              + " (least recently used results are evicted first).")
+  @IntegerOption(min = 1)
+  private int queryStoreSize = 1000000;
+
   private final @Nullable UFCheckingProverOptions ufCheckingProverOptions;
 
   private final FormulaManagerView fmgr;
@@ -125,6 +171,15 @@ public final class Solver implements AutoCloseable {
   private final Map<Object, Map<Set<BooleanFormula>, Boolean>>
       groupedUnsatCache = new HashMap<>();
 
+  /**
+   * Unsat cache keyed by formulas whose SSA indices were renamed to 1..n for each variable (see
+   * {@link #canonicalize(BooleanFormula)}). Formulas are hash-consed by the solver, so structurally
+   * equal canonical formulas are equal objects. Null if disabled.
+   */
+  private final @Nullable Cache<BooleanFormula, Boolean> canonicalUnsatCache;
+
+  private final @Nullable PersistentQueryStore persistentQueryStore;
+
   private final LogManager logger;
 
   // stats
@@ -132,6 +187,9 @@ public final class Solver implements AutoCloseable {
   public int satChecks = 0;
   public int trivialSatChecks = 0;
   public int cachedSatChecks = 0;
+  public int canonicalCachedSatChecks = 0;
+  public int storedSatChecks = 0;
+  public final Timer queryStoreTime = new Timer();
 
   private Solver(
       Configuration config,
@@ -139,6 +197,7 @@ public final class Solver implements AutoCloseable {
       ShutdownNotifier shutdownNotifier)
       throws InvalidConfigurationException {
     config.inject(this);
+    canonicalUnsatCache = createCanonicalUnsatCache();
 
     if (enableLoggingInSolver) {
       logger = pLogger;
@@ -175,6 +234,12 @@ public final class Solver implements AutoCloseable {
     } else {
       ufCheckingProverOptions = null;
     }
+
+    // opened last, such that a failing constructor does not keep the store open
+    persistentQueryStore =
+        queryStore != null
+            ? PersistentQueryStore.open(queryStore, queryStoreSize, pLogger)
+            : null;
   }
 
   /**
@@ -193,6 +258,7 @@ public final class Solver implements AutoCloseable {
       LogManager pLogger)
       throws InvalidConfigurationException {
     pConfig.inject(this);
+    canonicalUnsatCache = createCanonicalUnsatCache();
 
     if (solver.equals(interpolationSolver)) {
       // If interpolationSolver is not null, we use SeparateInterpolatingProverEnvironment
@@ -220,6 +286,19 @@ public final class Solver implements AutoCloseable {
     } else {
       ufCheckingProverOptions = null;
     }
+
+    // opened last, such that a failing constructor does not keep the store open
+    persistentQueryStore =
+        queryStore != null
+            ? PersistentQueryStore.open(queryStore, queryStoreSize, pLogger)
+            : null;
+  }
+
+  private @Nullable Cache<BooleanFormula, Boolean> createCanonicalUnsatCache() {
+    if (!canonicalQueryCache) {
+      return null;
+    }
+    return CacheBuilder.newBuilder().maximumSize(canonicalQueryCacheSize).build();
   }
 
   /**
@@ -377,9 +456,48 @@ public final class Solver implements AutoCloseable {
 
     solverTime.start();
     try {
+      BooleanFormula canonical = null;
+      if (canonicalUnsatCache != null || persistentQueryStore != null) {
+        canonical = canonicalize(f);
+      }
+      if (canonicalUnsatCache != null) {
+        result = canonicalUnsatCache.getIfPresent(canonical);
+        if (result != null) {
+          cachedSatChecks++;
+          canonicalCachedSatChecks++;
+          unsatCache.put(f, result);
+          return result;
+        }
+      }
+      HashCode storeKey = null;
+      if (persistentQueryStore != null) {
+        queryStoreTime.start();
+        try {
+          storeKey = PersistentQueryStore.hash(fmgr.dumpFormula(canonical).toString());
+          result = persistentQueryStore.lookup(storeKey);
+        } finally {
+          queryStoreTime.stop();
+        }
+        if (result != null) {
+          cachedSatChecks++;
+          storedSatChecks++;
+          unsatCache.put(f, result);
+          if (canonicalUnsatCache != null) {
+            canonicalUnsatCache.put(canonical, result);
+          }
+          return result;
+        }
+      }
+
       result = isUnsatUncached(f);
 
       unsatCache.put(f, result);
+      if (canonicalUnsatCache != null) {
+        canonicalUnsatCache.put(canonical, result);
+      }
+      if (storeKey != null) {
+        persistentQueryStore.store(storeKey, result);
+      }
       return result;
 
     } finally {
@@ -387,6 +505,49 @@ public final class Solver implements AutoCloseable {
     }
   }
 
+  /**
+   * Rename the SSA indices of all variables and UFs in a formula such that for each name, the
+   * occurring indices are replaced by 1..n in ascending order. This renaming is injective, so the
+   * result is equisatisfiable to the input, and formulas that differ only by a consistent shift of
+   * indices (e.g., the same query for a different loop iteration) have the same canonical form.
+   */
+  @VisibleForTesting
+  BooleanFormula canonicalize(BooleanFormula f) {
+    SetMultimap<String, Integer> indices = HashMultimap.create();
+    for (String name : fmgr.extractFunctionNames(f)) {
+      OptionalInt index = parseIndex(name);
+      if (index.isPresent()) {
+        indices.put(FormulaManagerView.parseName(name).getFirst(), index.getAsInt());
+      }
+    }
+
+    Map<String, String> renaming = new HashMap<>();
+    for (String name : indices.keySet()) {
+      int newIndex = 1;
+      for (int oldIndex : Ordering.natural().sortedCopy(indices.get(name))) {
+        if (oldIndex != newIndex) {
+          renaming.put(
+              FormulaManagerView.makeName(name, oldIndex),
+              FormulaManagerView.makeName(name, newIndex));
+        }
+        newIndex++;
+      }
+    }
+    if (renaming.isEmpty()) {
+      return f;
+    }
+    return fmgr.renameFreeVariablesAndUFs(f, name -> renaming.getOrDefault(name, name));
+  }
+
+  private static OptionalInt parseIndex(String name) {
+    try {
+      return FormulaManagerView.parseName(name).getSecond();
+    } catch (IllegalArgumentException e) {
+      // names with several index separators are not SSA-indexed, leave them unchanged
+      return OptionalInt.empty();
+    }
+  }
+
   /**
    * Unsatisfiability check with more complex cache look up,
    * optionally based on unsat core.
@@ -527,6 +688,11 @@ public final class Solver implements AutoCloseable {
    */
   @Override
   public void close() {
+    if (persistentQueryStore != null) {
+      // the store is shared with other solvers, it is released when all of them are closed
+      persistentQueryStore.close();
+    }
+
     // Reliably close both formula managers and re-throw exceptions,
     // such that no exception gets lost and both managers get closed.
     // Taken from https://stackoverflow.com/questions/24705055/wrapping-multiple-autocloseables
@@ -579,5 +745,8 @@ public final class Solver implements AutoCloseable {
     }
 
     unsatCache.put(unsat, true);
+    if (canonicalUnsatCache != null) {
+      canonicalUnsatCache.put(canonicalize(unsat), true);
+    }
   }
 }
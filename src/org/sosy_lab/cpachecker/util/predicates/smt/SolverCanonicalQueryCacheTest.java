@@ -0,0 +1,212 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2020  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/** Tests for the cache of {@link Solver} for queries with canonicalized SSA indices. */
+@SuppressFBWarnings("NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
+public class SolverCanonicalQueryCacheTest extends SolverViewBasedTest0 {
+
+  @Override
+  protected ConfigurationBuilder createTestConfigBuilder() {
+    return super.createTestConfigBuilder().setOption("solver.canonicalQueryCache", "true");
+  }
+
+  private IntegerFormula var(String name, int index) {
+    return mgrv.makeVariable(FormulaType.IntegerType, name, index);
+  }
+
+  private IntegerFormula uf(String name, int index, IntegerFormula arg) {
+    return mgrv.getFunctionFormulaManager()
+        .declareAndCallUninterpretedFunction(name, index, FormulaType.IntegerType, arg);
+  }
+
+  private BooleanFormula greater(IntegerFormula a, IntegerFormula b) {
+    return imgrv.greaterThan(a, b);
+  }
+
+  /** x@i > x@j, x@j > x@k, x@k > x@i: unsatisfiable for distinct indices. */
+  private BooleanFormula cycle(int i, int j, int k) {
+    return bmgrv.and(
+        greater(var("x", i), var("x", j)),
+        greater(var("x", j), var("x", k)),
+        greater(var("x", k), var("x", i)));
+  }
+
+  @Test
+  public void testShiftedQueriesHitCache() throws SolverException, InterruptedException {
+    assertThat(solver.isUnsat(cycle(2, 3, 4))).isTrue();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(0);
+
+    assertThat(solver.isUnsat(cycle(7, 8, 9))).isTrue();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(1);
+
+    // gaps between the indices are closed, too
+    assertThat(solver.isUnsat(cycle(10, 20, 30))).isTrue();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(2);
+
+    BooleanFormula sat = greater(var("x", 2), var("x", 3));
+    assertThat(solver.isUnsat(sat)).isFalse();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(2);
+    assertThat(solver.isUnsat(greater(var("x", 5), var("x", 9)))).isFalse();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(3);
+  }
+
+  @Test
+  public void testShiftedImplicationsHitCache() throws SolverException, InterruptedException {
+    BooleanFormula chain =
+        bmgrv.and(greater(var("x", 2), var("x", 3)), greater(var("x", 3), var("x", 4)));
+    assertThat(solver.implies(chain, greater(var("x", 2), var("x", 4)))).isTrue();
+
+    BooleanFormula shiftedChain =
+        bmgrv.and(greater(var("x", 5), var("x", 6)), greater(var("x", 6), var("x", 7)));
+    assertThat(solver.implies(shiftedChain, greater(var("x", 5), var("x", 7)))).isTrue();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(1);
+
+    // same variables, but the conclusion is not implied and must not be answered from the cache
+    assertThat(solver.implies(shiftedChain, greater(var("x", 7), var("x", 5)))).isFalse();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(1);
+  }
+
+  @Test
+  public void testMixedShiftsDoNotCollide() throws SolverException, InterruptedException {
+    // x@2 = x@3 is renamed to x@1 = x@2, and x@2 = x@4 & x@3 > 0 to x@1 = x@3 & x@2 > 0
+    BooleanFormula equal = imgrv.equal(var("x", 2), var("x", 3));
+    BooleanFormula mixed =
+        bmgrv.and(imgrv.equal(var("x", 2), var("x", 4)), greater(var("x", 3), imgrv.makeNumber(0)));
+    assertThat(solver.canonicalize(mixed)).isNotEqualTo(solver.canonicalize(equal));
+
+    // a cycle over x@2, x@3, x@4 is unsat, but the same shape over x@2, x@3, x@5
+    // with x@4 in another position is sat
+    assertThat(solver.isUnsat(cycle(2, 3, 4))).isTrue();
+    BooleanFormula notACycle =
+        bmgrv.and(
+            greater(var("x", 2), var("x", 3)),
+            greater(var("x", 3), var("x", 5)),
+            greater(var("x", 4), var("x", 2)));
+    assertThat(solver.canonicalize(notACycle)).isNotEqualTo(solver.canonicalize(cycle(2, 3, 4)));
+    assertThat(solver.isUnsat(notACycle)).isFalse();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(0);
+  }
+
+  @Test
+  public void testVariablesAreRenamedSeparately() throws SolverException, InterruptedException {
+    // indices are renamed per name, so x@3 & y@7 becomes x@1 & y@1
+    BooleanFormula f = greater(var("x", 3), var("y", 7));
+    assertThat(solver.canonicalize(f)).isEqualTo(greater(var("x", 1), var("y", 1)));
+
+    // but x@3 > x@7 must not become x@1 > x@1
+    BooleanFormula g = greater(var("x", 3), var("x", 7));
+    assertThat(solver.canonicalize(g)).isEqualTo(greater(var("x", 1), var("x", 2)));
+    assertThat(solver.isUnsat(g)).isFalse();
+  }
+
+  @Test
+  public void testUFsAreRenamedConsistently() throws SolverException, InterruptedException {
+    // f@3(x@3) = 1 & f@3(x@4) = 2 & x@3 = x@4 is unsat
+    BooleanFormula f =
+        bmgrv.and(
+            imgrv.equal(uf("f", 3, var("x", 3)), imgrv.makeNumber(1)),
+            imgrv.equal(uf("f", 3, var("x", 4)), imgrv.makeNumber(2)),
+            imgrv.equal(var("x", 3), var("x", 4)));
+    BooleanFormula expected =
+        bmgrv.and(
+            imgrv.equal(uf("f", 1, var("x", 1)), imgrv.makeNumber(1)),
+            imgrv.equal(uf("f", 1, var("x", 2)), imgrv.makeNumber(2)),
+            imgrv.equal(var("x", 1), var("x", 2)));
+    assertThat(solver.canonicalize(f)).isEqualTo(expected);
+    assertThat(solver.isUnsat(f)).isTrue();
+
+    // two different UF instances stay different, so this is sat
+    BooleanFormula g =
+        bmgrv.and(
+            imgrv.equal(uf("f", 5, var("x", 6)), imgrv.makeNumber(1)),
+            imgrv.equal(uf("f", 6, var("x", 7)), imgrv.makeNumber(2)),
+            imgrv.equal(var("x", 6), var("x", 7)));
+    assertThat(solver.isUnsat(g)).isFalse();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(0);
+
+    BooleanFormula shifted =
+        bmgrv.and(
+            imgrv.equal(uf("f", 9, var("x", 8)), imgrv.makeNumber(1)),
+            imgrv.equal(uf("f", 9, var("x", 9)), imgrv.makeNumber(2)),
+            imgrv.equal(var("x", 8), var("x", 9)));
+    assertThat(solver.isUnsat(shifted)).isTrue();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(1);
+  }
+
+  @Test
+  public void testNamesWithoutIndexAreKept() throws SolverException, InterruptedException {
+    IntegerFormula unindexed = imgrv.makeVariable("y");
+    IntegerFormula twoSeparators1 = mgrv.makeVariable(FormulaType.IntegerType, "a@1@2");
+    IntegerFormula twoSeparators2 = mgrv.makeVariable(FormulaType.IntegerType, "a@3@4");
+    IntegerFormula noNumber = mgrv.makeVariable(FormulaType.IntegerType, "b@c");
+
+    BooleanFormula f =
+        bmgrv.and(
+            greater(twoSeparators1, twoSeparators2),
+            greater(noNumber, unindexed),
+            greater(var("x", 5), unindexed));
+    BooleanFormula expected =
+        bmgrv.and(
+            greater(twoSeparators1, twoSeparators2),
+            greater(noNumber, unindexed),
+            greater(var("x", 1), unindexed));
+    assertThat(solver.canonicalize(f)).isEqualTo(expected);
+
+    BooleanFormula onlyUnparsable = greater(twoSeparators1, twoSeparators2);
+    assertThat(solver.canonicalize(onlyUnparsable)).isSameInstanceAs(onlyUnparsable);
+
+    // a@1@2 > a@3@4 is not a shift of a@3@4 > a@1@2
+    assertThat(solver.isUnsat(bmgrv.and(onlyUnparsable, greater(twoSeparators2, twoSeparators1))))
+        .isTrue();
+    assertThat(solver.isUnsat(greater(twoSeparators2, twoSeparators1))).isFalse();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(0);
+  }
+
+  @Test
+  public void testAddUnsatisfiableFormulaToCache() throws SolverException, InterruptedException {
+    solver.addUnsatisfiableFormulaToCache(cycle(2, 3, 4));
+    assertThat(solver.isUnsat(cycle(2, 3, 4))).isTrue();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(0);
+
+    assertThat(solver.isUnsat(cycle(5, 6, 7))).isTrue();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(1);
+
+    // a satisfiable query with the same variables is still checked by the solver
+    BooleanFormula sat =
+        bmgrv.and(greater(var("x", 5), var("x", 6)), greater(var("x", 6), var("x", 7)));
+    assertThat(solver.isUnsat(sat)).isFalse();
+    assertThat(solver.canonicalCachedSatChecks).isEqualTo(1);
+  }
+}
@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.util.test;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import org.sosy_lab.common.ShutdownManager;
@@ -35,6 +36,7 @@ import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.StringBuildingLogHandler;
 import org.sosy_lab.cpachecker.core.CPAchecker;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 
 /**
  * Helper class for running CPA tests.
@@ -68,4 +70,29 @@ public class CPATestRunner {
     logger.flush();
     return new TestResults(stringLogHandler.getLog(), results);
   }
+
+  /**
+   * Run the analysis once for each of the given values of an option, and check that each run has
+   * the expected result. This is useful for checking that an option for an optimization does not
+   * change the verdict.
+   *
+   * @return the results of the runs, in the order of the values
+   */
+  public static ImmutableList<TestResults> runForEachValue(
+      Configuration pConfig,
+      String pOption,
+      List<String> pValues,
+      String pSourceCodeFilePath,
+      Result pExpected)
+      throws Exception {
+    ImmutableList.Builder<TestResults> results = ImmutableList.builder();
+    for (String value : pValues) {
+      Configuration config =
+          Configuration.builder().copyFrom(pConfig).setOption(pOption, value).build();
+      TestResults result = run(config, pSourceCodeFilePath);
+      result.assertIs(pExpected);
+      results.add(result);
+    }
+    return results.build();
+  }
 }
@@ -0,0 +1,17 @@
+int g(int a) {
+	return a + 1;
+}
+
+int f() {
+	int x;
+	x = 0;
+	return x;
+}
+
+int main() {
+	int y;
+	int z;
+	y = f();
+	z = g(y);
+	return z;
+}
@@ -0,0 +1,20 @@
+int g(int a) {
+	int b;
+	b = a;
+	b = b + 2;
+	return b;
+}
+
+int f() {
+	int x;
+	x = 0;
+	return x;
+}
+
+int main() {
+	int y;
+	int z;
+	y = f();
+	z = g(y);
+	return z;
+}
@@ -0,0 +1,11 @@
+int main() {
+  int i = 0;
+  while (i < 5) {
+    i++;
+    if (i == 3) {
+ERROR:
+      return 1;
+    }
+  }
+  return 0;
+}
@@ -0,0 +1,14 @@
+extern int __VERIFIER_nondet_int();
+
+int main() {
+  int x = __VERIFIER_nondet_int();
+  int i = 0;
+  while (i < 5) {
+    i++;
+    if (x < 0 && x == i) {
+ERROR:
+      return 1;
+    }
+  }
+  return 0;
+}
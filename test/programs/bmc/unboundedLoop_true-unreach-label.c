@@ -0,0 +1,13 @@
+extern int __VERIFIER_nondet_int();
+
+int main() {
+  int x = 0;
+  while (__VERIFIER_nondet_int()) {
+    x = -x;
+    if (x != 0) {
+ERROR:
+      return 1;
+    }
+  }
+  return 0;
+}